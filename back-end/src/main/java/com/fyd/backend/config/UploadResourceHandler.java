@@ -0,0 +1,231 @@
+package com.fyd.backend.config;
+
+import com.fyd.backend.util.ConditionalGet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Serves /uploads/** (product images, avatars) instead of the default resource handler.
+ * Content-addressed files (named by SHA-256, see ProductImageService) are sent as immutable
+ * for a year; anything else revalidates with ETag/Last-Modified. Single byte ranges are
+ * honored. Small files are kept in an LRU in memory; large ones go out with Tomcat's
+ * sendfile (zero-copy) when the connector supports it.
+ */
+@Component
+public class UploadResourceHandler implements HttpRequestHandler {
+
+    // <sha-256>.<ext> originals and <sha-256>_<width>.webp renditions never change once written
+    private static final Pattern CONTENT_ADDRESSED = Pattern.compile("[0-9a-f]{64}(_\\d+)?\\.[a-z0-9]+");
+    private static final String IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable().getHeaderValue();
+    private static final String REVALIDATE = ConditionalGet.REVALIDATE.getHeaderValue();
+
+    // Same threshold as Tomcat's DefaultServlet: below it a plain write is cheaper than sendfile
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final Path root;
+    private final long maxCachedFileBytes;
+    private final long cacheBytes;
+
+    // Access-ordered for LRU eviction; guarded by `this`
+    private final LinkedHashMap<Path, CachedFile> hotFiles = new LinkedHashMap<>(256, 0.75f, true);
+    private long hotBytes;
+
+    public UploadResourceHandler(@Value("${file.upload-dir:uploads}") String uploadDir,
+                                 @Value("${app.uploads.max-cached-file-bytes:131072}") long maxCachedFileBytes,
+                                 @Value("${app.uploads.cache-bytes:33554432}") long cacheBytes) {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.maxCachedFileBytes = maxCachedFileBytes;
+        this.cacheBytes = cacheBytes;
+    }
+
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean head = "HEAD".equals(request.getMethod());
+        if (!head && !"GET".equals(request.getMethod())) {
+            response.setHeader(HttpHeaders.ALLOW, "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        String relative = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        Path file = relative != null ? root.resolve(relative).normalize() : null;
+        if (file == null || !file.startsWith(root) || file.equals(root)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!attributes.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        String name = file.getFileName().toString();
+
+        response.setContentType(contentType(request, name));
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CONTENT_ADDRESSED.matcher(name).matches() ? IMMUTABLE : REVALIDATE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && ifRangeMatches(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                // Malformed Range headers are ignored (RFC 9110 14.2)
+                ranges = List.of();
+            }
+            // Browsers and players ask for one range; multipart/byteranges is not worth it for images
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    start = length;
+                }
+                // HttpRange does not check a first byte past the end of the file itself
+                if (start >= length || start > end) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (head || count <= 0) {
+            return;
+        }
+
+        if (length <= maxCachedFileBytes) {
+            byte[] bytes = cachedBytes(file, length, lastModified);
+            // A file replaced mid-request can be shorter than the length already announced
+            response.getOutputStream().write(bytes, (int) start, (int) Math.min(count, Math.max(0, bytes.length - start)));
+        } else if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat writes the file straight from the page cache to the socket after we return
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                OutputStream out = response.getOutputStream();
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = start;
+                long remaining = count;
+                while (remaining > 0) {
+                    long sent = channel.transferTo(position, remaining, target);
+                    if (sent <= 0) break;
+                    position += sent;
+                    remaining -= sent;
+                }
+            }
+        }
+    }
+
+    private byte[] cachedBytes(Path file, long length, long lastModified) throws IOException {
+        synchronized (this) {
+            CachedFile cached = hotFiles.get(file);
+            if (cached != null && cached.length == length && cached.lastModified == lastModified) {
+                return cached.bytes;
+            }
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length != length) {
+            // Replaced between stat and read: serve it, but don't cache a mismatched entry
+            return bytes;
+        }
+        synchronized (this) {
+            CachedFile previous = hotFiles.put(file, new CachedFile(bytes, length, lastModified));
+            hotBytes += bytes.length - (previous != null ? previous.bytes.length : 0);
+            Iterator<Map.Entry<Path, CachedFile>> eldest = hotFiles.entrySet().iterator();
+            while (hotBytes > cacheBytes && eldest.hasNext()) {
+                hotBytes -= eldest.next().getValue().bytes.length;
+                eldest.remove();
+            }
+        }
+        return bytes;
+    }
+
+    // If-Range: apply the range only if the client's copy is still current
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String contentType(HttpServletRequest request, String name) {
+        String type = request.getServletContext().getMimeType(name);
+        if (type != null) {
+            return type;
+        }
+        return MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
+    private static final class CachedFile {
+        final byte[] bytes;
+        final long length;
+        final long lastModified;
+
+        CachedFile(byte[] bytes, long length, long lastModified) {
+            this.bytes = bytes;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -3,9 +3,14 @@ package com.fyd.backend.controller;
 import com.fyd.backend.dto.CategoryDTO;
 import com.fyd.backend.entity.Category;
 import com.fyd.backend.repository.CategoryRepository;
+import com.fyd.backend.service.catalog.CatalogVersionService;
+import com.fyd.backend.service.catalog.CategoryTree;
+import com.fyd.backend.service.catalog.CategoryTreeService;
+import com.fyd.backend.util.ConditionalGet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -18,38 +23,44 @@ public class CategoryController {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private CategoryTreeService categoryTreeService;
+
+    /**
+     * Active categories as a nested tree of any depth, with the path from the root and
+     * active product counts (own and subtree) on every node. Served from memory.
+     */
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getCategories() {
-        List<Category> rootCategories = categoryRepository.findRootCategories();
-        List<Map<String, Object>> result = new ArrayList<>();
-        
-        for (Category root : rootCategories) {
-            Map<String, Object> cat = categoryToMap(root);
-            List<Category> children = categoryRepository.findByParentId(root.getId());
-            cat.put("children", children.stream()
-                .map(this::categoryToMap)
-                .collect(Collectors.toList()));
-            result.add(cat);
-        }
-        
-        return ResponseEntity.ok(result);
+    public ResponseEntity<List<Map<String, Object>>> getCategories(WebRequest webRequest) {
+        CategoryTree tree = categoryTreeService.getTree();
+        return ConditionalGet.respond(webRequest,
+            catalogVersionService.etag(CatalogVersionService.CATEGORIES, tree.getVersion()),
+            ConditionalGet.REVALIDATE, () -> ResponseEntity.ok(tree.getRoots()));
     }
 
     @GetMapping("/flat")
-    public ResponseEntity<List<Map<String, Object>>> getCategoriesFlat() {
-        List<Category> categories = categoryRepository.findAllActive();
-        List<Map<String, Object>> result = categories.stream()
-            .map(this::categoryToMap)
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(result);
+    public ResponseEntity<List<Map<String, Object>>> getCategoriesFlat(WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, catalogVersionService.etag(CatalogVersionService.CATEGORIES),
+            ConditionalGet.REVALIDATE, () -> {
+                List<Category> categories = categoryRepository.findAllActive();
+                List<Map<String, Object>> result = categories.stream()
+                    .map(this::categoryToMap)
+                    .collect(Collectors.toList());
+                return ResponseEntity.ok(result);
+            });
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getCategory(@PathVariable Long id) {
-        return categoryRepository.findById(id)
-            .map(this::categoryToMap)
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Map<String, Object>> getCategory(@PathVariable Long id, WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, catalogVersionService.etag(CatalogVersionService.CATEGORIES),
+            ConditionalGet.REVALIDATE,
+            () -> categoryRepository.findById(id)
+                .map(this::categoryToMap)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
     }
 
     @PostMapping
@@ -98,6 +109,11 @@ public class CategoryController {
                 if (dto.getStatus() != null) category.setStatus(dto.getStatus());
                 
                 if (dto.getParentId() != null) {
+                    // A category cannot move under itself or one of its descendants
+                    if (categoryTreeService.subtreeIds(id).contains(dto.getParentId())) {
+                        return ResponseEntity.badRequest().<Map<String, Object>>body(
+                            Map.of("success", false, "message", "Không thể chọn danh mục con làm danh mục cha"));
+                    }
                     categoryRepository.findById(dto.getParentId())
                         .ifPresent(category::setParent);
                 } else {
@@ -4,9 +4,12 @@ import com.fyd.backend.entity.Color;
 import com.fyd.backend.entity.Size;
 import com.fyd.backend.repository.ColorRepository;
 import com.fyd.backend.repository.SizeRepository;
+import com.fyd.backend.service.catalog.CatalogVersionService;
+import com.fyd.backend.util.ConditionalGet;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -21,22 +24,30 @@ public class ColorSizeController {
     @Autowired
     private SizeRepository sizeRepository;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
     // ==================== COLORS ====================
 
     @GetMapping("/colors")
-    public ResponseEntity<List<Map<String, Object>>> getColors() {
-        List<Map<String, Object>> colors = colorRepository.findAll().stream()
-            .map(this::colorToMap)
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(colors);
+    public ResponseEntity<List<Map<String, Object>>> getColors(WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, catalogVersionService.etag(CatalogVersionService.COLORS),
+            ConditionalGet.REVALIDATE, () -> {
+                List<Map<String, Object>> colors = colorRepository.findAll().stream()
+                    .map(this::colorToMap)
+                    .collect(Collectors.toList());
+                return ResponseEntity.ok(colors);
+            });
     }
 
     @GetMapping("/colors/{id}")
-    public ResponseEntity<Map<String, Object>> getColor(@PathVariable Long id) {
-        return colorRepository.findById(id)
-            .map(this::colorToMap)
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Map<String, Object>> getColor(@PathVariable Long id, WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, catalogVersionService.etag(CatalogVersionService.COLORS),
+            ConditionalGet.REVALIDATE,
+            () -> colorRepository.findById(id)
+                .map(this::colorToMap)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
     }
 
     @PostMapping("/colors")
@@ -84,19 +95,24 @@ public class ColorSizeController {
     // ==================== SIZES ====================
 
     @GetMapping("/sizes")
-    public ResponseEntity<List<Map<String, Object>>> getSizes() {
-        List<Map<String, Object>> sizes = sizeRepository.findAllOrdered().stream()
-            .map(this::sizeToMap)
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(sizes);
+    public ResponseEntity<List<Map<String, Object>>> getSizes(WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, catalogVersionService.etag(CatalogVersionService.SIZES),
+            ConditionalGet.REVALIDATE, () -> {
+                List<Map<String, Object>> sizes = sizeRepository.findAllOrdered().stream()
+                    .map(this::sizeToMap)
+                    .collect(Collectors.toList());
+                return ResponseEntity.ok(sizes);
+            });
     }
 
     @GetMapping("/sizes/{id}")
-    public ResponseEntity<Map<String, Object>> getSize(@PathVariable Long id) {
-        return sizeRepository.findById(id)
-            .map(this::sizeToMap)
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Map<String, Object>> getSize(@PathVariable Long id, WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, catalogVersionService.etag(CatalogVersionService.SIZES),
+            ConditionalGet.REVALIDATE,
+            () -> sizeRepository.findById(id)
+                .map(this::sizeToMap)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
     }
 
     @PostMapping("/sizes")
@@ -5,6 +5,7 @@ import com.fyd.backend.dto.OrderDTO;
 import com.fyd.backend.dto.ProfileStatsDTO;
 import com.fyd.backend.entity.Order;
 import com.fyd.backend.repository.*;
+import com.fyd.backend.service.OrderStatusCountService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +24,9 @@ public class DashboardController {
 
     @Autowired
     private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderStatusCountService orderStatusCountService;
     
     @Autowired
     private ProductVariantRepository variantRepository;
@@ -63,7 +67,7 @@ public class DashboardController {
         }
         
         // Pending orders
-        dashboard.setPendingOrders(orderRepository.countByStatus("PENDING"));
+        dashboard.setPendingOrders(orderStatusCountService.getCount("PENDING"));
         
         // Return rate (last 30 days)
         LocalDateTime last30Days = todayStart.minusDays(30);
@@ -173,9 +177,9 @@ public class DashboardController {
         BigDecimal totalRevenue = orderRepository.getRevenueFrom(from);
         if (totalRevenue == null) totalRevenue = BigDecimal.ZERO;
         
-        Long completedCount = orderRepository.countByStatus("DELIVERED") + orderRepository.countByStatus("COMPLETED");
-        Long shippingCount = orderRepository.countByStatus("SHIPPING");
-        Long pendingCount = orderRepository.countByStatus("PENDING");
+        Long completedCount = orderStatusCountService.getCount("DELIVERED") + orderStatusCountService.getCount("COMPLETED");
+        Long shippingCount = orderStatusCountService.getCount("SHIPPING");
+        Long pendingCount = orderStatusCountService.getCount("PENDING");
         
         Map<String, Object> response = new HashMap<>();
         response.put("chartData", chartData);
@@ -1,19 +1,19 @@
 package com.fyd.backend.controller;
 
 import com.fyd.backend.entity.FeaturedZone;
-import com.fyd.backend.entity.Product;
 import com.fyd.backend.repository.FeaturedZoneRepository;
-import com.fyd.backend.repository.ProductRepository;
+import com.fyd.backend.service.FeaturedZoneService;
+import com.fyd.backend.service.catalog.CatalogVersionService;
+import com.fyd.backend.util.ConditionalGet;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/featured-zones")
@@ -23,45 +23,53 @@ public class FeaturedZoneController {
     private FeaturedZoneRepository zoneRepository;
 
     @Autowired
-    private ProductRepository productRepository;
+    private FeaturedZoneService featuredZoneService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // Get all zones
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getAllZones() {
-        List<FeaturedZone> zones = zoneRepository.findAllByOrderByCreatedAtDesc();
-        List<Map<String, Object>> result = zones.stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(result);
+    public ResponseEntity<List<Map<String, Object>>> getAllZones(WebRequest webRequest) {
+        FeaturedZoneService.Rendered zones = featuredZoneService.getRendered();
+        return ConditionalGet.respond(webRequest, zonesEtag(zones), ConditionalGet.REVALIDATE,
+                () -> ResponseEntity.ok(zones.getAll()));
     }
 
     // Get single zone
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getZone(@PathVariable Long id) {
-        return zoneRepository.findById(id)
-                .map(zone -> ResponseEntity.ok(toDetailedDTO(zone)))
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Map<String, Object>> getZone(@PathVariable Long id, WebRequest webRequest) {
+        FeaturedZoneService.Rendered zones = featuredZoneService.getRendered();
+        return ConditionalGet.respond(webRequest, zonesEtag(zones), ConditionalGet.REVALIDATE,
+                () -> zones.findById(id)
+                        .map(ResponseEntity::ok)
+                        .orElse(ResponseEntity.notFound().build()));
     }
 
     // Get zone by slug (for frontend display)
     @GetMapping("/slug/{slug}")
-    public ResponseEntity<Map<String, Object>> getZoneBySlug(@PathVariable String slug) {
-        return zoneRepository.findBySlug(slug)
-                .filter(FeaturedZone::getIsActive)
-                .map(zone -> ResponseEntity.ok(toDetailedDTO(zone)))
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Map<String, Object>> getZoneBySlug(@PathVariable String slug, WebRequest webRequest) {
+        FeaturedZoneService.Rendered zones = featuredZoneService.getRendered();
+        return ConditionalGet.respond(webRequest, zonesEtag(zones), ConditionalGet.SHORT_LIVED,
+                () -> zones.findActiveBySlug(slug)
+                        .map(ResponseEntity::ok)
+                        .orElse(ResponseEntity.notFound().build()));
     }
 
-    // Get all active zones (for shop display)
+    // Get all active zones (for shop display); served from memory
     @GetMapping("/active")
-    public ResponseEntity<List<Map<String, Object>>> getActiveZones() {
-        List<FeaturedZone> zones = zoneRepository.findByIsActiveTrueOrderByCreatedAtDesc();
-        List<Map<String, Object>> result = zones.stream()
-                .map(this::toDetailedDTO)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(result);
+    public ResponseEntity<List<Map<String, Object>>> getActiveZones(WebRequest webRequest) {
+        FeaturedZoneService.Rendered zones = featuredZoneService.getRendered();
+        return ConditionalGet.respond(webRequest, zonesEtag(zones), ConditionalGet.SHORT_LIVED,
+                () -> ResponseEntity.ok(zones.getActive()));
+    }
+
+    // Zones embed product cards, so product changes bump this version too.
+    // The render version covers a render that happened after the client's copy.
+    private String zonesEtag(FeaturedZoneService.Rendered zones) {
+        return catalogVersionService.etag(CatalogVersionService.FEATURED_ZONES, zones.getVersion());
     }
 
     // Create zone
@@ -72,7 +80,7 @@ public class FeaturedZoneController {
         updateZoneFromRequest(zone, request);
         
         FeaturedZone saved = zoneRepository.save(zone);
-        return ResponseEntity.ok(toDetailedDTO(saved));
+        return ResponseEntity.ok(featuredZoneService.render(saved));
     }
 
     // Update zone
@@ -83,7 +91,7 @@ public class FeaturedZoneController {
                 .map(zone -> {
                     updateZoneFromRequest(zone, request);
                     FeaturedZone saved = zoneRepository.save(zone);
-                    return ResponseEntity.ok(toDetailedDTO(saved));
+                    return ResponseEntity.ok(featuredZoneService.render(saved));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -140,93 +148,4 @@ public class FeaturedZoneController {
             }
         }
     }
-
-    // Helper: Convert to simple DTO (for list)
-    private Map<String, Object> toDTO(FeaturedZone zone) {
-        Map<String, Object> dto = new HashMap<>();
-        dto.put("id", zone.getId());
-        dto.put("name", zone.getName());
-        dto.put("slug", zone.getSlug());
-        dto.put("position", zone.getPosition());
-        dto.put("isActive", zone.getIsActive());
-        
-        // Count products
-        int productCount = 0;
-        if (zone.getProductData() != null && !zone.getProductData().isEmpty()) {
-            try {
-                List<?> products = objectMapper.readValue(zone.getProductData(), List.class);
-                productCount = products.size();
-            } catch (JsonProcessingException ignored) {}
-        }
-        dto.put("products", Collections.nCopies(productCount, null)); // Just for count
-        
-        return dto;
-    }
-
-    // Helper: Convert to detailed DTO (with products)
-    private Map<String, Object> toDetailedDTO(FeaturedZone zone) {
-        Map<String, Object> dto = new HashMap<>();
-        dto.put("id", zone.getId());
-        dto.put("name", zone.getName());
-        dto.put("slug", zone.getSlug());
-        dto.put("position", zone.getPosition());
-        dto.put("isActive", zone.getIsActive());
-        
-        // Grid config
-        Map<String, Object> gridConfig = new HashMap<>();
-        gridConfig.put("columns", zone.getGridColumns());
-        gridConfig.put("gap", zone.getGridGap());
-        gridConfig.put("aspectRatio", zone.getGridAspectRatio());
-        dto.put("gridConfig", gridConfig);
-
-        // Products with full info
-        List<Map<String, Object>> products = new ArrayList<>();
-        if (zone.getProductData() != null && !zone.getProductData().isEmpty()) {
-            try {
-                List<Map<String, Object>> productData = objectMapper.readValue(
-                        zone.getProductData(),
-                        new TypeReference<List<Map<String, Object>>>() {}
-                );
-
-                for (int i = 0; i < productData.size(); i++) {
-                    Map<String, Object> pd = productData.get(i);
-                    Long productId = ((Number) pd.get("productId")).longValue();
-                    
-                    Optional<Product> productOpt = productRepository.findById(productId);
-                    if (productOpt.isPresent()) {
-                        Product p = productOpt.get();
-                        Map<String, Object> item = new HashMap<>();
-                        item.put("id", productId); // Use productId as stable ID
-                        item.put("productId", productId);
-                        item.put("position", pd.getOrDefault("position", i));
-                        item.put("customThumbnail", pd.get("customThumbnail"));
-                        
-                        Map<String, Object> productInfo = new HashMap<>();
-                        productInfo.put("id", p.getId());
-                        productInfo.put("name", p.getName());
-                        productInfo.put("price", p.getSalePrice() != null ? p.getSalePrice() : p.getBasePrice());
-                        
-                        // Get primary image
-                        String image = "/placeholder.jpg";
-                        if (p.getImages() != null && !p.getImages().isEmpty()) {
-                            image = p.getImages().stream()
-                                    .filter(img -> Boolean.TRUE.equals(img.getIsPrimary()))
-                                    .findFirst()
-                                    .orElse(p.getImages().get(0))
-                                    .getImageUrl();
-                        }
-                        productInfo.put("image", image);
-                        
-                        item.put("product", productInfo);
-                        products.add(item);
-                    }
-                }
-            } catch (JsonProcessingException e) {
-                e.printStackTrace();
-            }
-        }
-        dto.put("products", products);
-
-        return dto;
-    }
 }
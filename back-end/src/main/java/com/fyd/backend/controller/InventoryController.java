@@ -3,14 +3,22 @@ package com.fyd.backend.controller;
 import com.fyd.backend.dto.ProductDTO;
 import com.fyd.backend.dto.VariantDTO;
 import com.fyd.backend.entity.Product;
-import com.fyd.backend.entity.ProductVariant;
 import com.fyd.backend.repository.ProductRepository;
 import com.fyd.backend.repository.ProductVariantRepository;
+import com.fyd.backend.entity.InventoryMovement;
+import com.fyd.backend.service.InventoryLedgerService;
+import com.fyd.backend.service.InventoryListingService;
+import com.fyd.backend.service.StockReservationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,102 +32,45 @@ public class InventoryController {
     @Autowired
     private ProductVariantRepository variantRepository;
 
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private InventoryListingService inventoryListingService;
+
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    /**
+     * One page of variants with stock level, filtered and sorted in the database.
+     * "total", "lowCount" and "outCount" cover all variants regardless of filters.
+     */
     @GetMapping
     public ResponseEntity<Map<String, Object>> getInventory(
             @RequestParam(defaultValue = "") String q,
             @RequestParam(defaultValue = "all") String filter,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) Long sizeId,
-            @RequestParam(defaultValue = "stockAsc") String sort) {
-        
-        List<ProductVariant> variants = variantRepository.findAll();
-        
-        // Calculate counts for the original total variants before q/filter/categoryId
-        long lowCount = variants.stream().filter(v -> v.getStockQuantity() > 0 && v.getStockQuantity() <= 6).count();
-        long outCount = variants.stream().filter(v -> v.getStockQuantity() <= 0).count();
-        int totalOriginal = variants.size();
-
-        // 1. Filter by search query (q)
-        if (!q.isEmpty()) {
-            String query = q.toLowerCase();
-            variants = variants.stream()
-                .filter(v -> v.getSkuVariant().toLowerCase().contains(query) 
-                    || v.getProduct().getName().toLowerCase().contains(query)
-                    || (v.getProduct().getCategory() != null && v.getProduct().getCategory().getName().toLowerCase().contains(query)))
-                .collect(Collectors.toList());
-        }
-
-        // 2. Filter by category
-        if (categoryId != null) {
-            variants = variants.stream()
-                .filter(v -> v.getProduct().getCategory() != null && v.getProduct().getCategory().getId().equals(categoryId))
-                .collect(Collectors.toList());
-        }
-
-        // 3. Filter by size
-        if (sizeId != null) {
-            variants = variants.stream()
-                .filter(v -> v.getSize() != null && v.getSize().getId().equals(sizeId))
-                .collect(Collectors.toList());
-        }
-        
-        // 4. Filter by status (low/out)
-        if (filter.equals("low")) {
-            variants = variants.stream()
-                .filter(v -> v.getStockQuantity() > 0 && v.getStockQuantity() <= 6)
-                .collect(Collectors.toList());
-        } else if (filter.equals("out")) {
-            variants = variants.stream()
-                .filter(v -> v.getStockQuantity() <= 0)
-                .collect(Collectors.toList());
-        }
+            @RequestParam(defaultValue = "stockAsc") String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        InventoryListingService.Criteria criteria = new InventoryListingService.Criteria(q, filter, categoryId, sizeId, sort);
+        return ResponseEntity.ok(inventoryListingService.list(criteria, page, size));
+    }
 
-        // 4. Map to DTO-like maps
-        List<Map<String, Object>> items = variants.stream().map(v -> {
-            Map<String, Object> item = new HashMap<>();
-            item.put("id", v.getId());
-            item.put("sku", v.getSkuVariant() != null ? v.getSkuVariant() : v.getId().toString());
-            
-            String sizeName = v.getSize() != null ? v.getSize().getName() : "-";
-            String colorName = v.getColor() != null ? v.getColor().getName() : "-";
-            String fullName = v.getProduct().getName() + " - " + sizeName + " / " + colorName;
-            
-            item.put("name", fullName);
-            item.put("category", v.getProduct().getCategory() != null ? v.getProduct().getCategory().getName() : "N/A");
-            item.put("price", v.getProduct().getSalePrice() != null ? v.getProduct().getSalePrice() : v.getProduct().getBasePrice());
-            
-            int stock = v.getStockQuantity() != null ? v.getStockQuantity() : 0;
-            item.put("stock", stock);
-            
-            String stockStatus = stock <= 0 ? "out" : (stock <= 6 ? "low" : "ok");
-            item.put("stockStatus", stockStatus);
-            return item;
-        }).collect(Collectors.toList());
-
-        // 5. Apply sorting
-        switch (sort) {
-            case "stockDesc":
-                items.sort((a, b) -> ((Integer) b.get("stock")).compareTo((Integer) a.get("stock")));
-                break;
-            case "priceAsc":
-                items.sort((a, b) -> ((BigDecimal) a.get("price")).compareTo((BigDecimal) b.get("price")));
-                break;
-            case "priceDesc":
-                items.sort((a, b) -> ((BigDecimal) b.get("price")).compareTo((BigDecimal) a.get("price")));
-                break;
-            case "stockAsc":
-            default:
-                items.sort((a, b) -> ((Integer) a.get("stock")).compareTo((Integer) b.get("stock")));
-                break;
-        }
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("items", items);
-        response.put("total", totalOriginal);
-        response.put("lowCount", (int) lowCount);
-        response.put("outCount", (int) outCount);
-        
-        return ResponseEntity.ok(response);
+    /**
+     * The full sheet for the same filters, as a JSON array streamed from a database cursor.
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamInventory(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "all") String filter,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) Long sizeId,
+            @RequestParam(defaultValue = "stockAsc") String sort) {
+        InventoryListingService.Criteria criteria = new InventoryListingService.Criteria(q, filter, categoryId, sizeId, sort);
+        StreamingResponseBody body = out -> inventoryListingService.writeJson(criteria, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping("/low-stock")
@@ -138,29 +89,67 @@ public class InventoryController {
         return ResponseEntity.ok(variants);
     }
 
+    @GetMapping("/reservations/stats")
+    public ResponseEntity<Map<String, Object>> getReservationStats() {
+        return ResponseEntity.ok(stockReservationService.getStats());
+    }
+
+    /**
+     * Add to or take from a variant's stock. {@code type} is ADJUST (default) or RETURN
+     * for goods a customer sent back.
+     */
     @PatchMapping("/variant/{id}")
+    @Transactional
     public ResponseEntity<VariantDTO> updateVariantStock(
             @PathVariable Long id,
-            @RequestParam int quantity) {
-        return variantRepository.findById(id)
-            .map(variant -> {
-                variant.setStockQuantity(Math.max(0, variant.getStockQuantity() + quantity));
-                ProductVariant saved = variantRepository.save(variant);
-                return ResponseEntity.ok(VariantDTO.fromEntity(saved));
-            })
+            @RequestParam int quantity,
+            @RequestParam(defaultValue = InventoryLedgerService.ADJUST) String type,
+            @RequestParam(required = false) String reference) {
+        if (!InventoryLedgerService.MANUAL_TYPES.contains(type)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return stockReservationService.adjustStock(id, quantity, type, reference)
+            .map(variant -> ResponseEntity.ok(VariantDTO.fromEntity(variant)))
             .orElse(ResponseEntity.notFound().build());
     }
 
     @PutMapping("/variant/{id}/stock")
+    @Transactional
     public ResponseEntity<VariantDTO> setVariantStock(
             @PathVariable Long id,
             @RequestParam int stock) {
-        return variantRepository.findById(id)
-            .map(variant -> {
-                variant.setStockQuantity(Math.max(0, stock));
-                ProductVariant saved = variantRepository.save(variant);
-                return ResponseEntity.ok(VariantDTO.fromEntity(saved));
-            })
+        return stockReservationService.setStock(id, stock, "stock-count")
+            .map(variant -> ResponseEntity.ok(VariantDTO.fromEntity(variant)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Stock movements of a variant, newest first.
+     */
+    @GetMapping("/variant/{id}/movements")
+    public ResponseEntity<Map<String, Object>> getMovements(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        Page<InventoryMovement> movements = inventoryLedgerService.movements(id, page, size);
+        Map<String, Object> response = new HashMap<>();
+        response.put("items", movements.getContent());
+        response.put("page", movements.getNumber());
+        response.put("size", movements.getSize());
+        response.put("totalElements", movements.getTotalElements());
+        response.put("totalPages", movements.getTotalPages());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Stock of a variant at a past moment, from the nearest snapshot and the movements after it.
+     */
+    @GetMapping("/variant/{id}/stock-at")
+    public ResponseEntity<Map<String, Object>> getStockAt(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return inventoryLedgerService.stockAt(id, at)
+            .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
 }
@@ -2,6 +2,7 @@ package com.fyd.backend.controller;
 
 import com.fyd.backend.entity.Notification;
 import com.fyd.backend.repository.NotificationRepository;
+import com.fyd.backend.service.outbox.OutboxDispatcher;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,6 +20,15 @@ public class NotificationController {
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    // Delivery/lag metrics of the outbox handlers (notification, websocket, email, inventory alerts)
+    @GetMapping("/outbox/stats")
+    public ResponseEntity<Map<String, Object>> getOutboxStats() {
+        return ResponseEntity.ok(outboxDispatcher.getStats());
+    }
+
     // Get all notifications
     @GetMapping
     public ResponseEntity<Map<String, Object>> getNotifications(
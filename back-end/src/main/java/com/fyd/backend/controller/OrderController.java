@@ -1,5 +1,6 @@
 package com.fyd.backend.controller;
 
+import com.fyd.backend.dto.BulkStatusRequest;
 import com.fyd.backend.dto.CreateOrderRequest;
 import com.fyd.backend.dto.OrderDTO;
 import com.fyd.backend.annotation.Loggable;
@@ -9,23 +10,39 @@ import com.fyd.backend.entity.OrderItem;
 import com.fyd.backend.repository.*;
 import com.fyd.backend.entity.CustomerCoupon;
 import com.fyd.backend.entity.PaymentTransaction;
+import com.fyd.backend.entity.Product;
+import com.fyd.backend.entity.ProductVariant;
 import com.fyd.backend.service.CustomerCouponService;
-import com.fyd.backend.service.EmailService;
+import com.fyd.backend.service.IdempotencyService;
+import com.fyd.backend.service.OrderCodeGenerator;
+import com.fyd.backend.service.OrderSearchService;
+import com.fyd.backend.service.OrderService;
+import com.fyd.backend.service.OrderStatusCountService;
 import com.fyd.backend.service.PointsService;
+import com.fyd.backend.service.StockReservationService;
 import com.fyd.backend.service.VNPayService;
 import com.fyd.backend.service.MoMoService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +52,8 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
+
     @Autowired
     private OrderRepository orderRepository;
     
@@ -56,6 +75,24 @@ public class OrderController {
     @Autowired
     private PointsService pointsService;
 
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderStatusCountService orderStatusCountService;
+
+    @Autowired
+    private OrderSearchService orderSearchService;
+
+    @Autowired
+    private OrderCodeGenerator orderCodeGenerator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @Autowired
     private NotificationRepository notificationRepository;
 
@@ -71,88 +108,135 @@ public class OrderController {
     @Autowired
     private PaymentTransactionRepository paymentTransactionRepository;
 
-    @Autowired(required = false)
-    private EmailService emailService;
-
-    @Autowired
-    private SimpMessagingTemplate messagingTemplate;
-
-    private static final Map<String, String> ORDER_STATUS_NAMES = Map.of(
-        "PENDING", "Chờ xử lý",
-        "CONFIRMED", "Đã xác nhận",
-        "PROCESSING", "Đang xử lý",
-        "SHIPPING", "Đang giao",
-        "DELIVERED", "Đã giao hàng",
-        "COMPLETED", "Hoàn tất",
-        "PENDING_CANCEL", "Chờ duyệt hủy",
-        "CANCELLED", "Đã hủy"
-    );
+    private static final int MAX_CUSTOMER_PAGE_SIZE = 50;
+    private static final int MAX_BULK_STATUS_ORDERS = 1000;
 
     @GetMapping
     public ResponseEntity<Map<String, Object>> getOrders(
             @RequestParam(defaultValue = "") String q,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size) {
+
+        if (customerId != null) {
+            return getCustomerOrders(customerId, cursor, size);
+        }
         
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by("createdAt").descending());
         
         Page<Order> orderPage = null;
         List<Order> orderList = null;
         
-        if (customerId != null) {
-            // Use eager fetch for customer orders to include items
-            orderList = orderRepository.findByCustomerIdWithItems(customerId);
-        } else if (status != null && !status.isEmpty() && !status.equals("all")) {
+        if (status != null && !status.isEmpty() && !status.equals("all")) {
             orderPage = orderRepository.findByStatus(status, pageRequest);
             orderList = orderPage.getContent();
         } else if (!q.isEmpty()) {
-            orderPage = orderRepository.search(q, pageRequest);
+            orderPage = orderSearchService.search(q, page, size);
             orderList = orderPage.getContent();
         } else {
             orderPage = orderRepository.findAll(pageRequest);
             orderList = orderPage.getContent();
         }
         
-        // Sort by createdAt descending for customer orders
-        if (customerId != null && orderList != null) {
-            orderList.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
-        }
-        
         List<OrderDTO> orders = (orderList != null ? orderList : List.<Order>of()).stream()
             .map(OrderDTO::fromEntity)
             .collect(Collectors.toList());
         
         // Count by status
-        Map<String, Long> statusCounts = new HashMap<>();
-        statusCounts.put("all", orderRepository.count());
-        statusCounts.put("PENDING", orderRepository.countByStatus("PENDING"));
-        statusCounts.put("CONFIRMED", orderRepository.countByStatus("CONFIRMED"));
-        statusCounts.put("PROCESSING", orderRepository.countByStatus("PROCESSING"));
-        statusCounts.put("SHIPPING", orderRepository.countByStatus("SHIPPING"));
-        statusCounts.put("DELIVERED", orderRepository.countByStatus("DELIVERED"));
-        statusCounts.put("COMPLETED", orderRepository.countByStatus("COMPLETED"));
-        statusCounts.put("CANCELLED", orderRepository.countByStatus("CANCELLED"));
+        Map<String, Long> statusCounts = orderStatusCountService.getCounts();
         
         Map<String, Object> response = new HashMap<>();
         response.put("orders", orders);
         
-        // Handle pagination info - for customer orders we don't have Page object
-        if (customerId != null) {
-            response.put("currentPage", 0);
-            response.put("totalItems", orders.size());
-            response.put("totalPages", 1);
-        } else {
-            response.put("currentPage", orderPage.getNumber());
-            response.put("totalItems", orderPage.getTotalElements());
-            response.put("totalPages", orderPage.getTotalPages());
-        }
+        response.put("currentPage", orderPage.getNumber());
+        response.put("totalItems", orderPage.getTotalElements());
+        response.put("totalPages", orderPage.getTotalPages());
         response.put("statusCounts", statusCounts);
         
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * A customer's order history, newest first, paginated with a (createdAt, id) cursor.
+     * One query picks the page's order ids, a second loads those orders with their items.
+     */
+    private ResponseEntity<Map<String, Object>> getCustomerOrders(Long customerId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_CUSTOMER_PAGE_SIZE));
+        // Ask for one extra row to know whether another page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<Long> ids;
+        if (cursor == null || cursor.isEmpty()) {
+            ids = orderRepository.findIdsByCustomer(customerId, limit);
+        } else {
+            Object[] position = decodeCursor(cursor);
+            if (position == null) {
+                return ResponseEntity.badRequest().body(Map.<String, Object>of("error", "Con trỏ phân trang không hợp lệ"));
+            }
+            ids = orderRepository.findIdsByCustomerBefore(customerId, (LocalDateTime) position[0], (Long) position[1], limit);
+        }
+
+        boolean hasMore = ids.size() > pageSize;
+        if (hasMore) {
+            ids = ids.subList(0, pageSize);
+        }
+
+        List<Order> orderList = new ArrayList<>();
+        if (!ids.isEmpty()) {
+            Map<Long, Order> byId = orderRepository.findAllWithItemsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Order::getId, o -> o));
+            for (Long orderId : ids) {
+                Order order = byId.get(orderId);
+                if (order != null) {
+                    orderList.add(order);
+                }
+            }
+        }
+
+        List<OrderDTO> orders = orderList.stream()
+            .map(OrderDTO::fromEntity)
+            .collect(Collectors.toList());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("orders", orders);
+        response.put("totalItems", orderRepository.countByCustomerId(customerId));
+        response.put("hasMore", hasMore);
+        response.put("nextCursor", hasMore && !orderList.isEmpty()
+            ? encodeCursor(orderList.get(orderList.size() - 1)) : null);
+        return ResponseEntity.ok(response);
+    }
+
+    private static String encodeCursor(Order order) {
+        String raw = order.getCreatedAt() + "|" + order.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return [createdAt, id], or null if the cursor is malformed
+     */
+    private static Object[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            if (sep < 0) {
+                return null;
+            }
+            return new Object[] { LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)) };
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Search latency percentiles, for comparing against the old LIKE scan on a large table.
+     */
+    @GetMapping("/search/stats")
+    public ResponseEntity<Map<String, Object>> getSearchStats() {
+        return ResponseEntity.ok(orderSearchService.getStats());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<OrderDTO> getOrder(@PathVariable Long id) {
         return orderRepository.findById(id)
@@ -249,79 +333,41 @@ public class OrderController {
     public ResponseEntity<?> updateStatus(
             @PathVariable Long id,
             @RequestParam String status) {
-        return orderRepository.findById(id)
-            .map(order -> {
-                String currentStatus = order.getStatus();
-                
-                // 1. If same status, just return
-                if (status.equals(currentStatus)) {
-                    return ResponseEntity.ok(OrderDTO.fromEntity(order));
-                }
-
-                // 2. Validate strictly sequential status transition
-                boolean allowed = false;
-                if ("CANCELLED".equals(status)) {
-                    // Can cancel at any stage except after completion
-                    allowed = !"COMPLETED".equals(currentStatus);
-                } else if ("PENDING".equals(currentStatus)) {
-                    // From PENDING, can move to CONFIRMED or PENDING_CANCEL (by system/customer request)
-                    allowed = "CONFIRMED".equals(status) || "PENDING_CANCEL".equals(status);
-                } else if ("PENDING_CANCEL".equals(currentStatus)) {
-                    // From PENDING_CANCEL, admin can confirm (move to CONFIRMED) or accept cancellation (move to CANCELLED)
-                    allowed = "CONFIRMED".equals(status) || "CANCELLED".equals(status);
-                } else if ("CONFIRMED".equals(currentStatus)) {
-                    allowed = "PROCESSING".equals(status);
-                } else if ("PROCESSING".equals(currentStatus)) {
-                    allowed = "SHIPPING".equals(status);
-                } else if ("SHIPPING".equals(currentStatus)) {
-                    allowed = "DELIVERED".equals(status);
-                } else if ("DELIVERED".equals(currentStatus)) {
-                    allowed = "COMPLETED".equals(status);
-                }
-
-                if (!allowed) {
-                    return ResponseEntity.badRequest().body(Map.of("error", 
-                        String.format("Quy trình bắt buộc: Không thể chuyển từ '%s' sang '%s'. Vui lòng thực hiện theo từng bước.", 
-                        ORDER_STATUS_NAMES.getOrDefault(currentStatus, currentStatus), 
-                        ORDER_STATUS_NAMES.getOrDefault(status, status))));
-                }
-
-                // 3. Business logic for specific statuses
-                order.setStatus(status);
-                order.setUpdatedAt(LocalDateTime.now());
-                
-                if ("CONFIRMED".equals(status)) {
-                    if (order.getConfirmedAt() == null) order.setConfirmedAt(LocalDateTime.now());
-                } else if ("DELIVERED".equals(status) || "COMPLETED".equals(status)) {
-                    if (order.getDeliveredAt() == null) order.setDeliveredAt(LocalDateTime.now());
-                    
-                    // If COD, mark as paid automatically
-                    if ("COD".equalsIgnoreCase(order.getPaymentMethod())) {
-                        order.setPaymentStatus("PAID");
-                        if (order.getPaidAt() == null) {
-                            order.setPaidAt(LocalDateTime.now());
-                        }
-                    }
-                } else if ("CANCELLED".equals(status)) {
-                    if (order.getCancelledAt() == null) order.setCancelledAt(LocalDateTime.now());
-                }
-                
-                Order saved = orderRepository.save(order);
-
-                // 3. Communications
-                createStatusNotification(saved);
-                if (emailService != null) {
-                    try {
-                        emailService.sendOrderStatusUpdate(saved);
-                    } catch (Exception e) {
-                        // Log error but don't fail the request
-                        System.err.println("Failed to send status update email: " + e.getMessage());
-                    }
-                }
+        try {
+            return orderService.changeStatus(id, status)
+                .map(order -> ResponseEntity.ok(OrderDTO.fromEntity(order)))
+                .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
 
-                return ResponseEntity.ok(OrderDTO.fromEntity(saved));
-            })
-            .orElse(ResponseEntity.notFound().build());
+    /**
+     * Move many orders to the same status in one request, e.g. a warehouse batch to SHIPPING.
+     * Body: { "ids": [1, 2, 3], "status": "SHIPPING" }. Orders that cannot make the
+     * transition are skipped and listed with the reason.
+     */
+    @PatchMapping("/status")
+    @Loggable(action = "UPDATE", entityType = "Order")
+    public ResponseEntity<?> updateStatusBulk(@RequestBody BulkStatusRequest request) {
+        if (request.getIds() == null || request.getIds().isEmpty() || request.getStatus() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Vui lòng chọn đơn hàng và trạng thái"));
+        }
+        if (request.getIds().size() > MAX_BULK_STATUS_ORDERS) {
+            return ResponseEntity.badRequest().body(Map.of("error",
+                "Chỉ có thể cập nhật tối đa " + MAX_BULK_STATUS_ORDERS + " đơn hàng mỗi lần"));
+        }
+        try {
+            OrderService.BulkStatusResult result = orderService.changeStatusBulk(request.getIds(), request.getStatus());
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", request.getStatus());
+            response.put("updated", result.getUpdated());
+            response.put("unchanged", result.getUnchanged());
+            response.put("skipped", result.getSkipped());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @PatchMapping("/{id}/confirm-payment")
@@ -361,6 +407,7 @@ public class OrderController {
                 order.setCancelReason(reason);
                 order.setUpdatedAt(LocalDateTime.now());
                 Order saved = orderRepository.save(order);
+                orderStatusCountService.onStatusChanged("PENDING", "PENDING_CANCEL");
 
                 // Create notification for cancellation request
                 Notification notification = new Notification();
@@ -379,16 +426,90 @@ public class OrderController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteOrder(@PathVariable Long id) {
-        if (orderRepository.existsById(id)) {
-            orderRepository.deleteById(id);
-            return ResponseEntity.ok().build();
-        }
-        return ResponseEntity.notFound().build();
+        return orderRepository.findById(id)
+            .map(order -> {
+                orderRepository.delete(order);
+                orderStatusCountService.onDeleted(order.getStatus());
+                return ResponseEntity.ok().<Void>build();
+            })
+            .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Create an order. Clients may send an Idempotency-Key header so retries of a slow
+     * request return the original response instead of creating a duplicate order.
+     */
     @PostMapping
     @Loggable(action = "CREATE", entityType = "Order")
-    public ResponseEntity<?> createOrder(@RequestBody CreateOrderRequest request, HttpServletRequest httpRequest) {
+    public ResponseEntity<?> createOrder(
+            @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        if (request.getItems() != null) {
+            for (CreateOrderRequest.OrderItemRequest item : request.getItems()) {
+                if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "Số lượng sản phẩm phải lớn hơn 0"));
+                }
+            }
+        }
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return doCreateOrder(request, httpRequest);
+        }
+        if (idempotencyKey.length() > 100) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Idempotency-Key quá dài (tối đa 100 ký tự)"));
+        }
+
+        String scope = IdempotencyService.SCOPE_ORDER_CREATE;
+        String key = request.getCustomerId() + ":" + idempotencyKey.trim();
+        String requestHash;
+        try {
+            requestHash = requestHash(request);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Dữ liệu đơn hàng không hợp lệ"));
+        }
+
+        var stored = idempotencyService.findCompleted(scope, key);
+        if (stored.isEmpty() && !idempotencyService.tryBegin(scope, key, requestHash)) {
+            // Another request owns the key; it may have completed in the meantime
+            stored = idempotencyService.findCompleted(scope, key);
+            if (stored.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Đơn hàng đang được xử lý, vui lòng thử lại sau"));
+            }
+        }
+        if (stored.isPresent()) {
+            if (!stored.get().matches(requestHash)) {
+                return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .body(Map.of("error", "Idempotency-Key đã được dùng cho một đơn hàng khác"));
+            }
+            return ResponseEntity.status(stored.get().getStatus())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotent-Replayed", "true")
+                .body(stored.get().getBody());
+        }
+
+        ResponseEntity<?> response = doCreateOrder(request, httpRequest);
+        try {
+            if (response.getStatusCode().is2xxSuccessful()) {
+                idempotencyService.complete(scope, key, response.getStatusCode().value(),
+                    objectMapper.writeValueAsString(response.getBody()));
+            } else {
+                idempotencyService.release(scope, key);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to store idempotent response for key {}: {}", key, e.getMessage());
+            idempotencyService.release(scope, key);
+        }
+        return response;
+    }
+
+    // Hash of the request as bound to the DTO, so whitespace and key order do not matter
+    private String requestHash(CreateOrderRequest request) throws Exception {
+        byte[] canonical = objectMapper.writeValueAsBytes(request);
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+    }
+
+    private ResponseEntity<?> doCreateOrder(CreateOrderRequest request, HttpServletRequest httpRequest) {
         try {
             // 1. Validate customer
             var customer = customerRepository.findById(request.getCustomerId())
@@ -401,56 +522,40 @@ public class OrderController {
             // 2. Calculate subtotal and build items list
             BigDecimal subtotal = BigDecimal.ZERO;
             List<OrderItem> items = new java.util.ArrayList<>();
+            List<StockReservationService.Line> reservationLines = new java.util.ArrayList<>();
 
             if (request.getItems() != null) {
-                // 2a. First pass: Validate stock for all items
-                for (CreateOrderRequest.OrderItemRequest itemReq : request.getItems()) {
-                    if (itemReq.getVariantId() != null) {
-                        var variant = variantRepository.findById(itemReq.getVariantId()).orElse(null);
-                        if (variant == null) {
-                            return ResponseEntity.badRequest().body(Map.of("error", "Sản phẩm không tồn tại: " + itemReq.getProductName()));
-                        }
-                        if (variant.getStockQuantity() < itemReq.getQuantity()) {
-                            return ResponseEntity.badRequest().body(Map.of("error", 
-                                String.format("Sản phẩm '%s' (%s) không đủ hàng. Hiện còn: %d", 
-                                    itemReq.getProductName(), itemReq.getVariantInfo(), variant.getStockQuantity())));
-                        }
-                    }
-                }
-
-                // 2b. Second pass: Build items and deduct stock
+                // 2a. Load all referenced variants and products in one query each
+                Map<Long, ProductVariant> variants = variantRepository.findAllById(request.getItems().stream()
+                        .map(CreateOrderRequest.OrderItemRequest::getVariantId)
+                        .filter(java.util.Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(ProductVariant::getId, v -> v));
+                Map<Long, Product> products = productRepository.findAllById(request.getItems().stream()
+                        .map(CreateOrderRequest.OrderItemRequest::getProductId)
+                        .filter(java.util.Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(Product::getId, p -> p));
+
+                // 2b. Build items; stock itself is reserved atomically once discounts are validated
                 for (CreateOrderRequest.OrderItemRequest itemReq : request.getItems()) {
                     OrderItem item = new OrderItem();
                     
                     if (itemReq.getProductId() != null) {
-                        productRepository.findById(itemReq.getProductId()).ifPresent(item::setProduct);
+                        item.setProduct(products.get(itemReq.getProductId()));
                     }
                     
                     if (itemReq.getVariantId() != null) {
-                        var variant = variantRepository.findById(itemReq.getVariantId()).orElse(null);
-                        if (variant != null) {
-                            item.setVariant(variant);
-                            // Reduce stock
-                            int oldStock = variant.getStockQuantity();
-                            int newStock = oldStock - itemReq.getQuantity();
-                            variant.setStockQuantity(Math.max(0, newStock));
-                            variantRepository.save(variant);
-                            
-                            // Create inventory notification if stock drops below threshold
-                            if (newStock <= 6 && oldStock > 6) {
-                                Notification inventoryNotif = new Notification();
-                                inventoryNotif.setType("inventory");
-                                inventoryNotif.setPriority(newStock <= 0 ? "urgent" : "high");
-                                inventoryNotif.setTitle(newStock <= 0 ? "Hết hàng" : "Sắp hết hàng");
-                                String productName = variant.getProduct().getName() + " - " + 
-                                    (variant.getSize() != null ? variant.getSize().getName() : "") + "/" +
-                                    (variant.getColor() != null ? variant.getColor().getName() : "");
-                                inventoryNotif.setDescription(productName + " còn " + Math.max(0, newStock) + " sản phẩm");
-                                inventoryNotif.setActionType("navigate");
-                                inventoryNotif.setActionUrl("/admin/inventory");
-                                notificationRepository.save(inventoryNotif);
-                            }
+                        ProductVariant variant = variants.get(itemReq.getVariantId());
+                        if (variant == null) {
+                            return ResponseEntity.badRequest().body(Map.of("error", "Sản phẩm không tồn tại: " + itemReq.getProductName()));
                         }
+                        item.setVariant(variant);
+                        reservationLines.add(new StockReservationService.Line(
+                            variant.getId(), itemReq.getQuantity(),
+                            itemReq.getProductName() + " (" + itemReq.getVariantInfo() + ")"));
                     }
                     
                     item.setProductName(itemReq.getProductName());
@@ -471,15 +576,14 @@ public class OrderController {
             // 3a. Promotion Discount (public promotion codes)
             String promoCode = request.getPromotionCode();
             BigDecimal promoDiscount = BigDecimal.ZERO;
+            Long promotionId = null;
             if (promoCode != null && !promoCode.isEmpty()) {
                 var promoOpt = promotionRepository.findByCodeIgnoreCase(promoCode);
                 if (promoOpt.isPresent() && promoOpt.get().isValid()) {
                     promoDiscount = promoOpt.get().calculateDiscount(subtotal);
                     totalDiscount = totalDiscount.add(promoDiscount);
-                    // Update usage count
-                    var promo = promoOpt.get();
-                    promo.setUsedCount(promo.getUsedCount() + 1);
-                    promotionRepository.save(promo);
+                    // The use is counted in placeOrder, after stock is reserved
+                    promotionId = promoOpt.get().getId();
                 }
             }
 
@@ -515,13 +619,10 @@ public class OrderController {
                 pointsUsed = Math.min(pointsUsed, maxUsable);
                 pointsDiscountPrice = pointsService.calculatePointsDiscount(pointsUsed);
                 totalDiscount = totalDiscount.add(pointsDiscountPrice);
-                // Deduct points from customer
-                pointsService.usePoints(customer, pointsUsed);
             }
 
-            // 4. Create and Save Order
-            String orderCode = "FYD-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"))
-                + "-" + (int)(Math.random() * 1000);
+            // 4. Create Order
+            String orderCode = orderCodeGenerator.nextCode();
 
             Order order = new Order();
             order.setOrderCode(orderCode);
@@ -552,59 +653,17 @@ public class OrderController {
             order.setCreatedAt(LocalDateTime.now());
             order.setUpdatedAt(LocalDateTime.now());
 
-            Order savedOrder = orderRepository.save(order);
-
-            // 5. Save items
-            for (OrderItem item : items) {
-                item.setOrder(savedOrder);
-                orderItemRepository.save(item);
-            }
-
-            // 6. Update customer balance and points earned
-            // Important: pointsEarned is only added when order is COMPLETED? 
-            // In many systems it is added now but "pending". 
-            // Here we add it immediately for simplicity as requested "mua hàng tới điểm nhất định".
-            pointsService.earnPoints(customer, pointsEarned);
-            
-            // Update other customer stats
-            customer.setTotalOrders(customer.getTotalOrders() + 1);
-            customer.setTotalSpent(customer.getTotalSpent().add(savedOrder.getTotalAmount()));
-            customerRepository.save(customer);
-
-            // 6b. Mark customer coupon as used (if any)
-            if (usedCoupon != null) {
-                customerCouponService.useCoupon(usedCoupon.getCode(), customer.getId(), savedOrder);
-            }
-
-            // 7. Create notification for new order
-            Notification notification = new Notification();
-            notification.setType("order");
-            notification.setPriority("high");
-            notification.setTitle("Đơn hàng mới");
-            notification.setDescription("Đơn hàng mới #" + orderCode + " từ " + request.getShippingName());
-            notification.setActionType("navigate");
-            notification.setActionUrl("/admin/orders");
-            notificationRepository.save(notification);
-
-            // 7b. Broadcast new order notification via WebSocket
+            // 5. Reserve stock, count the promotion use, save order + items, spend and earn
+            //    points, mark the coupon used and queue notifications/email in one transaction
+            Order savedOrder;
             try {
-                messagingTemplate.convertAndSend("/topic/notifications", Map.of(
-                    "type", "order",
-                    "title", "Đơn hàng mới",
-                    "message", "Đơn hàng mới #" + orderCode + " từ " + request.getShippingName(),
-                    "orderId", savedOrder.getId(),
-                    "orderCode", orderCode,
-                    "timestamp", LocalDateTime.now().toString()
-                ));
-            } catch (Exception e) {
-                // Log but don't fail the order process
-                System.err.println("Failed to broadcast WebSocket notification: " + e.getMessage());
+                savedOrder = orderService.placeOrder(order, items, reservationLines, promotionId,
+                    usedCoupon != null ? usedCoupon.getCode() : null);
+            } catch (StockReservationService.InsufficientStockException | OrderService.CheckoutRejectedException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
             }
 
-            // 8. Send order confirmation email
-            if (emailService != null) {
-                emailService.sendOrderConfirmation(savedOrder);
-            }
+            // 7. Notification, WebSocket broadcast and confirmation email are delivered by the outbox dispatcher
 
             OrderDTO responseDto = OrderDTO.fromEntity(savedOrder);
 
@@ -644,35 +703,4 @@ public class OrderController {
                 .body(Map.of("error", "Failed to create order: " + e.getMessage()));
         }
     }
-
-    private void createStatusNotification(Order order) {
-        String status = order.getStatus();
-        String title = "";
-        String description = "";
-        String priority = "medium";
-
-        switch (status) {
-            case "CANCELLED":
-                title = "Đơn hàng đã hủy";
-                description = "Đơn hàng #" + order.getOrderCode() + " đã được hủy";
-                priority = "high";
-                break;
-            case "COMPLETED":
-                title = "Đơn hàng hoàn tất";
-                description = "Đơn hàng #" + order.getOrderCode() + " đã hoàn tất";
-                break;
-            // Add other statuses if needed
-            default:
-                return; // Don't notify for every minor status change if not needed
-        }
-
-        Notification notification = new Notification();
-        notification.setType("order");
-        notification.setPriority(priority);
-        notification.setTitle(title);
-        notification.setDescription(description);
-        notification.setActionType("navigate");
-        notification.setActionUrl("/admin/orders");
-        notificationRepository.save(notification);
-    }
 }
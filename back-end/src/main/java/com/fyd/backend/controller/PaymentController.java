@@ -4,8 +4,12 @@ import com.fyd.backend.entity.Order;
 import com.fyd.backend.entity.PaymentTransaction;
 import com.fyd.backend.repository.OrderRepository;
 import com.fyd.backend.repository.PaymentTransactionRepository;
+import com.fyd.backend.service.IdempotencyService;
+import com.fyd.backend.service.MoMoService;
+import com.fyd.backend.service.OrderStatusCountService;
 import com.fyd.backend.service.VNPayService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -16,51 +20,99 @@ import java.util.Map;
 @RequestMapping("/api/payments")
 public class PaymentController {
 
+    private static final String VNPAY_CONFIRM_SUCCESS = "{\"RspCode\":\"00\",\"Message\":\"Confirm Success\"}";
+    // 99 (unknown error) is not a final answer, so VNPay delivers the IPN again
+    private static final String VNPAY_RETRY = "{\"RspCode\":\"99\",\"Message\":\"Processing, retry later\"}";
+
     @Autowired
     private VNPayService vnpayService;
 
+    @Autowired
+    private MoMoService momoService;
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
     private PaymentTransactionRepository paymentTransactionRepository;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderStatusCountService orderStatusCountService;
+
     @GetMapping("/vnpay/ipn")
     public String vnpayIpn(@RequestParam Map<String, String> allParams) {
-        if (vnpayService.validateCallback(allParams)) {
-            String orderCode = allParams.get("vnp_TxnRef");
-            String vnp_ResponseCode = allParams.get("vnp_ResponseCode");
-            String vnp_TransactionNo = allParams.get("vnp_TransactionNo");
-
-            orderRepository.findByOrderCode(orderCode).ifPresent(order -> {
-                PaymentTransaction transaction = paymentTransactionRepository.findByOrderId(order.getId())
-                        .orElse(new PaymentTransaction());
-                
-                transaction.setOrder(order);
-                transaction.setProvider("VNPAY");
-                transaction.setTransactionId(vnp_TransactionNo);
-                transaction.setResponseCode(vnp_ResponseCode);
-                transaction.setRawResponse(allParams.toString());
-                transaction.setUpdatedAt(LocalDateTime.now());
-
-                if ("00".equals(vnp_ResponseCode)) {
-                    transaction.setStatus("SUCCESS");
-                    order.setPaymentStatus("PAID");
-                    order.setPaidAt(LocalDateTime.now());
-                    order.setStatus("PROCESSING"); // Auto move to processing after payment
-                } else {
-                    transaction.setStatus("FAILED");
-                    order.setPaymentStatus("FAILED");
-                }
-                
-                paymentTransactionRepository.save(transaction);
-                orderRepository.save(order);
-            });
-
-            return "{\"RspCode\":\"00\",\"Message\":\"Confirm Success\"}";
-        } else {
+        if (!vnpayService.validateCallback(allParams)) {
             return "{\"RspCode\":\"97\",\"Message\":\"Invalid Checksum\"}";
         }
+
+        String orderCode = allParams.get("vnp_TxnRef");
+        String vnp_ResponseCode = allParams.get("vnp_ResponseCode");
+        String vnp_TransactionNo = allParams.get("vnp_TransactionNo");
+
+        // VNPay re-delivers IPNs until it gets a response: answer replays from the stored result
+        String ipnKey = orderCode + ":" + vnp_TransactionNo + ":" + vnp_ResponseCode;
+        var stored = idempotencyService.findCompleted(IdempotencyService.SCOPE_VNPAY_IPN, ipnKey);
+        if (stored.isPresent()) {
+            return stored.get().getBody();
+        }
+        if (!idempotencyService.tryBegin(IdempotencyService.SCOPE_VNPAY_IPN, ipnKey)) {
+            // A concurrent delivery holds the claim; confirm only once it has completed, since the
+            // claim may still fail and be released. Until then ask VNPay to deliver again.
+            return idempotencyService.findCompleted(IdempotencyService.SCOPE_VNPAY_IPN, ipnKey)
+                .map(IdempotencyService.StoredResponse::getBody)
+                .orElse(VNPAY_RETRY);
+        }
+
+        try {
+            orderRepository.findByOrderCode(orderCode).ifPresent(order ->
+                applyPaymentResult(order, "VNPAY", vnp_TransactionNo, vnp_ResponseCode,
+                    "00".equals(vnp_ResponseCode), allParams.toString()));
+        } catch (RuntimeException e) {
+            idempotencyService.release(IdempotencyService.SCOPE_VNPAY_IPN, ipnKey);
+            throw e;
+        }
+
+        idempotencyService.complete(IdempotencyService.SCOPE_VNPAY_IPN, ipnKey, 200, VNPAY_CONFIRM_SUCCESS);
+        return VNPAY_CONFIRM_SUCCESS;
+    }
+
+    /**
+     * MoMo IPN. MoMo expects HTTP 204 and retries until it gets it.
+     */
+    @PostMapping("/momo/ipn")
+    public ResponseEntity<Void> momoIpn(@RequestBody Map<String, Object> body) {
+        if (!momoService.validateIpn(body)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String orderCode = String.valueOf(body.get("orderId"));
+        String transId = String.valueOf(body.get("transId"));
+        String resultCode = String.valueOf(body.get("resultCode"));
+
+        String ipnKey = orderCode + ":" + transId + ":" + resultCode;
+        if (idempotencyService.findCompleted(IdempotencyService.SCOPE_MOMO_IPN, ipnKey).isPresent()) {
+            return ResponseEntity.noContent().build();
+        }
+        if (!idempotencyService.tryBegin(IdempotencyService.SCOPE_MOMO_IPN, ipnKey)) {
+            // Held by a concurrent delivery: 204 only once it has completed, otherwise a 503 so MoMo retries
+            return idempotencyService.findCompleted(IdempotencyService.SCOPE_MOMO_IPN, ipnKey).isPresent()
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+
+        try {
+            orderRepository.findByOrderCode(orderCode).ifPresent(order ->
+                applyPaymentResult(order, "MOMO", transId, resultCode, "0".equals(resultCode), body.toString()));
+        } catch (RuntimeException e) {
+            idempotencyService.release(IdempotencyService.SCOPE_MOMO_IPN, ipnKey);
+            throw e;
+        }
+
+        idempotencyService.complete(IdempotencyService.SCOPE_MOMO_IPN, ipnKey, 204, "");
+        return ResponseEntity.noContent().build();
     }
 
     // This is optional if frontend handles the redirect validation, but usually backend should verify
@@ -79,4 +131,32 @@ public class PaymentController {
 
         return ResponseEntity.ok(result);
     }
+
+    private void applyPaymentResult(Order order, String provider, String transactionNo,
+                                    String responseCode, boolean success, String rawResponse) {
+        PaymentTransaction transaction = paymentTransactionRepository.findByOrderId(order.getId())
+                .orElse(new PaymentTransaction());
+        
+        transaction.setOrder(order);
+        transaction.setProvider(provider);
+        transaction.setTransactionId(transactionNo);
+        transaction.setResponseCode(responseCode);
+        transaction.setRawResponse(rawResponse);
+        transaction.setUpdatedAt(LocalDateTime.now());
+        String previousStatus = order.getStatus();
+
+        if (success) {
+            transaction.setStatus("SUCCESS");
+            order.setPaymentStatus("PAID");
+            order.setPaidAt(LocalDateTime.now());
+            order.setStatus("PROCESSING"); // Auto move to processing after payment
+        } else {
+            transaction.setStatus("FAILED");
+            order.setPaymentStatus("FAILED");
+        }
+        
+        paymentTransactionRepository.save(transaction);
+        orderRepository.save(order);
+        orderStatusCountService.onStatusChanged(previousStatus, order.getStatus());
+    }
 }
@@ -1,35 +1,38 @@
 package com.fyd.backend.controller;
 
 import com.fyd.backend.annotation.Loggable;
+import com.fyd.backend.dto.ImageDTO;
 import com.fyd.backend.dto.ProductDTO;
 import com.fyd.backend.entity.Product;
-import com.fyd.backend.entity.ProductImage;
 import com.fyd.backend.entity.ProductVariant;
 import com.fyd.backend.repository.*;
+import com.fyd.backend.service.InventoryLedgerService;
+import com.fyd.backend.service.ProductCacheService;
+import com.fyd.backend.service.ProductImageService;
+import com.fyd.backend.service.ProductListingService;
+import com.fyd.backend.service.ProductPageService;
+import com.fyd.backend.service.ProductViewService;
+import com.fyd.backend.service.StockReservationService;
+import com.fyd.backend.service.catalog.CatalogChangedEvent;
+import com.fyd.backend.service.catalog.CatalogIndexService;
+import com.fyd.backend.service.catalog.CatalogQuery;
+import com.fyd.backend.service.catalog.CatalogVersionService;
+import com.fyd.backend.util.ConditionalGet;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/products")
@@ -58,15 +61,43 @@ public class ProductController {
     
     @Autowired
     private com.fyd.backend.service.ActivityLogService activityLogService;
+
+    @Autowired
+    private ProductListingService productListingService;
+
+    @Autowired
+    private CatalogIndexService catalogIndexService;
+
+    @Autowired
+    private ProductCacheService productCacheService;
+
+    @Autowired
+    private ProductViewService productViewService;
+
+    @Autowired
+    private ProductImageService productImageService;
+
+    @Autowired
+    private ProductPageService productPageService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     @Autowired
     private com.fyd.backend.repository.UserRepository userRepository;
     
-    @Value("${file.upload-dir:uploads}")
-    private String uploadDir;
+    private static final int MAX_SUGGESTIONS = 20;
 
     @GetMapping
-    @Transactional(readOnly = true)
     public ResponseEntity<Map<String, Object>> getProducts(
             @RequestParam(defaultValue = "") String q,
             @RequestParam(required = false) Long categoryId,
@@ -78,72 +109,57 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
-        
-        Sort sort = sortDir.equalsIgnoreCase("asc") 
-            ? Sort.by(sortBy).ascending() 
-            : Sort.by(sortBy).descending();
-        PageRequest pageRequest = PageRequest.of(page, size, sort);
-        
-        Page<Product> productPage;
-        
-        // Check if any advanced filters are applied
-        boolean hasAdvancedFilters = categoryId != null || brandId != null || 
-            minPrice != null || maxPrice != null || colorId != null || sizeId != null;
-        
-        if (hasAdvancedFilters || !q.isEmpty()) {
-            productPage = productRepository.advancedSearch(
-                q.isEmpty() ? null : q,
-                categoryId, brandId, minPrice, maxPrice, colorId, sizeId,
-                pageRequest
-            );
-        } else {
-            productPage = productRepository.findAll(pageRequest);
-        }
-        
-        // Force load lazy collections within transaction
-        List<ProductDTO> products = productPage.getContent().stream()
-            .map(p -> {
-                // Initialize lazy collections
-                p.getVariants().size();
-                p.getImages().size();
-                return ProductDTO.fromEntity(p);
-            })
-            .collect(Collectors.toList());
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("products", products);
-        response.put("currentPage", productPage.getNumber());
-        response.put("totalItems", productPage.getTotalElements());
-        response.put("totalPages", productPage.getTotalPages());
-        
-        return ResponseEntity.ok(response);
+            @RequestParam(defaultValue = "desc") String sortDir,
+            WebRequest webRequest) {
+
+        CatalogQuery query = new CatalogQuery();
+        query.setQ(q);
+        query.setCategoryId(categoryId);
+        query.setBrandId(brandId);
+        query.setMinPrice(minPrice);
+        query.setMaxPrice(maxPrice);
+        query.setColorId(colorId);
+        query.setSizeId(sizeId);
+        query.setSortBy(sortBy);
+        query.setAscending(sortDir.equalsIgnoreCase("asc"));
+        query.setPage(page);
+        query.setSize(size);
+
+        return ConditionalGet.respond(webRequest, listingEtag(), ConditionalGet.REVALIDATE,
+            () -> ResponseEntity.ok(productListingService.listProducts(query)));
     }
 
     @GetMapping("/{id}")
-    @Transactional(readOnly = true)
-    public ResponseEntity<ProductDTO> getProduct(@PathVariable Long id) {
-        return productRepository.findById(id)
-            .map(p -> {
-                p.getVariants().size();
-                p.getImages().size();
-                return ProductDTO.fromEntity(p);
-            })
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<ProductDTO> getProduct(@PathVariable Long id, WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, catalogVersionService.productEtag(id),
+            ConditionalGet.REVALIDATE,
+            () -> productCacheService.getById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
     }
 
     @GetMapping("/sku/{sku}")
-    @Transactional(readOnly = true)
-    public ResponseEntity<ProductDTO> getProductBySku(@PathVariable String sku) {
-        return productRepository.findBySku(sku)
-            .map(p -> {
-                p.getVariants().size();
-                p.getImages().size();
-                return ProductDTO.fromEntity(p);
-            })
-            .map(ResponseEntity::ok)
-            .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<ProductDTO> getProductBySku(@PathVariable String sku, WebRequest webRequest) {
+        // The ETag is per product id; the body is read again after it (a cache hit) so it
+        // is never older than the version it is sent with
+        Optional<Long> id = productCacheService.getBySku(sku).map(ProductDTO::getId);
+        if (id.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ConditionalGet.respond(webRequest, catalogVersionService.productEtag(id.get()),
+            ConditionalGet.REVALIDATE,
+            () -> productCacheService.getById(id.get())
+                .filter(product -> sku.equals(product.getSku()))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * Listings and suggestions may come from the catalog index, which is rebuilt shortly
+     * after a write commits; its snapshot version keeps the ETag from running ahead of it.
+     */
+    private String listingEtag() {
+        return catalogVersionService.etag(CatalogVersionService.PRODUCTS, catalogIndexService.getSnapshotVersion());
     }
 
     @PostMapping
@@ -176,7 +192,9 @@ public class ProductController {
         variant.setPriceAdjustment(BigDecimal.ZERO);
         variant.setCreatedAt(LocalDateTime.now());
         variant.setStatus("ACTIVE");
-        variantRepository.save(variant);
+        ProductVariant savedVariant = variantRepository.save(variant);
+        inventoryLedgerService.record(savedVariant.getId(), InventoryLedgerService.IMPORT,
+            savedVariant.getStockQuantity(), savedVariant.getStockQuantity(), saved.getSku());
         
         // Reload product to include variants
         saved = productRepository.findById(saved.getId()).orElse(saved);
@@ -268,19 +286,16 @@ public class ProductController {
     }
 
     @PatchMapping("/{id}/stock")
+    @Transactional
     public ResponseEntity<ProductDTO> updateStock(
             @PathVariable Long id,
             @RequestParam Long variantId,
             @RequestParam int quantity) {
-        return variantRepository.findById(variantId)
-            .map(variant -> {
-                variant.setStockQuantity(Math.max(0, variant.getStockQuantity() + quantity));
-                variantRepository.save(variant);
-                return productRepository.findById(id)
-                    .map(ProductDTO::fromEntity)
-                    .map(ResponseEntity::ok)
-                    .orElse(ResponseEntity.notFound().build());
-            })
+        return stockReservationService.adjustStock(variantId, quantity, InventoryLedgerService.ADJUST, null)
+            .map(variant -> productRepository.findById(id)
+                .map(ProductDTO::fromEntity)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build()))
             .orElse(ResponseEntity.notFound().build());
     }
 
@@ -295,6 +310,8 @@ public class ProductController {
                 imageRepository.clearPrimaryByProductId(id);
                 // Set the new primary image
                 imageRepository.setPrimaryById(imageId);
+                // The bulk updates above skip the entity listener
+                eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.IMAGE, imageId, id));
                 // Reload and return
                 product.getImages().size(); // Force load
                 return ResponseEntity.ok(ProductDTO.fromEntity(product));
@@ -302,68 +319,50 @@ public class ProductController {
             .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Stores the upload and answers at once; WebP renditions are made in the background.
+     * 202 with status PENDING while they are, 200 if identical content was already processed.
+     */
     @PostMapping("/{id}/images")
-    @Transactional
     public ResponseEntity<Map<String, Object>> uploadProductImage(
             @PathVariable Long id,
             @RequestParam("file") MultipartFile file) {
-        
-        return productRepository.findById(id)
-            .map(product -> {
-                try {
-                    // Validate file
-                    if (file.isEmpty()) {
-                        return ResponseEntity.badRequest().<Map<String, Object>>body(Map.of("error", "File is empty"));
-                    }
-                    
-                    // Create upload directory if not exists
-                    Path uploadPath = Paths.get(uploadDir, "products");
-                    if (!Files.exists(uploadPath)) {
-                        Files.createDirectories(uploadPath);
-                    }
-                    
-                    // Generate unique filename with .webp extension
-                    String newFilename = "product_" + id + "_" + UUID.randomUUID().toString().substring(0, 8) + ".webp";
-                    Path filePath = uploadPath.resolve(newFilename);
-
-                    // Convert and compress to WebP
-                    try (var inputStream = file.getInputStream()) {
-                        BufferedImage image = ImageIO.read(inputStream);
-                        if (image == null) {
-                            return ResponseEntity.badRequest().<Map<String, Object>>body(Map.of("error", "Invalid or unsupported image format"));
-                        }
-                        
-                        // Save as WebP
-                        boolean written = ImageIO.write(image, "webp", filePath.toFile());
-                        if (!written) {
-                            // Fallback if webp writer is not found (though dependency should provide it)
-                            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-                        }
-                    }
-                    
-                    // Create ProductImage entity
-                    ProductImage productImage = new ProductImage();
-                    productImage.setProduct(product);
-                    productImage.setImageUrl("/uploads/products/" + newFilename);
-                    productImage.setSortOrder(product.getImages().size());
-                    productImage.setIsPrimary(product.getImages().isEmpty()); // First image is primary
-                    productImage.setCreatedAt(LocalDateTime.now());
-                    
-                    ProductImage savedImage = imageRepository.save(productImage);
-                    
+        try {
+            return productImageService.upload(id, file)
+                .map(image -> {
                     Map<String, Object> response = new HashMap<>();
                     response.put("success", true);
-                    response.put("imageId", savedImage.getId());
-                    response.put("imageUrl", savedImage.getImageUrl());
-                    
-                    return ResponseEntity.ok(response);
-                } catch (IOException e) {
-                    return ResponseEntity.internalServerError().<Map<String, Object>>body(Map.of("error", "Upload failed: " + e.getMessage()));
-                }
-            })
+                    response.put("imageId", image.getId());
+                    response.put("imageUrl", image.getImageUrl());
+                    response.put("status", image.getStatus());
+                    return ProductImageService.PENDING.equals(image.getStatus())
+                        ? ResponseEntity.accepted().body(response)
+                        : ResponseEntity.ok(response);
+                })
+                .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IOException e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Upload failed: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Poll an uploaded image until its renditions are READY.
+     */
+    @GetMapping("/{productId}/images/{imageId}")
+    public ResponseEntity<ImageDTO> getProductImage(@PathVariable Long productId, @PathVariable Long imageId) {
+        return imageRepository.findById(imageId)
+            .filter(image -> image.getProduct().getId().equals(productId))
+            .map(image -> ResponseEntity.ok(ImageDTO.fromEntity(image)))
             .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/images/stats")
+    public ResponseEntity<Map<String, Object>> getImageStats() {
+        return ResponseEntity.ok(productImageService.getStats());
+    }
+
     @DeleteMapping("/{productId}/images/{imageId}")
     @Transactional
     public ResponseEntity<Void> deleteProductImage(
@@ -380,56 +379,99 @@ public class ProductController {
             .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(productCacheService.getStats());
+    }
+
+    /**
+     * Called by the product page once per visit. Views are buffered and written in
+     * batches; repeat views by the same viewer within the dedupe window are ignored.
+     */
+    @PostMapping("/{id}/view")
+    public ResponseEntity<Void> recordView(@PathVariable Long id, jakarta.servlet.http.HttpServletRequest request) {
+        // The product page has just loaded it, so this is a cache hit; rejects made-up ids
+        if (productCacheService.getById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        productViewService.recordView(id, viewerKey(request));
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/views/stats")
+    public ResponseEntity<Map<String, Object>> getViewStats() {
+        return ResponseEntity.ok(productViewService.getStats());
+    }
+
+    /**
+     * Product, reviews, similar and bought-together products in one response. Sections
+     * that miss their time budget come back with a fallback and are named in "degraded".
+     */
+    @GetMapping("/{id}/page")
+    public ResponseEntity<Map<String, Object>> getProductPage(@PathVariable Long id,
+                                                              @RequestParam(required = false) Long customerId) {
+        return productPageService.getPage(id, customerId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/page/stats")
+    public ResponseEntity<Map<String, Object>> getProductPageStats() {
+        return ResponseEntity.ok(productPageService.getStats());
+    }
+
+    // Signed-in users by id; guests by client IP and browser
+    private String viewerKey(jakarta.servlet.http.HttpServletRequest request) {
+        org.springframework.security.core.Authentication auth =
+            org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated()
+                && !(auth instanceof org.springframework.security.authentication.AnonymousAuthenticationToken)) {
+            return "u:" + auth.getName();
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        String ip = forwardedFor != null && !forwardedFor.isEmpty()
+            ? forwardedFor.split(",")[0].trim()
+            : request.getRemoteAddr();
+        String userAgent = request.getHeader("User-Agent");
+        return "ip:" + ip + "|" + (userAgent != null ? userAgent.hashCode() : 0);
+    }
+
+    /**
+     * Search-as-you-type suggestions from the catalog index, accent-insensitive.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Map<String, Object>>> suggest(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "8") int limit,
+            WebRequest webRequest) {
+        int capped = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return ConditionalGet.respond(webRequest, listingEtag(), ConditionalGet.SHORT_LIVED,
+            () -> ResponseEntity.ok(catalogIndexService.suggest(q, capped)));
+    }
+
     @GetMapping("/list/featured")
-    @Transactional(readOnly = true)
-    public ResponseEntity<List<ProductDTO>> getFeaturedProducts() {
-        List<ProductDTO> products = productRepository.findFeatured().stream()
-            .map(p -> {
-                p.getVariants().size();
-                p.getImages().size();
-                return ProductDTO.fromEntity(p);
-            })
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDTO>> getFeaturedProducts(WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, catalogVersionService.etag(CatalogVersionService.PRODUCTS),
+            ConditionalGet.SHORT_LIVED, () -> ResponseEntity.ok(productListingService.findFeaturedDtos()));
     }
 
     @GetMapping("/list/new")
-    @Transactional(readOnly = true)
-    public ResponseEntity<List<ProductDTO>> getNewProducts() {
-        List<ProductDTO> products = productRepository.findNewArrivals().stream()
-            .map(p -> {
-                p.getVariants().size();
-                p.getImages().size();
-                return ProductDTO.fromEntity(p);
-            })
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDTO>> getNewProducts(WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, catalogVersionService.etag(CatalogVersionService.PRODUCTS),
+            ConditionalGet.SHORT_LIVED, () -> ResponseEntity.ok(productListingService.findNewArrivalDtos()));
     }
 
     @GetMapping("/list/top-selling")
-    @Transactional(readOnly = true)
-    public ResponseEntity<List<ProductDTO>> getTopSelling(@RequestParam(defaultValue = "10") int limit) {
-        List<ProductDTO> products = productRepository.findTopSelling(PageRequest.of(0, limit)).stream()
-            .map(p -> {
-                p.getVariants().size();
-                p.getImages().size();
-                return ProductDTO.fromEntity(p);
-            })
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDTO>> getTopSelling(@RequestParam(defaultValue = "10") int limit,
+                                                          WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, catalogVersionService.etag(CatalogVersionService.PRODUCTS),
+            ConditionalGet.SHORT_LIVED, () -> ResponseEntity.ok(productListingService.findTopSellingDtos(limit)));
     }
 
     @GetMapping("/list/flash-sale")
-    @Transactional(readOnly = true)
-    public ResponseEntity<List<ProductDTO>> getFlashSaleProducts() {
-        List<ProductDTO> products = productRepository.findFlashSaleProducts().stream()
-            .map(p -> {
-                p.getVariants().size();
-                p.getImages().size();
-                return ProductDTO.fromEntity(p);
-            })
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDTO>> getFlashSaleProducts(WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, catalogVersionService.etag(CatalogVersionService.PRODUCTS),
+            ConditionalGet.SHORT_LIVED, () -> ResponseEntity.ok(productListingService.findFlashSaleDtos()));
     }
 
     private void updateProductFromDTO(Product product, ProductDTO dto) {
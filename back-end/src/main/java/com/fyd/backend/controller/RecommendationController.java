@@ -6,7 +6,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,7 +36,7 @@ public class RecommendationController {
         try {
             List<Product> products = recommendationService.getSimilarProducts(productId, limit);
             response.put("success", true);
-            response.put("products", products.stream().map(this::mapProductToDto).collect(Collectors.toList()));
+            response.put("products", products.stream().map(recommendationService::toDto).collect(Collectors.toList()));
             response.put("type", "similar");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -60,7 +59,7 @@ public class RecommendationController {
         try {
             List<Product> products = recommendationService.getFrequentlyBoughtTogether(productId, limit);
             response.put("success", true);
-            response.put("products", products.stream().map(this::mapProductToDto).collect(Collectors.toList()));
+            response.put("products", products.stream().map(recommendationService::toDto).collect(Collectors.toList()));
             response.put("type", "bought_together");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -82,7 +81,7 @@ public class RecommendationController {
         try {
             List<Product> products = recommendationService.getPopularProducts(limit);
             response.put("success", true);
-            response.put("products", products.stream().map(this::mapProductToDto).collect(Collectors.toList()));
+            response.put("products", products.stream().map(recommendationService::toDto).collect(Collectors.toList()));
             response.put("type", "popular");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -105,7 +104,7 @@ public class RecommendationController {
         try {
             List<Product> products = recommendationService.getPersonalizedRecommendations(customerId, limit);
             response.put("success", true);
-            response.put("products", products.stream().map(this::mapProductToDto).collect(Collectors.toList()));
+            response.put("products", products.stream().map(recommendationService::toDto).collect(Collectors.toList()));
             response.put("type", "personalized");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -127,7 +126,7 @@ public class RecommendationController {
         try {
             List<Product> products = recommendationService.getCustomersAlsoViewed(productId, limit);
             response.put("success", true);
-            response.put("products", products.stream().map(this::mapProductToDto).collect(Collectors.toList()));
+            response.put("products", products.stream().map(recommendationService::toDto).collect(Collectors.toList()));
             response.put("type", "also_viewed");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -137,60 +136,4 @@ public class RecommendationController {
         }
     }
 
-    /**
-     * Map Product entity to a lightweight DTO for frontend.
-     */
-    private Map<String, Object> mapProductToDto(Product product) {
-        Map<String, Object> dto = new HashMap<>();
-        dto.put("id", product.getId());
-        dto.put("name", product.getName());
-        dto.put("sku", product.getSku());
-        dto.put("basePrice", product.getBasePrice());
-        dto.put("salePrice", product.getSalePrice());
-        dto.put("categoryId", product.getCategory() != null ? product.getCategory().getId() : null);
-        dto.put("soldCount", product.getSoldCount());
-        dto.put("viewCount", product.getViewCount());
-        
-        // Include variants for "Add to Cart" functionality
-        if (product.getVariants() != null) {
-            List<Map<String, Object>> variants = product.getVariants().stream().map(v -> {
-                Map<String, Object> vMap = new HashMap<>();
-                vMap.put("id", v.getId());
-                vMap.put("size", v.getSize() != null ? v.getSize().getName() : null);
-                vMap.put("sizeId", v.getSize() != null ? v.getSize().getId() : null);
-                vMap.put("color", v.getColor() != null ? v.getColor().getName() : null);
-                vMap.put("colorId", v.getColor() != null ? v.getColor().getId() : null);
-                vMap.put("stockQuantity", v.getStockQuantity());
-                return vMap;
-            }).collect(Collectors.toList());
-            dto.put("variants", variants);
-        }
-        
-        // Get primary image
-        if (product.getImages() != null && !product.getImages().isEmpty()) {
-            product.getImages().stream()
-                    .filter(img -> Boolean.TRUE.equals(img.getIsPrimary()))
-                    .findFirst()
-                    .ifPresentOrElse(
-                            img -> dto.put("image", img.getImageUrl()),
-                            () -> dto.put("image", product.getImages().iterator().next().getImageUrl())
-                    );
-        } else {
-            dto.put("image", null);
-        }
-
-        // Calculate discount percentage if on sale
-        if (product.getSalePrice() != null && product.getBasePrice() != null 
-                && product.getSalePrice().compareTo(product.getBasePrice()) < 0) {
-            BigDecimal discount = product.getBasePrice().subtract(product.getSalePrice())
-                    .divide(product.getBasePrice(), 2, java.math.RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100));
-            dto.put("discountPercent", discount.intValue());
-        } else {
-            dto.put("discountPercent", 0);
-        }
-
-        return dto;
-    }
-
 }
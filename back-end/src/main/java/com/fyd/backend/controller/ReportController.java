@@ -1,84 +1,85 @@
 package com.fyd.backend.controller;
 
-import com.fyd.backend.entity.Order;
-import com.fyd.backend.entity.ProductVariant;
+import com.fyd.backend.dto.ReportJobRequest;
+import com.fyd.backend.entity.ReportJob;
 import com.fyd.backend.repository.OrderRepository;
-import com.fyd.backend.repository.ProductVariantRepository;
 import com.fyd.backend.service.ExcelService;
+import com.fyd.backend.service.ReportExportService;
+import com.fyd.backend.service.ReportJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 
 @RestController
 @RequestMapping("/api/reports")
 public class ReportController {
 
+    private static final Logger logger = LoggerFactory.getLogger(ReportController.class);
+
     @Autowired
     private ExcelService excelService;
 
     @Autowired
-    private OrderRepository orderRepository;
+    private ReportExportService reportExportService;
+
+    @Autowired
+    private ReportJobService reportJobService;
 
     @Autowired
-    private ProductVariantRepository productVariantRepository;
+    private OrderRepository orderRepository;
 
     private static final DateTimeFormatter FILENAME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     /**
-     * Export Orders Report
+     * Export Orders Report.
+     * Rows are streamed from the database to the client, filtered by date in the query.
      */
     @GetMapping("/orders/export")
-    public ResponseEntity<byte[]> exportOrders(
+    public ResponseEntity<StreamingResponseBody> exportOrders(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String from,
-            @RequestParam(required = false) String to) {
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "xlsx") String format) {
+        LocalDateTime fromDate;
+        LocalDateTime toDate;
         try {
-            List<Order> orders;
-            
-            if (status != null && !status.isEmpty()) {
-                orders = orderRepository.findByStatus(status);
-            } else {
-                orders = orderRepository.findAll();
-            }
-            
-            // Filter by date range if provided
-            if (from != null || to != null) {
-                LocalDateTime fromDate = from != null ? LocalDate.parse(from).atStartOfDay() : LocalDateTime.MIN;
-                LocalDateTime toDate = to != null ? LocalDate.parse(to).atTime(23, 59, 59) : LocalDateTime.MAX;
-                
-                orders = orders.stream()
-                    .filter(o -> {
-                        LocalDateTime created = o.getCreatedAt();
-                        return created != null && !created.isBefore(fromDate) && !created.isAfter(toDate);
-                    })
-                    .toList();
-            }
-            
-            List<Map<String, Object>> data = orders.stream()
-                .map(this::orderToMap)
-                .toList();
-            
-            String title = "Báo cáo đơn hàng" + (status != null ? " - " + translateStatus(status) : "");
-            byte[] excelBytes = excelService.generateOrdersReport(data, title);
-            
-            String filename = "don-hang-" + LocalDate.now().format(FILENAME_FORMAT) + ".xlsx";
-            
-            return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(excelBytes);
-                
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+            fromDate = from != null && !from.isEmpty() ? LocalDate.parse(from).atStartOfDay() : null;
+            toDate = to != null && !to.isEmpty() ? LocalDate.parse(to).atTime(23, 59, 59) : null;
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
         }
+        String statusFilter = status != null && !status.isEmpty() ? status : null;
+        String title = "Báo cáo đơn hàng" + (statusFilter != null ? " - " + translateStatus(statusFilter) : "");
+        boolean csv = ReportExportService.FORMAT_CSV.equalsIgnoreCase(format);
+
+        StreamingResponseBody body = out -> {
+            try {
+                reportExportService.writeOrders(statusFilter, fromDate, toDate, title,
+                    csv ? ReportExportService.FORMAT_CSV : ReportExportService.FORMAT_XLSX, out);
+            } catch (Exception e) {
+                logger.error("Orders export failed", e);
+                throw e;
+            }
+        };
+
+        String filename = "don-hang-" + LocalDate.now().format(FILENAME_FORMAT) + (csv ? ".csv" : ".xlsx");
+        return download(body, filename, csv);
     }
 
     /**
@@ -127,77 +128,99 @@ public class ReportController {
     }
 
     /**
-     * Export Inventory Report
+     * Export Inventory Report.
+     * Rows are streamed from the database to the client.
      */
     @GetMapping("/inventory/export")
-    public ResponseEntity<byte[]> exportInventory(
-            @RequestParam(required = false) Boolean lowStock) {
-        try {
-            List<ProductVariant> variants = productVariantRepository.findAll();
-            
-            // Filter low stock if requested
-            if (Boolean.TRUE.equals(lowStock)) {
-                variants = variants.stream()
-                    .filter(v -> v.getStockQuantity() != null && v.getStockQuantity() < 10)
-                    .toList();
+    public ResponseEntity<StreamingResponseBody> exportInventory(
+            @RequestParam(required = false) Boolean lowStock,
+            @RequestParam(defaultValue = "xlsx") String format) {
+        boolean csv = ReportExportService.FORMAT_CSV.equalsIgnoreCase(format);
+
+        StreamingResponseBody body = out -> {
+            try {
+                reportExportService.writeInventory(Boolean.TRUE.equals(lowStock),
+                    csv ? ReportExportService.FORMAT_CSV : ReportExportService.FORMAT_XLSX, out);
+            } catch (Exception e) {
+                logger.error("Inventory export failed", e);
+                throw e;
             }
-            
-            List<Map<String, Object>> data = variants.stream()
-                .map(this::variantToMap)
-                .toList();
-            
-            byte[] excelBytes = excelService.generateInventoryReport(data);
-            
-            String filename = "ton-kho-" + LocalDate.now().format(FILENAME_FORMAT) + ".xlsx";
-            
-            return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .body(excelBytes);
-                
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.internalServerError().build();
-        }
+        };
+
+        String filename = "ton-kho-" + LocalDate.now().format(FILENAME_FORMAT) + (csv ? ".csv" : ".xlsx");
+        return download(body, filename, csv);
     }
 
-    // ============ HELPERS ============
+    // ============ BACKGROUND JOBS ============
 
-    private Map<String, Object> orderToMap(Order order) {
-        Map<String, Object> map = new HashMap<>();
-        map.put("orderCode", order.getOrderCode());
-        map.put("customerName", order.getShippingName());
-        map.put("shippingPhone", order.getShippingPhone());
-        map.put("totalAmount", order.getTotalAmount());
-        map.put("status", order.getStatus());
-        map.put("createdAt", order.getCreatedAt());
-        map.put("shippingAddress", buildAddress(order));
-        return map;
+    /**
+     * Queue a report export. Poll the returned job, then download it when status is DONE.
+     * An identical request submitted while a job is still running returns that job.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(@RequestBody ReportJobRequest request) {
+        try {
+            ReportJob job = reportJobService.submit(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobToMap(job));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (ReportJobService.BusyException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
     }
 
-    private String buildAddress(Order order) {
-        StringBuilder sb = new StringBuilder();
-        if (order.getShippingAddress() != null) sb.append(order.getShippingAddress());
-        if (order.getShippingWard() != null) sb.append(", ").append(order.getShippingWard());
-        if (order.getShippingDistrict() != null) sb.append(", ").append(order.getShippingDistrict());
-        if (order.getShippingProvince() != null) sb.append(", ").append(order.getShippingProvince());
-        return sb.toString();
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<?> getJob(@PathVariable String id) {
+        return reportJobService.getJob(id)
+            .map(job -> ResponseEntity.ok(jobToMap(job)))
+            .orElse(ResponseEntity.notFound().build());
     }
 
-    private Map<String, Object> variantToMap(ProductVariant variant) {
+    @GetMapping("/jobs/{id}/download")
+    public ResponseEntity<Resource> downloadJob(@PathVariable String id) {
+        Optional<ReportJob> jobOpt = reportJobService.getJob(id);
+        if (jobOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        ReportJob job = jobOpt.get();
+        return reportJobService.getArtifact(job)
+            .map(path -> ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + job.getFileName() + "\"")
+                .contentType(ReportExportService.FORMAT_CSV.equals(job.getFormat())
+                    ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_OCTET_STREAM)
+                .<Resource>body(new FileSystemResource(path)))
+            .orElse(ResponseEntity.status(HttpStatus.GONE).build());
+    }
+
+    // ============ HELPERS ============
+
+    private Map<String, Object> jobToMap(ReportJob job) {
         Map<String, Object> map = new HashMap<>();
-        map.put("sku", variant.getSkuVariant());
-        map.put("productName", variant.getProduct() != null ? variant.getProduct().getName() : "");
-        
-        String variantName = "";
-        if (variant.getColor() != null) variantName += variant.getColor().getName();
-        if (variant.getSize() != null) variantName += (variantName.isEmpty() ? "" : " / ") + variant.getSize().getName();
-        map.put("variant", variantName);
-        
-        map.put("quantity", variant.getStockQuantity() != null ? variant.getStockQuantity() : 0);
+        map.put("id", job.getId());
+        map.put("type", job.getReportType());
+        map.put("format", job.getFormat());
+        map.put("status", job.getStatus());
+        map.put("rowsWritten", job.getRowsWritten());
+        map.put("totalRows", job.getTotalRows());
+        map.put("fileName", job.getFileName());
+        map.put("fileSize", job.getFileSize());
+        map.put("error", job.getError());
+        map.put("createdAt", job.getCreatedAt());
+        map.put("finishedAt", job.getFinishedAt());
+        map.put("expiresAt", job.getExpiresAt());
+        if ("DONE".equals(job.getStatus())) {
+            map.put("downloadUrl", "/api/reports/jobs/" + job.getId() + "/download");
+        }
         return map;
     }
 
+    private ResponseEntity<StreamingResponseBody> download(StreamingResponseBody body, String filename, boolean csv) {
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_OCTET_STREAM)
+            .body(body);
+    }
+
     private String translateStatus(String status) {
         if (status == null) return "";
         return switch (status) {
@@ -3,6 +3,7 @@ package com.fyd.backend.controller;
 import com.fyd.backend.entity.Order;
 import com.fyd.backend.repository.OrderRepository;
 import com.fyd.backend.service.GHTKService;
+import com.fyd.backend.service.OrderStatusCountService;
 import com.fyd.backend.annotation.Loggable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +21,9 @@ public class ShippingController {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderStatusCountService orderStatusCountService;
+
     @PostMapping("/ghtk/push/{orderId}")
     @Loggable(action = "UPDATE", entityType = "Shipping")
     public ResponseEntity<?> pushToGHTK(@PathVariable Long orderId) {
@@ -35,8 +39,10 @@ public class ShippingController {
             
             order.setTrackingNumber(labelId);
             order.setCarrier("GHTK");
+            String previousStatus = order.getStatus();
             order.setStatus("SHIPPING"); // Update to SHIPPING once pushed
             orderRepository.save(order);
+            orderStatusCountService.onStatusChanged(previousStatus, "SHIPPING");
             
             return ResponseEntity.ok(result);
         }
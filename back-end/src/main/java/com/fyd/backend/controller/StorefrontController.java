@@ -0,0 +1,37 @@
+package com.fyd.backend.controller;
+
+import com.fyd.backend.service.StorefrontService;
+import com.fyd.backend.service.catalog.CatalogVersionService;
+import com.fyd.backend.util.ConditionalGet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/storefront")
+public class StorefrontController {
+
+    @Autowired
+    private StorefrontService storefrontService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    /**
+     * Featured, new arrivals, flash sale, top selling, category tree and active featured
+     * zones in one response. Sections that could not be loaded in time are empty and
+     * named in "missing".
+     */
+    @GetMapping("/home")
+    public ResponseEntity<Map<String, Object>> getHome(WebRequest webRequest) {
+        StorefrontService.Home home = storefrontService.getHome();
+        return ConditionalGet.respond(webRequest,
+            catalogVersionService.etag(CatalogVersionService.PRODUCTS, home.getVersion()),
+            ConditionalGet.SHORT_LIVED, () -> ResponseEntity.ok(home.getPayload()));
+    }
+}
@@ -0,0 +1,14 @@
+package com.fyd.backend.dto;
+
+import java.util.List;
+
+public class BulkStatusRequest {
+    private List<Long> ids;
+    private String status;
+
+    // Getters and Setters
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
@@ -8,6 +8,9 @@ public class ImageDTO {
     private String altText;
     private Boolean isPrimary;
     private Integer sortOrder;
+    private String thumbnailUrl;
+    private String srcset;
+    private String status;
 
     public static ImageDTO fromEntity(ProductImage img) {
         ImageDTO dto = new ImageDTO();
@@ -16,6 +19,9 @@ public class ImageDTO {
         dto.setAltText(img.getAltText());
         dto.setIsPrimary(img.getIsPrimary());
         dto.setSortOrder(img.getSortOrder());
+        dto.setThumbnailUrl(img.getThumbnailUrl() != null ? img.getThumbnailUrl() : img.getImageUrl());
+        dto.setSrcset(img.getSrcset());
+        dto.setStatus(img.getStatus() != null ? img.getStatus() : "READY");
         return dto;
     }
 
@@ -30,5 +36,11 @@ public class ImageDTO {
     public void setIsPrimary(Boolean isPrimary) { this.isPrimary = isPrimary; }
     public Integer getSortOrder() { return sortOrder; }
     public void setSortOrder(Integer sortOrder) { this.sortOrder = sortOrder; }
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+    public String getSrcset() { return srcset; }
+    public void setSrcset(String srcset) { this.srcset = srcset; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
 }
 
@@ -1,6 +1,7 @@
 package com.fyd.backend.dto;
 
 import com.fyd.backend.entity.Product;
+import com.fyd.backend.entity.ProductImage;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -71,13 +72,18 @@ public class ProductDTO {
             dto.setThumbnail(p.getImages().stream()
                 .filter(img -> Boolean.TRUE.equals(img.getIsPrimary()))
                 .findFirst()
-                .map(img -> img.getImageUrl())
-                .orElse(p.getImages().get(0).getImageUrl()));
+                .map(ProductDTO::thumbnailOf)
+                .orElse(thumbnailOf(p.getImages().get(0))));
         }
         
         return dto;
     }
 
+    // Card-sized rendition when the image pipeline produced one
+    private static String thumbnailOf(ProductImage img) {
+        return img.getThumbnailUrl() != null ? img.getThumbnailUrl() : img.getImageUrl();
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
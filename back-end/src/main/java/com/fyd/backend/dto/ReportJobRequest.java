@@ -0,0 +1,24 @@
+package com.fyd.backend.dto;
+
+public class ReportJobRequest {
+    private String type; // ORDERS, INVENTORY
+    private String format; // xlsx (default), csv
+    private String status; // orders only
+    private String from; // yyyy-MM-dd, orders only
+    private String to; // yyyy-MM-dd, orders only
+    private Boolean lowStock; // inventory only
+
+    // Getters and Setters
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getFrom() { return from; }
+    public void setFrom(String from) { this.from = from; }
+    public String getTo() { return to; }
+    public void setTo(String to) { this.to = to; }
+    public Boolean getLowStock() { return lowStock; }
+    public void setLowStock(Boolean lowStock) { this.lowStock = lowStock; }
+}
@@ -1,10 +1,12 @@
 package com.fyd.backend.entity;
 
+import com.fyd.backend.service.catalog.CatalogChangeListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "brands")
+@EntityListeners(CatalogChangeListener.class)
 public class Brand {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,46 @@
+package com.fyd.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One catalog change committed by some instance, for the other instances to replay
+ * (see CatalogChangeLog). Rows are only appended, and purged after a day.
+ */
+@Entity
+@Table(name = "catalog_changes", indexes = {
+    @Index(name = "idx_catalog_changes_changed", columnList = "changed_at")
+})
+public class CatalogChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String origin; // host name + random suffix of the writing instance
+
+    @Column(name = "entity_type", nullable = false, length = 30)
+    private String entityType; // CatalogChangedEvent type
+
+    @Column(name = "product_id")
+    private Long productId; // null for reference data and bulk changes
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getOrigin() { return origin; }
+    public void setOrigin(String origin) { this.origin = origin; }
+
+    public String getEntityType() { return entityType; }
+    public void setEntityType(String entityType) { this.entityType = entityType; }
+
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+
+    public LocalDateTime getChangedAt() { return changedAt; }
+    public void setChangedAt(LocalDateTime changedAt) { this.changedAt = changedAt; }
+}
@@ -1,10 +1,12 @@
 package com.fyd.backend.entity;
 
+import com.fyd.backend.service.catalog.CatalogChangeListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "categories")
+@EntityListeners(CatalogChangeListener.class)
 public class Category {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,9 +1,11 @@
 package com.fyd.backend.entity;
 
+import com.fyd.backend.service.catalog.CatalogChangeListener;
 import jakarta.persistence.*;
 
 @Entity
 @Table(name = "colors")
+@EntityListeners(CatalogChangeListener.class)
 public class Color {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,10 +1,12 @@
 package com.fyd.backend.entity;
 
+import com.fyd.backend.service.catalog.CatalogChangeListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "featured_zones")
+@EntityListeners(CatalogChangeListener.class)
 public class FeaturedZone {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,65 @@
+package com.fyd.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One change to a variant's stock. Rows are only ever appended (see InventoryLedgerService),
+ * in the same transaction as the stock change they describe.
+ */
+@Entity
+@Table(name = "inventory_movements", indexes = {
+    @Index(name = "idx_inventory_movements_variant", columnList = "variant_id, id"),
+    @Index(name = "idx_inventory_movements_occurred", columnList = "occurred_at")
+})
+public class InventoryMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "variant_id", nullable = false)
+    private Long variantId;
+
+    @Column(name = "movement_type", nullable = false, length = 20)
+    private String movementType; // SALE, CANCEL, ADJUST, IMPORT, RETURN
+
+    @Column(nullable = false)
+    private Integer quantity; // signed: negative takes stock out
+
+    @Column(name = "stock_after")
+    private Integer stockAfter; // null when the writer did not read it back
+
+    @Column(length = 100)
+    private String reference; // order code, import batch, ...
+
+    @Column(length = 100)
+    private String actor;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getVariantId() { return variantId; }
+    public void setVariantId(Long variantId) { this.variantId = variantId; }
+
+    public String getMovementType() { return movementType; }
+    public void setMovementType(String movementType) { this.movementType = movementType; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public Integer getStockAfter() { return stockAfter; }
+    public void setStockAfter(Integer stockAfter) { this.stockAfter = stockAfter; }
+
+    public String getReference() { return reference; }
+    public void setReference(String reference) { this.reference = reference; }
+
+    public String getActor() { return actor; }
+    public void setActor(String actor) { this.actor = actor; }
+
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(LocalDateTime occurredAt) { this.occurredAt = occurredAt; }
+}
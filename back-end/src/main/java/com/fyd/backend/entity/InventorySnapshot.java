@@ -0,0 +1,46 @@
+package com.fyd.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A variant's stock at a point in the movement ledger: it includes every movement up to
+ * and including lastMovementId. Stock at any later time is this plus the movements after it.
+ */
+@Entity
+@Table(name = "inventory_snapshots", indexes = {
+    @Index(name = "idx_inventory_snapshots_variant", columnList = "variant_id, taken_at")
+})
+public class InventorySnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "variant_id", nullable = false)
+    private Long variantId;
+
+    @Column(nullable = false)
+    private Integer stock;
+
+    @Column(name = "last_movement_id", nullable = false)
+    private Long lastMovementId; // 0 when the variant had no movements yet
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getVariantId() { return variantId; }
+    public void setVariantId(Long variantId) { this.variantId = variantId; }
+
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
+
+    public Long getLastMovementId() { return lastMovementId; }
+    public void setLastMovementId(Long lastMovementId) { this.lastMovementId = lastMovementId; }
+
+    public LocalDateTime getTakenAt() { return takenAt; }
+    public void setTakenAt(LocalDateTime takenAt) { this.takenAt = takenAt; }
+}
@@ -1,5 +1,6 @@
 package com.fyd.backend.entity;
 
+import com.fyd.backend.util.VietnameseText;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -7,7 +8,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    @Index(name = "idx_orders_customer_created", columnList = "customer_id, created_at, id")
+})
 public class Order {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -108,9 +111,25 @@ public class Order {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /** Accent-folded order code, name and phone, indexed with a FULLTEXT ngram index. */
+    @Column(name = "search_text", length = 500)
+    private String searchText;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<OrderItem> items = new ArrayList<>();
 
+    @PrePersist
+    @PreUpdate
+    public void refreshSearchText() {
+        String phone = shippingPhone != null ? shippingPhone.replaceAll("\\D", "") : "";
+        String text = String.join(" ",
+            VietnameseText.toSearchTokens(orderCode),
+            VietnameseText.compact(orderCode),
+            VietnameseText.toSearchTokens(shippingName),
+            phone).trim();
+        searchText = text.length() > 500 ? text.substring(0, 500) : text;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -183,4 +202,5 @@ public class Order {
     public void setPointsUsed(Integer pointsUsed) { this.pointsUsed = pointsUsed; }
     public Integer getPointsEarned() { return pointsEarned; }
     public void setPointsEarned(Integer pointsEarned) { this.pointsEarned = pointsEarned; }
+    public String getSearchText() { return searchText; }
 }
@@ -0,0 +1,30 @@
+package com.fyd.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Lease on one order code node id. A running instance renews its row while it
+ * issues codes; a row whose heartbeat is older than the lease may be taken over.
+ */
+@Entity
+@Table(name = "order_code_nodes")
+public class OrderCodeNode {
+    @Id
+    @Column(name = "node_id")
+    private Integer nodeId;
+
+    @Column(nullable = false, length = 100)
+    private String owner; // host name + random suffix of the holding instance
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    // Getters and Setters
+    public Integer getNodeId() { return nodeId; }
+    public void setNodeId(Integer nodeId) { this.nodeId = nodeId; }
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+    public LocalDateTime getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(LocalDateTime heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+}
@@ -1,5 +1,6 @@
 package com.fyd.backend.entity;
 
+import com.fyd.backend.service.catalog.CatalogChangeListener;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -8,6 +9,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "products")
+@EntityListeners(CatalogChangeListener.class)
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -66,10 +68,12 @@ public class Product {
     @Column(length = 30)
     private String status = "ACTIVE";
 
-    @Column(name = "view_count")
+    // Counters are only changed by SQL increments (ProductViewService, ProductSalesService);
+    // not updatable so saving an edited product never writes back a stale value
+    @Column(name = "view_count", updatable = false)
     private Integer viewCount = 0;
 
-    @Column(name = "sold_count")
+    @Column(name = "sold_count", updatable = false)
     private Integer soldCount = 0;
 
     @Column(name = "created_at")
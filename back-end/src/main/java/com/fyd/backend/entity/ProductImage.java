@@ -1,10 +1,14 @@
 package com.fyd.backend.entity;
 
+import com.fyd.backend.service.catalog.CatalogChangeListener;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "product_images")
+@Table(name = "product_images", indexes = {
+    @Index(name = "idx_product_images_hash", columnList = "content_hash")
+})
+@EntityListeners(CatalogChangeListener.class)
 public class ProductImage {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -29,6 +33,22 @@ public class ProductImage {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // PENDING while renditions are generated (imageUrl is then the original upload),
+    // READY when done, FAILED if the upload could not be decoded. Null for older rows.
+    @Column(length = 20)
+    private String status;
+
+    // SHA-256 of the uploaded bytes; identical uploads share one set of files
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+
+    // "<url> 160w, <url> 480w, ..." for <img srcset>
+    @Column(length = 1000)
+    private String srcset;
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -44,4 +64,12 @@ public class ProductImage {
     public void setSortOrder(Integer sortOrder) { this.sortOrder = sortOrder; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public String getThumbnailUrl() { return thumbnailUrl; }
+    public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+    public String getSrcset() { return srcset; }
+    public void setSrcset(String srcset) { this.srcset = srcset; }
 }
@@ -1,11 +1,16 @@
 package com.fyd.backend.entity;
 
+import com.fyd.backend.service.catalog.CatalogChangeListener;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "product_variants")
+@Table(name = "product_variants", indexes = {
+    // Inventory list: default sort by stock and the low/out filters
+    @Index(name = "idx_product_variants_stock", columnList = "stock, id")
+})
+@EntityListeners(CatalogChangeListener.class)
 public class ProductVariant {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -35,6 +40,10 @@ public class ProductVariant {
     @Column(length = 20)
     private String status = "ACTIVE";
 
+    // Maintained by ProductSalesService with SQL increments
+    @Column(name = "sold_count", updatable = false)
+    private Integer soldCount = 0;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -58,6 +67,8 @@ public class ProductVariant {
     public void setStockQuantity(Integer stockQuantity) { this.stockQuantity = stockQuantity; }
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
+    public Integer getSoldCount() { return soldCount; }
+    public void setSoldCount(Integer soldCount) { this.soldCount = soldCount; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
@@ -0,0 +1,99 @@
+package com.fyd.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A report export generated in the background. The file is written to the
+ * local report store and can be downloaded until expiresAt.
+ */
+@Entity
+@Table(name = "report_jobs", indexes = {
+    @Index(name = "idx_report_jobs_expires", columnList = "expires_at")
+})
+public class ReportJob {
+    @Id
+    @Column(length = 36)
+    private String id; // UUID, so job links cannot be guessed
+
+    @Column(name = "report_type", nullable = false, length = 20)
+    private String reportType; // ORDERS, INVENTORY
+
+    @Column(nullable = false, length = 10)
+    private String format; // xlsx, csv
+
+    @Column(columnDefinition = "TEXT")
+    private String params; // JSON
+
+    @Column(name = "dedupe_key", nullable = false, length = 64)
+    private String dedupeKey;
+
+    @Column(nullable = false, length = 20)
+    private String status = "QUEUED"; // QUEUED, RUNNING, DONE, FAILED
+
+    @Column(name = "rows_written")
+    private Long rowsWritten = 0L;
+
+    @Column(name = "total_rows")
+    private Long totalRows;
+
+    @Column(name = "file_name", length = 100)
+    private String fileName;
+
+    @Column(name = "file_path", length = 500)
+    private String filePath;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(length = 500)
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getReportType() { return reportType; }
+    public void setReportType(String reportType) { this.reportType = reportType; }
+    public String getFormat() { return format; }
+    public void setFormat(String format) { this.format = format; }
+    public String getParams() { return params; }
+    public void setParams(String params) { this.params = params; }
+    public String getDedupeKey() { return dedupeKey; }
+    public void setDedupeKey(String dedupeKey) { this.dedupeKey = dedupeKey; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public Long getRowsWritten() { return rowsWritten; }
+    public void setRowsWritten(Long rowsWritten) { this.rowsWritten = rowsWritten; }
+    public Long getTotalRows() { return totalRows; }
+    public void setTotalRows(Long totalRows) { this.totalRows = totalRows; }
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+    public String getFilePath() { return filePath; }
+    public void setFilePath(String filePath) { this.filePath = filePath; }
+    public Long getFileSize() { return fileSize; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+}
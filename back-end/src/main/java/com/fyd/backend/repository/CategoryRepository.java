@@ -12,12 +12,11 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findBySlug(String slug);
     Optional<Category> findByName(String name);
     
-    @Query("SELECT c FROM Category c WHERE c.parent IS NULL AND c.status = 'ACTIVE' ORDER BY c.sortOrder")
-    List<Category> findRootCategories();
-    
-    @Query("SELECT c FROM Category c WHERE c.parent.id = :parentId AND c.status = 'ACTIVE' ORDER BY c.sortOrder")
-    List<Category> findByParentId(Long parentId);
-    
     @Query("SELECT c FROM Category c WHERE c.status = 'ACTIVE' ORDER BY c.sortOrder")
     List<Category> findAllActive();
+
+    // Category tree rows: id, parentId, name, slug, description, imageUrl, sortOrder
+    @Query("SELECT c.id, c.parent.id, c.name, c.slug, c.description, c.imageUrl, c.sortOrder " +
+           "FROM Category c WHERE c.status = 'ACTIVE' ORDER BY c.sortOrder, c.id")
+    List<Object[]> findTreeRows();
 }
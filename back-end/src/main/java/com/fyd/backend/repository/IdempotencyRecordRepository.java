@@ -0,0 +1,25 @@
+package com.fyd.backend.repository;
+
+import com.fyd.backend.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByScopeAndIdemKey(String scope, String idemKey);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.scope = :scope AND r.idemKey = :idemKey AND r.status = 'IN_PROGRESS'")
+    int deleteInProgress(@Param("scope") String scope, @Param("idemKey") String idemKey);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
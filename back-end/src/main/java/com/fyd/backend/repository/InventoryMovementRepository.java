@@ -0,0 +1,29 @@
+package com.fyd.backend.repository;
+
+import com.fyd.backend.entity.InventoryMovement;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
+
+    Page<InventoryMovement> findByVariantIdOrderByIdDesc(Long variantId, Pageable pageable);
+
+    // Tail after a snapshot up to a point in time: [sum of quantities, movement count]
+    @Query("SELECT COALESCE(SUM(m.quantity), 0), COUNT(m) FROM InventoryMovement m " +
+           "WHERE m.variantId = :variantId AND m.id > :afterId AND m.occurredAt <= :at")
+    List<Object[]> sumAfter(@Param("variantId") Long variantId, @Param("afterId") Long afterId,
+                            @Param("at") LocalDateTime at);
+
+    // Movements after a point in time, to walk back from the current stock: [sum of quantities, movement count]
+    @Query("SELECT COALESCE(SUM(m.quantity), 0), COUNT(m) FROM InventoryMovement m " +
+           "WHERE m.variantId = :variantId AND m.occurredAt > :at")
+    List<Object[]> sumSince(@Param("variantId") Long variantId, @Param("at") LocalDateTime at);
+}
@@ -0,0 +1,16 @@
+package com.fyd.backend.repository;
+
+import com.fyd.backend.entity.InventorySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface InventorySnapshotRepository extends JpaRepository<InventorySnapshot, Long> {
+
+    // Latest snapshot taken at or before the given time
+    Optional<InventorySnapshot> findFirstByVariantIdAndTakenAtLessThanEqualOrderByTakenAtDesc(Long variantId,
+                                                                                            LocalDateTime at);
+}
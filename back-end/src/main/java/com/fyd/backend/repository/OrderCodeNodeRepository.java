@@ -0,0 +1,31 @@
+package com.fyd.backend.repository;
+
+import com.fyd.backend.entity.OrderCodeNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OrderCodeNodeRepository extends JpaRepository<OrderCodeNode, Integer> {
+
+    // Plain INSERT (save() would merge into an existing row); fails on a taken node id
+    @Modifying
+    @Query(value = "INSERT INTO order_code_nodes (node_id, owner, heartbeat_at) VALUES (:nodeId, :owner, :now)",
+           nativeQuery = true)
+    int insert(@Param("nodeId") int nodeId, @Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    // Renews our own lease or takes over an expired one
+    @Modifying
+    @Query("UPDATE OrderCodeNode n SET n.owner = :owner, n.heartbeatAt = :now " +
+           "WHERE n.nodeId = :nodeId AND (n.owner = :owner OR n.heartbeatAt < :expiredBefore)")
+    int claim(@Param("nodeId") int nodeId, @Param("owner") String owner, @Param("now") LocalDateTime now,
+              @Param("expiredBefore") LocalDateTime expiredBefore);
+
+    @Modifying
+    @Query("DELETE FROM OrderCodeNode n WHERE n.nodeId = :nodeId AND n.owner = :owner")
+    int release(@Param("nodeId") int nodeId, @Param("owner") String owner);
+}
@@ -1,16 +1,23 @@
 package com.fyd.backend.repository;
 
 import com.fyd.backend.entity.OrderItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrderId(Long orderId);
+
+    // Sales counter deltas: productId, variantId (may be null), total quantity
+    @Query("SELECT oi.product.id, oi.variant.id, SUM(oi.quantity) FROM OrderItem oi " +
+           "WHERE oi.order.id IN :orderIds GROUP BY oi.product.id, oi.variant.id")
+    List<Object[]> sumQuantitiesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
     
     @Query("SELECT oi.product.id, oi.productName, SUM(oi.quantity), SUM(oi.lineTotal) " +
            "FROM OrderItem oi WHERE oi.order.status = 'DELIVERED' " +
@@ -37,4 +44,17 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
            "HAVING COUNT(DISTINCT oi1.order.id) >= 2 " +
            "ORDER BY COUNT(DISTINCT oi1.order.id) DESC")
     List<Object[]> getFrequentlyBoughtTogether(@Param("from") LocalDateTime from);
+
+    // Stock to give back when orders are cancelled: orderCode, variantId, quantity
+    @Query("SELECT oi.order.orderCode, oi.variant.id, oi.quantity FROM OrderItem oi " +
+           "WHERE oi.order.id IN :orderIds AND oi.variant IS NOT NULL ORDER BY oi.order.id, oi.id")
+    List<Object[]> findStockLinesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    // Active products sharing an order with the given one, most shared orders first: productId, order count
+    @Query("SELECT oi2.product.id, COUNT(DISTINCT oi2.order.id) " +
+           "FROM OrderItem oi1 JOIN OrderItem oi2 ON oi1.order.id = oi2.order.id " +
+           "WHERE oi1.product.id = :productId AND oi2.product.id <> :productId " +
+           "AND oi2.product.status = 'ACTIVE' " +
+           "GROUP BY oi2.product.id ORDER BY COUNT(DISTINCT oi2.order.id) DESC")
+    List<Object[]> findBoughtTogether(@Param("productId") Long productId, Pageable pageable);
 }
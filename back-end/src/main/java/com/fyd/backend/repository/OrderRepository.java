@@ -1,16 +1,23 @@
 package com.fyd.backend.repository;
 
 import com.fyd.backend.entity.Order;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -22,21 +29,89 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     Page<Order> findByCustomerId(Long customerId, Pageable pageable);
     
-    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.customer.id = :customerId")
-    List<Order> findByCustomerIdWithItems(@Param("customerId") Long customerId);
-    
-    @Query("SELECT o FROM Order o WHERE " +
-           "(LOWER(o.orderCode) LIKE LOWER(CONCAT('%', :q, '%')) OR " +
-           "LOWER(o.shippingName) LIKE LOWER(CONCAT('%', :q, '%')) OR " +
-           "LOWER(o.shippingPhone) LIKE LOWER(CONCAT('%', :q, '%')))")
-    Page<Order> search(@Param("q") String q, Pageable pageable);
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id")
+    Optional<Order> findByIdWithItems(@Param("id") Long id);
+
+    // Status changes lock the order rows (SELECT ... FOR UPDATE) so two requests cannot both apply a transition
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+
+    // Locked in ascending id order, so concurrent bulk changes over overlapping orders cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids ORDER BY o.id")
+    List<Order> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    long countByCustomerId(Long customerId);
+
+    /** First page of a customer's order history, newest first. */
+    @Query("SELECT o.id FROM Order o WHERE o.customer.id = :customerId ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findIdsByCustomer(@Param("customerId") Long customerId, Pageable pageable);
+
+    /** Next page of a customer's order history after the (createdAt, id) cursor. */
+    @Query("SELECT o.id FROM Order o WHERE o.customer.id = :customerId " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findIdsByCustomerBefore(@Param("customerId") Long customerId,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
+
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.items i " +
+           "LEFT JOIN FETCH i.product LEFT JOIN FETCH i.variant WHERE o.id IN :ids")
+    List<Order> findAllWithItemsByIdIn(@Param("ids") Collection<Long> ids);
     
+    /**
+     * Search through the FULLTEXT ngram index on search_text.
+     * The query must be in boolean mode syntax, e.g. +"nguyen" +"0912".
+     */
+    @Query(value = "SELECT * FROM orders o WHERE MATCH(o.search_text) AGAINST (:query IN BOOLEAN MODE) " +
+                   "ORDER BY o.created_at DESC, o.id DESC",
+           countQuery = "SELECT COUNT(*) FROM orders o WHERE MATCH(o.search_text) AGAINST (:query IN BOOLEAN MODE)",
+           nativeQuery = true)
+    Page<Order> searchIndexed(@Param("query") String query, Pageable pageable);
+
+    /** Fallback for terms shorter than the ngram size; uses the order_code unique index. */
+    @Query("SELECT o FROM Order o WHERE o.orderCode LIKE CONCAT(:prefix, '%') OR o.shippingPhone LIKE CONCAT(:prefix, '%')")
+    Page<Order> searchByPrefix(@Param("prefix") String prefix, Pageable pageable);
+
+    /**
+     * Scalar rows for the orders export, streamed from the server instead of buffered.
+     * Columns: orderCode, shippingName, shippingPhone, totalAmount, status, createdAt,
+     * shippingAddress, shippingWard, shippingDistrict, shippingProvince.
+     * Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o.orderCode, o.shippingName, o.shippingPhone, o.totalAmount, o.status, o.createdAt, " +
+           "o.shippingAddress, o.shippingWard, o.shippingDistrict, o.shippingProvince FROM Order o " +
+           "WHERE (:status IS NULL OR o.status = :status) " +
+           "AND (:from IS NULL OR o.createdAt >= :from) AND (:to IS NULL OR o.createdAt <= :to) " +
+           "ORDER BY o.createdAt")
+    Stream<Object[]> streamForExport(@Param("status") String status,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to);
+
+    @Query("SELECT COUNT(o) FROM Order o WHERE (:status IS NULL OR o.status = :status) " +
+           "AND (:from IS NULL OR o.createdAt >= :from) AND (:to IS NULL OR o.createdAt <= :to)")
+    long countForExport(@Param("status") String status,
+                        @Param("from") LocalDateTime from,
+                        @Param("to") LocalDateTime to);
+
+    @Query("SELECT o.id FROM Order o WHERE o.searchText IS NULL")
+    List<Long> findIdsWithoutSearchText(Pageable pageable);
+
     @Query("SELECT o FROM Order o WHERE o.status = :status")
     Page<Order> findByStatus(@Param("status") String status, Pageable pageable);
     
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status")
     Long countByStatus(@Param("status") String status);
 
+    @Query("SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status")
+    List<Object[]> countGroupByStatus();
+
     @Query("SELECT COUNT(o) FROM Order o WHERE o.createdAt >= :from")
     Long countFrom(@Param("from") LocalDateTime from);
 
@@ -0,0 +1,28 @@
+package com.fyd.backend.repository;
+
+import com.fyd.backend.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Next batch of due events, oldest first
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<OutboxEvent> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Returns [handler, pendingCount, oldestCreatedAt] per handler
+    @Query("SELECT e.handler, COUNT(e), MIN(e.createdAt) FROM OutboxEvent e WHERE e.status = 'PENDING' GROUP BY e.handler")
+    List<Object[]> summarizePending();
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = 'DONE' AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -7,7 +7,10 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
@@ -21,4 +24,24 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, Long
     @Modifying
     @Query("UPDATE ProductImage pi SET pi.isPrimary = true WHERE pi.id = :imageId")
     void setPrimaryById(@Param("imageId") Long imageId);
+
+    Optional<ProductImage> findFirstByProductIdAndContentHash(Long productId, String contentHash);
+
+    Optional<ProductImage> findFirstByContentHashAndStatus(String contentHash, String status);
+
+    List<ProductImage> findByContentHashAndStatus(String contentHash, String status);
+
+    // Uploads still waiting for renditions, e.g. queued when the server stopped
+    @Query("SELECT DISTINCT pi.contentHash FROM ProductImage pi WHERE pi.status = 'PENDING' AND pi.createdAt < :before")
+    List<String> findPendingHashes(@Param("before") LocalDateTime before);
+
+    // Card images for some products: productId, thumbnail URL; primary image first for each product
+    @Query("SELECT pi.product.id, COALESCE(pi.thumbnailUrl, pi.imageUrl) FROM ProductImage pi " +
+           "WHERE pi.product.id IN :productIds ORDER BY pi.product.id, pi.isPrimary DESC, pi.sortOrder, pi.id")
+    List<Object[]> findThumbnailsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    // Catalog index thumbnails: productId, thumbnail URL; primary image first for each product
+    @Query("SELECT pi.product.id, COALESCE(pi.thumbnailUrl, pi.imageUrl) FROM ProductImage pi WHERE pi.product.status = 'ACTIVE' " +
+           "ORDER BY pi.product.id, pi.isPrimary DESC, pi.sortOrder, pi.id")
+    List<Object[]> findCatalogThumbnails();
 }
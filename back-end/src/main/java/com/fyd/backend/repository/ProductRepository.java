@@ -3,15 +3,18 @@ package com.fyd.backend.repository;
 import com.fyd.backend.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+    @EntityGraph(attributePaths = {"category", "brand"})
     Optional<Product> findBySku(String sku);
     Optional<Product> findBySlug(String slug);
     boolean existsBySku(String sku);
@@ -19,29 +22,38 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.status = 'ACTIVE'")
     List<Product> findAllActive();
     
+    // Listing queries join category/brand in the same select; variants and images
+    // are loaded afterwards for the whole list (see fetchVariantsByIdIn / fetchImagesByIdIn)
+    @EntityGraph(attributePaths = {"category", "brand"})
+    @Query("SELECT p FROM Product p")
+    Page<Product> findPage(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"category", "brand"})
     @Query("SELECT p FROM Product p WHERE p.isFeatured = true AND p.status = 'ACTIVE'")
     List<Product> findFeatured();
     
+    @EntityGraph(attributePaths = {"category", "brand"})
     @Query("SELECT p FROM Product p WHERE p.isNew = true AND p.status = 'ACTIVE'")
     List<Product> findNewArrivals();
 
+    @EntityGraph(attributePaths = {"category", "brand"})
     @Query("SELECT p FROM Product p WHERE p.isFlashSale = true AND p.status = 'ACTIVE'")
     List<Product> findFlashSaleProducts();
     
     @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId AND p.status = 'ACTIVE'")
     List<Product> findByCategory(@Param("categoryId") Long categoryId);
+
+    // Category tree counts: categoryId, active products directly in it
+    @Query("SELECT p.category.id, COUNT(p) FROM Product p WHERE p.status = 'ACTIVE' AND p.category IS NOT NULL " +
+           "GROUP BY p.category.id")
+    List<Object[]> countActiveByCategory();
     
-    @Query("SELECT p FROM Product p WHERE " +
-           "(LOWER(p.name) LIKE LOWER(CONCAT('%', :q, '%')) OR " +
-           "LOWER(p.sku) LIKE LOWER(CONCAT('%', :q, '%')) OR " +
-           "LOWER(p.category.name) LIKE LOWER(CONCAT('%', :q, '%')))")
-    Page<Product> search(@Param("q") String q, Pageable pageable);
-    
+    @EntityGraph(attributePaths = {"category", "brand"})
     @Query("SELECT DISTINCT p FROM Product p " +
            "LEFT JOIN p.variants v " +
            "WHERE p.status = 'ACTIVE' " +
            "AND (:q IS NULL OR :q = '' OR LOWER(p.name) LIKE LOWER(CONCAT('%', :q, '%')) OR LOWER(p.sku) LIKE LOWER(CONCAT('%', :q, '%'))) " +
-           "AND (:categoryId IS NULL OR p.category.id = :categoryId) " +
+           "AND (:categoryId IS NULL OR p.category.id IN :categoryIds) " +
            "AND (:brandId IS NULL OR p.brand.id = :brandId) " +
            "AND (:minPrice IS NULL OR p.basePrice >= :minPrice) " +
            "AND (:maxPrice IS NULL OR p.basePrice <= :maxPrice) " +
@@ -50,6 +62,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Page<Product> advancedSearch(
         @Param("q") String q,
         @Param("categoryId") Long categoryId,
+        @Param("categoryIds") java.util.Collection<Long> categoryIds,
         @Param("brandId") Long brandId,
         @Param("minPrice") java.math.BigDecimal minPrice,
         @Param("maxPrice") java.math.BigDecimal maxPrice,
@@ -58,9 +71,34 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
         Pageable pageable
     );
     
+    @EntityGraph(attributePaths = {"category", "brand"})
     @Query("SELECT p FROM Product p ORDER BY p.soldCount DESC")
     List<Product> findTopSelling(Pageable pageable);
 
+    // Two separate queries: fetching both bags in one select is not allowed by Hibernate
+    // and would multiply the rows anyway
+    @Query("SELECT DISTINCT p FROM Product p " +
+           "LEFT JOIN FETCH p.variants v " +
+           "LEFT JOIN FETCH v.size " +
+           "LEFT JOIN FETCH v.color " +
+           "WHERE p.id IN :ids")
+    List<Product> fetchVariantsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.images WHERE p.id IN :ids")
+    List<Product> fetchImagesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = {"category", "brand"})
+    List<Product> findAllByIdIn(Collection<Long> ids);
+
+    // Product cards for featured zones: id, name, basePrice, salePrice
+    @Query("SELECT p.id, p.name, p.basePrice, p.salePrice FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findCardRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Catalog index rows: id, name, sku, categoryId, brandId, basePrice, createdAt, soldCount, viewCount, slug, salePrice
+    @Query("SELECT p.id, p.name, p.sku, c.id, b.id, p.basePrice, p.createdAt, p.soldCount, p.viewCount, p.slug, p.salePrice " +
+           "FROM Product p LEFT JOIN p.category c LEFT JOIN p.brand b WHERE p.status = 'ACTIVE'")
+    List<Object[]> findCatalogRows();
+
     @Query("SELECT COUNT(p) FROM Product p WHERE p.updatedAt >= :from")
     Long countUpdatedFrom(@Param("from") java.time.LocalDateTime from);
 }
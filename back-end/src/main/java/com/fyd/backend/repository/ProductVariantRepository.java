@@ -1,15 +1,24 @@
 package com.fyd.backend.repository;
 
 import com.fyd.backend.entity.ProductVariant;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long> {
+public interface ProductVariantRepository extends JpaRepository<ProductVariant, Long>, ProductVariantRepositoryCustom {
     List<ProductVariant> findByProductId(Long productId);
     Optional<ProductVariant> findBySkuVariant(String skuVariant);
     
@@ -18,7 +27,54 @@ public interface ProductVariantRepository extends JpaRepository<ProductVariant,
     
     @Query("SELECT pv FROM ProductVariant pv WHERE pv.stockQuantity = 0 AND pv.status = 'ACTIVE'")
     List<ProductVariant> findOutOfStock();
+
+    // Catalog index rows: productId, colorId, sizeId
+    @Query("SELECT pv.product.id, c.id, s.id FROM ProductVariant pv " +
+           "LEFT JOIN pv.color c LEFT JOIN pv.size s WHERE pv.product.status = 'ACTIVE'")
+    List<Object[]> findCatalogRows();
     
     @Query("SELECT SUM(pv.stockQuantity) FROM ProductVariant pv WHERE pv.product.id = :productId")
     Integer getTotalStockByProduct(@Param("productId") Long productId);
+
+    // Conditional decrement used by stock reservation: only succeeds when enough stock is left
+    @Modifying
+    @Query("UPDATE ProductVariant pv SET pv.stockQuantity = pv.stockQuantity - :quantity, pv.updatedAt = :now " +
+           "WHERE pv.id = :id AND pv.stockQuantity >= :quantity")
+    int decrementStockIfAvailable(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ProductVariant pv SET pv.stockQuantity = pv.stockQuantity + :quantity, pv.updatedAt = :now WHERE pv.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    // Locks the row (SELECT ... FOR UPDATE) so a manual change and a checkout's decrement cannot interleave
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT pv FROM ProductVariant pv WHERE pv.id = :id")
+    Optional<ProductVariant> findByIdForUpdate(@Param("id") Long id);
+
+    // Returns [id, stockQuantity, productId] rows read straight from the database
+    @Query("SELECT pv.id, pv.stockQuantity, pv.product.id FROM ProductVariant pv WHERE pv.id IN :ids")
+    List<Object[]> findStockByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Scalar rows for the inventory export, streamed from the server instead of buffered.
+     * Columns: skuVariant, productName, colorName, sizeName, stockQuantity.
+     * Pass a threshold to keep only variants with less stock. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT v.skuVariant, p.name, c.name, s.name, v.stockQuantity FROM ProductVariant v " +
+           "JOIN v.product p LEFT JOIN v.color c LEFT JOIN v.size s " +
+           "WHERE (:threshold IS NULL OR v.stockQuantity < :threshold) ORDER BY v.id")
+    Stream<Object[]> streamForExport(@Param("threshold") Integer threshold);
+
+    @Query("SELECT COUNT(v) FROM ProductVariant v WHERE (:threshold IS NULL OR v.stockQuantity < :threshold)")
+    long countForExport(@Param("threshold") Integer threshold);
+
+    // All variants, low (1..lowStock) and out of stock (<= 0), in one pass
+    @Query("SELECT COUNT(v), " +
+           "COALESCE(SUM(CASE WHEN v.stockQuantity > 0 AND v.stockQuantity <= :lowStock THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN v.stockQuantity <= 0 THEN 1 ELSE 0 END), 0) FROM ProductVariant v")
+    List<Object[]> countStockLevels(@Param("lowStock") int lowStock);
 }
@@ -0,0 +1,31 @@
+package com.fyd.backend.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.stream.Stream;
+
+/**
+ * Inventory list queries built from the filters actually given, so an unused filter adds
+ * neither a predicate nor a join to the SQL.
+ */
+public interface ProductVariantRepositoryCustom {
+
+    /**
+     * One page of the inventory list as scalar rows.
+     * Columns: id, skuVariant, productName, sizeName, colorName, categoryName, price, stockQuantity.
+     * Any filter may be null. pattern is a lower-case LIKE pattern matched against the SKU,
+     * product name and category name; stock bounds are inclusive.
+     * Sortable properties: id, stockQuantity and price (sale price, else base price).
+     */
+    Page<Object[]> findInventoryRows(String pattern, Long categoryId, Long sizeId,
+                                     Integer minStock, Integer maxStock, Pageable pageable);
+
+    /**
+     * The same rows as {@link #findInventoryRows}, streamed for the full sheet.
+     * Must be consumed inside a transaction and closed.
+     */
+    Stream<Object[]> streamInventoryRows(String pattern, Long categoryId, Long sizeId,
+                                         Integer minStock, Integer maxStock, Sort sort);
+}
@@ -0,0 +1,145 @@
+package com.fyd.backend.repository;
+
+import com.fyd.backend.entity.Category;
+import com.fyd.backend.entity.Color;
+import com.fyd.backend.entity.Product;
+import com.fyd.backend.entity.ProductVariant;
+import com.fyd.backend.entity.Size;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+class ProductVariantRepositoryImpl implements ProductVariantRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Object[]> findInventoryRows(String pattern, Long categoryId, Long sizeId,
+                                            Integer minStock, Integer maxStock, Pageable pageable) {
+        TypedQuery<Object[]> query = rowQuery(pattern, categoryId, sizeId, minStock, maxStock, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable,
+            () -> count(pattern, categoryId, sizeId, minStock, maxStock));
+    }
+
+    @Override
+    public Stream<Object[]> streamInventoryRows(String pattern, Long categoryId, Long sizeId,
+                                                Integer minStock, Integer maxStock, Sort sort) {
+        return rowQuery(pattern, categoryId, sizeId, minStock, maxStock, sort)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, Integer.MIN_VALUE)
+            .setHint(HibernateHints.HINT_READ_ONLY, true)
+            .getResultStream();
+    }
+
+    private TypedQuery<Object[]> rowQuery(String pattern, Long categoryId, Long sizeId,
+                                          Integer minStock, Integer maxStock, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<ProductVariant> variant = query.from(ProductVariant.class);
+        Joins joins = new Joins(variant);
+        Join<ProductVariant, Size> size = variant.join("size", JoinType.LEFT);
+        Join<ProductVariant, Color> color = variant.join("color", JoinType.LEFT);
+        Expression<BigDecimal> price = cb.coalesce(joins.product().<BigDecimal>get("salePrice"),
+            joins.product().<BigDecimal>get("basePrice"));
+
+        query.multiselect(variant.get("id"), variant.get("skuVariant"), joins.product().get("name"),
+                size.get("name"), color.get("name"), joins.category().get("name"), price,
+                variant.get("stockQuantity"))
+            .where(filters(cb, joins, pattern, categoryId, sizeId, minStock, maxStock));
+
+        List<Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            Expression<?> by = switch (order.getProperty()) {
+                case "id", "stockQuantity" -> variant.get(order.getProperty());
+                case "price" -> price;
+                default -> throw new IllegalArgumentException("Cannot sort inventory by " + order.getProperty());
+            };
+            orders.add(order.isAscending() ? cb.asc(by) : cb.desc(by));
+        }
+        query.orderBy(orders);
+        return entityManager.createQuery(query);
+    }
+
+    private long count(String pattern, Long categoryId, Long sizeId, Integer minStock, Integer maxStock) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<ProductVariant> variant = query.from(ProductVariant.class);
+        // Only the joins a given filter needs; with no filters this is a plain count
+        query.select(cb.count(variant))
+            .where(filters(cb, new Joins(variant), pattern, categoryId, sizeId, minStock, maxStock));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Predicate[] filters(CriteriaBuilder cb, Joins joins, String pattern, Long categoryId,
+                                       Long sizeId, Integer minStock, Integer maxStock) {
+        Root<ProductVariant> variant = joins.variant;
+        List<Predicate> predicates = new ArrayList<>();
+        if (pattern != null) {
+            predicates.add(cb.or(
+                cb.like(cb.lower(variant.get("skuVariant")), pattern),
+                cb.like(cb.lower(joins.product().get("name")), pattern),
+                cb.like(cb.lower(joins.category().get("name")), pattern)));
+        }
+        // Compared on the foreign key columns, without joining categories or sizes
+        if (categoryId != null) {
+            predicates.add(cb.equal(joins.product().get("category").get("id"), categoryId));
+        }
+        if (sizeId != null) {
+            predicates.add(cb.equal(variant.get("size").get("id"), sizeId));
+        }
+        if (minStock != null) {
+            predicates.add(cb.greaterThanOrEqualTo(variant.get("stockQuantity"), minStock));
+        }
+        if (maxStock != null) {
+            predicates.add(cb.lessThanOrEqualTo(variant.get("stockQuantity"), maxStock));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    // Joins made on first use, so the count query only joins what its filters read
+    private static final class Joins {
+        private final Root<ProductVariant> variant;
+        private Join<ProductVariant, Product> product;
+        private Join<Product, Category> category;
+
+        Joins(Root<ProductVariant> variant) {
+            this.variant = variant;
+        }
+
+        Join<ProductVariant, Product> product() {
+            if (product == null) {
+                product = variant.join("product");
+            }
+            return product;
+        }
+
+        Join<Product, Category> category() {
+            if (category == null) {
+                category = product().join("category", JoinType.LEFT);
+            }
+            return category;
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.fyd.backend.repository;
 
 import com.fyd.backend.entity.Promotion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -30,4 +32,10 @@ public interface PromotionRepository extends JpaRepository<Promotion, Long> {
     List<Promotion> findActiveFlashSales();
     
     boolean existsByCode(String code);
+
+    // Counts one use unless the limit is already reached; 0 rows means the promotion ran out
+    @Modifying
+    @Query("UPDATE Promotion p SET p.usedCount = p.usedCount + 1 " +
+           "WHERE p.id = :id AND (p.usageLimit IS NULL OR p.usedCount < p.usageLimit)")
+    int incrementUsedCountIfAvailable(@Param("id") Long id);
 }
@@ -0,0 +1,23 @@
+package com.fyd.backend.repository;
+
+import com.fyd.backend.entity.ReportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReportJobRepository extends JpaRepository<ReportJob, String> {
+
+    List<ReportJob> findByExpiresAtBefore(LocalDateTime time);
+
+    // Jobs left unfinished by a previous run of the application
+    @Modifying
+    @Query("UPDATE ReportJob j SET j.status = 'FAILED', j.error = :error, j.finishedAt = :now " +
+           "WHERE j.status IN ('QUEUED', 'RUNNING')")
+    int failUnfinished(@Param("error") String error, @Param("now") LocalDateTime now);
+}
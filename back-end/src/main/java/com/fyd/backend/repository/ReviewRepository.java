@@ -15,6 +15,13 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     
     // Find reviews by product
     List<Review> findByProductIdAndStatus(Long productId, String status);
+
+    Page<Review> findByProductIdAndStatus(Long productId, String status, Pageable pageable);
+
+    // Approved reviews per star rating: rating, count
+    @Query("SELECT r.rating, COUNT(r) FROM Review r WHERE r.product.id = :productId AND r.status = 'APPROVED' " +
+           "GROUP BY r.rating")
+    List<Object[]> countApprovedByRating(@Param("productId") Long productId);
     
     @Query("SELECT r FROM Review r WHERE r.product.id = :productId ORDER BY r.createdAt DESC")
     List<Review> findByProductId(@Param("productId") Long productId);
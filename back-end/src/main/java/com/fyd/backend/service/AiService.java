@@ -44,6 +44,9 @@ public class AiService {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderStatusCountService orderStatusCountService;
+
     @Autowired
     private OrderItemRepository orderItemRepository;
 
@@ -278,7 +281,7 @@ public class AiService {
         summary.setTodayOrders(todayOrderCount != null ? todayOrderCount.intValue() : 0);
         
         // Pending orders
-        Long pendingCount = orderRepository.countByStatus("PENDING");
+        Long pendingCount = orderStatusCountService.getCount("PENDING");
         summary.setPendingOrders(pendingCount != null ? pendingCount.intValue() : 0);
         
         // Revenue change
@@ -415,9 +418,9 @@ public class AiService {
         context.append("Doanh thu 7 ngày qua: ").append(vndFormat.format(weekRevenue)).append("đ\n");
         
         // Orders
-        context.append("Đơn chờ xử lý: ").append(orderRepository.countByStatus("PENDING")).append("\n");
-        context.append("Đơn đang giao: ").append(orderRepository.countByStatus("SHIPPING")).append("\n");
-        context.append("Đơn hoàn thành: ").append(orderRepository.countByStatus("DELIVERED")).append("\n");
+        context.append("Đơn chờ xử lý: ").append(orderStatusCountService.getCount("PENDING")).append("\n");
+        context.append("Đơn đang giao: ").append(orderStatusCountService.getCount("SHIPPING")).append("\n");
+        context.append("Đơn hoàn thành: ").append(orderStatusCountService.getCount("DELIVERED")).append("\n");
         
         // Low stock - with full product info for PRODUCT format
         List<ProductVariant> lowStock = variantRepository.findLowStock(6);
@@ -698,7 +701,7 @@ public class AiService {
 
         // 2. Check order anomalies
         try {
-            Long pendingCancelCount = orderRepository.countByStatus("PENDING_CANCEL");
+            Long pendingCancelCount = orderStatusCountService.getCount("PENDING_CANCEL");
             if (pendingCancelCount != null && pendingCancelCount >= 3) {
                 anomalies.add(new AnomalyReport(
                     AnomalyReport.AnomalyType.ORDER,
@@ -710,7 +713,7 @@ public class AiService {
                 ));
             }
 
-            Long pendingCount = orderRepository.countByStatus("PENDING");
+            Long pendingCount = orderStatusCountService.getCount("PENDING");
             if (pendingCount != null && pendingCount >= 10) {
                 anomalies.add(new AnomalyReport(
                     AnomalyReport.AnomalyType.ORDER,
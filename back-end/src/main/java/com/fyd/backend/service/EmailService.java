@@ -14,6 +14,7 @@ import jakarta.mail.internet.MimeMessage;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Locale;
 
 @Service
@@ -43,38 +44,67 @@ public class EmailService {
      */
     @Async
     public void sendOrderConfirmation(Order order) {
-        if (!isConfigured() || order.getCustomer() == null || order.getCustomer().getEmail() == null) {
-            return;
-        }
-
         try {
-            String subject = "[" + appName + "] Xác nhận đơn hàng #" + order.getOrderCode();
-            String html = buildOrderConfirmationHtml(order);
-            sendHtmlEmail(order.getCustomer().getEmail(), subject, html);
+            deliverOrderConfirmation(order);
         } catch (Exception e) {
             System.err.println("Failed to send order confirmation email: " + e.getMessage());
         }
     }
 
     /**
-     * Send order status update email
+     * Send order confirmation email on the calling thread, propagating SMTP failures
+     * so callers such as the outbox dispatcher can retry.
      */
-    @Async
-    public void sendOrderStatusUpdate(Order order) {
+    public void deliverOrderConfirmation(Order order) throws MessagingException {
         if (!isConfigured() || order.getCustomer() == null || order.getCustomer().getEmail() == null) {
             return;
         }
 
+        String subject = "[" + appName + "] Xác nhận đơn hàng #" + order.getOrderCode();
+        String html = buildOrderConfirmationHtml(order);
+        sendHtmlEmail(order.getCustomer().getEmail(), subject, html);
+    }
+
+    /**
+     * Send order status update email
+     */
+    @Async
+    public void sendOrderStatusUpdate(Order order) {
         try {
-            String statusVi = translateStatus(order.getStatus());
-            String subject = "[" + appName + "] Đơn hàng #" + order.getOrderCode() + " - " + statusVi;
-            String html = buildOrderStatusUpdateHtml(order);
-            sendHtmlEmail(order.getCustomer().getEmail(), subject, html);
+            deliverOrderStatusUpdate(order);
         } catch (Exception e) {
             System.err.println("Failed to send order status update email: " + e.getMessage());
         }
     }
 
+    /**
+     * Send order status update email on the calling thread, propagating SMTP failures.
+     */
+    public void deliverOrderStatusUpdate(Order order) throws MessagingException {
+        if (!isConfigured() || order.getCustomer() == null || order.getCustomer().getEmail() == null) {
+            return;
+        }
+
+        String statusVi = translateStatus(order.getStatus());
+        String subject = "[" + appName + "] Đơn hàng #" + order.getOrderCode() + " - " + statusVi;
+        String html = buildOrderStatusUpdateHtml(order);
+        sendHtmlEmail(order.getCustomer().getEmail(), subject, html);
+    }
+
+    /**
+     * Send one email covering several orders of the same customer, e.g. after a bulk status change.
+     */
+    public void deliverOrderStatusSummary(List<Order> orders) throws MessagingException {
+        Order first = orders.get(0);
+        if (!isConfigured() || first.getCustomer() == null || first.getCustomer().getEmail() == null) {
+            return;
+        }
+
+        String subject = "[" + appName + "] Cập nhật " + orders.size() + " đơn hàng của bạn";
+        String html = buildOrderStatusSummaryHtml(orders);
+        sendHtmlEmail(first.getCustomer().getEmail(), subject, html);
+    }
+
     /**
      * Send generic email
      */
@@ -200,6 +230,44 @@ public class EmailService {
         return sb.toString();
     }
 
+    private String buildOrderStatusSummaryHtml(List<Order> orders) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html><html><head><meta charset='UTF-8'></head><body style='font-family: Arial, sans-serif; max-width: 600px; margin: 0 auto; padding: 20px;'>");
+
+        // Header
+        sb.append("<div style='text-align: center; padding: 20px; background: linear-gradient(135deg, #0ea5e9, #06b6d4); color: white; border-radius: 10px 10px 0 0;'>");
+        sb.append("<h1 style='margin: 0;'>").append(appName).append("</h1>");
+        sb.append("<p style='margin: 10px 0 0 0;'>Cập nhật đơn hàng</p>");
+        sb.append("</div>");
+
+        // Content
+        sb.append("<div style='padding: 20px; background: #f9fafb; border: 1px solid #e5e7eb;'>");
+        sb.append("<p>Xin chào <strong>").append(orders.get(0).getShippingName()).append("</strong>,</p>");
+        sb.append("<p>Các đơn hàng sau của bạn đã được cập nhật:</p>");
+
+        sb.append("<table style='width: 100%; border-collapse: collapse;'>");
+        for (Order order : orders) {
+            sb.append("<tr><td style='padding: 10px; border-bottom: 1px solid #e5e7eb; font-weight: bold;'>#").append(order.getOrderCode()).append("</td>");
+            sb.append("<td style='padding: 10px; border-bottom: 1px solid #e5e7eb;'>").append(formatMoney(order.getTotalAmount())).append("</td>");
+            sb.append("<td style='padding: 10px; border-bottom: 1px solid #e5e7eb; text-align: right;'>");
+            sb.append("<span style='display: inline-block; padding: 4px 12px; background: ").append(getStatusColor(order.getStatus()))
+              .append("; color: white; border-radius: 6px; font-weight: bold;'>").append(translateStatus(order.getStatus())).append("</span>");
+            sb.append("</td></tr>");
+        }
+        sb.append("</table>");
+
+        sb.append("</div>");
+
+        // Footer
+        sb.append("<div style='text-align: center; padding: 20px; color: #666; font-size: 0.9em;'>");
+        sb.append("<p>Cảm ơn bạn đã mua hàng!</p>");
+        sb.append("<p>© ").append(appName).append("</p>");
+        sb.append("</div>");
+
+        sb.append("</body></html>");
+        return sb.toString();
+    }
+
     // ============ HELPERS ============
 
     private String buildAddress(Order order) {
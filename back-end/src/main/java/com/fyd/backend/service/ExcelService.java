@@ -2,13 +2,20 @@ package com.fyd.backend.service;
 
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -17,12 +24,19 @@ public class ExcelService {
     
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
     private static final DateTimeFormatter DATE_ONLY_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    // Rows kept in memory by SXSSF before flushing to a temp file
+    private static final int STREAMING_WINDOW = 100;
+    
+    private static final String[] ORDER_HEADERS = {"Mã đơn", "Khách hàng", "SĐT", "Tổng tiền", "Trạng thái", "Ngày tạo", "Địa chỉ"};
+    private static final String[] INVENTORY_HEADERS = {"SKU", "Tên sản phẩm", "Biến thể", "Số lượng", "Trạng thái"};
     
     /**
-     * Generate Orders Report Excel
+     * Write the orders report to out as rows arrive.
+     * Uses SXSSF so only a small window of rows is kept in memory.
      */
-    public byte[] generateOrdersReport(List<Map<String, Object>> data, String title) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
+    public void writeOrdersReport(Iterator<Map<String, Object>> data, String title, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(STREAMING_WINDOW);
+        try {
             Sheet sheet = workbook.createSheet("Đơn hàng");
             
             // Styles
@@ -40,16 +54,17 @@ public class ExcelService {
             
             // Headers
             Row headerRow = sheet.createRow(2);
-            String[] headers = {"Mã đơn", "Khách hàng", "SĐT", "Tổng tiền", "Trạng thái", "Ngày tạo", "Địa chỉ"};
-            for (int i = 0; i < headers.length; i++) {
+            for (int i = 0; i < ORDER_HEADERS.length; i++) {
                 Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
+                cell.setCellValue(ORDER_HEADERS[i]);
                 cell.setCellStyle(headerStyle);
             }
+            setColumnWidths(sheet, 22, 25, 14, 15, 15, 18, 50);
             
             // Data rows
             int rowNum = 3;
-            for (Map<String, Object> order : data) {
+            while (data.hasNext()) {
+                Map<String, Object> order = data.next();
                 Row row = sheet.createRow(rowNum++);
                 
                 Cell cell0 = row.createCell(0);
@@ -81,14 +96,32 @@ public class ExcelService {
                 cell6.setCellStyle(normalStyle);
             }
             
-            // Auto-size columns
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
-            return toByteArray(workbook);
+            workbook.write(out);
+        } finally {
+            workbook.close();
+            workbook.dispose();
         }
     }
+
+    /**
+     * Write the orders report as UTF-8 CSV.
+     */
+    public void writeOrdersCsv(Iterator<Map<String, Object>> data, OutputStream out) throws IOException {
+        Writer writer = csvWriter(out);
+        writeCsvRow(writer, ORDER_HEADERS);
+        while (data.hasNext()) {
+            Map<String, Object> order = data.next();
+            writeCsvRow(writer,
+                getString(order, "orderCode"),
+                getString(order, "customerName"),
+                getString(order, "shippingPhone"),
+                String.valueOf((long) getDouble(order, "totalAmount")),
+                translateStatus(getString(order, "status")),
+                formatDate(order.get("createdAt")),
+                getString(order, "shippingAddress"));
+        }
+        writer.flush();
+    }
     
     /**
      * Generate Revenue Report Excel
@@ -159,10 +192,12 @@ public class ExcelService {
     }
     
     /**
-     * Generate Inventory Report Excel
+     * Write the inventory report to out as rows arrive.
+     * Uses SXSSF so only a small window of rows is kept in memory.
      */
-    public byte[] generateInventoryReport(List<Map<String, Object>> data) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
+    public void writeInventoryReport(Iterator<Map<String, Object>> data, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(STREAMING_WINDOW);
+        try {
             Sheet sheet = workbook.createSheet("Tồn kho");
             
             CellStyle headerStyle = createHeaderStyle(workbook);
@@ -178,16 +213,17 @@ public class ExcelService {
             
             // Headers
             Row headerRow = sheet.createRow(2);
-            String[] headers = {"SKU", "Tên sản phẩm", "Biến thể", "Số lượng", "Trạng thái"};
-            for (int i = 0; i < headers.length; i++) {
+            for (int i = 0; i < INVENTORY_HEADERS.length; i++) {
                 Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
+                cell.setCellValue(INVENTORY_HEADERS[i]);
                 cell.setCellStyle(headerStyle);
             }
+            setColumnWidths(sheet, 22, 40, 22, 12, 14);
             
             // Data rows
             int rowNum = 3;
-            for (Map<String, Object> item : data) {
+            while (data.hasNext()) {
+                Map<String, Object> item = data.next();
                 Row row = sheet.createRow(rowNum++);
                 int quantity = getInt(item, "quantity");
                 boolean isLow = quantity < 10;
@@ -215,13 +251,30 @@ public class ExcelService {
                 cell4.setCellStyle(style);
             }
             
-            // Auto-size
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
-            return toByteArray(workbook);
+            workbook.write(out);
+        } finally {
+            workbook.close();
+            workbook.dispose();
+        }
+    }
+
+    /**
+     * Write the inventory report as UTF-8 CSV.
+     */
+    public void writeInventoryCsv(Iterator<Map<String, Object>> data, OutputStream out) throws IOException {
+        Writer writer = csvWriter(out);
+        writeCsvRow(writer, INVENTORY_HEADERS);
+        while (data.hasNext()) {
+            Map<String, Object> item = data.next();
+            int quantity = getInt(item, "quantity");
+            writeCsvRow(writer,
+                getString(item, "sku"),
+                getString(item, "productName"),
+                getString(item, "variant"),
+                String.valueOf(quantity),
+                quantity < 10 ? "Sắp hết" : "Đủ hàng");
         }
+        writer.flush();
     }
     
     // ============ STYLE HELPERS ============
@@ -287,6 +340,37 @@ public class ExcelService {
         return style;
     }
     
+    private void setColumnWidths(Sheet sheet, int... widths) {
+        // autoSizeColumn only sees the rows still in the SXSSF window, so use fixed widths
+        for (int i = 0; i < widths.length; i++) {
+            sheet.setColumnWidth(i, widths[i] * 256);
+        }
+    }
+    
+    // ============ CSV HELPERS ============
+    
+    private Writer csvWriter(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // BOM so Excel opens the file as UTF-8 (Vietnamese text)
+        writer.write('\uFEFF');
+        return writer;
+    }
+    
+    private void writeCsvRow(Writer writer, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) writer.write(',');
+            String value = values[i] != null ? values[i] : "";
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+    
     // ============ DATA HELPERS ============
     
     private String getString(Map<String, Object> map, String key) {
@@ -328,7 +412,7 @@ public class ExcelService {
         return dateObj.toString();
     }
     
-    private String translateStatus(String status) {
+    public String translateStatus(String status) {
         if (status == null) return "";
         return switch (status) {
             case "PENDING" -> "Chờ xử lý";
@@ -0,0 +1,244 @@
+package com.fyd.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fyd.backend.entity.FeaturedZone;
+import com.fyd.backend.repository.FeaturedZoneRepository;
+import com.fyd.backend.repository.ProductImageRepository;
+import com.fyd.backend.repository.ProductRepository;
+import com.fyd.backend.service.catalog.CatalogChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Featured zones rendered to their final DTOs and kept in memory. A render parses each
+ * zone's product list once and loads every referenced product with one query and their
+ * card images with another. Zone writes, and writes to any product a zone shows, drop
+ * the rendered set after commit; the next read renders it again.
+ */
+@Service
+public class FeaturedZoneService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeaturedZoneService.class);
+
+    private static final String PLACEHOLDER_IMAGE = "/placeholder.jpg";
+
+    @Autowired
+    private FeaturedZoneRepository zoneRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository imageRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile Rendered rendered;
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long renderedChanges = -1;
+    private long version;
+
+    /**
+     * All zones (active or not) in the rendered snapshot.
+     */
+    public Rendered getRendered() {
+        Rendered current = rendered;
+        if (current != null && renderedChanges == changes.get()) {
+            return current;
+        }
+        return refresh();
+    }
+
+    private synchronized Rendered refresh() {
+        // Read the counter first: a write committed during the render triggers another one
+        long seen = changes.get();
+        if (rendered != null && renderedChanges == seen) {
+            return rendered;
+        }
+        List<FeaturedZone> zones = zoneRepository.findAllByOrderByCreatedAtDesc();
+        Rendered built = new Rendered(++version, zones, renderAll(zones));
+        renderedChanges = seen;
+        rendered = built;
+        return built;
+    }
+
+    /**
+     * Render one zone straight from the entity, for admin responses inside the write
+     * transaction (before the snapshot is refreshed).
+     */
+    public Map<String, Object> render(FeaturedZone zone) {
+        return renderAll(List.of(zone)).get(zone.getId());
+    }
+
+    private Map<Long, Map<String, Object>> renderAll(List<FeaturedZone> zones) {
+        Map<Long, List<Map<String, Object>>> entriesByZone = new HashMap<>();
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (FeaturedZone zone : zones) {
+            List<Map<String, Object>> entries = parseEntries(zone);
+            entriesByZone.put(zone.getId(), entries);
+            for (Map<String, Object> entry : entries) {
+                productIds.add(((Number) entry.get("productId")).longValue());
+            }
+        }
+
+        Map<Long, Object[]> cards = new HashMap<>();
+        Map<Long, String> images = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            for (Object[] row : productRepository.findCardRowsByIdIn(productIds)) {
+                cards.put((Long) row[0], row);
+            }
+            // Primary image first, so the first row per product wins
+            for (Object[] row : imageRepository.findThumbnailsByProductIdIn(productIds)) {
+                images.putIfAbsent((Long) row[0], (String) row[1]);
+            }
+        }
+
+        Map<Long, Map<String, Object>> result = new HashMap<>();
+        for (FeaturedZone zone : zones) {
+            result.put(zone.getId(), toDetailedDTO(zone, entriesByZone.get(zone.getId()), cards, images));
+        }
+        return result;
+    }
+
+    private List<Map<String, Object>> parseEntries(FeaturedZone zone) {
+        if (zone.getProductData() == null || zone.getProductData().isEmpty()) {
+            return List.of();
+        }
+        try {
+            List<Map<String, Object>> entries = objectMapper.readValue(zone.getProductData(),
+                new TypeReference<List<Map<String, Object>>>() {});
+            entries.removeIf(entry -> !(entry.get("productId") instanceof Number));
+            return entries;
+        } catch (JsonProcessingException e) {
+            logger.warn("Invalid product data in featured zone {}: {}", zone.getId(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static Map<String, Object> toDetailedDTO(FeaturedZone zone, List<Map<String, Object>> entries,
+                                                     Map<Long, Object[]> cards, Map<Long, String> images) {
+        Map<String, Object> dto = new HashMap<>();
+        dto.put("id", zone.getId());
+        dto.put("name", zone.getName());
+        dto.put("slug", zone.getSlug());
+        dto.put("position", zone.getPosition());
+        dto.put("isActive", zone.getIsActive());
+
+        Map<String, Object> gridConfig = new HashMap<>();
+        gridConfig.put("columns", zone.getGridColumns());
+        gridConfig.put("gap", zone.getGridGap());
+        gridConfig.put("aspectRatio", zone.getGridAspectRatio());
+        dto.put("gridConfig", Collections.unmodifiableMap(gridConfig));
+
+        List<Map<String, Object>> products = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Map<String, Object> pd = entries.get(i);
+            Long productId = ((Number) pd.get("productId")).longValue();
+            Object[] card = cards.get(productId);
+            if (card == null) {
+                continue; // Product deleted since the zone was saved
+            }
+            Map<String, Object> item = new HashMap<>();
+            item.put("id", productId); // Use productId as stable ID
+            item.put("productId", productId);
+            item.put("position", pd.getOrDefault("position", i));
+            item.put("customThumbnail", pd.get("customThumbnail"));
+
+            Map<String, Object> productInfo = new HashMap<>();
+            productInfo.put("id", productId);
+            productInfo.put("name", card[1]);
+            productInfo.put("price", card[3] != null ? card[3] : card[2]);
+            productInfo.put("image", images.getOrDefault(productId, PLACEHOLDER_IMAGE));
+            item.put("product", Collections.unmodifiableMap(productInfo));
+            products.add(Collections.unmodifiableMap(item));
+        }
+        dto.put("products", Collections.unmodifiableList(products));
+        return Collections.unmodifiableMap(dto);
+    }
+
+    // Before CatalogVersionService bumps the ETags, like the other catalog caches
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        String type = event.getEntityType();
+        if (CatalogChangedEvent.FEATURED_ZONE.equals(type)) {
+            changes.incrementAndGet();
+        } else if (CatalogChangedEvent.PRODUCT.equals(type) || CatalogChangedEvent.IMAGE.equals(type)) {
+            // Only the products a zone shows matter; a bulk change (no product id) may touch any of them
+            Rendered current = rendered;
+            if (current != null && (event.getProductId() == null || current.productIds.contains(event.getProductId()))) {
+                changes.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * One render of every zone. Maps are unmodifiable and shared between requests.
+     */
+    public static final class Rendered {
+        private final long version;
+        private final List<Map<String, Object>> all;
+        private final List<Map<String, Object>> active;
+        private final Map<Long, Map<String, Object>> byId;
+        private final Map<String, Map<String, Object>> activeBySlug = new HashMap<>();
+        private final Set<Long> productIds = new HashSet<>();
+
+        Rendered(long version, List<FeaturedZone> zones, Map<Long, Map<String, Object>> detailed) {
+            this.version = version;
+            this.byId = detailed;
+            List<Map<String, Object>> all = new ArrayList<>();
+            List<Map<String, Object>> active = new ArrayList<>();
+            for (FeaturedZone zone : zones) {
+                Map<String, Object> dto = detailed.get(zone.getId());
+                all.add(toSummary(dto));
+                if (Boolean.TRUE.equals(zone.getIsActive())) {
+                    active.add(dto);
+                    activeBySlug.put(zone.getSlug(), dto);
+                }
+                for (Object item : (List<?>) dto.get("products")) {
+                    productIds.add((Long) ((Map<?, ?>) item).get("productId"));
+                }
+            }
+            this.all = Collections.unmodifiableList(all);
+            this.active = Collections.unmodifiableList(active);
+        }
+
+        // Admin list: no product details, "products" only carries the count
+        private static Map<String, Object> toSummary(Map<String, Object> detailed) {
+            Map<String, Object> dto = new HashMap<>();
+            dto.put("id", detailed.get("id"));
+            dto.put("name", detailed.get("name"));
+            dto.put("slug", detailed.get("slug"));
+            dto.put("position", detailed.get("position"));
+            dto.put("isActive", detailed.get("isActive"));
+            dto.put("products", Collections.nCopies(((List<?>) detailed.get("products")).size(), null));
+            return Collections.unmodifiableMap(dto);
+        }
+
+        /**
+         * Changes on every render; part of the zones ETag.
+         */
+        public long getVersion() { return version; }
+        public List<Map<String, Object>> getAll() { return all; }
+        public List<Map<String, Object>> getActive() { return active; }
+        public Optional<Map<String, Object>> findById(Long id) { return Optional.ofNullable(byId.get(id)); }
+        public Optional<Map<String, Object>> findActiveBySlug(String slug) { return Optional.ofNullable(activeBySlug.get(slug)); }
+    }
+}
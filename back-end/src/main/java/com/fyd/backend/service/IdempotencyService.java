@@ -0,0 +1,180 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.IdempotencyRecord;
+import com.fyd.backend.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Idempotency keys for order creation and payment IPNs.
+ * Completed responses are kept in a bounded in-memory LRU so replays are
+ * answered without touching the database; the idempotency_keys table is
+ * the source of truth and enforces uniqueness across instances.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String SCOPE_ORDER_CREATE = "ORDER_CREATE";
+    public static final String SCOPE_VNPAY_IPN = "VNPAY_IPN";
+    public static final String SCOPE_MOMO_IPN = "MOMO_IPN";
+
+    private static final int CACHE_SIZE = 10_000;
+    private static final long TTL_HOURS = 24;
+    // An IN_PROGRESS claim older than this is assumed to belong to a crashed request
+    private static final long STALE_CLAIM_MINUTES = 5;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    private final Map<String, StoredResponse> cache = Collections.synchronizedMap(
+        new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        });
+
+    /**
+     * Stored response for a key that has already been processed, if any.
+     */
+    public Optional<StoredResponse> findCompleted(String scope, String key) {
+        String cacheKey = scope + ":" + key;
+        StoredResponse cached = cache.get(cacheKey);
+        if (cached != null) {
+            if (!isExpired(cached.getCreatedAt())) {
+                return Optional.of(cached);
+            }
+            cache.remove(cacheKey);
+        }
+
+        Optional<IdempotencyRecord> recordOpt = recordRepository.findByScopeAndIdemKey(scope, key);
+        if (recordOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        IdempotencyRecord record = recordOpt.get();
+        boolean staleClaim = "IN_PROGRESS".equals(record.getStatus())
+            && record.getCreatedAt().isBefore(LocalDateTime.now().minusMinutes(STALE_CLAIM_MINUTES));
+        if (isExpired(record.getCreatedAt()) || staleClaim) {
+            recordRepository.delete(record);
+            return Optional.empty();
+        }
+        if (!"COMPLETED".equals(record.getStatus())) {
+            return Optional.empty();
+        }
+
+        StoredResponse stored = new StoredResponse(record.getResponseStatus(), record.getResponseBody(),
+            record.getRequestHash(), record.getCreatedAt());
+        cache.put(cacheKey, stored);
+        return Optional.of(stored);
+    }
+
+    /**
+     * Claim a key before processing. Returns false if another request already
+     * holds or has completed it.
+     */
+    public boolean tryBegin(String scope, String key) {
+        return tryBegin(scope, key, null);
+    }
+
+    /**
+     * Claim a key and remember which request body it was first used with.
+     *
+     * @param requestHash see {@link StoredResponse#matches}; null skips the check
+     */
+    public boolean tryBegin(String scope, String key, String requestHash) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setScope(scope);
+        record.setIdemKey(key);
+        record.setRequestHash(requestHash);
+        try {
+            recordRepository.saveAndFlush(record);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Store the response for a claimed key so later replays get it back.
+     */
+    @Transactional
+    public void complete(String scope, String key, int status, String body) {
+        IdempotencyRecord record = recordRepository.findByScopeAndIdemKey(scope, key)
+            .orElseGet(() -> {
+                IdempotencyRecord created = new IdempotencyRecord();
+                created.setScope(scope);
+                created.setIdemKey(key);
+                return created;
+            });
+        record.setStatus("COMPLETED");
+        record.setResponseStatus(status);
+        record.setResponseBody(body);
+        record.setCompletedAt(LocalDateTime.now());
+        recordRepository.save(record);
+        cache.put(scope + ":" + key, new StoredResponse(status, body, record.getRequestHash(), record.getCreatedAt()));
+    }
+
+    /**
+     * Drop a claim whose request failed, so the client may retry with the same key.
+     */
+    @Transactional
+    public void release(String scope, String key) {
+        recordRepository.deleteInProgress(scope, key);
+    }
+
+    /**
+     * Remove expired keys. Runs every hour.
+     */
+    @Scheduled(cron = "0 15 * * * *")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = recordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(TTL_HOURS));
+        if (deleted > 0) {
+            logger.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private boolean isExpired(LocalDateTime createdAt) {
+        return createdAt.isBefore(LocalDateTime.now().minusHours(TTL_HOURS));
+    }
+
+    public static class StoredResponse {
+        private final int status;
+        private final String body;
+        private final String requestHash;
+        private final LocalDateTime createdAt;
+
+        public StoredResponse(int status, String body, String requestHash, LocalDateTime createdAt) {
+            this.status = status;
+            this.body = body;
+            this.requestHash = requestHash;
+            this.createdAt = createdAt;
+        }
+
+        public int getStatus() { return status; }
+        public String getBody() { return body; }
+        public String getRequestHash() { return requestHash; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+
+        /**
+         * Whether a replay carries the same request the key was first used with.
+         * Keys stored without a hash match anything.
+         */
+        public boolean matches(String requestHash) {
+            return this.requestHash == null || this.requestHash.equals(requestHash);
+        }
+    }
+}
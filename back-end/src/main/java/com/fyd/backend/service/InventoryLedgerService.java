@@ -0,0 +1,240 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.InventoryMovement;
+import com.fyd.backend.entity.InventorySnapshot;
+import com.fyd.backend.repository.InventoryMovementRepository;
+import com.fyd.backend.repository.InventorySnapshotRepository;
+import com.fyd.backend.repository.ProductVariantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Append-only journal of stock movements. Every writer of product_variants.stock records
+ * what it did here; the rows of one transaction are buffered and inserted as one JDBC
+ * batch just before it commits, so the journal and the stock always commit together.
+ * A nightly job snapshots each variant that moved, so "stock on date X" is one snapshot
+ * plus the movements after it.
+ */
+@Service
+public class InventoryLedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryLedgerService.class);
+
+    public static final String SALE = "SALE";
+    public static final String CANCEL = "CANCEL";
+    public static final String ADJUST = "ADJUST";
+    public static final String IMPORT = "IMPORT";
+    public static final String RETURN = "RETURN";
+
+    /**
+     * Types an admin may record by hand.
+     */
+    public static final Set<String> MANUAL_TYPES = Set.of(ADJUST, RETURN);
+
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    // Variant ids per snapshot statement; each range is its own short statement
+    private static final long SNAPSHOT_RANGE = 1000;
+
+    private static final String INSERT_SQL =
+        "INSERT INTO inventory_movements (variant_id, movement_type, quantity, stock_after, reference, actor, occurred_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Snapshot variants in the id range that have none yet or have moved since their last one.
+    // Stock and movements commit together, so one statement sees a matching pair.
+    private static final String SNAPSHOT_SQL =
+        "INSERT INTO inventory_snapshots (variant_id, stock, last_movement_id, taken_at) " +
+        "SELECT v.id, COALESCE(v.stock, 0), COALESCE(m.last_id, 0), ? FROM product_variants v " +
+        "LEFT JOIN (SELECT variant_id, MAX(id) AS last_id FROM inventory_movements " +
+        "  WHERE variant_id BETWEEN ? AND ? GROUP BY variant_id) m ON m.variant_id = v.id " +
+        "LEFT JOIN (SELECT variant_id, MAX(last_movement_id) AS last_id FROM inventory_snapshots " +
+        "  WHERE variant_id BETWEEN ? AND ? GROUP BY variant_id) s ON s.variant_id = v.id " +
+        "WHERE v.id BETWEEN ? AND ? AND (s.variant_id IS NULL OR COALESCE(m.last_id, 0) > s.last_id)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+
+    @Autowired
+    private InventorySnapshotRepository snapshotRepository;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    /**
+     * Record a stock movement in the caller's transaction (or at once if there is none).
+     *
+     * @param quantity   signed change; zero changes are not recorded
+     * @param stockAfter stock once the change is applied, if the caller knows it
+     * @param reference  order code, import batch or similar; may be null
+     */
+    public void record(Long variantId, String type, int quantity, Integer stockAfter, String reference) {
+        if (variantId == null || quantity == 0) {
+            return;
+        }
+        Entry entry = new Entry(variantId, type, quantity, stockAfter, reference, currentActor(), LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()) {
+            pendingEntries().add(entry);
+        } else {
+            insert(List.of(entry));
+        }
+    }
+
+    // Entries of the current transaction, flushed by a synchronization registered on first use
+    @SuppressWarnings("unchecked")
+    private List<Entry> pendingEntries() {
+        List<Entry> entries = (List<Entry>) TransactionSynchronizationManager.getResource(this);
+        if (entries != null) {
+            return entries;
+        }
+        List<Entry> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                insert(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(InventoryLedgerService.this);
+            }
+        });
+        return created;
+    }
+
+    private void insert(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, INSERT_BATCH_SIZE, (ps, entry) -> {
+            ps.setLong(1, entry.variantId);
+            ps.setString(2, entry.type);
+            ps.setInt(3, entry.quantity);
+            if (entry.stockAfter != null) {
+                ps.setInt(4, entry.stockAfter);
+            } else {
+                ps.setNull(4, Types.INTEGER);
+            }
+            ps.setString(5, entry.reference);
+            ps.setString(6, entry.actor);
+            ps.setTimestamp(7, Timestamp.valueOf(entry.occurredAt));
+        });
+    }
+
+    private static String currentActor() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return auth.getName();
+    }
+
+    /**
+     * Snapshot every variant that moved since its last snapshot (and give variants without
+     * one an opening snapshot), so point-in-time queries only replay a short tail.
+     */
+    @Scheduled(cron = "${app.inventory-ledger.snapshot-cron:0 15 3 * * *}")
+    public void takeSnapshots() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM product_variants", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int written = 0;
+        for (long from = 1; from <= maxId; from += SNAPSHOT_RANGE) {
+            long to = from + SNAPSHOT_RANGE - 1;
+            written += jdbcTemplate.update(SNAPSHOT_SQL, now, from, to, from, to, from, to);
+        }
+        logger.info("Inventory snapshots: {} variant(s) in {} ms", written, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Stock of a variant at a point in time: the latest snapshot at or before it plus the
+     * movements after that snapshot. Before the first snapshot, walks back from the current
+     * stock instead.
+     *
+     * @return empty if the variant has neither a snapshot nor a current row
+     */
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> stockAt(Long variantId, LocalDateTime at) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("variantId", variantId);
+        result.put("at", at);
+
+        Optional<InventorySnapshot> snapshot =
+            snapshotRepository.findFirstByVariantIdAndTakenAtLessThanEqualOrderByTakenAtDesc(variantId, at);
+        Object[] tail;
+        long stock;
+        if (snapshot.isPresent()) {
+            tail = movementRepository.sumAfter(variantId, snapshot.get().getLastMovementId(), at).get(0);
+            stock = snapshot.get().getStock() + ((Number) tail[0]).longValue();
+            result.put("snapshotTakenAt", snapshot.get().getTakenAt());
+        } else {
+            List<Object[]> current = variantRepository.findStockByIds(List.of(variantId));
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            long currentStock = current.get(0)[1] != null ? ((Number) current.get(0)[1]).longValue() : 0;
+            tail = movementRepository.sumSince(variantId, at).get(0);
+            stock = currentStock - ((Number) tail[0]).longValue();
+            result.put("snapshotTakenAt", null);
+        }
+        result.put("stock", stock);
+        result.put("tailMovements", ((Number) tail[1]).longValue());
+        return Optional.of(result);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<InventoryMovement> movements(Long variantId, int page, int size) {
+        return movementRepository.findByVariantIdOrderByIdDesc(variantId,
+            PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, 200))));
+    }
+
+    private static final class Entry {
+        final Long variantId;
+        final String type;
+        final int quantity;
+        final Integer stockAfter;
+        final String reference;
+        final String actor;
+        final LocalDateTime occurredAt;
+
+        Entry(Long variantId, String type, int quantity, Integer stockAfter, String reference, String actor,
+              LocalDateTime occurredAt) {
+            this.variantId = variantId;
+            this.type = type;
+            this.quantity = quantity;
+            this.stockAfter = stockAfter;
+            this.reference = reference;
+            this.actor = actor;
+            this.occurredAt = occurredAt;
+        }
+    }
+}
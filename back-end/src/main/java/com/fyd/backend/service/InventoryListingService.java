@@ -0,0 +1,136 @@
+package com.fyd.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fyd.backend.repository.ProductVariantRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Admin inventory list. Search, category, size and stock-level filters and the sort are
+ * applied in the query, which selects only the columns the table shows and carries only
+ * the filters that were given; the page is the only thing loaded. Low and out-of-stock totals come from one aggregate query.
+ */
+@Service
+public class InventoryListingService {
+
+    public static final int LOW_STOCK_THRESHOLD = 6;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Filter and sort values as sent by the inventory page.
+     *
+     * @param filter "all", "low" (1 to {@link #LOW_STOCK_THRESHOLD}) or "out" (0 or less)
+     * @param sort   stockAsc (default), stockDesc, priceAsc or priceDesc
+     */
+    public static class Criteria {
+        private final String pattern;
+        private final Long categoryId;
+        private final Long sizeId;
+        private final Integer minStock;
+        private final Integer maxStock;
+        private final Sort sort;
+
+        public Criteria(String q, String filter, Long categoryId, Long sizeId, String sort) {
+            this.pattern = q == null || q.isBlank() ? null : "%" + q.trim().toLowerCase() + "%";
+            this.categoryId = categoryId;
+            this.sizeId = sizeId;
+            this.minStock = "low".equals(filter) ? 1 : null;
+            this.maxStock = "low".equals(filter) ? LOW_STOCK_THRESHOLD : "out".equals(filter) ? 0 : null;
+            this.sort = sortOf(sort);
+        }
+
+        // Id breaks ties so pages don't overlap when many variants share a stock level or price
+        private static Sort sortOf(String sort) {
+            Sort byId = Sort.by("id");
+            return switch (sort != null ? sort : "") {
+                case "stockDesc" -> Sort.by(Sort.Direction.DESC, "stockQuantity").and(byId);
+                case "priceAsc" -> Sort.by(Sort.Direction.ASC, "price").and(byId);
+                case "priceDesc" -> Sort.by(Sort.Direction.DESC, "price").and(byId);
+                default -> Sort.by(Sort.Direction.ASC, "stockQuantity").and(byId);
+            };
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> list(Criteria criteria, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_PAGE_SIZE)),
+            criteria.sort);
+        Page<Object[]> rows = variantRepository.findInventoryRows(criteria.pattern, criteria.categoryId,
+            criteria.sizeId, criteria.minStock, criteria.maxStock, pageRequest);
+
+        List<Map<String, Object>> items = rows.getContent().stream()
+            .map(InventoryListingService::toItem)
+            .collect(Collectors.toList());
+
+        Object[] levels = variantRepository.countStockLevels(LOW_STOCK_THRESHOLD).get(0);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("items", items);
+        // Counts over all variants, before filters (the page header badges)
+        response.put("total", ((Number) levels[0]).intValue());
+        response.put("lowCount", ((Number) levels[1]).intValue());
+        response.put("outCount", ((Number) levels[2]).intValue());
+        response.put("page", rows.getNumber());
+        response.put("size", rows.getSize());
+        response.put("totalElements", rows.getTotalElements());
+        response.put("totalPages", rows.getTotalPages());
+        return response;
+    }
+
+    /**
+     * Every matching row as a JSON array of the same items {@link #list} returns, written
+     * from a database cursor so memory use does not grow with the sheet.
+     */
+    @Transactional(readOnly = true)
+    public void writeJson(Criteria criteria, OutputStream out) throws IOException {
+        try (Stream<Object[]> rows = variantRepository.streamInventoryRows(criteria.pattern, criteria.categoryId,
+                criteria.sizeId, criteria.minStock, criteria.maxStock, criteria.sort)) {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            generator.writeStartArray();
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                generator.writeObject(toItem(iterator.next()));
+            }
+            generator.writeEndArray();
+            generator.flush();
+        }
+    }
+
+    // id, skuVariant, productName, sizeName, colorName, categoryName, price, stockQuantity
+    private static Map<String, Object> toItem(Object[] row) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("id", row[0]);
+        item.put("sku", row[1] != null ? row[1] : row[0].toString());
+
+        String sizeName = row[3] != null ? (String) row[3] : "-";
+        String colorName = row[4] != null ? (String) row[4] : "-";
+        item.put("name", row[2] + " - " + sizeName + " / " + colorName);
+        item.put("category", row[5] != null ? row[5] : "N/A");
+        item.put("price", row[6]);
+
+        int stock = row[7] != null ? ((Number) row[7]).intValue() : 0;
+        item.put("stock", stock);
+        item.put("stockStatus", stock <= 0 ? "out" : (stock <= LOW_STOCK_THRESHOLD ? "low" : "ok"));
+        return item;
+    }
+}
@@ -85,6 +85,35 @@ public class MoMoService {
         return null;
     }
 
+    /**
+     * Verify the signature of an IPN sent by MoMo.
+     */
+    public boolean validateIpn(Map<String, Object> params) {
+        Object received = params.get("signature");
+        if (received == null) {
+            return false;
+        }
+        String signatureSource = "accessKey=" + accessKey +
+                "&amount=" + value(params, "amount") +
+                "&extraData=" + value(params, "extraData") +
+                "&message=" + value(params, "message") +
+                "&orderId=" + value(params, "orderId") +
+                "&orderInfo=" + value(params, "orderInfo") +
+                "&orderType=" + value(params, "orderType") +
+                "&partnerCode=" + value(params, "partnerCode") +
+                "&payType=" + value(params, "payType") +
+                "&requestId=" + value(params, "requestId") +
+                "&responseTime=" + value(params, "responseTime") +
+                "&resultCode=" + value(params, "resultCode") +
+                "&transId=" + value(params, "transId");
+        return hmacSHA256(secretKey, signatureSource).equalsIgnoreCase(received.toString());
+    }
+
+    private String value(Map<String, Object> params, String key) {
+        Object value = params.get(key);
+        return value != null ? value.toString() : "";
+    }
+
     private String hmacSHA256(String key, String data) {
         try {
             Mac hmac = Mac.getInstance("HmacSHA256");
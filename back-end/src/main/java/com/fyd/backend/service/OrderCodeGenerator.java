@@ -0,0 +1,10 @@
+package com.fyd.backend.service;
+
+/**
+ * Produces unique, human-typeable order codes. Provide another bean
+ * (e.g. marked {@code @Primary}) to change the scheme.
+ */
+public interface OrderCodeGenerator {
+
+    String nextCode();
+}
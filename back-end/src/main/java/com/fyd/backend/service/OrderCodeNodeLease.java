@@ -0,0 +1,141 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.repository.OrderCodeNodeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Hands out order code node ids through leases in the order_code_nodes table, so two
+ * running instances never share one. An instance keeps its lease alive with a heartbeat
+ * and gives it back on shutdown; a crashed instance's id becomes free once its lease
+ * expires. If the heartbeat finds the lease taken over (e.g. after a long pause), the
+ * instance stops issuing codes rather than risk duplicates.
+ */
+@Component
+public class OrderCodeNodeLease {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderCodeNodeLease.class);
+
+    @Autowired
+    private OrderCodeNodeRepository nodeRepository;
+
+    @Value("${app.order-code.lease-seconds:120}")
+    private long leaseSeconds;
+
+    private final TransactionTemplate transactionTemplate;
+    private final String owner;
+
+    private volatile int nodeId = -1;
+    private volatile boolean held;
+
+    public OrderCodeNodeLease(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.owner = hostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Take the configured node id, or any free one starting from {@code preferred}.
+     *
+     * @param configured node id from configuration, or negative to pick one
+     * @param preferred  first id to try when picking
+     * @param maxNodeId  highest valid node id
+     * @throws IllegalStateException if the configured id is held by a live instance
+     *                               or every id is taken
+     */
+    public synchronized int acquire(long configured, long preferred, long maxNodeId) {
+        if (configured >= 0) {
+            if (!tryClaim((int) configured)) {
+                throw new IllegalStateException("Order code node id " + configured
+                    + " is leased by another running instance; set a different app.order-code.node-id");
+            }
+            return nodeId;
+        }
+        long count = maxNodeId + 1;
+        for (long i = 0; i < count; i++) {
+            if (tryClaim((int) ((preferred + i) % count))) {
+                return nodeId;
+            }
+        }
+        throw new IllegalStateException("No free order code node id: all " + count + " are leased");
+    }
+
+    private boolean tryClaim(int candidate) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status ->
+            nodeRepository.claim(candidate, owner, now, now.minusSeconds(leaseSeconds)));
+        if (claimed == null || claimed == 0) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> nodeRepository.insert(candidate, owner, now));
+            } catch (DataIntegrityViolationException e) {
+                // Held by a live instance, or inserted by one starting at the same time
+                return false;
+            }
+        }
+        nodeId = candidate;
+        held = true;
+        logger.info("Leased order code node id {} as {}", candidate, owner);
+        return true;
+    }
+
+    /**
+     * Whether codes may still be issued with the leased node id.
+     */
+    public boolean isHeld() {
+        return held;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    @Scheduled(fixedDelayString = "${app.order-code.heartbeat-ms:30000}")
+    public void heartbeat() {
+        if (nodeId < 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Integer renewed = transactionTemplate.execute(status ->
+            nodeRepository.claim(nodeId, owner, now, now.minusSeconds(leaseSeconds)));
+        if (renewed == null || renewed == 0) {
+            if (held) {
+                logger.error("Lost the lease on order code node id {}; order creation is stopped on this instance", nodeId);
+            }
+            held = false;
+        } else {
+            held = true;
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (nodeId < 0) {
+            return;
+        }
+        held = false;
+        try {
+            transactionTemplate.executeWithoutResult(status -> nodeRepository.release(nodeId, owner));
+        } catch (RuntimeException e) {
+            logger.warn("Could not release order code node id {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
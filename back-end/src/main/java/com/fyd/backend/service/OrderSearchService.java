@@ -0,0 +1,161 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.Order;
+import com.fyd.backend.repository.OrderRepository;
+import com.fyd.backend.util.VietnameseText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admin order search backed by a MySQL FULLTEXT index (ngram parser) on orders.search_text.
+ * search_text holds the accent-folded order code, shipping name and phone digits, so
+ * infix matches on codes and phones and accent-insensitive name matches use the index
+ * instead of scanning with LIKE '%q%'.
+ */
+@Service
+public class OrderSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderSearchService.class);
+
+    // Must match ngram_token_size on the MySQL server (default 2)
+    private static final int NGRAM_SIZE = 2;
+    private static final int BACKFILL_BATCH = 500;
+    private static final int LATENCY_SAMPLES = 1024;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private final AtomicLong searches = new AtomicLong();
+
+    /**
+     * Orders matching every term of q, newest first.
+     */
+    public Page<Order> search(String q, int page, int size) {
+        long start = System.nanoTime();
+        try {
+            Pageable pageable = PageRequest.of(page, size);
+            String booleanQuery = toBooleanQuery(q);
+            if (booleanQuery.isEmpty()) {
+                return orderRepository.searchByPrefix(q.trim(), PageRequest.of(page, size, Sort.by("createdAt").descending()));
+            }
+            return orderRepository.searchIndexed(booleanQuery, pageable);
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Search latency percentiles over the most recent searches.
+     */
+    public Map<String, Object> getStats() {
+        long total = searches.get();
+        int n = (int) Math.min(total, LATENCY_SAMPLES);
+        long[] sample;
+        synchronized (latencies) {
+            sample = Arrays.copyOf(latencies, n);
+        }
+        Arrays.sort(sample);
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("searches", total);
+        stats.put("p50Ms", percentileMs(sample, 0.50));
+        stats.put("p99Ms", percentileMs(sample, 0.99));
+        stats.put("maxMs", n == 0 ? 0 : sample[n - 1] / 1_000_000.0);
+        return stats;
+    }
+
+    /**
+     * Create the FULLTEXT index if the schema was created by Hibernate, and fill
+     * search_text for orders written before it existed.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareIndex() {
+        try {
+            Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = 'orders' AND index_name = 'ft_orders_search'",
+                Integer.class);
+            if (existing == null || existing == 0) {
+                logger.info("Creating FULLTEXT index ft_orders_search on orders.search_text");
+                jdbcTemplate.execute("CREATE FULLTEXT INDEX ft_orders_search ON orders(search_text) WITH PARSER ngram");
+            }
+        } catch (Exception e) {
+            logger.error("Could not create order search index: {}", e.getMessage());
+        }
+
+        int filled = 0;
+        while (true) {
+            Integer batch = transactionTemplate.execute(status -> {
+                List<Long> ids = orderRepository.findIdsWithoutSearchText(PageRequest.of(0, BACKFILL_BATCH));
+                for (Order order : orderRepository.findAllById(ids)) {
+                    order.refreshSearchText();
+                }
+                return ids.size();
+            });
+            if (batch == null || batch == 0) {
+                break;
+            }
+            filled += batch;
+        }
+        if (filled > 0) {
+            logger.info("Backfilled search_text for {} orders", filled);
+        }
+    }
+
+    /**
+     * Turn free text into a boolean-mode query requiring every term as a phrase,
+     * e.g. "Nguyễn 0912" -> +"nguyen" +"0912". Returns "" if no term is long
+     * enough for the ngram index.
+     */
+    String toBooleanQuery(String q) {
+        String tokens = VietnameseText.toSearchTokens(q);
+        List<String> terms = new ArrayList<>();
+        for (String token : tokens.split(" ")) {
+            if (token.length() >= NGRAM_SIZE) {
+                terms.add("+\"" + token + "\"");
+            }
+        }
+        return String.join(" ", terms);
+    }
+
+    private void record(long nanos) {
+        long index = searches.getAndIncrement();
+        synchronized (latencies) {
+            latencies[(int) (index % LATENCY_SAMPLES)] = nanos;
+        }
+    }
+
+    private double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
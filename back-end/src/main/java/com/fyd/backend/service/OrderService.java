@@ -0,0 +1,312 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.Customer;
+import com.fyd.backend.entity.Order;
+import com.fyd.backend.entity.OrderItem;
+import com.fyd.backend.repository.CustomerRepository;
+import com.fyd.backend.repository.OrderItemRepository;
+import com.fyd.backend.repository.OrderRepository;
+import com.fyd.backend.repository.PromotionRepository;
+import com.fyd.backend.service.outbox.OutboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Transactional write path for orders.
+ */
+@Service
+public class OrderService {
+
+    private static final int LOW_STOCK_THRESHOLD = 6;
+    private static final int MAX_CODES_IN_NOTIFICATION = 10;
+    // Status changes that raise an admin notification
+    private static final Set<String> NOTIFIED_STATUSES = Set.of("CANCELLED", "COMPLETED");
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PointsService pointsService;
+
+    @Autowired
+    private CustomerCouponService customerCouponService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OrderStatusCountService orderStatusCountService;
+
+    @Autowired
+    private OrderStateMachine orderStateMachine;
+
+    @Autowired
+    private ProductSalesService productSalesService;
+
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    /**
+     * Reserve stock, count the promotion use, save the order with its items, spend and
+     * earn the customer's points, mark the coupon used and record the side effects
+     * (notification, WebSocket broadcast, email, low-stock alerts) in the outbox, all
+     * in one transaction.
+     *
+     * @param promotionId promotion applied to the order, or null
+     * @param couponCode  customer coupon applied to the order, or null
+     * @throws StockReservationService.InsufficientStockException if any line is short
+     * @throws CheckoutRejectedException if the promotion ran out, the points are no longer
+     *                                   available or the coupon is no longer valid
+     */
+    @Transactional
+    public Order placeOrder(Order order, List<OrderItem> items, List<StockReservationService.Line> reservationLines,
+                            Long promotionId, String couponCode) {
+        List<StockReservationService.Reservation> reservations = stockReservationService.reserve(reservationLines);
+
+        // Counted only once stock is secured, and rolled back with the order if anything later fails
+        if (promotionId != null && promotionRepository.incrementUsedCountIfAvailable(promotionId) == 0) {
+            throw new CheckoutRejectedException("Mã khuyến mãi đã hết lượt sử dụng");
+        }
+
+        Order savedOrder = orderRepository.save(order);
+        for (OrderItem item : items) {
+            item.setOrder(savedOrder);
+        }
+        orderItemRepository.saveAll(items);
+        savedOrder.getItems().addAll(items);
+        orderStatusCountService.onCreated(savedOrder.getStatus());
+        applyToCustomer(savedOrder, couponCode);
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("orderCode", savedOrder.getOrderCode());
+        payload.put("shippingName", savedOrder.getShippingName());
+        outboxService.enqueue(OutboxService.ORDER_CREATED, savedOrder.getId(), payload,
+            OutboxService.HANDLER_NOTIFICATION, OutboxService.HANDLER_WEBSOCKET, OutboxService.HANDLER_EMAIL);
+
+        for (StockReservationService.Reservation reservation : reservations) {
+            inventoryLedgerService.record(reservation.getVariantId(), InventoryLedgerService.SALE,
+                -reservation.getQuantity(), reservation.getRemainingStock(), savedOrder.getOrderCode());
+            if (reservation.getRemainingStock() <= LOW_STOCK_THRESHOLD && reservation.getPreviousStock() > LOW_STOCK_THRESHOLD) {
+                outboxService.enqueue(OutboxService.LOW_STOCK, reservation.getVariantId(),
+                    Map.of("remainingStock", reservation.getRemainingStock()),
+                    OutboxService.HANDLER_INVENTORY_ALERT);
+            }
+        }
+        return savedOrder;
+    }
+
+    private void applyToCustomer(Order order, String couponCode) {
+        Customer customer = order.getCustomer();
+        int pointsUsed = order.getPointsUsed() != null ? order.getPointsUsed() : 0;
+        if (pointsUsed > 0) {
+            try {
+                pointsService.usePoints(customer, pointsUsed);
+            } catch (IllegalArgumentException e) {
+                throw new CheckoutRejectedException("Không đủ điểm để sử dụng");
+            }
+        }
+        // Points are earned when the order is placed, not when it completes
+        pointsService.earnPoints(customer, order.getPointsEarned() != null ? order.getPointsEarned() : 0);
+
+        customer.setTotalOrders(customer.getTotalOrders() + 1);
+        customer.setTotalSpent(customer.getTotalSpent().add(order.getTotalAmount()));
+        customerRepository.save(customer);
+
+        if (couponCode != null && !customerCouponService.useCoupon(couponCode, customer.getId(), order)) {
+            throw new CheckoutRejectedException("Mã giảm giá không còn hiệu lực");
+        }
+    }
+
+    /**
+     * Move one order to a new status. Cancelling an order that was not yet delivered
+     * gives its stock back. The order row stays locked until commit, so of two concurrent
+     * requests for the same change only the first applies it.
+     *
+     * @return the updated order, or empty if it does not exist
+     * @throws IllegalArgumentException if the transition is not allowed
+     */
+    @Transactional
+    public Optional<Order> changeStatus(Long id, String status) {
+        Optional<Order> orderOpt = orderRepository.findByIdForUpdate(id);
+        if (orderOpt.isEmpty()) {
+            return orderOpt;
+        }
+        Order order = orderOpt.get();
+        if (status.equals(order.getStatus())) {
+            return orderOpt;
+        }
+        if (!orderStateMachine.canTransition(order.getStatus(), status)) {
+            throw new IllegalArgumentException(orderStateMachine.rejectionMessage(order.getStatus(), status));
+        }
+        applyTransitions(List.of(order), status);
+        return Optional.of(order);
+    }
+
+    /**
+     * Move many orders to the same status in one transaction.
+     * Orders whose current status does not allow the move are skipped and reported;
+     * the rest are updated with batched UPDATEs, and notifications and emails are
+     * coalesced into one outbox event for the batch and one per customer.
+     * The orders are locked like in {@link #changeStatus}.
+     */
+    @Transactional
+    public BulkStatusResult changeStatusBulk(Collection<Long> ids, String status) {
+        if (!orderStateMachine.isKnownStatus(status)) {
+            throw new IllegalArgumentException("Trạng thái không hợp lệ: " + status);
+        }
+
+        Set<Long> uniqueIds = new LinkedHashSet<>(ids);
+        Map<Long, Order> ordersById = new HashMap<>();
+        for (Order order : orderRepository.findAllByIdForUpdate(uniqueIds)) {
+            ordersById.put(order.getId(), order);
+        }
+
+        BulkStatusResult result = new BulkStatusResult();
+        List<Order> toUpdate = new ArrayList<>();
+        for (Long id : uniqueIds) {
+            Order order = ordersById.get(id);
+            if (order == null) {
+                result.addSkipped(id, null, "Không tìm thấy đơn hàng");
+            } else if (status.equals(order.getStatus())) {
+                result.addUnchanged(id);
+            } else if (!orderStateMachine.canTransition(order.getStatus(), status)) {
+                result.addSkipped(id, order.getOrderCode(), orderStateMachine.rejectionMessage(order.getStatus(), status));
+            } else {
+                toUpdate.add(order);
+            }
+        }
+
+        applyTransitions(toUpdate, status);
+        for (Order order : toUpdate) {
+            result.addUpdated(order.getId());
+        }
+        return result;
+    }
+
+    private void applyTransitions(List<Order> orders, String status) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        boolean nowSold = ProductSalesService.SOLD_STATUSES.contains(status);
+        List<Long> salesChanged = new ArrayList<>();
+        List<Long> restocked = new ArrayList<>();
+        for (Order order : orders) {
+            String previousStatus = order.getStatus();
+            orderStateMachine.apply(order, status, now);
+            orderStatusCountService.onStatusChanged(previousStatus, status);
+            boolean wasSold = ProductSalesService.SOLD_STATUSES.contains(previousStatus);
+            if (wasSold != nowSold) {
+                salesChanged.add(order.getId());
+            }
+            // Goods of a delivered order are with the customer; they come back as a RETURN movement
+            if ("CANCELLED".equals(status) && !wasSold) {
+                restocked.add(order.getId());
+            }
+        }
+        // Dirty orders are flushed as batched UPDATEs (hibernate.jdbc.batch_size)
+        orderRepository.saveAll(orders);
+        // Delivered orders add to the sales counters; cancelling a delivered order takes them back
+        productSalesService.adjust(salesChanged, nowSold ? 1 : -1);
+        restock(restocked);
+
+        if (NOTIFIED_STATUSES.contains(status)) {
+            List<String> codes = new ArrayList<>();
+            for (Order order : orders) {
+                if (codes.size() == MAX_CODES_IN_NOTIFICATION) break;
+                codes.add(order.getOrderCode());
+            }
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("status", status);
+            payload.put("count", orders.size());
+            payload.put("orderCodes", codes);
+            outboxService.enqueue(OutboxService.ORDER_STATUS_CHANGED, orders.size() == 1 ? orders.get(0).getId() : null,
+                payload, OutboxService.HANDLER_NOTIFICATION);
+        }
+
+        // One email event per customer, however many of their orders moved
+        Map<Long, List<Long>> orderIdsByCustomer = new LinkedHashMap<>();
+        for (Order order : orders) {
+            if (order.getCustomer() != null) {
+                orderIdsByCustomer.computeIfAbsent(order.getCustomer().getId(), k -> new ArrayList<>()).add(order.getId());
+            }
+        }
+        for (Map.Entry<Long, List<Long>> entry : orderIdsByCustomer.entrySet()) {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("status", status);
+            payload.put("orderIds", entry.getValue());
+            outboxService.enqueue(OutboxService.ORDER_STATUS_CHANGED, entry.getKey(), payload, OutboxService.HANDLER_EMAIL);
+        }
+    }
+
+    // Give back the stock reserved at checkout, recorded as CANCEL movements under each order code
+    private void restock(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        Map<String, List<StockReservationService.Line>> linesByOrderCode = new LinkedHashMap<>();
+        for (Object[] row : orderItemRepository.findStockLinesByOrderIds(orderIds)) {
+            String orderCode = (String) row[0];
+            linesByOrderCode.computeIfAbsent(orderCode, k -> new ArrayList<>())
+                .add(new StockReservationService.Line((Long) row[1], (Integer) row[2], orderCode));
+        }
+        stockReservationService.release(linesByOrderCode);
+    }
+
+    /**
+     * The order cannot be placed as requested; the message is shown to the customer.
+     */
+    public static class CheckoutRejectedException extends RuntimeException {
+        public CheckoutRejectedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Outcome of a bulk status change.
+     */
+    public static class BulkStatusResult {
+        private final List<Long> updated = new ArrayList<>();
+        private final List<Long> unchanged = new ArrayList<>();
+        private final List<Map<String, Object>> skipped = new ArrayList<>();
+
+        void addUpdated(Long id) { updated.add(id); }
+        void addUnchanged(Long id) { unchanged.add(id); }
+
+        void addSkipped(Long id, String orderCode, String reason) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("id", id);
+            entry.put("orderCode", orderCode);
+            entry.put("reason", reason);
+            skipped.add(entry);
+        }
+
+        public List<Long> getUpdated() { return updated; }
+        public List<Long> getUnchanged() { return unchanged; }
+        public List<Map<String, Object>> getSkipped() { return skipped; }
+    }
+}
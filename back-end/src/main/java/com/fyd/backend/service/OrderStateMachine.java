@@ -0,0 +1,85 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Allowed order status transitions and the fields each target status sets.
+ * Orders move strictly one step at a time; they can be cancelled at any
+ * stage before completion.
+ */
+@Component
+public class OrderStateMachine {
+
+    public static final Map<String, String> STATUS_NAMES = Map.of(
+        "PENDING", "Chờ xử lý",
+        "CONFIRMED", "Đã xác nhận",
+        "PROCESSING", "Đang xử lý",
+        "SHIPPING", "Đang giao",
+        "DELIVERED", "Đã giao hàng",
+        "COMPLETED", "Hoàn tất",
+        "PENDING_CANCEL", "Chờ duyệt hủy",
+        "CANCELLED", "Đã hủy"
+    );
+
+    private static final Map<String, Set<String>> TRANSITIONS = Map.of(
+        "PENDING", Set.of("CONFIRMED", "PENDING_CANCEL", "CANCELLED"),
+        // Admin either keeps the order (CONFIRMED) or accepts the cancellation
+        "PENDING_CANCEL", Set.of("CONFIRMED", "CANCELLED"),
+        "CONFIRMED", Set.of("PROCESSING", "CANCELLED"),
+        "PROCESSING", Set.of("SHIPPING", "CANCELLED"),
+        "SHIPPING", Set.of("DELIVERED", "CANCELLED"),
+        "DELIVERED", Set.of("COMPLETED", "CANCELLED"),
+        "COMPLETED", Set.of(),
+        "CANCELLED", Set.of()
+    );
+
+    public boolean isKnownStatus(String status) {
+        return TRANSITIONS.containsKey(status);
+    }
+
+    public boolean canTransition(String from, String to) {
+        return TRANSITIONS.getOrDefault(from, Set.of()).contains(to);
+    }
+
+    public Set<String> allowedTargets(String from) {
+        return TRANSITIONS.getOrDefault(from, Set.of());
+    }
+
+    /**
+     * Error shown to staff when a transition is not allowed.
+     */
+    public String rejectionMessage(String from, String to) {
+        return String.format("Quy trình bắt buộc: Không thể chuyển từ '%s' sang '%s'. Vui lòng thực hiện theo từng bước.",
+            STATUS_NAMES.getOrDefault(from, from), STATUS_NAMES.getOrDefault(to, to));
+    }
+
+    /**
+     * Move the order to the target status and stamp the related fields.
+     * Callers must check {@link #canTransition} first.
+     */
+    public void apply(Order order, String status, LocalDateTime now) {
+        order.setStatus(status);
+        order.setUpdatedAt(now);
+
+        if ("CONFIRMED".equals(status)) {
+            if (order.getConfirmedAt() == null) order.setConfirmedAt(now);
+        } else if ("DELIVERED".equals(status) || "COMPLETED".equals(status)) {
+            if (order.getDeliveredAt() == null) order.setDeliveredAt(now);
+
+            // If COD, mark as paid automatically
+            if ("COD".equalsIgnoreCase(order.getPaymentMethod())) {
+                order.setPaymentStatus("PAID");
+                if (order.getPaidAt() == null) {
+                    order.setPaidAt(now);
+                }
+            }
+        } else if ("CANCELLED".equals(status)) {
+            if (order.getCancelledAt() == null) order.setCancelledAt(now);
+        }
+    }
+}
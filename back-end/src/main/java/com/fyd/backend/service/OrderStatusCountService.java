@@ -0,0 +1,141 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory order counts per status.
+ * Loaded with one GROUP BY query, kept current by the order write paths
+ * and reconciled against the database every 5 minutes to absorb any drift
+ * (e.g. writes made by another instance or directly in SQL).
+ */
+@Service
+public class OrderStatusCountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusCountService.class);
+
+    public static final List<String> STATUSES = List.of(
+        "PENDING", "CONFIRMED", "PROCESSING", "SHIPPING", "DELIVERED", "COMPLETED", "PENDING_CANCEL", "CANCELLED");
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private volatile Map<String, AtomicLong> counts;
+
+    /**
+     * Counts per status plus "all".
+     */
+    public Map<String, Long> getCounts() {
+        Map<String, Long> snapshot = new HashMap<>();
+        long total = 0;
+        for (Map.Entry<String, AtomicLong> entry : current().entrySet()) {
+            long value = Math.max(0, entry.getValue().get());
+            snapshot.put(entry.getKey(), value);
+            total += value;
+        }
+        for (String status : STATUSES) {
+            snapshot.putIfAbsent(status, 0L);
+        }
+        snapshot.put("all", total);
+        return snapshot;
+    }
+
+    public long getCount(String status) {
+        AtomicLong value = current().get(status);
+        return value != null ? Math.max(0, value.get()) : 0;
+    }
+
+    public void onCreated(String status) {
+        afterCommit(() -> adjust(status, 1));
+    }
+
+    public void onStatusChanged(String oldStatus, String newStatus) {
+        if (oldStatus != null && oldStatus.equals(newStatus)) {
+            return;
+        }
+        afterCommit(() -> {
+            adjust(oldStatus, -1);
+            adjust(newStatus, 1);
+        });
+    }
+
+    public void onDeleted(String status) {
+        afterCommit(() -> adjust(status, -1));
+    }
+
+    /**
+     * Replace the counters with fresh values from the database.
+     */
+    @Scheduled(fixedDelay = 300000, initialDelay = 300000)
+    public synchronized void reconcile() {
+        Map<String, AtomicLong> fresh = new ConcurrentHashMap<>();
+        for (Object[] row : orderRepository.countGroupByStatus()) {
+            if (row[0] != null) {
+                fresh.put((String) row[0], new AtomicLong(((Number) row[1]).longValue()));
+            }
+        }
+        Map<String, AtomicLong> previous = counts;
+        counts = fresh;
+        if (previous != null && !sameCounts(previous, fresh)) {
+            logger.info("Order status counters reconciled with database: {}", fresh);
+        }
+    }
+
+    private Map<String, AtomicLong> current() {
+        Map<String, AtomicLong> snapshot = counts;
+        if (snapshot == null) {
+            synchronized (this) {
+                if (counts == null) {
+                    reconcile();
+                }
+                snapshot = counts;
+            }
+        }
+        return snapshot;
+    }
+
+    private void adjust(String status, long delta) {
+        if (status == null) {
+            return;
+        }
+        current().computeIfAbsent(status, k -> new AtomicLong()).addAndGet(delta);
+    }
+
+    // Only count writes that actually committed
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private boolean sameCounts(Map<String, AtomicLong> a, Map<String, AtomicLong> b) {
+        if (!a.keySet().equals(b.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, AtomicLong> entry : a.entrySet()) {
+            if (entry.getValue().get() != b.get(entry.getKey()).get()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,311 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.dto.ProductDTO;
+import com.fyd.backend.dto.VariantDTO;
+import com.fyd.backend.service.catalog.CatalogChangedEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Read-through LRU cache of product detail DTOs, keyed by id with a SKU lookup on top.
+ * Entries are dropped after any product, variant or image write commits (via
+ * {@link CatalogChangedEvent}) and after stock reservations, which use bulk updates.
+ * Every invalidation stamps the product or variant ids it covers; a load that overlaps
+ * a stamp on its product or one of its variants is returned but not stored, so a slow
+ * reader can never put back data older than the last write. Stamps are per id, so the
+ * checkouts of one product do not keep every other product out of the cache.
+ * Entries also expire ttl-ms after they were loaded, which bounds how stale an entry
+ * can get if an invalidation is lost, e.g. a change committed on another instance
+ * whose catalog_changes row was never written.
+ */
+@Service
+public class ProductCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCacheService.class);
+
+    private static final int STAMP_STRIPES = 4096;
+
+    @Value("${app.product-cache.max-entries:5000}")
+    private int maxEntries;
+
+    @Value("${app.product-cache.warmup-size:100}")
+    private int warmupSize;
+
+    // 0 keeps entries until they are invalidated or evicted
+    @Value("${app.product-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Autowired
+    private ProductListingService productListingService;
+
+    // Access-ordered for LRU eviction; these three maps are guarded by `this`
+    private Map<Long, Cached> entries;
+    private final Map<String, Long> idsBySku = new HashMap<>();
+    private final Map<Long, Long> productIdsByVariant = new HashMap<>();
+
+    // Invalidation stamps, striped by id; a collision only costs an unneeded reload
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLongArray productStamps = new AtomicLongArray(STAMP_STRIPES);
+    private final AtomicLongArray variantStamps = new AtomicLongArray(STAMP_STRIPES);
+    private volatile long clearedAt;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                unindex(eldest.getValue().dto);
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    public Optional<ProductDTO> getById(Long id) {
+        ProductDTO cached = lookup(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        return load(() -> productListingService.findDto(id));
+    }
+
+    public Optional<ProductDTO> getBySku(String sku) {
+        Long id;
+        synchronized (this) {
+            id = idsBySku.get(sku);
+        }
+        ProductDTO cached = id != null ? lookup(id) : null;
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+        return load(() -> productListingService.findDtoBySku(sku));
+    }
+
+    private synchronized ProductDTO lookup(Long id) {
+        Cached cached = entries.get(id);
+        if (cached == null) {
+            return null;
+        }
+        if (ttlMs > 0 && System.nanoTime() - cached.loadedAt > ttlMs * 1_000_000) {
+            entries.remove(id);
+            unindex(cached.dto);
+            expirations.increment();
+            return null;
+        }
+        return cached.dto;
+    }
+
+    private Optional<ProductDTO> load(Supplier<Optional<ProductDTO>> loader) {
+        long started = clock.get();
+        long loadedAt = System.nanoTime();
+        Optional<ProductDTO> loaded = loader.get();
+        loaded.ifPresent(dto -> {
+            synchronized (this) {
+                if (!invalidatedSince(dto, started)) {
+                    put(dto, loadedAt);
+                }
+            }
+        });
+        return loaded;
+    }
+
+    // Whether the product or one of its variants was invalidated after a load started
+    private boolean invalidatedSince(ProductDTO dto, long started) {
+        if (clearedAt > started || productStamps.get(stripe(dto.getId())) > started) {
+            return true;
+        }
+        if (dto.getVariants() != null) {
+            for (VariantDTO variant : dto.getVariants()) {
+                if (variantStamps.get(stripe(variant.getId())) > started) return true;
+            }
+        }
+        return false;
+    }
+
+    private void stamp(AtomicLongArray stamps, Long id) {
+        long now = clock.incrementAndGet();
+        stamps.accumulateAndGet(stripe(id), now, Math::max);
+    }
+
+    private static int stripe(Long id) {
+        return id == null ? 0 : Math.floorMod(Long.hashCode(id), STAMP_STRIPES);
+    }
+
+    // loadedAt is taken before the load, so the TTL also covers the time spent loading
+    private void put(ProductDTO dto, long loadedAt) {
+        Cached previous = entries.put(dto.getId(), new Cached(dto, loadedAt));
+        if (previous != null) {
+            unindex(previous.dto);
+        }
+        if (dto.getSku() != null) {
+            idsBySku.put(dto.getSku(), dto.getId());
+        }
+        if (dto.getVariants() != null) {
+            for (VariantDTO variant : dto.getVariants()) {
+                productIdsByVariant.put(variant.getId(), dto.getId());
+            }
+        }
+    }
+
+    private void unindex(ProductDTO dto) {
+        if (dto.getSku() != null) {
+            idsBySku.remove(dto.getSku(), dto.getId());
+        }
+        if (dto.getVariants() != null) {
+            for (VariantDTO variant : dto.getVariants()) {
+                productIdsByVariant.remove(variant.getId(), dto.getId());
+            }
+        }
+    }
+
+    public synchronized void invalidate(Long productId) {
+        stamp(productStamps, productId);
+        invalidations.increment();
+        Cached removed = entries.remove(productId);
+        if (removed != null) {
+            unindex(removed.dto);
+        }
+    }
+
+    // Runs before CatalogVersionService bumps the ETag versions, so a new ETag never
+    // goes out with a stale cached body
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getProductId() != null) {
+            invalidate(event.getProductId());
+        } else if (event.isReferenceData() || CatalogChangedEvent.PRODUCT.equals(event.getEntityType())) {
+            // A product change without a product is a bulk one, e.g. the sales reconcile
+            invalidateAll();
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        clearedAt = clock.incrementAndGet();
+        invalidations.increment();
+        entries.clear();
+        idsBySku.clear();
+        productIdsByVariant.clear();
+    }
+
+    /**
+     * Drop the products owning these variants once the current transaction commits.
+     * For stock changes made with bulk updates, which raise no entity events.
+     */
+    public void invalidateVariantsAfterCommit(Collection<Long> variantIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Long> ids = List.copyOf(variantIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateVariants(ids);
+                }
+            });
+        } else {
+            invalidateVariants(variantIds);
+        }
+    }
+
+    private void invalidateVariants(Collection<Long> variantIds) {
+        Set<Long> productIds = new HashSet<>();
+        synchronized (this) {
+            for (Long variantId : variantIds) {
+                // Stamp even if nothing is cached: a load of its product may be in flight
+                stamp(variantStamps, variantId);
+                Long productId = productIdsByVariant.get(variantId);
+                if (productId != null) productIds.add(productId);
+            }
+        }
+        productIds.forEach(this::invalidate);
+    }
+
+    /**
+     * Preload the best sellers so the first visitors after a deploy hit a warm cache.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (warmupSize <= 0) {
+            return;
+        }
+        try {
+            long started = clock.get();
+            long loadedAt = System.nanoTime();
+            List<ProductDTO> products = productListingService.findTopSellingDtos(Math.min(warmupSize, maxEntries));
+            synchronized (this) {
+                for (ProductDTO dto : products) {
+                    if (!invalidatedSince(dto, started)) put(dto, loadedAt);
+                }
+            }
+            logger.info("Product cache warmed up with {} best sellers", products.size());
+        } catch (Exception e) {
+            logger.warn("Product cache warm-up failed: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("entries", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", requests > 0 ? Math.round(hitCount * 1000.0 / requests) / 10.0 : 0.0);
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private static final class Cached {
+        final ProductDTO dto;
+        final long loadedAt; // System.nanoTime()
+
+        Cached(ProductDTO dto, long loadedAt) {
+            this.dto = dto;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
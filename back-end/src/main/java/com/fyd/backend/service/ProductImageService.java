@@ -0,0 +1,340 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.Product;
+import com.fyd.backend.entity.ProductImage;
+import com.fyd.backend.repository.ProductImageRepository;
+import com.fyd.backend.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Product image uploads. The request only hashes and stores the original and returns a
+ * PENDING image that shows the original; a small worker pool decodes it and writes WebP
+ * renditions at a few widths, then marks every image with that content READY.
+ * Identical uploads (same SHA-256) share one set of files and are transcoded once.
+ */
+@Service
+public class ProductImageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImageService.class);
+
+    public static final String PENDING = "PENDING";
+    public static final String READY = "READY";
+    public static final String FAILED = "FAILED";
+
+    private static final int WORKERS = 2;
+    private static final int QUEUE_CAPACITY = 100;
+    // Pending uploads older than this with no worker on them are requeued
+    private static final long RESUME_AFTER_SECONDS = 60;
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${app.images.rendition-widths:160,480,1080}")
+    private int[] renditionWidths;
+
+    @Value("${app.images.thumbnail-width:480}")
+    private int thumbnailWidth;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository imageRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        WORKERS, WORKERS, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+        runnable -> {
+            Thread thread = new Thread(runnable, "image-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    // Content hashes queued or being transcoded
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Add an uploaded image to a product. Re-uploading an image the product already has
+     * returns the existing one; content already transcoded for another product is reused.
+     *
+     * @return the image, or empty if the product does not exist
+     * @throws IllegalArgumentException if the file is empty or not a readable image
+     */
+    @Transactional
+    public Optional<ProductImage> upload(Long productId, MultipartFile file) throws IOException {
+        Optional<Product> productOpt = productRepository.findById(productId);
+        if (productOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        byte[] bytes = file.getBytes();
+        // Only sniffs the header; decoding is the worker's job
+        String format = detectFormat(bytes);
+        if (format == null) {
+            throw new IllegalArgumentException("Invalid or unsupported image format");
+        }
+        String hash = sha256(bytes);
+
+        Optional<ProductImage> duplicate = imageRepository.findFirstByProductIdAndContentHash(productId, hash);
+        if (duplicate.isPresent()) {
+            return duplicate;
+        }
+
+        Product product = productOpt.get();
+        ProductImage image = new ProductImage();
+        image.setProduct(product);
+        image.setSortOrder(product.getImages().size());
+        image.setIsPrimary(product.getImages().isEmpty()); // First image is primary
+        image.setCreatedAt(LocalDateTime.now());
+        image.setContentHash(hash);
+
+        Optional<ProductImage> done = imageRepository.findFirstByContentHashAndStatus(hash, READY);
+        if (done.isPresent()) {
+            image.setImageUrl(done.get().getImageUrl());
+            image.setThumbnailUrl(done.get().getThumbnailUrl());
+            image.setSrcset(done.get().getSrcset());
+            image.setStatus(READY);
+            return Optional.of(imageRepository.save(image));
+        }
+
+        Optional<ProductImage> queued = imageRepository.findFirstByContentHashAndStatus(hash, PENDING);
+        if (queued.isPresent()) {
+            image.setImageUrl(queued.get().getImageUrl());
+        } else {
+            String originalName = hash + "." + ("jpeg".equals(format) ? "jpg" : format);
+            Path original = productsDir().resolve("originals").resolve(originalName);
+            Files.createDirectories(original.getParent());
+            if (!Files.exists(original)) {
+                Files.write(original, bytes);
+            }
+            image.setImageUrl("/uploads/products/originals/" + originalName);
+        }
+        image.setStatus(PENDING);
+        ProductImage saved = imageRepository.save(image);
+        submitAfterCommit(hash);
+        return Optional.of(saved);
+    }
+
+    private void submitAfterCommit(String hash) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(hash);
+            }
+        });
+    }
+
+    private void submit(String hash) {
+        if (!inFlight.add(hash)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    transcode(hash);
+                } finally {
+                    inFlight.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue full: the image stays PENDING and resumePending picks it up
+            inFlight.remove(hash);
+            logger.warn("Image queue full; {} will be transcoded later", hash);
+        }
+    }
+
+    /**
+     * Requeue uploads left PENDING by a restart or a full queue.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void resumePending() {
+        for (String hash : imageRepository.findPendingHashes(LocalDateTime.now().minusSeconds(RESUME_AFTER_SECONDS))) {
+            submit(hash);
+        }
+    }
+
+    private void transcode(String hash) {
+        List<ProductImage> pending = imageRepository.findByContentHashAndStatus(hash, PENDING);
+        if (pending.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            Path original = Paths.get(uploadDir).resolve(pending.get(0).getImageUrl().substring("/uploads/".length()));
+            BufferedImage source = ImageIO.read(original.toFile());
+            if (source == null) {
+                throw new IOException("undecodable image " + original.getFileName());
+            }
+
+            // Never upscale: widths above the original collapse into one full-size rendition
+            TreeSet<Integer> widths = new TreeSet<>();
+            for (int width : renditionWidths) {
+                widths.add(Math.min(width, source.getWidth()));
+            }
+            List<String> entries = new ArrayList<>();
+            String largest = null;
+            String thumbnail = null;
+            for (int width : widths) {
+                String name = hash + "_" + width + ".webp";
+                Path target = productsDir().resolve(name);
+                if (!Files.exists(target)) {
+                    write(resize(source, width), target);
+                }
+                String url = "/uploads/products/" + name;
+                entries.add(url + " " + width + "w");
+                largest = url;
+                if (thumbnail == null && width >= thumbnailWidth) {
+                    thumbnail = url;
+                }
+            }
+            String imageUrl = largest;
+            String thumbnailUrl = thumbnail != null ? thumbnail : largest;
+            String srcset = String.join(", ", entries);
+
+            // Re-read inside the transaction: uploads of the same content may have joined meanwhile
+            transactionTemplate.executeWithoutResult(status -> {
+                for (ProductImage image : imageRepository.findByContentHashAndStatus(hash, PENDING)) {
+                    image.setImageUrl(imageUrl);
+                    image.setThumbnailUrl(thumbnailUrl);
+                    image.setSrcset(srcset);
+                    image.setStatus(READY);
+                }
+            });
+            logger.info("Transcoded image {} into {} renditions in {} ms", hash, widths.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // The original stays in place, so the image still shows; it just has no renditions
+            logger.error("Failed to transcode image {}: {}", hash, e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> {
+                for (ProductImage image : imageRepository.findByContentHashAndStatus(hash, PENDING)) {
+                    image.setStatus(FAILED);
+                }
+            });
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width) {
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        // Halve first while more than 2x too large; one bilinear pass alone would alias
+        while (current.getWidth() / 2 >= width) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, type);
+        }
+        if (current.getWidth() != width || current.getType() != type) {
+            int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+            current = draw(current, width, height, type);
+        }
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, int type) {
+        BufferedImage target = new BufferedImage(Math.max(1, width), Math.max(1, height), type);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, target.getWidth(), target.getHeight(), null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static void write(BufferedImage image, Path target) throws IOException {
+        // Write then move, so a crash never leaves a truncated file that looks finished
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        if (!ImageIO.write(image, "webp", temp.toFile())) {
+            throw new IOException("no WebP writer available");
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String detectFormat(byte[] bytes) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                return reader.getFormatName().toLowerCase();
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path productsDir() throws IOException {
+        Path dir = Paths.get(uploadDir, "products");
+        Files.createDirectories(dir);
+        return dir;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", executor.getQueue().size());
+        stats.put("active", executor.getActiveCount());
+        stats.put("completed", executor.getCompletedTaskCount());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
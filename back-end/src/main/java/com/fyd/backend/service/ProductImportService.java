@@ -41,6 +41,9 @@ public class ProductImportService {
     
     @Autowired
     private ProductVariantRepository productVariantRepository;
+
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
     
     /**
      * Generate Excel template with headers and sample data
@@ -343,7 +346,9 @@ public class ProductImportService {
                 variant.setCreatedAt(LocalDateTime.now());
                 variant.setUpdatedAt(LocalDateTime.now());
                 
-                productVariantRepository.save(variant);
+                variant = productVariantRepository.save(variant);
+                inventoryLedgerService.record(variant.getId(), InventoryLedgerService.IMPORT,
+                    variant.getStockQuantity(), variant.getStockQuantity(), "excel-import");
                 
                 result.incrementSuccess(product.getId());
                 
@@ -0,0 +1,166 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.dto.ProductDTO;
+import com.fyd.backend.entity.Product;
+import com.fyd.backend.repository.ProductRepository;
+import com.fyd.backend.service.catalog.CatalogIndexService;
+import com.fyd.backend.service.catalog.CatalogQuery;
+import com.fyd.backend.service.catalog.CatalogResult;
+import com.fyd.backend.service.catalog.CategoryTreeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Product read path for listing pages. DTOs are built with a fixed number of queries:
+ * the product queries already join category and brand; variants (with size and color)
+ * and images are then loaded for the whole page at once instead of per product.
+ */
+@Service
+public class ProductListingService {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CatalogIndexService catalogIndexService;
+
+    @Autowired
+    private CategoryTreeService categoryTreeService;
+
+    /**
+     * One page of the product list. Filtered and text queries are answered by the catalog
+     * index when it is ready; the unfiltered (admin) list includes inactive products and
+     * always comes from the database.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> listProducts(CatalogQuery query) {
+        Sort sort = query.isAscending()
+            ? Sort.by(query.getSortBy()).ascending()
+            : Sort.by(query.getSortBy()).descending();
+        PageRequest pageRequest = PageRequest.of(query.getPage(), query.getSize(), sort);
+
+        Map<String, Object> response = new HashMap<>();
+        String q = query.getQ() != null ? query.getQ() : "";
+        boolean hasAdvancedFilters = query.getCategoryId() != null || query.getBrandId() != null ||
+            query.getMinPrice() != null || query.getMaxPrice() != null ||
+            query.getColorId() != null || query.getSizeId() != null;
+
+        // A category filter covers its subcategories ("Áo" includes "Áo thun", "Áo polo", ...)
+        if (query.getCategoryId() != null) {
+            query.setCategoryIds(categoryTreeService.subtreeIds(query.getCategoryId()));
+        }
+
+        // Empty while the index is still building or for sort keys it does not cover
+        Optional<CatalogResult> indexed = catalogIndexService.search(query);
+        indexed.ifPresent(result -> response.put("facets", result.getFacets()));
+
+        Page<Product> productPage;
+        if (hasAdvancedFilters || !q.isEmpty()) {
+            if (indexed.isPresent()) {
+                CatalogResult result = indexed.get();
+                response.put("products", toDtosByIds(result.getProductIds()));
+                response.put("currentPage", query.getPage());
+                response.put("totalItems", result.getTotal());
+                response.put("totalPages", (int) ((result.getTotal() + query.getSize() - 1) / query.getSize()));
+                return response;
+            }
+            productPage = productRepository.advancedSearch(
+                q.isEmpty() ? null : q,
+                // The IN list is not evaluated without a category; it only has to be non-empty
+                query.getCategoryId(), query.getCategoryId() != null ? query.getCategoryIds() : List.of(-1L),
+                query.getBrandId(), query.getMinPrice(), query.getMaxPrice(),
+                query.getColorId(), query.getSizeId(),
+                pageRequest
+            );
+        } else {
+            productPage = productRepository.findPage(pageRequest);
+        }
+
+        response.put("products", toDtos(productPage.getContent()));
+        response.put("currentPage", productPage.getNumber());
+        response.put("totalItems", productPage.getTotalElements());
+        response.put("totalPages", productPage.getTotalPages());
+        return response;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductDTO> toDtos(List<Product> products) {
+        if (products.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = products.stream().map(Product::getId).collect(Collectors.toList());
+        // Both queries return the same managed instances, so their collections
+        // are initialized in place; the results themselves are not needed
+        productRepository.fetchVariantsByIdIn(ids);
+        productRepository.fetchImagesByIdIn(ids);
+
+        return products.stream()
+            .map(ProductDTO::fromEntity)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Load products by id and return their DTOs in the order of the given ids.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductDTO> toDtosByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> byId = productRepository.findAllByIdIn(ids).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> ordered = ids.stream()
+            .map(byId::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        return toDtos(ordered);
+    }
+
+    @Transactional(readOnly = true)
+    public ProductDTO toDto(Product product) {
+        return toDtos(List.of(product)).get(0);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ProductDTO> findDto(Long id) {
+        return productRepository.findById(id).map(this::toDto);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ProductDTO> findDtoBySku(String sku) {
+        return productRepository.findBySku(sku).map(this::toDto);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductDTO> findTopSellingDtos(int limit) {
+        return toDtos(productRepository.findTopSelling(PageRequest.of(0, limit)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductDTO> findFeaturedDtos() {
+        return toDtos(productRepository.findFeatured());
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductDTO> findNewArrivalDtos() {
+        return toDtos(productRepository.findNewArrivals());
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductDTO> findFlashSaleDtos() {
+        return toDtos(productRepository.findFlashSaleProducts());
+    }
+}
@@ -0,0 +1,299 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.dto.ProductDTO;
+import com.fyd.backend.dto.ReviewDTO;
+import com.fyd.backend.repository.OrderRepository;
+import com.fyd.backend.repository.ReviewRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Everything the product page shows, in one document: the product (from the detail
+ * cache), a first page of reviews with the rating summary, similar products and
+ * products bought together. The last three run in parallel, each with its own time
+ * budget; a section that fails, is late or cannot be queued gets its fallback and is
+ * listed under "degraded". Per-section latencies are kept for {@link #getStats()}.
+ */
+@Service
+public class ProductPageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductPageService.class);
+
+    private static final int QUEUE_CAPACITY = 200;
+
+    @Autowired
+    private ProductCacheService productCacheService;
+
+    @Autowired
+    private RecommendationService recommendationService;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${app.product-page.reviews-timeout-ms:400}")
+    private long reviewsTimeoutMs;
+
+    @Value("${app.product-page.similar-timeout-ms:300}")
+    private long similarTimeoutMs;
+
+    @Value("${app.product-page.bought-together-timeout-ms:300}")
+    private long boughtTogetherTimeoutMs;
+
+    @Value("${app.product-page.reviews-page-size:10}")
+    private int reviewsPageSize;
+
+    @Value("${app.product-page.similar-limit:6}")
+    private int similarLimit;
+
+    @Value("${app.product-page.bought-together-limit:4}")
+    private int boughtTogetherLimit;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Map<String, SectionStats> stats = new LinkedHashMap<>();
+
+    public ProductPageService(@Value("${app.product-page.threads:16}") int threads,
+                              PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.executor = new ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "product-page-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        for (String section : List.of("product", "reviews", "similar", "boughtTogether")) {
+            stats.put(section, new SectionStats());
+        }
+    }
+
+    /**
+     * The page document, or empty if the product does not exist.
+     *
+     * @param customerId when given, the reviews section says whether this customer may review
+     */
+    public Optional<Map<String, Object>> getPage(Long productId, Long customerId) {
+        long started = System.nanoTime();
+        Optional<ProductDTO> product = productCacheService.getById(productId);
+        stats.get("product").record(System.nanoTime() - started, Outcome.OK);
+        if (product.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Budgets count from here, so a slow queue eats into them instead of adding to them
+        long fanOut = System.nanoTime();
+        Section reviews = submit("reviews", () -> reviews(productId, customerId));
+        Section similar = submit("similar", () -> recommendationService.getSimilarProducts(productId, similarLimit)
+            .stream().map(recommendationService::toDto).collect(Collectors.toList()));
+        Section boughtTogether = submit("boughtTogether", () -> recommendationService
+            .getFrequentlyBoughtTogether(productId, boughtTogetherLimit)
+            .stream().map(recommendationService::toDto).collect(Collectors.toList()));
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        Map<String, Long> timings = new LinkedHashMap<>();
+        List<String> degraded = new ArrayList<>();
+        timings.put("product", TimeUnit.NANOSECONDS.toMillis(fanOut - started));
+        page.put("product", product.get());
+        page.put("reviews", await(reviews, fanOut, reviewsTimeoutMs, emptyReviews(), timings, degraded));
+        page.put("similar", await(similar, fanOut, similarTimeoutMs, List.of(), timings, degraded));
+        page.put("boughtTogether", await(boughtTogether, fanOut, boughtTogetherTimeoutMs, List.of(), timings, degraded));
+        page.put("degraded", degraded);
+        page.put("timings", timings);
+        return Optional.of(page);
+    }
+
+    // Lazy associations are read on the worker thread, so each section gets its own read-only session
+    private Section submit(String name, Supplier<Object> body) {
+        Section section = new Section(name);
+        try {
+            section.future = executor.submit(() -> {
+                long started = System.nanoTime();
+                try {
+                    return readOnlyTransaction.execute(status -> body.get());
+                } finally {
+                    section.nanos = System.nanoTime() - started;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Pool saturated: answer with the fallback rather than queue behind other pages
+        }
+        return section;
+    }
+
+    private Object await(Section section, long fanOut, long budgetMs, Object fallback,
+                         Map<String, Long> timings, List<String> degraded) {
+        String name = section.name;
+        Future<Object> future = section.future;
+        Outcome outcome;
+        Object value = fallback;
+        if (future == null) {
+            outcome = Outcome.REJECTED;
+        } else {
+            long deadline = fanOut + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+            try {
+                value = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                outcome = Outcome.OK;
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                outcome = Outcome.TIMEOUT;
+            } catch (ExecutionException e) {
+                logger.warn("Product page section {} failed: {}", name, e.getCause().getMessage());
+                outcome = Outcome.FAILED;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                outcome = Outcome.FAILED;
+            }
+        }
+        // Sections are awaited one after another, so use the worker's own time when it finished;
+        // a late section is charged the time it was waited for
+        long elapsed = section.nanos >= 0 ? section.nanos : System.nanoTime() - fanOut;
+        stats.get(name).record(elapsed, outcome);
+        timings.put(name, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        if (outcome != Outcome.OK) {
+            degraded.add(name);
+        }
+        return value;
+    }
+
+    // Same keys as GET /api/reviews/product/{id}, but only the newest page of reviews;
+    // count, average and distribution come from one grouped query
+    private Map<String, Object> reviews(Long productId, Long customerId) {
+        Map<Integer, Long> distribution = new HashMap<>();
+        for (int i = 1; i <= 5; i++) {
+            distribution.put(i, 0L);
+        }
+        long total = 0;
+        long ratingSum = 0;
+        for (Object[] row : reviewRepository.countApprovedByRating(productId)) {
+            if (row[0] == null) {
+                continue;
+            }
+            int rating = ((Number) row[0]).intValue();
+            long count = ((Number) row[1]).longValue();
+            distribution.merge(rating, count, Long::sum);
+            total += count;
+            ratingSum += rating * count;
+        }
+
+        List<ReviewDTO> reviews = reviewRepository.findByProductIdAndStatus(productId, "APPROVED",
+                PageRequest.of(0, reviewsPageSize, Sort.by("createdAt").descending()))
+            .map(ReviewDTO::fromEntity)
+            .getContent();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("reviews", reviews);
+        response.put("averageRating", total > 0 ? (double) ratingSum / total : 0.0);
+        response.put("totalReviews", total);
+        response.put("ratingDistribution", distribution);
+        if (customerId != null) {
+            boolean alreadyReviewed = reviewRepository.existsByProductIdAndCustomerId(productId, customerId);
+            boolean hasPurchased = orderRepository.existsByCustomerIdAndProductId(customerId, productId);
+            response.put("canReview", !alreadyReviewed && hasPurchased);
+            response.put("alreadyReviewed", alreadyReviewed);
+            response.put("hasPurchased", hasPurchased);
+        }
+        return response;
+    }
+
+    private static Map<String, Object> emptyReviews() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("reviews", List.of());
+        response.put("averageRating", 0.0);
+        response.put("totalReviews", 0L);
+        response.put("ratingDistribution", Map.of());
+        return response;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        stats.forEach((name, sectionStats) -> result.put(name, sectionStats.toMap()));
+        result.put("queued", executor.getQueue().size());
+        result.put("active", executor.getActiveCount());
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private enum Outcome { OK, TIMEOUT, FAILED, REJECTED }
+
+    private static final class Section {
+        final String name;
+        Future<Object> future;
+        volatile long nanos = -1;
+
+        Section(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class SectionStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, Outcome outcome) {
+            calls.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            switch (outcome) {
+                case TIMEOUT -> timeouts.increment();
+                case FAILED -> failures.increment();
+                case REJECTED -> rejected.increment();
+                default -> { }
+            }
+        }
+
+        Map<String, Object> toMap() {
+            long count = calls.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("calls", count);
+            map.put("timeouts", timeouts.sum());
+            map.put("failures", failures.sum());
+            map.put("rejected", rejected.sum());
+            map.put("avgMs", count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalNanos.sum() / count) : 0);
+            map.put("maxMs", TimeUnit.NANOSECONDS.toMillis(maxNanos.get()));
+            return map;
+        }
+    }
+}
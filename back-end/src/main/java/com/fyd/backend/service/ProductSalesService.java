@@ -0,0 +1,146 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.repository.OrderItemRepository;
+import com.fyd.backend.service.catalog.CatalogChangedEvent;
+import com.fyd.backend.util.CounterUpdates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sales counters (products.sold_count, product_variants.sold_count) kept in step with orders:
+ * an order's items are added when it is delivered and taken back if it is cancelled afterwards.
+ * A nightly job recomputes both counters from order_items and fixes any drift.
+ */
+@Service
+public class ProductSalesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSalesService.class);
+
+    /**
+     * Orders in these statuses count as sold.
+     */
+    public static final Set<String> SOLD_STATUSES = Set.of("DELIVERED", "COMPLETED");
+
+    // Ids per reconciliation statement; each range is its own short transaction
+    private static final long RECONCILE_RANGE = 2000;
+
+    // %1$s counter table, %2$s its key column in order_items; statuses as in SOLD_STATUSES
+    private static final String RECONCILE_SQL =
+        "UPDATE %1$s t LEFT JOIN (" +
+        "  SELECT oi.%2$s AS id, SUM(oi.quantity) AS sold FROM order_items oi JOIN orders o ON o.id = oi.order_id" +
+        "  WHERE o.status IN ('DELIVERED', 'COMPLETED') AND oi.%2$s BETWEEN ? AND ? GROUP BY oi.%2$s" +
+        ") s ON s.id = t.id " +
+        "SET t.sold_count = COALESCE(s.sold, 0) " +
+        "WHERE t.id BETWEEN ? AND ? AND NOT (t.sold_count <=> COALESCE(s.sold, 0))";
+
+    @Value("${app.product-sales.reconcile-threads:4}")
+    private int reconcileThreads;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductCacheService productCacheService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Add (sign 1) or take back (sign -1) the items of these orders, with one UPDATE for
+     * products and one for variants however many orders there are. Runs in the caller's
+     * transaction, so the counters commit or roll back with the status change.
+     */
+    public void adjust(Collection<Long> orderIds, int sign) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> byProduct = new HashMap<>();
+        Map<Long, Long> byVariant = new HashMap<>();
+        for (Object[] row : orderItemRepository.sumQuantitiesByOrderIds(orderIds)) {
+            long quantity = ((Number) row[2]).longValue() * sign;
+            if (row[0] != null) byProduct.merge((Long) row[0], quantity, Long::sum);
+            if (row[1] != null) byVariant.merge((Long) row[1], quantity, Long::sum);
+        }
+        CounterUpdates.apply(jdbcTemplate, "products", "sold_count", byProduct);
+        CounterUpdates.apply(jdbcTemplate, "product_variants", "sold_count", byVariant);
+
+        // SQL updates raise no entity events; these refresh the cached products and ETags after commit.
+        // The catalog index keeps its sold-count order until the nightly reconcile (see CatalogIndexService)
+        for (Long productId : byProduct.keySet()) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.SALES, productId, productId));
+        }
+    }
+
+    /**
+     * Recompute both counters from delivered and completed orders, in id ranges
+     * spread over a few threads. Only rows whose value differs are written.
+     *
+     * @return number of rows corrected
+     */
+    @Scheduled(cron = "${app.product-sales.reconcile-cron:0 30 2 * * *}")
+    public int reconcile() {
+        long start = System.currentTimeMillis();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, reconcileThreads), runnable -> {
+            Thread thread = new Thread(runnable, "sales-reconcile-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int corrected = 0;
+        try {
+            List<Future<Integer>> ranges = new ArrayList<>();
+            submitRanges(pool, ranges, "products", "product_id");
+            submitRanges(pool, ranges, "product_variants", "variant_id");
+            for (Future<Integer> range : ranges) {
+                try {
+                    corrected += range.get();
+                } catch (Exception e) {
+                    // One failed range does not stop the others; tomorrow's run retries it
+                    logger.warn("Sales counter reconciliation range failed: {}", e.getMessage());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (corrected > 0) {
+            productCacheService.invalidateAll();
+            eventPublisher.publishEvent(new CatalogChangedEvent(CatalogChangedEvent.PRODUCT, null, null));
+        }
+        logger.info("Sales counter reconciliation corrected {} rows in {} ms", corrected, System.currentTimeMillis() - start);
+        return corrected;
+    }
+
+    private void submitRanges(ExecutorService pool, List<Future<Integer>> ranges, String table, String keyColumn) {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap(
+            "SELECT COALESCE(MIN(id), 0) AS min_id, COALESCE(MAX(id), 0) AS max_id FROM " + table);
+        long minId = ((Number) bounds.get("min_id")).longValue();
+        long maxId = ((Number) bounds.get("max_id")).longValue();
+        String sql = String.format(RECONCILE_SQL, table, keyColumn);
+        for (long from = minId; from <= maxId && maxId > 0; from += RECONCILE_RANGE) {
+            long rangeStart = from;
+            long rangeEnd = Math.min(from + RECONCILE_RANGE - 1, maxId);
+            ranges.add(pool.submit(() -> jdbcTemplate.update(sql, rangeStart, rangeEnd, rangeStart, rangeEnd)));
+        }
+    }
+}
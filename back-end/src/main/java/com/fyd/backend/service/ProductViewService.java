@@ -0,0 +1,129 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.util.CounterUpdates;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Product page views, counted in memory and written to products.view_count in one
+ * batched UPDATE per flush interval instead of one write per page view.
+ * A viewer (user, or IP and browser) counts once per product within the dedupe window.
+ * A crash loses at most the views since the last flush; a failed flush is retried.
+ */
+@Service
+public class ProductViewService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductViewService.class);
+
+    @Value("${app.product-views.dedupe-window-minutes:30}")
+    private long dedupeWindowMinutes;
+
+    @Value("${app.product-views.max-tracked-viewers:200000}")
+    private int maxTrackedViewers;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // One adder per viewed product; LongAdder stripes concurrent increments on hot products
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    // "productId:viewer" -> end of its dedupe window (epoch millis)
+    private final Map<String, Long> recentViewers = new ConcurrentHashMap<>();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+
+    /**
+     * Count a view unless this viewer already viewed the product within the window.
+     *
+     * @return true if the view was counted
+     */
+    public boolean recordView(Long productId, String viewerKey) {
+        long now = System.currentTimeMillis();
+        long windowEnd = now + dedupeWindowMinutes * 60_000;
+        boolean[] counted = {false};
+        recentViewers.compute(productId + ":" + viewerKey, (key, until) -> {
+            if (until != null && until > now) {
+                return until;
+            }
+            counted[0] = true;
+            return windowEnd;
+        });
+        if (!counted[0]) {
+            duplicates.increment();
+            return false;
+        }
+        pending.computeIfAbsent(productId, id -> new LongAdder()).increment();
+        recorded.increment();
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.product-views.flush-interval-ms:10000}")
+    public void flush() {
+        Map<Long, Long> batch = new HashMap<>();
+        // sumThenReset swaps each cell to zero, so increments racing the flush land in the next one.
+        // Adders stay in the map (one per viewed product) to avoid losing a concurrent increment on removal.
+        pending.forEach((productId, adder) -> {
+            long views = adder.sumThenReset();
+            if (views > 0) {
+                batch.put(productId, views);
+            }
+        });
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+        purgeViewers();
+    }
+
+    private void write(Map<Long, Long> batch) {
+        // Chunks commit one by one, so only a failed chunk is put back for the next flush
+        for (List<Map.Entry<Long, Long>> chunk : CounterUpdates.chunks(batch)) {
+            try {
+                jdbcTemplate.update(CounterUpdates.sql("products", "view_count", chunk.size()), CounterUpdates.args(chunk));
+                chunk.forEach(e -> flushed.add(e.getValue()));
+            } catch (Exception e) {
+                chunk.forEach(entry -> pending.computeIfAbsent(entry.getKey(), id -> new LongAdder()).add(entry.getValue()));
+                logger.warn("Failed to flush {} product view counts: {}", chunk.size(), e.getMessage());
+            }
+        }
+    }
+
+    private void purgeViewers() {
+        long now = System.currentTimeMillis();
+        recentViewers.values().removeIf(until -> until <= now);
+        if (recentViewers.size() > maxTrackedViewers) {
+            // Bot traffic or a very long window: forget every window rather than grow unbounded
+            logger.warn("Product view dedupe table over {} entries; clearing it", maxTrackedViewers);
+            recentViewers.clear();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    public Map<String, Object> getStats() {
+        long pendingViews = pending.values().stream().mapToLong(LongAdder::sum).sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("recorded", recorded.sum());
+        stats.put("duplicates", duplicates.sum());
+        stats.put("flushed", flushed.sum());
+        stats.put("pending", pendingViews);
+        stats.put("trackedViewers", recentViewers.size());
+        return stats;
+    }
+}
@@ -2,12 +2,14 @@ package com.fyd.backend.service;
 
 import com.fyd.backend.entity.Product;
 import com.fyd.backend.entity.Order;
-import com.fyd.backend.entity.OrderItem;
+import com.fyd.backend.repository.OrderItemRepository;
 import com.fyd.backend.repository.ProductRepository;
 import com.fyd.backend.repository.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -25,6 +27,9 @@ public class RecommendationService {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
     /**
      * Get products similar to the given product (content-based filtering).
      * Returns products in the same category, sorted by popularity.
@@ -86,41 +91,22 @@ public class RecommendationService {
      * @return List of frequently bought together products
      */
     public List<Product> getFrequentlyBoughtTogether(Long productId, int limit) {
-        // Find all orders containing this product
-        List<Order> ordersWithProduct = orderRepository.findAll()
+        // Co-occurrence is counted in the database; only the top rows come back
+        List<Long> topProductIds = orderItemRepository.findBoughtTogether(productId, PageRequest.of(0, limit))
                 .stream()
-                .filter(order -> order.getItems() != null && 
-                        order.getItems().stream().anyMatch(item -> 
-                                item.getProduct() != null && 
-                                item.getProduct().getId().equals(productId)))
+                .map(row -> (Long) row[0])
                 .collect(Collectors.toList());
 
-        if (ordersWithProduct.isEmpty()) {
+        if (topProductIds.isEmpty()) {
             return getSimilarProducts(productId, limit);
         }
 
-        // Count co-occurrences of other products
-        Map<Long, Integer> coOccurrenceCount = new HashMap<>();
-        for (Order order : ordersWithProduct) {
-            for (OrderItem item : order.getItems()) {
-                if (item.getProduct() != null && !item.getProduct().getId().equals(productId)) {
-                    Long otherProductId = item.getProduct().getId();
-                    coOccurrenceCount.merge(otherProductId, 1, Integer::sum);
-                }
-            }
-        }
-
-        // Sort by co-occurrence count and get top products
-        List<Long> topProductIds = coOccurrenceCount.entrySet()
+        // Fetch in one query and keep the ranking
+        Map<Long, Product> byId = productRepository.findAllById(topProductIds)
                 .stream()
-                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-
-        // Fetch and return products
+                .collect(Collectors.toMap(Product::getId, p -> p));
         return topProductIds.stream()
-                .map(id -> productRepository.findById(id).orElse(null))
+                .map(byId::get)
                 .filter(p -> p != null && "ACTIVE".equals(p.getStatus()))
                 .collect(Collectors.toList());
     }
@@ -223,4 +209,61 @@ public class RecommendationService {
         // In a real implementation, this would use browsing session data
         return getSimilarProducts(productId, limit);
     }
+
+    /**
+     * Map Product entity to a lightweight DTO for frontend.
+     * Touches variants and images, so call it inside a session.
+     */
+    public Map<String, Object> toDto(Product product) {
+        Map<String, Object> dto = new HashMap<>();
+        dto.put("id", product.getId());
+        dto.put("name", product.getName());
+        dto.put("sku", product.getSku());
+        dto.put("basePrice", product.getBasePrice());
+        dto.put("salePrice", product.getSalePrice());
+        dto.put("categoryId", product.getCategory() != null ? product.getCategory().getId() : null);
+        dto.put("soldCount", product.getSoldCount());
+        dto.put("viewCount", product.getViewCount());
+        
+        // Include variants for "Add to Cart" functionality
+        if (product.getVariants() != null) {
+            List<Map<String, Object>> variants = product.getVariants().stream().map(v -> {
+                Map<String, Object> vMap = new HashMap<>();
+                vMap.put("id", v.getId());
+                vMap.put("size", v.getSize() != null ? v.getSize().getName() : null);
+                vMap.put("sizeId", v.getSize() != null ? v.getSize().getId() : null);
+                vMap.put("color", v.getColor() != null ? v.getColor().getName() : null);
+                vMap.put("colorId", v.getColor() != null ? v.getColor().getId() : null);
+                vMap.put("stockQuantity", v.getStockQuantity());
+                return vMap;
+            }).collect(Collectors.toList());
+            dto.put("variants", variants);
+        }
+        
+        // Get primary image
+        if (product.getImages() != null && !product.getImages().isEmpty()) {
+            product.getImages().stream()
+                    .filter(img -> Boolean.TRUE.equals(img.getIsPrimary()))
+                    .findFirst()
+                    .ifPresentOrElse(
+                            img -> dto.put("image", img.getImageUrl()),
+                            () -> dto.put("image", product.getImages().iterator().next().getImageUrl())
+                    );
+        } else {
+            dto.put("image", null);
+        }
+
+        // Calculate discount percentage if on sale
+        if (product.getSalePrice() != null && product.getBasePrice() != null 
+                && product.getSalePrice().compareTo(product.getBasePrice()) < 0) {
+            BigDecimal discount = product.getBasePrice().subtract(product.getSalePrice())
+                    .divide(product.getBasePrice(), 2, java.math.RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100));
+            dto.put("discountPercent", discount.intValue());
+        } else {
+            dto.put("discountPercent", 0);
+        }
+
+        return dto;
+    }
 }
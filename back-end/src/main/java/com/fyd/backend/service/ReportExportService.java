@@ -0,0 +1,127 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.repository.OrderRepository;
+import com.fyd.backend.repository.ProductVariantRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Streams order and inventory exports straight from a database cursor to the response.
+ * Rows are read as scalar projections, so neither the result set nor the persistence
+ * context grows with the size of the export.
+ */
+@Service
+public class ReportExportService {
+
+    public static final String FORMAT_XLSX = "xlsx";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final int LOW_STOCK_THRESHOLD = 10;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Autowired
+    private ExcelService excelService;
+
+    @Transactional(readOnly = true)
+    public void writeOrders(String status, LocalDateTime from, LocalDateTime to, String title,
+                            String format, OutputStream out) throws IOException {
+        writeOrders(status, from, to, title, format, out, null);
+    }
+
+    /**
+     * @param onRow called after each row is read, e.g. to report progress; may be null
+     */
+    @Transactional(readOnly = true)
+    public void writeOrders(String status, LocalDateTime from, LocalDateTime to, String title,
+                            String format, OutputStream out, Runnable onRow) throws IOException {
+        try (Stream<Object[]> rows = orderRepository.streamForExport(status, from, to)) {
+            Iterator<Map<String, Object>> data = counted(rows, onRow).map(this::orderRowToMap).iterator();
+            if (FORMAT_CSV.equals(format)) {
+                excelService.writeOrdersCsv(data, out);
+            } else {
+                excelService.writeOrdersReport(data, title, out);
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void writeInventory(boolean lowStockOnly, String format, OutputStream out) throws IOException {
+        writeInventory(lowStockOnly, format, out, null);
+    }
+
+    /**
+     * @param onRow called after each row is read, e.g. to report progress; may be null
+     */
+    @Transactional(readOnly = true)
+    public void writeInventory(boolean lowStockOnly, String format, OutputStream out, Runnable onRow) throws IOException {
+        try (Stream<Object[]> rows = variantRepository.streamForExport(lowStockOnly ? LOW_STOCK_THRESHOLD : null)) {
+            Iterator<Map<String, Object>> data = counted(rows, onRow).map(this::variantRowToMap).iterator();
+            if (FORMAT_CSV.equals(format)) {
+                excelService.writeInventoryCsv(data, out);
+            } else {
+                excelService.writeInventoryReport(data, out);
+            }
+        }
+    }
+
+    public long countOrders(String status, LocalDateTime from, LocalDateTime to) {
+        return orderRepository.countForExport(status, from, to);
+    }
+
+    public long countInventory(boolean lowStockOnly) {
+        return variantRepository.countForExport(lowStockOnly ? LOW_STOCK_THRESHOLD : null);
+    }
+
+    private Stream<Object[]> counted(Stream<Object[]> rows, Runnable onRow) {
+        return onRow == null ? rows : rows.peek(row -> onRow.run());
+    }
+
+    private Map<String, Object> orderRowToMap(Object[] row) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("orderCode", row[0]);
+        map.put("customerName", row[1]);
+        map.put("shippingPhone", row[2]);
+        map.put("totalAmount", row[3]);
+        map.put("status", row[4]);
+        map.put("createdAt", row[5]);
+        map.put("shippingAddress", buildAddress((String) row[6], (String) row[7], (String) row[8], (String) row[9]));
+        return map;
+    }
+
+    private String buildAddress(String address, String ward, String district, String province) {
+        StringBuilder sb = new StringBuilder();
+        if (address != null) sb.append(address);
+        if (ward != null) sb.append(", ").append(ward);
+        if (district != null) sb.append(", ").append(district);
+        if (province != null) sb.append(", ").append(province);
+        return sb.toString();
+    }
+
+    private Map<String, Object> variantRowToMap(Object[] row) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("sku", row[0]);
+        map.put("productName", row[1] != null ? row[1] : "");
+
+        String variantName = "";
+        if (row[2] != null) variantName += row[2];
+        if (row[3] != null) variantName += (variantName.isEmpty() ? "" : " / ") + row[3];
+        map.put("variant", variantName);
+
+        map.put("quantity", row[4] != null ? row[4] : 0);
+        return map;
+    }
+}
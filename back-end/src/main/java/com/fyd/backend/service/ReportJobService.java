@@ -0,0 +1,377 @@
+package com.fyd.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fyd.backend.dto.ReportJobRequest;
+import com.fyd.backend.entity.ReportJob;
+import com.fyd.backend.repository.ReportJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs large report exports in the background: submit, poll, then download.
+ * Jobs run on a small bounded pool, files are kept in the local report store
+ * for a limited time, and identical requests submitted while a job is still
+ * running share that job. Progress is broadcast on /topic/notifications.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+
+    public static final String TYPE_ORDERS = "ORDERS";
+    public static final String TYPE_INVENTORY = "INVENTORY";
+
+    private static final int WORKERS = 2;
+    private static final int QUEUE_CAPACITY = 10;
+    private static final long TTL_HOURS = 24;
+    private static final int PROGRESS_EVERY_ROWS = 5000;
+    private static final DateTimeFormatter FILENAME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    @Autowired
+    private ReportJobRepository jobRepository;
+
+    @Autowired
+    private ReportExportService reportExportService;
+
+    @Autowired
+    private ExcelService excelService;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.reports.dir:./reports}")
+    private String reportsDir;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        WORKERS, WORKERS, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+        runnable -> {
+            Thread thread = new Thread(runnable, "report-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    // dedupe key -> job currently queued or running for it
+    private final Map<String, ReportJob> activeJobs = new ConcurrentHashMap<>();
+    // job id -> rows written so far, for jobs in progress
+    private final Map<String, AtomicLong> liveProgress = new ConcurrentHashMap<>();
+
+    /**
+     * Queue a report, or return the job already working on an identical request.
+     *
+     * @throws IllegalArgumentException if the request is invalid
+     * @throws BusyException if the queue is full
+     */
+    public ReportJob submit(ReportJobRequest request) {
+        Spec spec = Spec.of(request);
+        String dedupeKey = spec.dedupeKey();
+
+        ReportJob job = new ReportJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setReportType(spec.type);
+        job.setFormat(spec.format);
+        job.setParams(toJson(spec.toParams()));
+        job.setDedupeKey(dedupeKey);
+        job.setFileName(spec.fileName());
+        job.setExpiresAt(LocalDateTime.now().plusHours(TTL_HOURS));
+
+        ReportJob existing = activeJobs.putIfAbsent(dedupeKey, job);
+        if (existing != null) {
+            // The other request may not have saved its row yet
+            return getJob(existing.getId()).orElse(existing);
+        }
+
+        String jobId = job.getId();
+        jobRepository.save(job);
+        try {
+            executor.execute(() -> run(jobId, spec));
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(dedupeKey, job);
+            job.setStatus("FAILED");
+            job.setError("Queue full");
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(job);
+            throw new BusyException();
+        }
+        return job;
+    }
+
+    /**
+     * Job with its live row count while it is running.
+     */
+    public Optional<ReportJob> getJob(String id) {
+        Optional<ReportJob> job = jobRepository.findById(id);
+        job.ifPresent(j -> {
+            AtomicLong rows = liveProgress.get(j.getId());
+            if (rows != null) {
+                j.setRowsWritten(rows.get());
+            }
+        });
+        return job;
+    }
+
+    /**
+     * File of a finished job, if it is still available.
+     */
+    public Optional<Path> getArtifact(ReportJob job) {
+        if (!"DONE".equals(job.getStatus()) || job.getFilePath() == null
+                || job.getExpiresAt().isBefore(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        Path path = Paths.get(job.getFilePath());
+        return Files.exists(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Remove expired jobs and their files. Runs every hour.
+     */
+    @Scheduled(cron = "0 45 * * * *")
+    public void purgeExpired() {
+        int removed = 0;
+        for (ReportJob job : jobRepository.findByExpiresAtBefore(LocalDateTime.now())) {
+            if (job.getFilePath() != null) {
+                deleteQuietly(Paths.get(job.getFilePath()));
+            }
+            jobRepository.delete(job);
+            removed++;
+        }
+        if (removed > 0) {
+            logger.info("Purged {} expired report jobs", removed);
+        }
+    }
+
+    /**
+     * Jobs that were queued or running when the application stopped will never finish.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void failInterruptedJobs() {
+        int failed = jobRepository.failUnfinished("Interrupted by restart", LocalDateTime.now());
+        if (failed > 0) {
+            logger.warn("Marked {} interrupted report jobs as failed", failed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(String jobId, Spec spec) {
+        ReportJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            activeJobs.remove(spec.dedupeKey());
+            return;
+        }
+
+        AtomicLong rows = new AtomicLong();
+        liveProgress.put(jobId, rows);
+        Path file = null;
+        try {
+            job.setStatus("RUNNING");
+            job.setTotalRows(TYPE_ORDERS.equals(spec.type)
+                ? reportExportService.countOrders(spec.status, spec.fromDate(), spec.toDate())
+                : reportExportService.countInventory(spec.lowStock));
+            job = jobRepository.save(job);
+            publish(job, rows.get());
+
+            Path dir = Paths.get(reportsDir);
+            Files.createDirectories(dir);
+            file = dir.resolve(jobId + "." + spec.format);
+
+            ReportJob running = job;
+            Runnable onRow = () -> {
+                if (rows.incrementAndGet() % PROGRESS_EVERY_ROWS == 0) {
+                    publish(running, rows.get());
+                }
+            };
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                if (TYPE_ORDERS.equals(spec.type)) {
+                    String title = "Báo cáo đơn hàng" + (spec.status != null ? " - " + excelService.translateStatus(spec.status) : "");
+                    reportExportService.writeOrders(spec.status, spec.fromDate(), spec.toDate(),
+                        title, spec.format, out, onRow);
+                } else {
+                    reportExportService.writeInventory(spec.lowStock, spec.format, out, onRow);
+                }
+            }
+
+            job.setStatus("DONE");
+            job.setRowsWritten(rows.get());
+            job.setFilePath(file.toAbsolutePath().toString());
+            job.setFileSize(Files.size(file));
+            job.setFinishedAt(LocalDateTime.now());
+            job.setExpiresAt(LocalDateTime.now().plusHours(TTL_HOURS));
+            job = jobRepository.save(job);
+            logger.info("Report job {} ({}) finished: {} rows, {} bytes", jobId, spec.type, rows.get(), job.getFileSize());
+        } catch (Exception e) {
+            logger.error("Report job {} failed", jobId, e);
+            if (file != null) {
+                deleteQuietly(file);
+            }
+            job.setStatus("FAILED");
+            job.setRowsWritten(rows.get());
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            job.setError(message.length() > 500 ? message.substring(0, 500) : message);
+            job.setFinishedAt(LocalDateTime.now());
+            job = jobRepository.save(job);
+        } finally {
+            liveProgress.remove(jobId);
+            activeJobs.remove(spec.dedupeKey());
+        }
+        publish(job, rows.get());
+    }
+
+    private void publish(ReportJob job, long rowsWritten) {
+        try {
+            Map<String, Object> message = new HashMap<>();
+            message.put("type", "report");
+            message.put("jobId", job.getId());
+            message.put("reportType", job.getReportType());
+            message.put("status", job.getStatus());
+            message.put("rowsWritten", rowsWritten);
+            message.put("totalRows", job.getTotalRows());
+            if (job.getTotalRows() != null && job.getTotalRows() > 0) {
+                message.put("percent", Math.min(100, rowsWritten * 100 / job.getTotalRows()));
+            }
+            message.put("message", switch (job.getStatus()) {
+                case "DONE" -> "Báo cáo đã sẵn sàng để tải xuống";
+                case "FAILED" -> "Tạo báo cáo thất bại";
+                default -> "Đang tạo báo cáo...";
+            });
+            message.put("timestamp", LocalDateTime.now().toString());
+            messagingTemplate.convertAndSend("/topic/notifications", message);
+        } catch (Exception e) {
+            logger.warn("Failed to publish report progress for job {}: {}", job.getId(), e.getMessage());
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete report file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Validated, normalized report parameters.
+     */
+    private static class Spec {
+        private String type;
+        private String format;
+        private String status;
+        private LocalDate from;
+        private LocalDate to;
+        private boolean lowStock;
+
+        static Spec of(ReportJobRequest request) {
+            Spec spec = new Spec();
+            spec.type = request.getType() != null ? request.getType().toUpperCase() : "";
+            if (!TYPE_ORDERS.equals(spec.type) && !TYPE_INVENTORY.equals(spec.type)) {
+                throw new IllegalArgumentException("Loại báo cáo không hợp lệ");
+            }
+            spec.format = ReportExportService.FORMAT_CSV.equalsIgnoreCase(request.getFormat())
+                ? ReportExportService.FORMAT_CSV : ReportExportService.FORMAT_XLSX;
+            if (TYPE_ORDERS.equals(spec.type)) {
+                spec.status = request.getStatus() != null && !request.getStatus().isEmpty() ? request.getStatus() : null;
+                try {
+                    spec.from = request.getFrom() != null && !request.getFrom().isEmpty() ? LocalDate.parse(request.getFrom()) : null;
+                    spec.to = request.getTo() != null && !request.getTo().isEmpty() ? LocalDate.parse(request.getTo()) : null;
+                } catch (Exception e) {
+                    throw new IllegalArgumentException("Ngày không hợp lệ (yyyy-MM-dd)");
+                }
+            } else {
+                spec.lowStock = Boolean.TRUE.equals(request.getLowStock());
+            }
+            return spec;
+        }
+
+        LocalDateTime fromDate() {
+            return from != null ? from.atStartOfDay() : null;
+        }
+
+        LocalDateTime toDate() {
+            return to != null ? to.atTime(23, 59, 59) : null;
+        }
+
+        String fileName() {
+            String prefix = TYPE_ORDERS.equals(type) ? "don-hang-" : "ton-kho-";
+            return prefix + LocalDate.now().format(FILENAME_FORMAT) + "." + format;
+        }
+
+        Map<String, Object> toParams() {
+            Map<String, Object> params = new LinkedHashMap<>();
+            params.put("type", type);
+            params.put("format", format);
+            params.put("status", status);
+            params.put("from", from != null ? from.toString() : null);
+            params.put("to", to != null ? to.toString() : null);
+            params.put("lowStock", lowStock);
+            return params;
+        }
+
+        String dedupeKey() {
+            String raw = type + "|" + format + "|" + status + "|" + from + "|" + to + "|" + lowStock;
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(hash);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    public static class BusyException extends RuntimeException {
+        public BusyException() {
+            super("Hệ thống đang xử lý nhiều báo cáo, vui lòng thử lại sau");
+        }
+    }
+}
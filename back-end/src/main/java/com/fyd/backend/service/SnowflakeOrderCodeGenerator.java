@@ -0,0 +1,111 @@
+package com.fyd.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered order codes without database round trips.
+ *
+ * Layout of the 63-bit id: 41 bits milliseconds since 2025-01-01 UTC,
+ * 10 bits node id, 12 bits per-millisecond counter. The id is encoded as
+ * 13 fixed-width Crockford base32 characters, so codes sort by creation time,
+ * e.g. {@code FYD-01JH3K7Q2M0A5}.
+ *
+ * Generation is lock-free: timestamp and counter live in one AtomicLong
+ * updated by CAS. When the counter overflows (more than 4096 codes in a
+ * millisecond) or the clock moves backwards, the generator keeps counting
+ * from the last timestamp, so codes stay unique and increasing.
+ *
+ * Node ids are leased from the database ({@link OrderCodeNodeLease}), so two
+ * instances cannot run with the same one; a configured id that is already
+ * leased stops startup.
+ */
+@Component
+public class SnowflakeOrderCodeGenerator implements OrderCodeGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnowflakeOrderCodeGenerator.class);
+
+    private static final String PREFIX = "FYD-";
+    private static final long EPOCH = 1735689600000L; // 2025-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long nodeId;
+    private final OrderCodeNodeLease lease;
+    // (timestamp << SEQUENCE_BITS) | sequence of the last issued id
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * @param configuredNodeId node id 0..1023; negative leases a free one, trying the
+     *                         id derived from the host name first
+     */
+    @Autowired
+    public SnowflakeOrderCodeGenerator(@Value("${app.order-code.node-id:-1}") long configuredNodeId,
+                                       OrderCodeNodeLease lease) {
+        if (configuredNodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.order-code.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = lease.acquire(configuredNodeId, deriveNodeId(), MAX_NODE_ID);
+        this.lease = lease;
+        logger.info("Order code generator using node id {}", nodeId);
+    }
+
+    // Fixed node id without a lease, for tests
+    SnowflakeOrderCodeGenerator(long nodeId) {
+        this.nodeId = nodeId;
+        this.lease = null;
+    }
+
+    @Override
+    public String nextCode() {
+        if (lease != null && !lease.isHeld()) {
+            throw new IllegalStateException("Order code node id " + nodeId + " is no longer leased by this instance");
+        }
+        return PREFIX + encode(nextId());
+    }
+
+    long nextId() {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis() - EPOCH;
+
+            // New millisecond: reset the counter. Same millisecond, counter overflow or
+            // clock going backwards: increment, which carries into the timestamp if needed.
+            long next = now > lastTimestamp ? now << SEQUENCE_BITS : current + 1;
+
+            if (state.compareAndSet(current, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    private static long deriveNodeId() {
+        try {
+            return (InetAddress.getLocalHost().getHostName().hashCode() & 0x7fffffff) % (MAX_NODE_ID + 1);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.ProductVariant;
+import com.fyd.backend.repository.ProductVariantRepository;
+import com.fyd.backend.service.catalog.CatalogVersionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Reserves stock for all lines of an order in a single transaction.
+ * Each variant is decremented with a conditional UPDATE (stock >= quantity),
+ * so concurrent checkouts on the same variant cannot oversell. If any line
+ * is short the whole reservation is rolled back.
+ * Cancellations and manual changes go through here too, so every write to
+ * stock is either a single UPDATE or made under a row lock.
+ */
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Autowired
+    private ProductCacheService productCacheService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Autowired
+    private InventoryLedgerService inventoryLedgerService;
+
+    private final LongAdder reservedOrders = new LongAdder();
+    private final LongAdder rejectedOrders = new LongAdder();
+    private final LongAdder reservedUnits = new LongAdder();
+    private final LongAdder reserveNanos = new LongAdder();
+    private final long startedAt = System.currentTimeMillis();
+
+    /**
+     * Decrement stock for every line, or none of them.
+     * Lines for the same variant are merged and updated in ascending id order
+     * so two orders touching the same variants always lock rows in the same order.
+     *
+     * @throws InsufficientStockException if any variant does not have enough stock
+     */
+    @Transactional
+    public List<Reservation> reserve(List<Line> lines) {
+        long start = System.nanoTime();
+        try {
+            Map<Long, Line> merged = merge(lines);
+            if (merged.isEmpty()) {
+                return List.of();
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            for (Line line : merged.values()) {
+                int updated = variantRepository.decrementStockIfAvailable(line.getVariantId(), line.getQuantity(), now);
+                if (updated == 0) {
+                    rejectedOrders.increment();
+                    Integer available = readStock(List.of(line.getVariantId())).get(line.getVariantId());
+                    throw new InsufficientStockException(line, available);
+                }
+            }
+
+            Set<Long> productIds = new HashSet<>();
+            Map<Long, Integer> remaining = readStock(merged.keySet(), productIds);
+
+            // Bulk updates raise no entity events; cached product pages show stock
+            productCacheService.invalidateVariantsAfterCommit(merged.keySet());
+            catalogVersionService.productsChangedAfterCommit(productIds);
+
+            List<Reservation> reservations = new ArrayList<>();
+            for (Line line : merged.values()) {
+                int left = remaining.getOrDefault(line.getVariantId(), 0);
+                reservations.add(new Reservation(line.getVariantId(), line.getQuantity(), left));
+                reservedUnits.add(line.getQuantity());
+            }
+            reservedOrders.increment();
+            return reservations;
+        } finally {
+            reserveNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Give back the stock of cancelled orders, keyed by order code.
+     * Lines of all orders are merged and incremented in ascending variant id order, like
+     * {@link #reserve}, and each order's lines are recorded as CANCEL movements under its code.
+     */
+    @Transactional
+    public void release(Map<String, List<Line>> linesByOrderCode) {
+        List<Line> all = new ArrayList<>();
+        linesByOrderCode.values().forEach(all::addAll);
+        Map<Long, Line> merged = merge(all);
+        if (merged.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Line line : merged.values()) {
+            variantRepository.incrementStock(line.getVariantId(), line.getQuantity(), now);
+        }
+        for (Map.Entry<String, List<Line>> entry : linesByOrderCode.entrySet()) {
+            for (Line line : merge(entry.getValue()).values()) {
+                inventoryLedgerService.record(line.getVariantId(), InventoryLedgerService.CANCEL,
+                    line.getQuantity(), null, entry.getKey());
+            }
+        }
+
+        Set<Long> productIds = new HashSet<>();
+        readStock(merged.keySet(), productIds);
+        productCacheService.invalidateVariantsAfterCommit(merged.keySet());
+        catalogVersionService.productsChangedAfterCommit(productIds);
+        logger.info("Released stock of {} order(s) for {} variant(s)", linesByOrderCode.size(), merged.size());
+    }
+
+    /**
+     * Add to or take from a variant's stock by hand, never going below zero.
+     * The row is locked while the change is applied, so a checkout reserving the same
+     * variant waits instead of being overwritten, and the recorded movement is exactly
+     * the change that was made.
+     *
+     * @param type      ADJUST or RETURN
+     * @param reference recorded with the movement; may be null
+     * @return the updated variant, or empty if it does not exist
+     */
+    @Transactional
+    public Optional<ProductVariant> adjustStock(Long variantId, int quantity, String type, String reference) {
+        return applyStock(variantId, stock -> stock + quantity, type, reference);
+    }
+
+    /**
+     * Set a variant's stock to a counted value (at least zero), recorded as an ADJUST
+     * movement of the difference. Locks the row like {@link #adjustStock}.
+     *
+     * @return the updated variant, or empty if it does not exist
+     */
+    @Transactional
+    public Optional<ProductVariant> setStock(Long variantId, int stock, String reference) {
+        return applyStock(variantId, previous -> stock, InventoryLedgerService.ADJUST, reference);
+    }
+
+    private Optional<ProductVariant> applyStock(Long variantId, IntUnaryOperator change, String type, String reference) {
+        return variantRepository.findByIdForUpdate(variantId)
+            .map(variant -> {
+                int previous = variant.getStockQuantity() != null ? variant.getStockQuantity() : 0;
+                int stock = Math.max(0, change.applyAsInt(previous));
+                // Saved as an entity update, which raises the usual catalog change events
+                variant.setStockQuantity(stock);
+                variant.setUpdatedAt(LocalDateTime.now());
+                inventoryLedgerService.record(variant.getId(), type, stock - previous, stock, reference);
+                return variant;
+            });
+    }
+
+    /**
+     * Reservation counters since startup, used to measure checkout throughput under load.
+     */
+    public Map<String, Object> getStats() {
+        long orders = reservedOrders.sum();
+        long rejected = rejectedOrders.sum();
+        long attempts = orders + rejected;
+        double uptimeSeconds = Math.max(1, System.currentTimeMillis() - startedAt) / 1000.0;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("reservedOrders", orders);
+        stats.put("rejectedOrders", rejected);
+        stats.put("reservedUnits", reservedUnits.sum());
+        stats.put("avgReserveMs", attempts == 0 ? 0 : reserveNanos.sum() / 1_000_000.0 / attempts);
+        stats.put("ordersPerSecond", orders / uptimeSeconds);
+        return stats;
+    }
+
+    private Map<Long, Line> merge(List<Line> lines) {
+        Map<Long, Line> merged = new TreeMap<>();
+        if (lines == null) {
+            return merged;
+        }
+        for (Line line : lines) {
+            if (line.getQuantity() <= 0) {
+                // A non-positive line would give stock back instead of taking it
+                throw new IllegalArgumentException("Quantity must be positive: " + line.getLabel());
+            }
+            if (line.getVariantId() == null) {
+                continue;
+            }
+            merged.merge(line.getVariantId(), line, (a, b) ->
+                new Line(a.getVariantId(), a.getQuantity() + b.getQuantity(), a.getLabel()));
+        }
+        return merged;
+    }
+
+    private Map<Long, Integer> readStock(Collection<Long> ids) {
+        return readStock(ids, new HashSet<>());
+    }
+
+    // Also collects the products owning the variants, whose detail ETags must change
+    private Map<Long, Integer> readStock(Collection<Long> ids, Set<Long> productIds) {
+        Map<Long, Integer> stock = new HashMap<>();
+        for (Object[] row : variantRepository.findStockByIds(ids)) {
+            stock.put((Long) row[0], row[1] != null ? (Integer) row[1] : 0);
+            if (row[2] != null) productIds.add((Long) row[2]);
+        }
+        return stock;
+    }
+
+    /**
+     * One cart line to reserve. The label is only used in error messages.
+     */
+    public static class Line {
+        private final Long variantId;
+        private final int quantity;
+        private final String label;
+
+        public Line(Long variantId, int quantity, String label) {
+            this.variantId = variantId;
+            this.quantity = quantity;
+            this.label = label;
+        }
+
+        public Long getVariantId() { return variantId; }
+        public int getQuantity() { return quantity; }
+        public String getLabel() { return label; }
+    }
+
+    /**
+     * Result of a successful reservation for one variant.
+     */
+    public static class Reservation {
+        private final Long variantId;
+        private final int quantity;
+        private final int remainingStock;
+
+        public Reservation(Long variantId, int quantity, int remainingStock) {
+            this.variantId = variantId;
+            this.quantity = quantity;
+            this.remainingStock = remainingStock;
+        }
+
+        public Long getVariantId() { return variantId; }
+        public int getQuantity() { return quantity; }
+        public int getRemainingStock() { return remainingStock; }
+        public int getPreviousStock() { return remainingStock + quantity; }
+    }
+
+    public static class InsufficientStockException extends RuntimeException {
+        private final Long variantId;
+        private final Integer available;
+
+        public InsufficientStockException(Line line, Integer available) {
+            super(available == null
+                ? String.format("Sản phẩm '%s' không tồn tại", line.getLabel())
+                : String.format("Sản phẩm '%s' không đủ hàng. Hiện còn: %d", line.getLabel(), available));
+            this.variantId = line.getVariantId();
+            this.available = available;
+        }
+
+        public Long getVariantId() { return variantId; }
+        public Integer getAvailable() { return available; }
+    }
+}
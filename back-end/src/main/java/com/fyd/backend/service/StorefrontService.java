@@ -0,0 +1,188 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.service.catalog.CategoryTreeService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * The storefront home page in one payload. Sections are loaded in parallel on a small
+ * pool, each bounded by the same deadline; a section that fails or is late is left out
+ * and listed under "missing" instead of failing the page. The assembled payload is
+ * kept for a short TTL and rebuilt by one request at a time while the others keep
+ * serving the previous copy.
+ */
+@Service
+public class StorefrontService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StorefrontService.class);
+
+    private static final int QUEUE_CAPACITY = 32;
+
+    @Autowired
+    private ProductListingService productListingService;
+
+    @Autowired
+    private CategoryTreeService categoryTreeService;
+
+    @Autowired
+    private FeaturedZoneService featuredZoneService;
+
+    @Value("${app.storefront.home-ttl-ms:30000}")
+    private long homeTtlMs;
+
+    @Value("${app.storefront.partial-ttl-ms:5000}")
+    private long partialTtlMs;
+
+    @Value("${app.storefront.section-timeout-ms:1500}")
+    private long sectionTimeoutMs;
+
+    @Value("${app.storefront.top-selling-limit:10}")
+    private int topSellingLimit;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ThreadPoolExecutor executor;
+
+    private volatile Home cached;
+    private final AtomicReference<CompletableFuture<Home>> refreshing = new AtomicReference<>();
+    private final AtomicLong builds = new AtomicLong();
+
+    public StorefrontService(@Value("${app.storefront.threads:6}") int threads) {
+        this.executor = new ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "storefront-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    public Home getHome() {
+        Home current = cached;
+        if (current != null && !current.isExpired()) {
+            return current;
+        }
+        CompletableFuture<Home> mine = new CompletableFuture<>();
+        CompletableFuture<Home> running = refreshing.compareAndExchange(null, mine);
+        if (running != null) {
+            // Someone else is rebuilding: serve the old copy, or wait if there is none yet
+            return current != null ? current : running.join();
+        }
+        try {
+            // The previous rebuild may have finished between the first read and the swap
+            Home latest = cached;
+            Home built = latest != null && !latest.isExpired() ? latest : build();
+            cached = built;
+            mine.complete(built);
+            return built;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            refreshing.set(null);
+        }
+    }
+
+    private Home build() {
+        Map<String, Supplier<Object>> sections = new LinkedHashMap<>();
+        sections.put("featured", productListingService::findFeaturedDtos);
+        sections.put("newArrivals", productListingService::findNewArrivalDtos);
+        sections.put("flashSale", productListingService::findFlashSaleDtos);
+        sections.put("topSelling", () -> productListingService.findTopSellingDtos(topSellingLimit));
+        sections.put("categories", () -> categoryTreeService.getTree().getRoots());
+        sections.put("featuredZones", () -> featuredZoneService.getRendered().getActive());
+
+        Map<String, Future<Object>> futures = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (Map.Entry<String, Supplier<Object>> section : sections.entrySet()) {
+            try {
+                futures.put(section.getKey(), executor.submit(section.getValue()::get));
+            } catch (RejectedExecutionException e) {
+                missing.add(section.getKey());
+            }
+        }
+
+        // One deadline for all sections: they run side by side, so the page waits for the slowest
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+        Map<String, Object> payload = new LinkedHashMap<>();
+        for (Map.Entry<String, Future<Object>> entry : futures.entrySet()) {
+            String name = entry.getKey();
+            Future<Object> future = entry.getValue();
+            try {
+                payload.put(name, future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                logger.warn("Storefront section {} timed out after {} ms", name, sectionTimeoutMs);
+                missing.add(name);
+            } catch (ExecutionException e) {
+                logger.warn("Storefront section {} failed: {}", name, e.getCause().getMessage());
+                missing.add(name);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                missing.add(name);
+            }
+        }
+        for (String name : missing) {
+            payload.put(name, List.of());
+        }
+        payload.put("missing", Collections.unmodifiableList(missing));
+
+        // Retry a partial page soon rather than serving the gap for the full TTL
+        long ttl = missing.isEmpty() ? homeTtlMs : Math.min(partialTtlMs, homeTtlMs);
+        return new Home(builds.incrementAndGet(), Collections.unmodifiableMap(payload),
+            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttl));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * One assembled home page; shared between requests until it expires.
+     */
+    public static final class Home {
+        private final long version;
+        private final Map<String, Object> payload;
+        private final long expiresAtNanos;
+
+        Home(long version, Map<String, Object> payload, long expiresAtNanos) {
+            this.version = version;
+            this.payload = payload;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAtNanos >= 0;
+        }
+
+        /**
+         * Changes on every rebuild; part of the home page ETag.
+         */
+        public long getVersion() { return version; }
+        public Map<String, Object> getPayload() { return payload; }
+    }
+}
@@ -0,0 +1,63 @@
+package com.fyd.backend.service.catalog;
+
+import com.fyd.backend.entity.Brand;
+import com.fyd.backend.entity.Category;
+import com.fyd.backend.entity.Color;
+import com.fyd.backend.entity.FeaturedZone;
+import com.fyd.backend.entity.Product;
+import com.fyd.backend.entity.ProductImage;
+import com.fyd.backend.entity.ProductVariant;
+import com.fyd.backend.entity.Size;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener on products, their variants and images, the reference data shown
+ * with them (category, brand, color, size) and featured zones. Hibernate resolves it
+ * from the Spring context, so every write path (admin CRUD, Excel import, inventory)
+ * reports catalog changes without having to remember to.
+ * Bulk JPQL updates bypass it; callers that change catalog data that way publish
+ * {@link CatalogChangedEvent} themselves.
+ */
+@Component
+public class CatalogChangeListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        CatalogChangedEvent event = null;
+        if (entity instanceof Product product) {
+            event = new CatalogChangedEvent(CatalogChangedEvent.PRODUCT, product.getId(), product.getId());
+        } else if (entity instanceof ProductVariant variant) {
+            event = new CatalogChangedEvent(CatalogChangedEvent.VARIANT, variant.getId(), productIdOf(variant.getProduct()));
+        } else if (entity instanceof ProductImage image) {
+            event = new CatalogChangedEvent(CatalogChangedEvent.IMAGE, image.getId(), productIdOf(image.getProduct()));
+        } else if (entity instanceof Category category) {
+            event = new CatalogChangedEvent(CatalogChangedEvent.CATEGORY, category.getId(), null);
+        } else if (entity instanceof Brand brand) {
+            event = new CatalogChangedEvent(CatalogChangedEvent.BRAND, brand.getId(), null);
+        } else if (entity instanceof Color color) {
+            event = new CatalogChangedEvent(CatalogChangedEvent.COLOR, color.getId(), null);
+        } else if (entity instanceof Size size) {
+            event = new CatalogChangedEvent(CatalogChangedEvent.SIZE, size.getId(), null);
+        } else if (entity instanceof FeaturedZone zone) {
+            event = new CatalogChangedEvent(CatalogChangedEvent.FEATURED_ZONE, zone.getId(), null);
+        }
+        if (event != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    // Reading the id of a lazy proxy does not initialize it
+    private Long productIdOf(Product product) {
+        return product != null ? product.getId() : null;
+    }
+}
@@ -0,0 +1,212 @@
+package com.fyd.backend.service.catalog;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Shares catalog changes between instances through the catalog_changes table. Changes
+ * committed here are buffered (repeats of the same change collapse) and appended once per
+ * poll; each poll also reads the rows other instances appended and publishes them again
+ * as replayed {@link CatalogChangedEvent}s, so the product cache, catalog index, category
+ * tree, featured zones and ETag versions follow writes made elsewhere within a poll or two.
+ * Ids of a concurrent append can become visible out of order, so skipped ids are
+ * re-read for a while before they are given up.
+ */
+@Component
+public class CatalogChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogChangeLog.class);
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_GAPS = 1000;
+    private static final long GAP_TIMEOUT_MS = 30000;
+    private static final int RETENTION_HOURS = 24;
+
+    private static final String INSERT_SQL =
+        "INSERT INTO catalog_changes (origin, entity_type, product_id, changed_at) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_COLUMNS = "SELECT id, origin, entity_type, product_id FROM catalog_changes ";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final String origin = hostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    private final Set<Change> pending = ConcurrentHashMap.newKeySet();
+
+    // Replay state, only touched by the scheduler thread (sync is synchronized)
+    private long cursor = -1;
+    private final Map<Long, Long> gaps = new LinkedHashMap<>(); // id -> first missed at
+
+    @PostConstruct
+    void init() {
+        // Caches start empty, so older changes need no replay
+        try {
+            cursor = currentMaxId();
+        } catch (Exception e) {
+            logger.warn("Could not read catalog_changes, replay starts on the first poll: {}", e.getMessage());
+        }
+    }
+
+    // After commit, so rolled back writes are never shared
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!event.isReplayed()) {
+            pending.add(new Change(event.getEntityType(), event.getProductId()));
+        }
+    }
+
+    /**
+     * Share stock changed by bulk updates, which raise no entity events.
+     */
+    public void stockChanged(Iterable<Long> productIds) {
+        for (Long productId : productIds) {
+            pending.add(new Change(CatalogChangedEvent.STOCK, productId));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog-changes.poll-ms:1000}")
+    public synchronized void sync() {
+        try {
+            append();
+            replay();
+        } catch (Exception e) {
+            // Unsent changes stay buffered and replay resumes after the last applied row
+            logger.warn("Catalog change sync failed: {}", e.getMessage());
+        }
+    }
+
+    private void append() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Change> batch = new ArrayList<>();
+        for (Iterator<Change> it = pending.iterator(); it.hasNext(); ) {
+            batch.add(it.next());
+            it.remove();
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, BATCH_SIZE, (ps, change) -> {
+                ps.setString(1, origin);
+                ps.setString(2, change.entityType);
+                if (change.productId != null) {
+                    ps.setLong(3, change.productId);
+                } else {
+                    ps.setNull(3, Types.BIGINT);
+                }
+                ps.setTimestamp(4, now);
+            });
+        } catch (RuntimeException e) {
+            pending.addAll(batch);
+            throw e;
+        }
+    }
+
+    private void replay() {
+        if (cursor < 0) {
+            cursor = currentMaxId();
+            return;
+        }
+        if (!gaps.isEmpty()) {
+            String ids = gaps.keySet().stream().map(String::valueOf).collect(Collectors.joining(","));
+            for (Map<String, Object> row : jdbcTemplate.queryForList(SELECT_COLUMNS + "WHERE id IN (" + ids + ")")) {
+                gaps.remove(((Number) row.get("id")).longValue());
+                apply(row);
+            }
+            long expired = System.currentTimeMillis() - GAP_TIMEOUT_MS;
+            gaps.values().removeIf(missedAt -> missedAt < expired);
+        }
+        List<Map<String, Object>> rows;
+        do {
+            rows = jdbcTemplate.queryForList(SELECT_COLUMNS + "WHERE id > ? ORDER BY id LIMIT " + BATCH_SIZE, cursor);
+            for (Map<String, Object> row : rows) {
+                long id = ((Number) row.get("id")).longValue();
+                long now = System.currentTimeMillis();
+                for (long missing = cursor + 1; missing < id && gaps.size() < MAX_GAPS; missing++) {
+                    gaps.put(missing, now);
+                }
+                cursor = id;
+                apply(row);
+            }
+        } while (rows.size() == BATCH_SIZE);
+    }
+
+    private void apply(Map<String, Object> row) {
+        // Our own changes were applied when they committed
+        if (origin.equals(row.get("origin"))) {
+            return;
+        }
+        Number productId = (Number) row.get("product_id");
+        eventPublisher.publishEvent(new CatalogChangedEvent((String) row.get("entity_type"), null,
+            productId != null ? productId.longValue() : null, true));
+    }
+
+    private long currentMaxId() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM catalog_changes", Long.class);
+        return max != null ? max : 0;
+    }
+
+    /**
+     * Purge rows every instance has long replayed. Runs every hour at :50.
+     */
+    @Scheduled(cron = "0 50 * * * *")
+    public void purge() {
+        int deleted = jdbcTemplate.update("DELETE FROM catalog_changes WHERE changed_at < ?",
+            Timestamp.valueOf(LocalDateTime.now().minusHours(RETENTION_HOURS)));
+        logger.debug("Purged {} catalog changes", deleted);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    private static final class Change {
+        final String entityType;
+        final Long productId;
+
+        Change(String entityType, Long productId) {
+            this.entityType = entityType;
+            this.productId = productId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Change other)) return false;
+            return entityType.equals(other.entityType) && Objects.equals(productId, other.productId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityType, productId);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.fyd.backend.service.catalog;
+
+/**
+ * Published whenever a catalog row (product, variant, image, reference data or
+ * featured zone) is inserted, updated or deleted. Changes committed by other instances
+ * are published again here by {@link CatalogChangeLog}, marked as replayed.
+ */
+public class CatalogChangedEvent {
+
+    public static final String PRODUCT = "Product";
+    public static final String VARIANT = "ProductVariant";
+    public static final String IMAGE = "ProductImage";
+    public static final String CATEGORY = "Category";
+    public static final String BRAND = "Brand";
+    public static final String COLOR = "Color";
+    public static final String SIZE = "Size";
+    public static final String FEATURED_ZONE = "FeaturedZone";
+    // Stock changed by bulk updates (checkouts, cancellations); only ever replayed
+    public static final String STOCK = "Stock";
+    // Only the sold counters of a product changed (order delivered or cancelled after delivery)
+    public static final String SALES = "Sales";
+
+    private final String entityType;
+    private final Object entityId;
+    private final Long productId;
+    private final boolean replayed;
+
+    public CatalogChangedEvent(String entityType, Object entityId, Long productId) {
+        this(entityType, entityId, productId, false);
+    }
+
+    public CatalogChangedEvent(String entityType, Object entityId, Long productId, boolean replayed) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.productId = productId;
+        this.replayed = replayed;
+    }
+
+    /**
+     * Category, brand, color and size names are copied into every product DTO.
+     */
+    public boolean isReferenceData() {
+        return CATEGORY.equals(entityType) || BRAND.equals(entityType)
+            || COLOR.equals(entityType) || SIZE.equals(entityType);
+    }
+
+    public String getEntityType() { return entityType; }
+    public Object getEntityId() { return entityId; }
+    public Long getProductId() { return productId; }
+    public boolean isReplayed() { return replayed; }
+}
@@ -0,0 +1,144 @@
+package com.fyd.backend.service.catalog;
+
+import com.fyd.backend.repository.BrandRepository;
+import com.fyd.backend.repository.CategoryRepository;
+import com.fyd.backend.repository.ColorRepository;
+import com.fyd.backend.repository.ProductImageRepository;
+import com.fyd.backend.repository.ProductRepository;
+import com.fyd.backend.repository.ProductVariantRepository;
+import com.fyd.backend.repository.SizeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Storefront filtering, sorting, text search and facet counts from an in-memory
+ * {@link CatalogSnapshot} instead of the DISTINCT/LEFT JOIN query in ProductRepository.advancedSearch.
+ * Product, variant and image writes raise {@link CatalogChangedEvent}; after they commit the
+ * snapshot is marked stale and rebuilt in the background, so bursts of writes cost one rebuild.
+ * Sold counters moving with order status changes do not mark it stale: best-seller order and
+ * popularity only catch up at the next rebuild, at the latest after the nightly sales reconcile.
+ */
+@Service
+public class CatalogIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogIndexService.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Autowired
+    private ProductImageRepository imageRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private ColorRepository colorRepository;
+
+    @Autowired
+    private SizeRepository sizeRepository;
+
+    private volatile CatalogSnapshot snapshot;
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long indexedChanges = -1;
+    private volatile long snapshotVersion;
+
+    /**
+     * Empty until the first build finishes, or when the sort key is not indexed;
+     * callers then fall back to the database query.
+     */
+    public Optional<CatalogResult> search(CatalogQuery query) {
+        CatalogSnapshot current = snapshot;
+        if (current == null || !CatalogSnapshot.SORT_KEYS.contains(query.getSortBy())) {
+            return Optional.empty();
+        }
+        return Optional.of(current.search(query));
+    }
+
+    /**
+     * Search-as-you-type suggestions, accent-insensitive ("ao thun" finds "Áo thun").
+     * Empty until the first build finishes.
+     */
+    public List<Map<String, Object>> suggest(String q, int limit) {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            return List.of();
+        }
+        return current.suggest(q, limit);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        // Stock is not indexed, and sold counts may lag (see above)
+        String type = event.getEntityType();
+        if (!CatalogChangedEvent.FEATURED_ZONE.equals(type) && !CatalogChangedEvent.STOCK.equals(type)
+                && !CatalogChangedEvent.SALES.equals(type)) {
+            changes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Changes whenever a new snapshot is published; part of the listing ETag.
+     */
+    public long getSnapshotVersion() {
+        return snapshotVersion;
+    }
+
+
+    /**
+     * Build the index on startup and rebuild it when products changed since the last build.
+     */
+    @Scheduled(fixedDelay = 2000)
+    public void refreshIfStale() {
+        if (changes.get() != indexedChanges) {
+            refresh();
+        }
+    }
+
+    public synchronized void refresh() {
+        // Read the counter first: changes committed during the build trigger another one
+        long version = changes.get();
+        long start = System.currentTimeMillis();
+        try {
+            List<Object[]> products = productRepository.findCatalogRows();
+            List<Object[]> variants = variantRepository.findCatalogRows();
+            List<Object[]> images = imageRepository.findCatalogThumbnails();
+
+            Map<String, Map<Long, String>> labels = new HashMap<>();
+            labels.put("category", new HashMap<>());
+            labels.put("brand", new HashMap<>());
+            labels.put("color", new HashMap<>());
+            labels.put("size", new HashMap<>());
+            categoryRepository.findAll().forEach(c -> labels.get("category").put(c.getId(), c.getName()));
+            brandRepository.findAll().forEach(b -> labels.get("brand").put(b.getId(), b.getName()));
+            colorRepository.findAll().forEach(c -> labels.get("color").put(c.getId(), c.getName()));
+            sizeRepository.findAll().forEach(s -> labels.get("size").put(s.getId(), s.getName()));
+
+            CatalogSnapshot built = new CatalogSnapshot(products, variants, images, labels);
+            snapshot = built;
+            snapshotVersion++;
+            indexedChanges = version;
+            logger.debug("Catalog index rebuilt: {} products, {} variants in {} ms",
+                built.size(), variants.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // Keep serving the previous snapshot; the next run retries
+            logger.error("Failed to rebuild catalog index: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.fyd.backend.service.catalog;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Storefront product filters, sort and page. All filters are optional.
+ */
+public class CatalogQuery {
+    private String q;
+    private Long categoryId;
+    // categoryId and its descendants, filled in from the category tree
+    private List<Long> categoryIds;
+    private Long brandId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Long colorId;
+    private Long sizeId;
+    private String sortBy = "id";
+    private boolean ascending;
+    private int page;
+    private int size = 20;
+
+    // Getters and Setters
+    public String getQ() { return q; }
+    public void setQ(String q) { this.q = q; }
+    public Long getCategoryId() { return categoryId; }
+    public void setCategoryId(Long categoryId) { this.categoryId = categoryId; }
+    public List<Long> getCategoryIds() { return categoryIds; }
+    public void setCategoryIds(List<Long> categoryIds) { this.categoryIds = categoryIds; }
+    public Long getBrandId() { return brandId; }
+    public void setBrandId(Long brandId) { this.brandId = brandId; }
+    public BigDecimal getMinPrice() { return minPrice; }
+    public void setMinPrice(BigDecimal minPrice) { this.minPrice = minPrice; }
+    public BigDecimal getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(BigDecimal maxPrice) { this.maxPrice = maxPrice; }
+    public Long getColorId() { return colorId; }
+    public void setColorId(Long colorId) { this.colorId = colorId; }
+    public Long getSizeId() { return sizeId; }
+    public void setSizeId(Long sizeId) { this.sizeId = sizeId; }
+    public String getSortBy() { return sortBy; }
+    public void setSortBy(String sortBy) { this.sortBy = sortBy; }
+    public boolean isAscending() { return ascending; }
+    public void setAscending(boolean ascending) { this.ascending = ascending; }
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+}
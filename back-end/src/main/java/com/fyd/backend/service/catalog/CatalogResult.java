@@ -0,0 +1,23 @@
+package com.fyd.backend.service.catalog;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of matching product ids in sort order, the total match count and facet counts.
+ */
+public class CatalogResult {
+    private final List<Long> productIds;
+    private final long total;
+    private final Map<String, Object> facets;
+
+    public CatalogResult(List<Long> productIds, long total, Map<String, Object> facets) {
+        this.productIds = productIds;
+        this.total = total;
+        this.facets = facets;
+    }
+
+    public List<Long> getProductIds() { return productIds; }
+    public long getTotal() { return total; }
+    public Map<String, Object> getFacets() { return facets; }
+}
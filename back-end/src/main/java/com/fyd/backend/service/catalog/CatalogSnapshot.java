@@ -0,0 +1,495 @@
+package com.fyd.backend.service.catalog;
+
+import com.fyd.backend.util.VietnameseText;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable in-memory index over active products. Products are numbered 0..n-1 (documents);
+ * every category, brand, color, size and color+size pair maps to a BitSet of documents,
+ * prices are kept in a sorted array for range filters, and each sort key has a
+ * precomputed document order. Text queries go through a {@link ProductTextIndex}.
+ * Rebuilt as a whole by {@link CatalogIndexService}.
+ */
+final class CatalogSnapshot {
+
+    static final String SORT_RELEVANCE = "relevance";
+    static final Set<String> SORT_KEYS = Set.of("id", "name", "basePrice", "createdAt", "soldCount", "viewCount",
+        SORT_RELEVANCE);
+
+    // How much best sellers are lifted above equally good text matches (up to +50%)
+    private static final float POPULARITY_WEIGHT = 0.5f;
+
+    // Below this share of the catalog, sorting the matches is cheaper than scanning the sort order
+    private static final int SPARSE_RATIO = 16;
+
+    private final int size;
+    private final long[] productIds;
+    private final String[] searchText;
+    private final BitSet all;
+    private final ProductTextIndex textIndex;
+    private final float[] popularity;
+
+    // Shown in search suggestions without touching the database
+    private final String[] displayNames;
+    private final String[] skus;
+    private final String[] slugs;
+    private final Long[] categoryIds;
+    private final BigDecimal[] basePrices;
+    private final BigDecimal[] salePrices;
+    private final String[] thumbnails;
+
+    private final Map<Long, BitSet> byCategory = new HashMap<>();
+    private final Map<Long, BitSet> byBrand = new HashMap<>();
+    private final Map<Long, BitSet> byColor = new HashMap<>();
+    private final Map<Long, BitSet> bySize = new HashMap<>();
+    // Color and size must match on the same variant, as in ProductRepository.advancedSearch
+    private final Map<Long, BitSet> byColorSize = new HashMap<>();
+
+    // Documents that have a base price, cheapest first
+    private final int[] priceOrder;
+    private final BigDecimal[] sortedPrices;
+
+    private final Map<String, int[]> sortOrders = new HashMap<>();
+    private final Map<String, int[]> sortRanks = new HashMap<>();
+
+    private final Map<String, Map<Long, String>> labels;
+
+    /**
+     * @param productRows id, name, sku, categoryId, brandId, basePrice, createdAt, soldCount, viewCount, slug, salePrice
+     * @param variantRows productId, colorId, sizeId
+     * @param imageRows   productId, imageUrl; the first row of each product is its thumbnail
+     * @param labels      display names keyed by "category", "brand", "color", "size"
+     */
+    CatalogSnapshot(List<Object[]> productRows, List<Object[]> variantRows, List<Object[]> imageRows,
+                    Map<String, Map<Long, String>> labels) {
+        this.size = productRows.size();
+        this.labels = labels;
+        this.productIds = new long[size];
+        this.searchText = new String[size];
+        this.popularity = new float[size];
+        this.displayNames = new String[size];
+        this.skus = new String[size];
+        this.slugs = new String[size];
+        this.categoryIds = new Long[size];
+        this.basePrices = new BigDecimal[size];
+        this.salePrices = new BigDecimal[size];
+        this.thumbnails = new String[size];
+        ProductTextIndex.Builder text = new ProductTextIndex.Builder();
+
+        Long[] ids = new Long[size];
+        String[] names = new String[size];
+        BigDecimal[] prices = new BigDecimal[size];
+        LocalDateTime[] createdAt = new LocalDateTime[size];
+        Integer[] soldCounts = new Integer[size];
+        Integer[] viewCounts = new Integer[size];
+        Map<Long, Integer> docByProduct = new HashMap<>(size * 2);
+
+        for (int doc = 0; doc < size; doc++) {
+            Object[] row = productRows.get(doc);
+            ids[doc] = (Long) row[0];
+            productIds[doc] = ids[doc];
+            docByProduct.put(ids[doc], doc);
+            names[doc] = VietnameseText.fold((String) row[1]);
+            // Name and SKU are matched separately, so keep a separator no query can contain
+            searchText[doc] = names[doc] + "\n" + VietnameseText.fold((String) row[2]);
+            add(byCategory, (Long) row[3], doc);
+            add(byBrand, (Long) row[4], doc);
+            prices[doc] = (BigDecimal) row[5];
+            createdAt[doc] = (LocalDateTime) row[6];
+            soldCounts[doc] = (Integer) row[7];
+            viewCounts[doc] = (Integer) row[8];
+
+            displayNames[doc] = (String) row[1];
+            skus[doc] = (String) row[2];
+            slugs[doc] = (String) row[9];
+            categoryIds[doc] = (Long) row[3];
+            basePrices[doc] = prices[doc];
+            salePrices[doc] = (BigDecimal) row[10];
+
+            text.addField(doc, (String) row[1], ProductTextIndex.NAME_WEIGHT);
+            text.addSku(doc, (String) row[2]);
+            text.addField(doc, labelOf("category", (Long) row[3]), ProductTextIndex.CATEGORY_WEIGHT);
+            text.addField(doc, labelOf("brand", (Long) row[4]), ProductTextIndex.BRAND_WEIGHT);
+        }
+        textIndex = text.build(size);
+
+        int maxSold = 0;
+        for (Integer sold : soldCounts) {
+            if (sold != null) maxSold = Math.max(maxSold, sold);
+        }
+        for (int doc = 0; doc < size; doc++) {
+            int sold = soldCounts[doc] != null ? Math.max(soldCounts[doc], 0) : 0;
+            popularity[doc] = maxSold > 0 ? (float) (Math.log1p(sold) / Math.log1p(maxSold)) : 0f;
+        }
+
+        for (Object[] row : imageRows) {
+            Integer doc = docByProduct.get((Long) row[0]);
+            if (doc != null && thumbnails[doc] == null) {
+                thumbnails[doc] = (String) row[1];
+            }
+        }
+
+        for (Object[] row : variantRows) {
+            Integer doc = docByProduct.get((Long) row[0]);
+            if (doc == null) continue;
+            Long colorId = (Long) row[1];
+            Long sizeId = (Long) row[2];
+            add(byColor, colorId, doc);
+            add(bySize, sizeId, doc);
+            if (colorId != null && sizeId != null) {
+                add(byColorSize, pairKey(colorId, sizeId), doc);
+            }
+        }
+
+        all = new BitSet(size);
+        all.set(0, size);
+
+        priceOrder = IntStream.range(0, size)
+            .filter(doc -> prices[doc] != null)
+            .boxed()
+            .sorted(Comparator.comparing((Integer doc) -> prices[doc]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        sortedPrices = new BigDecimal[priceOrder.length];
+        for (int i = 0; i < priceOrder.length; i++) {
+            sortedPrices[i] = prices[priceOrder[i]];
+        }
+
+        addSortOrder("id", ids);
+        addSortOrder("name", names);
+        addSortOrder("basePrice", prices);
+        addSortOrder("createdAt", createdAt);
+        addSortOrder("soldCount", soldCounts);
+        addSortOrder("viewCount", viewCounts);
+    }
+
+    int size() {
+        return size;
+    }
+
+    CatalogResult search(CatalogQuery query) {
+        Map<Integer, Float> textScores = textScores(query.getQ());
+        BitSet text = textScores != null ? ProductTextIndex.toBitSet(textScores) : null;
+        BitSet price = priceRange(query.getMinPrice(), query.getMaxPrice());
+        BitSet matches = filter(query, text, price, null);
+        long total = matches.cardinality();
+
+        // Each facet ignores its own filter so the other values stay selectable
+        Map<String, Object> facets = new LinkedHashMap<>();
+        facets.put("categories", facet("category", byCategory,
+            filter(query, text, price, "category"), query.getCategoryId()));
+        facets.put("brands", facet("brand", byBrand,
+            filter(query, text, price, "brand"), query.getBrandId()));
+        facets.put("colors", facet("color", query.getSizeId() == null ? byColor : pairPostings(byColor, query.getSizeId(), true),
+            filter(query, text, price, "color"), query.getColorId()));
+        facets.put("sizes", facet("size", query.getColorId() == null ? bySize : pairPostings(bySize, query.getColorId(), false),
+            filter(query, text, price, "size"), query.getSizeId()));
+        facets.put("price", priceStats(matches));
+
+        List<Long> ids = SORT_RELEVANCE.equals(query.getSortBy())
+            ? pageByRelevance(matches, textScores, total, query)
+            : page(matches, total, query, query.getSortBy(), query.isAscending());
+        return new CatalogResult(ids, total, facets);
+    }
+
+    /**
+     * Best matches for q, ranked by text score blended with sales, for search-as-you-type.
+     */
+    List<Map<String, Object>> suggest(String q, int limit) {
+        float[] scores = textIndex.matchScores(q);
+        if (scores == null) {
+            return List.of();
+        }
+        List<Map<String, Object>> suggestions = new ArrayList<>();
+        for (int doc : topSuggestions(scores, limit)) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", productIds[doc]);
+            item.put("name", displayNames[doc]);
+            item.put("sku", skus[doc]);
+            item.put("slug", slugs[doc]);
+            item.put("category", labelOf("category", categoryIds[doc]));
+            item.put("basePrice", basePrices[doc]);
+            item.put("salePrice", salePrices[doc]);
+            item.put("thumbnail", thumbnails[doc]);
+            suggestions.add(item);
+        }
+        return suggestions;
+    }
+
+    /**
+     * Text scores of the documents matching q, or null when there is no query.
+     * When no whole word matches (e.g. part of a SKU), falls back to a substring scan
+     * over name and SKU like the old LIKE '%q%' search, with equal scores.
+     */
+    private Map<Integer, Float> textScores(String q) {
+        if (q == null || q.isBlank()) {
+            return null;
+        }
+        Map<Integer, Float> scores = textIndex.match(q);
+        if (scores != null && !scores.isEmpty()) {
+            return scores;
+        }
+        String needle = VietnameseText.fold(q.trim());
+        Map<Integer, Float> substring = new HashMap<>();
+        for (int doc = 0; doc < size; doc++) {
+            if (searchText[doc].contains(needle)) substring.put(doc, 1.0f);
+        }
+        return substring;
+    }
+
+    private float blendedScore(int doc, float textScore) {
+        return textScore * (1 + POPULARITY_WEIGHT * popularity[doc]);
+    }
+
+    private int[] topSuggestions(float[] textScores, int limit) {
+        // The best `limit` documents seen so far, best first; limit is a handful of suggestions
+        int[] top = new int[Math.max(limit, 0)];
+        float[] topScores = new float[top.length];
+        int count = 0;
+        for (int doc = 0; doc < textScores.length; doc++) {
+            if (textScores[doc] <= 0) continue;
+            float score = blendedScore(doc, textScores[doc]);
+            if (count == top.length && (count == 0 || topScores[count - 1] >= score)) continue;
+            int i = count < top.length ? count++ : count - 1;
+            while (i > 0 && topScores[i - 1] < score) {
+                top[i] = top[i - 1];
+                topScores[i] = topScores[i - 1];
+                i--;
+            }
+            top[i] = doc;
+            topScores[i] = score;
+        }
+        return Arrays.copyOf(top, count);
+    }
+
+    private List<Integer> topByScore(Collection<Map.Entry<Integer, Float>> scored, int limit) {
+        // Min-heap of the best `limit` documents seen so far, keyed by blended score
+        PriorityQueue<Map.Entry<Integer, Float>> heap = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (Map.Entry<Integer, Float> entry : scored) {
+            float score = blendedScore(entry.getKey(), entry.getValue());
+            if (heap.size() < limit) {
+                heap.add(Map.entry(entry.getKey(), score));
+            } else if (limit > 0 && heap.peek().getValue() < score) {
+                heap.poll();
+                heap.add(Map.entry(entry.getKey(), score));
+            }
+        }
+        List<Integer> docs = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            docs.add(heap.poll().getKey());
+        }
+        Collections.reverse(docs);
+        return docs;
+    }
+
+    private List<Long> pageByRelevance(BitSet matches, Map<Integer, Float> textScores, long total, CatalogQuery query) {
+        if (textScores == null) {
+            // Nothing to score: best sellers first
+            return page(matches, total, query, "soldCount", false);
+        }
+        long from = (long) query.getPage() * query.getSize();
+        if (from >= total || query.getSize() <= 0) {
+            return List.of();
+        }
+        List<Map.Entry<Integer, Float>> scored = new ArrayList<>();
+        for (Map.Entry<Integer, Float> entry : textScores.entrySet()) {
+            if (matches.get(entry.getKey())) scored.add(entry);
+        }
+        List<Integer> ranked = topByScore(scored, (int) Math.min(from + query.getSize(), scored.size()));
+        List<Long> ids = new ArrayList<>(query.getSize());
+        for (int i = (int) from; i < ranked.size(); i++) {
+            ids.add(productIds[ranked.get(i)]);
+        }
+        return ids;
+    }
+
+    private String labelOf(String dimension, Long id) {
+        return id == null ? null : labels.getOrDefault(dimension, Map.of()).get(id);
+    }
+
+    private BitSet filter(CatalogQuery query, BitSet text, BitSet price, String skip) {
+        BitSet bits = (BitSet) all.clone();
+        if (text != null) bits.and(text);
+        if (price != null) bits.and(price);
+        if (!"category".equals(skip)) {
+            if (query.getCategoryIds() != null) andAny(bits, byCategory, query.getCategoryIds());
+            else and(bits, byCategory, query.getCategoryId());
+        }
+        if (!"brand".equals(skip)) and(bits, byBrand, query.getBrandId());
+
+        Long colorId = "color".equals(skip) ? null : query.getColorId();
+        Long sizeId = "size".equals(skip) ? null : query.getSizeId();
+        if (colorId != null && sizeId != null) {
+            and(bits, byColorSize, pairKey(colorId, sizeId));
+        } else {
+            and(bits, byColor, colorId);
+            and(bits, bySize, sizeId);
+        }
+        return bits;
+    }
+
+    private BitSet priceRange(BigDecimal min, BigDecimal max) {
+        if (min == null && max == null) {
+            return null;
+        }
+        int from = min == null ? 0 : firstIndex(min, false);
+        int to = max == null ? sortedPrices.length : firstIndex(max, true);
+        BitSet bits = new BitSet(size);
+        for (int i = from; i < to; i++) {
+            bits.set(priceOrder[i]);
+        }
+        return bits;
+    }
+
+    /**
+     * First index whose price is >= price (or > price when strict).
+     */
+    private int firstIndex(BigDecimal price, boolean strict) {
+        int lo = 0, hi = sortedPrices.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = sortedPrices[mid].compareTo(price);
+            if (cmp < 0 || (strict && cmp == 0)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private List<Long> page(BitSet matches, long total, CatalogQuery query, String sortBy, boolean ascending) {
+        long from = (long) query.getPage() * query.getSize();
+        if (from >= total || query.getSize() <= 0) {
+            return List.of();
+        }
+        int[] order = sortOrders.get(sortBy);
+        int[] rank = sortRanks.get(sortBy);
+        List<Long> ids = new ArrayList<>(query.getSize());
+
+        if (total * SPARSE_RATIO < size) {
+            // Few matches: sort their positions in the precomputed order
+            int[] positions = matches.stream().map(doc -> rank[doc]).sorted().toArray();
+            for (long i = from; i < positions.length && ids.size() < query.getSize(); i++) {
+                int position = ascending ? positions[(int) i] : positions[positions.length - 1 - (int) i];
+                ids.add(productIds[order[position]]);
+            }
+            return ids;
+        }
+
+        long seen = 0;
+        for (int i = 0; i < size && ids.size() < query.getSize(); i++) {
+            int doc = order[ascending ? i : size - 1 - i];
+            if (matches.get(doc) && seen++ >= from) {
+                ids.add(productIds[doc]);
+            }
+        }
+        return ids;
+    }
+
+    private List<Map<String, Object>> facet(String dimension, Map<Long, BitSet> postings, BitSet base, Long selected) {
+        Map<Long, String> names = labels.getOrDefault(dimension, Map.of());
+        List<Map<String, Object>> values = new ArrayList<>();
+        for (Map.Entry<Long, BitSet> entry : postings.entrySet()) {
+            BitSet bits = (BitSet) entry.getValue().clone();
+            bits.and(base);
+            int count = bits.cardinality();
+            if (count == 0 && !entry.getKey().equals(selected)) continue;
+
+            Map<String, Object> value = new LinkedHashMap<>();
+            value.put("id", entry.getKey());
+            value.put("name", names.get(entry.getKey()));
+            value.put("count", count);
+            values.add(value);
+        }
+        values.sort(Comparator.comparing((Map<String, Object> v) -> (Integer) v.get("count")).reversed());
+        return values;
+    }
+
+    /**
+     * Postings of each color restricted to one size (or each size to one color).
+     */
+    private Map<Long, BitSet> pairPostings(Map<Long, BitSet> postings, Long other, boolean keysAreColors) {
+        Map<Long, BitSet> restricted = new HashMap<>();
+        for (Long key : postings.keySet()) {
+            BitSet bits = byColorSize.get(keysAreColors ? pairKey(key, other) : pairKey(other, key));
+            restricted.put(key, bits != null ? bits : new BitSet());
+        }
+        return restricted;
+    }
+
+    private Map<String, Object> priceStats(BitSet matches) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (int i = 0; i < priceOrder.length; i++) {
+            if (matches.get(priceOrder[i])) {
+                stats.put("min", sortedPrices[i]);
+                break;
+            }
+        }
+        for (int i = priceOrder.length - 1; i >= 0; i--) {
+            if (matches.get(priceOrder[i])) {
+                stats.put("max", sortedPrices[i]);
+                break;
+            }
+        }
+        return stats;
+    }
+
+    private <T extends Comparable<? super T>> void addSortOrder(String key, T[] values) {
+        Comparator<Integer> byValue = Comparator.comparing((Integer doc) -> values[doc],
+            Comparator.nullsFirst(Comparator.naturalOrder()));
+        int[] order = IntStream.range(0, size)
+            .boxed()
+            .sorted(byValue.thenComparingLong(doc -> productIds[doc]))
+            .mapToInt(Integer::intValue)
+            .toArray();
+        int[] rank = new int[size];
+        for (int i = 0; i < order.length; i++) {
+            rank[order[i]] = i;
+        }
+        sortOrders.put(key, order);
+        sortRanks.put(key, rank);
+    }
+
+    private static void add(Map<Long, BitSet> postings, Long key, int doc) {
+        if (key != null) {
+            postings.computeIfAbsent(key, k -> new BitSet()).set(doc);
+        }
+    }
+
+    private static void and(BitSet bits, Map<Long, BitSet> postings, Long key) {
+        if (key == null) return;
+        BitSet posting = postings.get(key);
+        if (posting == null) {
+            bits.clear();
+        } else {
+            bits.and(posting);
+        }
+    }
+
+    // Keep documents in any of the keys, e.g. a category and its subcategories
+    private static void andAny(BitSet bits, Map<Long, BitSet> postings, List<Long> keys) {
+        BitSet union = new BitSet();
+        for (Long key : keys) {
+            BitSet posting = postings.get(key);
+            if (posting != null) union.or(posting);
+        }
+        bits.and(union);
+    }
+
+    private static long pairKey(long colorId, long sizeId) {
+        return (colorId << 32) | sizeId;
+    }
+}
@@ -0,0 +1,141 @@
+package com.fyd.backend.service.catalog;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change counters behind the strong ETags of the catalog endpoints. Each resource group
+ * has a counter that is bumped after any commit touching the entities it is built from;
+ * the ETag is the counter value plus a per-boot id, so validators from before a restart
+ * never match and no DTO has to be built or hashed to answer If-None-Match.
+ * Product detail pages are versioned per product, so a checkout only changes the ETags
+ * of the products it bought and of the listings.
+ * Counters are per instance: writes committed on other instances arrive as replayed
+ * events from {@link CatalogChangeLog}, after which the caches behind the responses have
+ * dropped the stale data too. A validator from one instance never matches on another.
+ */
+@Service
+public class CatalogVersionService {
+
+    public static final String PRODUCTS = "products";
+    public static final String CATEGORIES = "categories";
+    public static final String COLORS = "colors";
+    public static final String SIZES = "sizes";
+    public static final String FEATURED_ZONES = "featured-zones";
+    // Everything copied into all product details: category, brand, color and size names
+    public static final String PRODUCT_DETAILS = "product-details";
+
+    @Autowired
+    private CatalogChangeLog changeLog;
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> productVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Strong ETag over the given resource groups, e.g. "lq3k9x2a-17.4".
+     *
+     * @param extra further version numbers the response depends on, e.g. the catalog index snapshot
+     */
+    public String etag(String resource, long... extra) {
+        StringBuilder sb = new StringBuilder("\"").append(bootId).append('-').append(version(resource));
+        for (long value : extra) {
+            sb.append('.').append(value);
+        }
+        return sb.append('"').toString();
+    }
+
+    public long version(String resource) {
+        return versions.computeIfAbsent(resource, r -> new AtomicLong()).get();
+    }
+
+    /**
+     * Strong ETag of one product's detail page; unlike {@link #PRODUCTS} it does not
+     * change when other products are edited or bought.
+     */
+    public String productEtag(Long productId) {
+        AtomicLong version = productVersions.get(productId);
+        return etag(PRODUCT_DETAILS, productId, version != null ? version.get() : 0);
+    }
+
+    // Runs after the caches have dropped stale entries (see ProductCacheService)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        switch (event.getEntityType()) {
+            case CatalogChangedEvent.FEATURED_ZONE -> bump(FEATURED_ZONES);
+            case CatalogChangedEvent.CATEGORY -> {
+                bump(CATEGORIES);
+                bump(PRODUCTS);
+                bump(PRODUCT_DETAILS);
+                bump(FEATURED_ZONES);
+            }
+            case CatalogChangedEvent.COLOR -> {
+                bump(COLORS);
+                bump(PRODUCTS);
+                bump(PRODUCT_DETAILS);
+            }
+            case CatalogChangedEvent.SIZE -> {
+                bump(SIZES);
+                bump(PRODUCTS);
+                bump(PRODUCT_DETAILS);
+            }
+            default -> {
+                // Products, variants, images, brands, sold counters and replayed stock changes;
+                // zones embed product cards
+                bump(PRODUCTS);
+                bump(FEATURED_ZONES);
+                if (event.getProductId() != null) {
+                    bumpProduct(event.getProductId());
+                } else {
+                    // Brands, and bulk product changes with no single product
+                    bump(PRODUCT_DETAILS);
+                }
+            }
+        }
+    }
+
+    /**
+     * For product data changed with bulk updates (e.g. stock reservations), which raise
+     * no entity events. Takes effect when the current transaction commits.
+     */
+    public void productsChangedAfterCommit(Collection<Long> productIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            List<Long> ids = List.copyOf(productIds);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    productsChanged(ids);
+                }
+            });
+        } else {
+            productsChanged(productIds);
+        }
+    }
+
+    private void productsChanged(Collection<Long> productIds) {
+        productIds.forEach(this::bumpProduct);
+        bump(PRODUCTS);
+        bump(FEATURED_ZONES);
+        changeLog.stockChanged(productIds);
+    }
+
+    private void bump(String resource) {
+        versions.computeIfAbsent(resource, r -> new AtomicLong()).incrementAndGet();
+    }
+
+    private void bumpProduct(Long productId) {
+        productVersions.computeIfAbsent(productId, id -> new AtomicLong()).incrementAndGet();
+    }
+}
@@ -0,0 +1,116 @@
+package com.fyd.backend.service.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the active category tree, any depth. Every node knows its
+ * path from the root and the ids of its whole subtree, so "all products under Áo"
+ * is one IN list, and carries active product counts for itself and its subtree.
+ * Categories under an inactive parent are hidden, as are cycles.
+ */
+public final class CategoryTree {
+
+    private final long version;
+    // id, parentId, name, slug, description, imageUrl, sortOrder; ordered by sortOrder, id
+    private final List<Object[]> rows;
+    private final List<Map<String, Object>> roots;
+    private final Map<Long, List<Long>> paths = new HashMap<>();
+    private final Map<Long, List<Long>> subtrees = new HashMap<>();
+
+    /**
+     * @param rows   active categories: id, parentId, name, slug, description, imageUrl, sortOrder
+     * @param counts active products per category id
+     */
+    CategoryTree(long version, List<Object[]> rows, Map<Long, Long> counts) {
+        this.version = version;
+        this.rows = rows;
+
+        Map<Long, List<Object[]>> childrenOf = new HashMap<>();
+        List<Object[]> rootRows = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long parentId = (Long) row[1];
+            if (parentId == null) {
+                rootRows.add(row);
+            } else {
+                childrenOf.computeIfAbsent(parentId, k -> new ArrayList<>()).add(row);
+            }
+        }
+
+        List<Map<String, Object>> built = new ArrayList<>();
+        for (Object[] row : rootRows) {
+            built.add(node(row, List.of(), childrenOf, counts, new ArrayList<>()));
+        }
+        this.roots = Collections.unmodifiableList(built);
+    }
+
+    // Depth-first; ids collects the subtree of the caller. Children are only reached
+    // through their parent, so a parent cycle is never entered from a root.
+    private Map<String, Object> node(Object[] row, List<Long> parentPath, Map<Long, List<Object[]>> childrenOf,
+                                     Map<Long, Long> counts, List<Long> ids) {
+        Long id = (Long) row[0];
+        List<Long> path = new ArrayList<>(parentPath);
+        path.add(id);
+        path = Collections.unmodifiableList(path);
+        paths.put(id, path);
+
+        List<Long> subtree = new ArrayList<>();
+        subtree.add(id);
+        long direct = counts.getOrDefault(id, 0L);
+        long total = direct;
+        List<Map<String, Object>> children = new ArrayList<>();
+        for (Object[] child : childrenOf.getOrDefault(id, List.of())) {
+            Map<String, Object> childNode = node(child, path, childrenOf, counts, subtree);
+            total += (Long) childNode.get("productCount");
+            children.add(childNode);
+        }
+        subtrees.put(id, Collections.unmodifiableList(subtree));
+        ids.addAll(subtree);
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", id);
+        map.put("name", row[2]);
+        map.put("slug", row[3]);
+        map.put("description", row[4]);
+        map.put("image", row[5]);
+        map.put("parentId", row[1]);
+        map.put("sortOrder", row[6]);
+        map.put("status", "ACTIVE");
+        map.put("depth", path.size() - 1);
+        map.put("path", path);
+        map.put("directProductCount", direct);
+        map.put("productCount", total);
+        map.put("children", Collections.unmodifiableList(children));
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Changes on every rebuild or recount; part of the category ETag.
+     */
+    public long getVersion() { return version; }
+
+    /**
+     * Root nodes with nested "children", ready to serialize.
+     */
+    public List<Map<String, Object>> getRoots() { return roots; }
+
+    /**
+     * The category and all its descendants; just the id itself if it is not in the tree.
+     */
+    public List<Long> subtreeIds(Long categoryId) {
+        return subtrees.getOrDefault(categoryId, List.of(categoryId));
+    }
+
+    /**
+     * Ids from the root down to the category, or empty if it is not in the tree.
+     */
+    public List<Long> path(Long categoryId) {
+        return paths.getOrDefault(categoryId, List.of());
+    }
+
+    List<Object[]> rows() { return rows; }
+}
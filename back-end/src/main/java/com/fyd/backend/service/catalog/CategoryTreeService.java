@@ -0,0 +1,84 @@
+package com.fyd.backend.service.catalog;
+
+import com.fyd.backend.repository.CategoryRepository;
+import com.fyd.backend.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cached {@link CategoryTree} for the storefront menu and subtree product filters.
+ * Built from one category query and one product count query. Category writes rebuild
+ * it; product writes only redo the counts, reusing the category rows. Both happen
+ * lazily on the next read after the write commits.
+ */
+@Service
+public class CategoryTreeService {
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private volatile CategoryTree tree;
+    private final AtomicLong structureChanges = new AtomicLong();
+    private final AtomicLong countChanges = new AtomicLong();
+    private volatile long builtStructure = -1;
+    private volatile long builtCounts = -1;
+    private long version;
+
+    public CategoryTree getTree() {
+        CategoryTree current = tree;
+        if (current != null && builtStructure == structureChanges.get() && builtCounts == countChanges.get()) {
+            return current;
+        }
+        return refresh();
+    }
+
+    private synchronized CategoryTree refresh() {
+        // Read the counters first: a write committed during the rebuild triggers another one
+        long structure = structureChanges.get();
+        long counts = countChanges.get();
+        if (tree != null && builtStructure == structure && builtCounts == counts) {
+            return tree;
+        }
+        List<Object[]> rows = tree != null && builtStructure == structure
+            ? tree.rows()
+            : categoryRepository.findTreeRows();
+        Map<Long, Long> productCounts = new HashMap<>();
+        for (Object[] row : productRepository.countActiveByCategory()) {
+            productCounts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        CategoryTree built = new CategoryTree(++version, rows, productCounts);
+        builtStructure = structure;
+        builtCounts = counts;
+        tree = built;
+        return built;
+    }
+
+    /**
+     * The category and all its descendants, for "everything under this category" filters.
+     */
+    public List<Long> subtreeIds(Long categoryId) {
+        return getTree().subtreeIds(categoryId);
+    }
+
+    // Before CatalogVersionService bumps the ETags, like the other catalog caches
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (CatalogChangedEvent.CATEGORY.equals(event.getEntityType())) {
+            structureChanges.incrementAndGet();
+        } else if (CatalogChangedEvent.PRODUCT.equals(event.getEntityType())) {
+            // Status or category may have changed
+            countChanges.incrementAndGet();
+        }
+    }
+}
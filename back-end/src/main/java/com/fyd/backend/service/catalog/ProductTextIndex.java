@@ -0,0 +1,218 @@
+package com.fyd.backend.service.catalog;
+
+import com.fyd.backend.util.VietnameseText;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over accent-folded tokens of product name, SKU, category and brand.
+ * Terms are kept in one sorted array, so all terms starting with a prefix form a
+ * contiguous range found by binary search (a flattened prefix trie). Each posting
+ * stores the documents containing the term and the weight of the best field it came from.
+ */
+final class ProductTextIndex {
+
+    static final float NAME_WEIGHT = 3.0f;
+    static final float SKU_WEIGHT = 2.5f;
+    static final float BRAND_WEIGHT = 2.0f;
+    static final float CATEGORY_WEIGHT = 1.5f;
+
+    // A prefix match counts less than typing the whole word
+    private static final float PREFIX_FACTOR = 0.7f;
+    // Short prefixes match thousands of terms; keep the most common ones
+    private static final int MAX_EXPANSIONS = 64;
+
+    private final String[] terms;
+    private final int[][] docs;
+    private final float[][] weights;
+    private final int docCount;
+
+    private ProductTextIndex(String[] terms, int[][] docs, float[][] weights, int docCount) {
+        this.terms = terms;
+        this.docs = docs;
+        this.weights = weights;
+        this.docCount = docCount;
+    }
+
+    /**
+     * Documents matching every token of q, with their text scores.
+     * All tokens but the last must match a whole term; the last one may be a prefix,
+     * so results follow the shopper while they type.
+     * Returns null when q has no tokens.
+     */
+    Map<Integer, Float> match(String q) {
+        float[] scores = matchScores(q);
+        if (scores == null) {
+            return null;
+        }
+        Map<Integer, Float> matches = new HashMap<>();
+        for (int doc = 0; doc < scores.length; doc++) {
+            if (scores[doc] > 0) matches.put(doc, scores[doc]);
+        }
+        return matches;
+    }
+
+    /**
+     * Same as {@link #match}, as an array indexed by document where 0 means no match.
+     * Short prefixes match most of a large catalog; scoring them in a flat array avoids
+     * boxing a map entry per document on every keystroke.
+     */
+    float[] matchScores(String q) {
+        String[] tokens = tokenize(q);
+        if (tokens.length == 0) {
+            return null;
+        }
+
+        float[] scores = new float[docCount];
+        scoreToken(tokens[0], tokens.length == 1, scores);
+        // Reused for every further token, so a query allocates two arrays however long it is
+        float[] tokenScores = tokens.length > 1 ? new float[docCount] : null;
+        for (int t = 1; t < tokens.length; t++) {
+            boolean last = t == tokens.length - 1;
+            Arrays.fill(tokenScores, 0f);
+            scoreToken(tokens[t], last, tokenScores);
+            boolean any = false;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (scores[doc] > 0 && tokenScores[doc] > 0) {
+                    scores[doc] += tokenScores[doc];
+                    any = true;
+                } else {
+                    scores[doc] = 0;
+                }
+            }
+            if (!any) break;
+        }
+        return scores;
+    }
+
+    static BitSet toBitSet(Map<Integer, Float> scores) {
+        BitSet bits = new BitSet();
+        scores.keySet().forEach(bits::set);
+        return bits;
+    }
+
+    private void scoreToken(String token, boolean allowPrefix, float[] best) {
+        int exact = Arrays.binarySearch(terms, token);
+        if (exact >= 0) {
+            accumulate(best, exact, 1.0f);
+        }
+        if (allowPrefix) {
+            for (int term : prefixRange(token)) {
+                if (term != exact) accumulate(best, term, PREFIX_FACTOR);
+            }
+        }
+    }
+
+    private void accumulate(float[] best, int term, float factor) {
+        int[] termDocs = docs[term];
+        float[] termWeights = weights[term];
+        for (int i = 0; i < termDocs.length; i++) {
+            best[termDocs[i]] = Math.max(best[termDocs[i]], termWeights[i] * factor);
+        }
+    }
+
+    /**
+     * Terms starting with prefix, the most frequent first when there are too many.
+     * A short prefix of a SKU can cover every product, so the range is bounded by binary
+     * search and only the kept terms are ordered.
+     */
+    private int[] prefixRange(String prefix) {
+        int from = lowerBound(prefix);
+        int lo = from, hi = terms.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (terms[mid].startsWith(prefix)) lo = mid + 1;
+            else hi = mid;
+        }
+        int to = lo;
+        if (to - from <= MAX_EXPANSIONS) {
+            int[] range = new int[to - from];
+            for (int i = 0; i < range.length; i++) range[i] = from + i;
+            return range;
+        }
+        int[] top = new int[MAX_EXPANSIONS];
+        int count = 0;
+        for (int term = from; term < to; term++) {
+            int frequency = docs[term].length;
+            if (count == MAX_EXPANSIONS && docs[top[count - 1]].length >= frequency) continue;
+            int i = count < MAX_EXPANSIONS ? count++ : count - 1;
+            while (i > 0 && docs[top[i - 1]].length < frequency) {
+                top[i] = top[i - 1];
+                i--;
+            }
+            top[i] = term;
+        }
+        return top;
+    }
+
+    private int lowerBound(String prefix) {
+        int lo = 0, hi = terms.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (terms[mid].compareTo(prefix) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    static String[] tokenize(String text) {
+        String tokens = VietnameseText.toSearchTokens(text);
+        return tokens.isEmpty() ? new String[0] : tokens.split(" ");
+    }
+
+    /**
+     * Collects (term, document, weight) entries while the snapshot is built.
+     */
+    static final class Builder {
+        private final Map<String, Map<Integer, Float>> postings = new TreeMap<>();
+
+        void addField(int doc, String text, float weight) {
+            for (String token : tokenize(text)) {
+                addTerm(doc, token, weight);
+            }
+        }
+
+        /**
+         * SKUs are also indexed without separators, so "fyd001" finds "FYD-001".
+         */
+        void addSku(int doc, String sku) {
+            addField(doc, sku, SKU_WEIGHT);
+            String compact = VietnameseText.compact(sku);
+            if (!compact.isEmpty()) {
+                addTerm(doc, compact, SKU_WEIGHT);
+            }
+        }
+
+        private void addTerm(int doc, String term, float weight) {
+            postings.computeIfAbsent(term, t -> new HashMap<>()).merge(doc, weight, Math::max);
+        }
+
+        /**
+         * @param docCount number of documents in the snapshot
+         */
+        ProductTextIndex build(int docCount) {
+            int n = postings.size();
+            String[] terms = new String[n];
+            int[][] docs = new int[n][];
+            float[][] weights = new float[n][];
+            int i = 0;
+            for (Map.Entry<String, Map<Integer, Float>> entry : postings.entrySet()) {
+                terms[i] = entry.getKey();
+                docs[i] = new int[entry.getValue().size()];
+                weights[i] = new float[entry.getValue().size()];
+                int j = 0;
+                for (Map.Entry<Integer, Float> posting : entry.getValue().entrySet()) {
+                    docs[i][j] = posting.getKey();
+                    weights[i][j] = posting.getValue();
+                    j++;
+                }
+                i++;
+            }
+            return new ProductTextIndex(terms, docs, weights, docCount);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.fyd.backend.service.outbox;
+
+import com.fyd.backend.entity.Order;
+import com.fyd.backend.entity.OutboxEvent;
+import com.fyd.backend.repository.OrderRepository;
+import com.fyd.backend.service.EmailService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends order confirmation and status update emails. SMTP failures
+ * propagate so the dispatcher retries them.
+ */
+@Component
+public class EmailOutboxHandler implements OutboxHandler {
+
+    @Autowired(required = false)
+    private EmailService emailService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Override
+    public String getName() {
+        return OutboxService.HANDLER_EMAIL;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void handle(OutboxEvent event, Map<String, Object> payload) throws Exception {
+        if (emailService == null) {
+            return;
+        }
+        if (OutboxService.ORDER_STATUS_CHANGED.equals(event.getEventType())) {
+            sendStatusUpdate(payload);
+            return;
+        }
+        if (!OutboxService.ORDER_CREATED.equals(event.getEventType())) {
+            return;
+        }
+        var order = orderRepository.findByIdWithItems(event.getAggregateId()).orElse(null);
+        if (order == null) {
+            return;
+        }
+        emailService.deliverOrderConfirmation(order);
+    }
+
+    // Orders of one customer moved together get a single email
+    private void sendStatusUpdate(Map<String, Object> payload) throws Exception {
+        List<Long> orderIds = new ArrayList<>();
+        if (payload.get("orderIds") instanceof List<?> ids) {
+            for (Object id : ids) {
+                orderIds.add(((Number) id).longValue());
+            }
+        }
+        List<Order> orders = orderRepository.findAllById(orderIds);
+        if (orders.size() == 1) {
+            emailService.deliverOrderStatusUpdate(orders.get(0));
+        } else if (!orders.isEmpty()) {
+            emailService.deliverOrderStatusSummary(orders);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.fyd.backend.service.outbox;
+
+import com.fyd.backend.entity.Notification;
+import com.fyd.backend.entity.OutboxEvent;
+import com.fyd.backend.entity.ProductVariant;
+import com.fyd.backend.repository.NotificationRepository;
+import com.fyd.backend.repository.ProductVariantRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Raises "low stock" / "out of stock" notifications when a reservation
+ * pushes a variant under the alert threshold.
+ */
+@Component
+public class InventoryAlertOutboxHandler implements OutboxHandler {
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Override
+    public String getName() {
+        return OutboxService.HANDLER_INVENTORY_ALERT;
+    }
+
+    @Override
+    @Transactional
+    public void handle(OutboxEvent event, Map<String, Object> payload) {
+        if (!OutboxService.LOW_STOCK.equals(event.getEventType())) {
+            return;
+        }
+        ProductVariant variant = variantRepository.findById(event.getAggregateId()).orElse(null);
+        if (variant == null) {
+            return;
+        }
+        int newStock = ((Number) payload.getOrDefault("remainingStock", 0)).intValue();
+
+        Notification inventoryNotif = new Notification();
+        inventoryNotif.setType("inventory");
+        inventoryNotif.setPriority(newStock <= 0 ? "urgent" : "high");
+        inventoryNotif.setTitle(newStock <= 0 ? "Hết hàng" : "Sắp hết hàng");
+        String productName = variant.getProduct().getName() + " - " + 
+            (variant.getSize() != null ? variant.getSize().getName() : "") + "/" +
+            (variant.getColor() != null ? variant.getColor().getName() : "");
+        inventoryNotif.setDescription(productName + " còn " + Math.max(0, newStock) + " sản phẩm");
+        inventoryNotif.setActionType("navigate");
+        inventoryNotif.setActionUrl("/admin/inventory");
+        notificationRepository.save(inventoryNotif);
+    }
+}
@@ -0,0 +1,94 @@
+package com.fyd.backend.service.outbox;
+
+import com.fyd.backend.entity.Notification;
+import com.fyd.backend.entity.OutboxEvent;
+import com.fyd.backend.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates admin notifications for order events.
+ */
+@Component
+public class NotificationOutboxHandler implements OutboxHandler {
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Override
+    public String getName() {
+        return OutboxService.HANDLER_NOTIFICATION;
+    }
+
+    @Override
+    @Transactional
+    public void handle(OutboxEvent event, Map<String, Object> payload) {
+        if (OutboxService.ORDER_STATUS_CHANGED.equals(event.getEventType())) {
+            notifyStatusChange(payload);
+            return;
+        }
+        if (!OutboxService.ORDER_CREATED.equals(event.getEventType())) {
+            return;
+        }
+        Notification notification = new Notification();
+        notification.setType("order");
+        notification.setPriority("high");
+        notification.setTitle("Đơn hàng mới");
+        notification.setDescription("Đơn hàng mới #" + payload.get("orderCode") + " từ " + payload.get("shippingName"));
+        notification.setActionType("navigate");
+        notification.setActionUrl("/admin/orders");
+        notificationRepository.save(notification);
+    }
+
+    // One notification per batch: "Đơn hàng #A đã được hủy" or "3 đơn hàng đã được hủy: #A, #B, #C"
+    private void notifyStatusChange(Map<String, Object> payload) {
+        String status = String.valueOf(payload.get("status"));
+        int count = payload.get("count") instanceof Number n ? n.intValue() : 1;
+        List<?> codes = payload.get("orderCodes") instanceof List<?> list ? list : List.of();
+
+        String title;
+        String verb;
+        String priority = "medium";
+        switch (status) {
+            case "CANCELLED":
+                title = "Đơn hàng đã hủy";
+                verb = "đã được hủy";
+                priority = "high";
+                break;
+            case "COMPLETED":
+                title = "Đơn hàng hoàn tất";
+                verb = "đã hoàn tất";
+                break;
+            default:
+                return;
+        }
+
+        String description;
+        if (count == 1 && !codes.isEmpty()) {
+            description = "Đơn hàng #" + codes.get(0) + " " + verb;
+        } else {
+            StringBuilder sb = new StringBuilder(count + " đơn hàng " + verb + ": ");
+            for (int i = 0; i < codes.size(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append('#').append(codes.get(i));
+            }
+            if (count > codes.size()) {
+                sb.append("...");
+            }
+            description = sb.toString();
+        }
+
+        Notification notification = new Notification();
+        notification.setType("order");
+        notification.setPriority(priority);
+        notification.setTitle(title);
+        notification.setDescription(description);
+        notification.setActionType("navigate");
+        notification.setActionUrl("/admin/orders");
+        notificationRepository.save(notification);
+    }
+}
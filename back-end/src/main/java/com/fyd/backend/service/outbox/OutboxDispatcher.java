@@ -0,0 +1,161 @@
+package com.fyd.backend.service.outbox;
+
+import com.fyd.backend.entity.OutboxEvent;
+import com.fyd.backend.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drains pending outbox events in batches and hands them to the matching
+ * {@link OutboxHandler}. Failed deliveries are retried with exponential
+ * backoff until {@link #MAX_ATTEMPTS}, then parked as FAILED.
+ * Assumes a single dispatcher per database.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private static final int BATCH_SIZE = 100;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long MAX_BACKOFF_SECONDS = 600;
+    private static final int RETENTION_DAYS = 7;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    private final Map<String, OutboxHandler> handlers = new HashMap<>();
+    private final Map<String, HandlerMetrics> metrics = new ConcurrentHashMap<>();
+
+    @Autowired
+    public void setHandlers(List<OutboxHandler> outboxHandlers) {
+        for (OutboxHandler handler : outboxHandlers) {
+            handlers.put(handler.getName(), handler);
+        }
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void dispatch() {
+        List<OutboxEvent> batch;
+        do {
+            batch = outboxEventRepository.findDue(LocalDateTime.now(), PageRequest.of(0, BATCH_SIZE));
+            for (OutboxEvent event : batch) {
+                deliver(event);
+                // Saved right after its own delivery: if this save fails, only this event is
+                // delivered again (delivery is at-least-once per event)
+                outboxEventRepository.save(event);
+            }
+        } while (batch.size() == BATCH_SIZE);
+    }
+
+    /**
+     * Purge delivered events after the retention window. Runs every day at 3:30 AM.
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    @Transactional
+    public void purgeDelivered() {
+        int deleted = outboxEventRepository.deleteProcessedBefore(LocalDateTime.now().minusDays(RETENTION_DAYS));
+        logger.info("Purged {} delivered outbox events", deleted);
+    }
+
+    /**
+     * Per-handler delivery counters, lag (commit to delivery) and current backlog.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new TreeMap<>();
+        for (String name : handlers.keySet()) {
+            stats.put(name, metrics.computeIfAbsent(name, k -> new HandlerMetrics()).toMap());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Object[] row : outboxEventRepository.summarizePending()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> handlerStats = (Map<String, Object>) stats.computeIfAbsent(
+                (String) row[0], k -> new HandlerMetrics().toMap());
+            handlerStats.put("pending", row[1]);
+            handlerStats.put("oldestPendingAgeMs", Duration.between((LocalDateTime) row[2], now).toMillis());
+        }
+        return stats;
+    }
+
+    private void deliver(OutboxEvent event) {
+        HandlerMetrics handlerMetrics = metrics.computeIfAbsent(event.getHandler(), k -> new HandlerMetrics());
+        OutboxHandler handler = handlers.get(event.getHandler());
+        try {
+            if (handler == null) {
+                throw new IllegalStateException("No outbox handler named " + event.getHandler());
+            }
+            handler.handle(event, outboxService.readPayload(event));
+
+            LocalDateTime processedAt = LocalDateTime.now();
+            event.setStatus("DONE");
+            event.setProcessedAt(processedAt);
+            event.setLastError(null);
+            handlerMetrics.recordDelivery(Duration.between(event.getCreatedAt(), processedAt).toMillis());
+        } catch (Exception e) {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            event.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+
+            if (attempts >= MAX_ATTEMPTS) {
+                event.setStatus("FAILED");
+                handlerMetrics.failed.increment();
+                logger.error("Outbox event {} ({} -> {}) failed permanently: {}",
+                    event.getId(), event.getEventType(), event.getHandler(), message);
+            } else {
+                long backoff = Math.min(MAX_BACKOFF_SECONDS, 1L << attempts);
+                event.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoff));
+                handlerMetrics.retried.increment();
+                logger.warn("Outbox event {} ({} -> {}) failed, retry in {}s: {}",
+                    event.getId(), event.getEventType(), event.getHandler(), backoff, message);
+            }
+        }
+    }
+
+    private static class HandlerMetrics {
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder retried = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder totalLagMs = new LongAdder();
+        private final AtomicLong maxLagMs = new AtomicLong();
+        private volatile long lastLagMs;
+
+        void recordDelivery(long lagMs) {
+            delivered.increment();
+            totalLagMs.add(lagMs);
+            maxLagMs.accumulateAndGet(lagMs, Math::max);
+            lastLagMs = lagMs;
+        }
+
+        Map<String, Object> toMap() {
+            long count = delivered.sum();
+            Map<String, Object> map = new HashMap<>();
+            map.put("delivered", count);
+            map.put("retried", retried.sum());
+            map.put("failed", failed.sum());
+            map.put("avgLagMs", count == 0 ? 0 : totalLagMs.sum() / count);
+            map.put("maxLagMs", maxLagMs.get());
+            map.put("lastLagMs", lastLagMs);
+            map.put("pending", 0L);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.fyd.backend.service.outbox;
+
+import com.fyd.backend.entity.OutboxEvent;
+
+import java.util.Map;
+
+/**
+ * Delivers one kind of side effect for outbox events.
+ * Throwing from {@link #handle} schedules a retry with backoff.
+ */
+public interface OutboxHandler {
+
+    /**
+     * Name stored in {@code outbox_events.handler}.
+     */
+    String getName();
+
+    void handle(OutboxEvent event, Map<String, Object> payload) throws Exception;
+}
@@ -0,0 +1,74 @@
+package com.fyd.backend.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fyd.backend.entity.OutboxEvent;
+import com.fyd.backend.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes outbox events. Must be called inside the transaction of the
+ * business write so the event is committed (or rolled back) with it.
+ */
+@Service
+public class OutboxService {
+
+    public static final String ORDER_CREATED = "ORDER_CREATED";
+    public static final String LOW_STOCK = "LOW_STOCK";
+    public static final String ORDER_STATUS_CHANGED = "ORDER_STATUS_CHANGED";
+
+    public static final String HANDLER_NOTIFICATION = "NOTIFICATION";
+    public static final String HANDLER_WEBSOCKET = "WEBSOCKET";
+    public static final String HANDLER_EMAIL = "EMAIL";
+    public static final String HANDLER_INVENTORY_ALERT = "INVENTORY_ALERT";
+
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Record an event once per handler.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String eventType, Long aggregateId, Map<String, Object> payload, String... handlers) {
+        String json = toJson(payload);
+        for (String handler : handlers) {
+            OutboxEvent event = new OutboxEvent();
+            event.setEventType(eventType);
+            event.setHandler(handler);
+            event.setAggregateId(aggregateId);
+            event.setPayload(json);
+            outboxEventRepository.save(event);
+        }
+    }
+
+    Map<String, Object> readPayload(OutboxEvent event) {
+        if (event.getPayload() == null || event.getPayload().isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return objectMapper.readValue(event.getPayload(), PAYLOAD_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid outbox payload for event " + event.getId(), e);
+        }
+    }
+
+    private String toJson(Map<String, Object> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload != null ? payload : Map.of());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable", e);
+        }
+    }
+}
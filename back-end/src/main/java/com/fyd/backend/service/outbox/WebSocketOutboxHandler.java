@@ -0,0 +1,39 @@
+package com.fyd.backend.service.outbox;
+
+import com.fyd.backend.entity.OutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Broadcasts order events to admin dashboards on /topic/notifications.
+ */
+@Component
+public class WebSocketOutboxHandler implements OutboxHandler {
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Override
+    public String getName() {
+        return OutboxService.HANDLER_WEBSOCKET;
+    }
+
+    @Override
+    public void handle(OutboxEvent event, Map<String, Object> payload) {
+        if (!OutboxService.ORDER_CREATED.equals(event.getEventType())) {
+            return;
+        }
+        messagingTemplate.convertAndSend("/topic/notifications", Map.of(
+            "type", "order",
+            "title", "Đơn hàng mới",
+            "message", "Đơn hàng mới #" + payload.get("orderCode") + " từ " + payload.get("shippingName"),
+            "orderId", event.getAggregateId(),
+            "orderCode", payload.get("orderCode"),
+            "timestamp", LocalDateTime.now().toString()
+        ));
+    }
+}
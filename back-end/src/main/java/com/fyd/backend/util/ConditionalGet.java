@@ -0,0 +1,49 @@
+package com.fyd.backend.util;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * HTTP conditional GET for read endpoints whose ETag is known before the body is built.
+ */
+public final class ConditionalGet {
+
+    /**
+     * Data that admins edit and shoppers must see at once: browsers may store it but
+     * revalidate on every use, which costs a 304 when nothing changed.
+     */
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    /**
+     * Storefront-only blocks (home page lists, search suggestions) that may lag a minute.
+     */
+    public static final CacheControl SHORT_LIVED = CacheControl.maxAge(Duration.ofSeconds(60)).cachePublic();
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * 304 with no body if the client's If-None-Match matches etag; otherwise builds the
+     * response and adds the ETag and Cache-Control headers to it when it is successful.
+     */
+    public static <T> ResponseEntity<T> respond(WebRequest request, String etag, CacheControl cacheControl,
+                                                Supplier<ResponseEntity<T>> response) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        ResponseEntity<T> built = response.get();
+        if (!built.getStatusCode().is2xxSuccessful()) {
+            return built;
+        }
+        return ResponseEntity.status(built.getStatusCode())
+            .headers(built.getHeaders())
+            .eTag(etag)
+            .cacheControl(cacheControl)
+            .body(built.getBody());
+    }
+}
@@ -0,0 +1,66 @@
+package com.fyd.backend.util;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds per-row deltas to a counter column with one statement per chunk:
+ * UPDATE t SET c = GREATEST(COALESCE(c, 0) + CASE id WHEN ? THEN ? ... ELSE 0 END, 0) WHERE id IN (...).
+ * The increment happens in SQL, so concurrent writers never overwrite each other.
+ */
+public final class CounterUpdates {
+
+    // Rows per statement, keeps the CASE and the IN list a reasonable size
+    public static final int CHUNK_SIZE = 500;
+
+    private CounterUpdates() {
+    }
+
+    /**
+     * Apply all deltas, CHUNK_SIZE rows per statement. Atomic only inside a transaction.
+     */
+    public static void apply(JdbcTemplate jdbcTemplate, String table, String column, Map<Long, Long> deltas) {
+        for (List<Map.Entry<Long, Long>> chunk : chunks(deltas)) {
+            jdbcTemplate.update(sql(table, column, chunk.size()), args(chunk));
+        }
+    }
+
+    public static List<List<Map.Entry<Long, Long>>> chunks(Map<Long, Long> deltas) {
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(deltas.entrySet());
+        List<List<Map.Entry<Long, Long>>> chunks = new ArrayList<>();
+        for (int from = 0; from < entries.size(); from += CHUNK_SIZE) {
+            chunks.add(entries.subList(from, Math.min(from + CHUNK_SIZE, entries.size())));
+        }
+        return chunks;
+    }
+
+    // Table and column names are constants from callers, never user input
+    public static String sql(String table, String column, int size) {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table)
+            .append(" SET ").append(column).append(" = GREATEST(COALESCE(").append(column).append(", 0) + CASE id");
+        for (int i = 0; i < size; i++) {
+            sql.append(" WHEN ? THEN ?");
+        }
+        sql.append(" ELSE 0 END, 0) WHERE id IN (");
+        for (int i = 0; i < size; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    public static Object[] args(List<Map.Entry<Long, Long>> chunk) {
+        Object[] args = new Object[chunk.size() * 3];
+        int i = 0;
+        for (Map.Entry<Long, Long> entry : chunk) {
+            args[i++] = entry.getKey();
+            args[i++] = entry.getValue();
+        }
+        for (Map.Entry<Long, Long> entry : chunk) {
+            args[i++] = entry.getKey();
+        }
+        return args;
+    }
+}
@@ -0,0 +1,42 @@
+package com.fyd.backend.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Accent folding for Vietnamese search ("Nguyễn Văn Đức" -> "nguyen van duc").
+ */
+public final class VietnameseText {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    private VietnameseText() {
+    }
+
+    /**
+     * Lowercase, strip diacritics and map đ to d. Other characters are kept.
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").replace('đ', 'd');
+    }
+
+    /**
+     * Fold and split into alphanumeric tokens separated by single spaces.
+     */
+    public static String toSearchTokens(String text) {
+        return NON_ALPHANUMERIC.matcher(fold(text)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Fold and drop everything that is not a letter or digit ("FYD-01JH" -> "fyd01jh").
+     */
+    public static String compact(String text) {
+        return NON_ALPHANUMERIC.matcher(fold(text)).replaceAll("");
+    }
+}
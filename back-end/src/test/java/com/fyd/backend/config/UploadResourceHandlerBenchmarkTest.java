@@ -0,0 +1,148 @@
+package com.fyd.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Requests per second of UploadResourceHandler against the ResourceHttpRequestHandler that
+ * served /uploads/** before it (registered through addResourceHandlers), called in-process
+ * with mock requests so only the handlers' own work is measured, not the network or
+ * sendfile. Skipped unless bench.uploads is set:
+ *
+ * <pre>
+ * mvn test -Dtest=UploadResourceHandlerBenchmarkTest -Dbench.uploads=true
+ * </pre>
+ *
+ * The largest gain for shoppers is not measured here: content-addressed images are sent as
+ * immutable, so browsers stop asking for them at all.
+ */
+@EnabledIfSystemProperty(named = "bench.uploads", matches = "true")
+class UploadResourceHandlerBenchmarkTest {
+
+    private static final int WARMUP = 2_000;
+    private static final int REQUESTS = 10_000;
+
+    @TempDir
+    Path root;
+
+    @Test
+    void compareWithResourceHttpRequestHandler() throws Exception {
+        byte[] thumbnail = randomBytes(24 * 1024, 1);
+        byte[] original = randomBytes(1024 * 1024, 2);
+        Files.createDirectories(root.resolve("products"));
+        String thumbnailName = "products/" + "b".repeat(64) + "_400.webp";
+        String originalName = "products/" + "c".repeat(64) + ".jpg";
+        Files.write(root.resolve(thumbnailName), thumbnail);
+        Files.write(root.resolve(originalName), original);
+        long modified = Files.getLastModifiedTime(root.resolve(thumbnailName)).toMillis();
+
+        ResourceHttpRequestHandler previous = new ResourceHttpRequestHandler();
+        previous.setLocations(List.of(new FileSystemResource(root + "/")));
+        previous.setServletContext(new MockServletContext());
+        previous.afterPropertiesSet();
+        UploadResourceHandler current = new UploadResourceHandler(root.toString(), 131072, 33554432);
+
+        assertArrayEquals(thumbnail, handle(previous, thumbnailName, r -> { }).getContentAsByteArray());
+        assertArrayEquals(thumbnail, handle(current, thumbnailName, r -> { }).getContentAsByteArray());
+
+        System.out.printf("%-34s %16s %16s%n", "scenario", "previous req/s", "current req/s");
+        report("24 KB thumbnail, 200", previous, current, thumbnailName, r -> { }, 200);
+        report("24 KB thumbnail, If-Modified-Since", previous, current, thumbnailName,
+            r -> r.addHeader(HttpHeaders.IF_MODIFIED_SINCE, modified), 304);
+        report("1 MB original, 200", previous, current, originalName, r -> { }, 200);
+        report("1 MB original, 64 KB range", previous, current, originalName,
+            r -> r.addHeader(HttpHeaders.RANGE, "bytes=0-65535"), 206);
+    }
+
+    private static void report(String scenario, HttpRequestHandler previous, HttpRequestHandler current,
+                               String relative, Consumer<MockHttpServletRequest> headers, int status) throws Exception {
+        assertEquals(status, handle(previous, relative, headers).getStatus());
+        assertEquals(status, handle(current, relative, headers).getStatus());
+        // Fewer rounds for the large body so one run stays within a few minutes
+        int requests = relative.endsWith(".jpg") && status == 200 ? REQUESTS / 10 : REQUESTS;
+        double before = throughput(previous, relative, headers, requests);
+        double after = throughput(current, relative, headers, requests);
+        System.out.printf("%-34s %16.0f %16.0f%n", scenario, before, after);
+    }
+
+    private static double throughput(HttpRequestHandler handler, String relative,
+                                     Consumer<MockHttpServletRequest> headers, int requests) throws Exception {
+        for (int i = 0; i < Math.min(WARMUP, requests); i++) {
+            handle(handler, relative, headers, new DiscardingResponse());
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            handle(handler, relative, headers, new DiscardingResponse());
+        }
+        return requests / ((System.nanoTime() - started) / 1e9);
+    }
+
+    private static MockHttpServletResponse handle(HttpRequestHandler handler, String relative,
+                                                  Consumer<MockHttpServletRequest> headers) throws Exception {
+        return handle(handler, relative, headers, new MockHttpServletResponse());
+    }
+
+    private static MockHttpServletResponse handle(HttpRequestHandler handler, String relative,
+                                                  Consumer<MockHttpServletRequest> headers,
+                                                  MockHttpServletResponse response) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/" + relative);
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, relative);
+        headers.accept(request);
+        handler.handleRequest(request, response);
+        return response;
+    }
+
+    // Drops the body, so buffering it in the mock does not dominate the timings
+    private static final class DiscardingResponse extends MockHttpServletResponse {
+        private final ServletOutputStream sink = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return sink;
+        }
+    }
+
+    private static byte[] randomBytes(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return Arrays.copyOf(bytes, size);
+    }
+}
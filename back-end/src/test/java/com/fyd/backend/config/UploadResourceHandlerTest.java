@@ -0,0 +1,234 @@
+package com.fyd.backend.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadResourceHandlerTest {
+
+    private static final String HASHED = "a".repeat(64) + ".jpg";
+    private static final long MODIFIED = Instant.parse("2026-01-02T03:04:05Z").toEpochMilli();
+
+    @TempDir
+    Path root;
+
+    private UploadResourceHandler handler;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Small files come from the in-memory cache, larger ones are streamed
+        handler = new UploadResourceHandler(root.toString(), 1024, 1024 * 1024);
+        content = new byte[100];
+        for (int i = 0; i < content.length; i++) content[i] = (byte) i;
+        Files.createDirectories(root.resolve("products"));
+        write("products/" + HASHED, content);
+        write("products/legacy.jpg", content);
+        byte[] large = new byte[64 * 1024];
+        Arrays.fill(large, (byte) 7);
+        write("products/large.jpg", large);
+    }
+
+    @Test
+    void contentAddressedFilesAreImmutable() throws Exception {
+        MockHttpServletResponse response = get("products/" + HASHED);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+        assertEquals("image/jpeg", response.getContentType());
+        assertTrue(response.getHeader(HttpHeaders.CACHE_CONTROL).contains("immutable"));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+    }
+
+    @Test
+    void otherFilesRevalidate() throws Exception {
+        MockHttpServletResponse response = get("products/legacy.jpg");
+
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getHeader(HttpHeaders.CACHE_CONTROL).contains("no-cache"));
+        assertEquals(MODIFIED, response.getDateHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void matchingEtagGets304WithoutBody() throws Exception {
+        String etag = get("products/legacy.jpg").getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletResponse response = get("products/legacy.jpg", HttpHeaders.IF_NONE_MATCH, etag);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void unchangedSinceGets304() throws Exception {
+        MockHttpServletRequest request = request("products/legacy.jpg");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, MODIFIED);
+
+        assertEquals(304, handle(request).getStatus());
+    }
+
+    @Test
+    void singleRangeGets206() throws Exception {
+        MockHttpServletResponse response = get("products/legacy.jpg", HttpHeaders.RANGE, "bytes=10-19");
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 10-19/100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(10, response.getContentLengthLong());
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 20), response.getContentAsByteArray());
+    }
+
+    @Test
+    void suffixRangeOfStreamedFile() throws Exception {
+        MockHttpServletResponse response = get("products/large.jpg", HttpHeaders.RANGE, "bytes=-5");
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 65531-65535/65536", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertArrayEquals(new byte[]{7, 7, 7, 7, 7}, response.getContentAsByteArray());
+    }
+
+    @Test
+    void unsatisfiableRangeGets416() throws Exception {
+        MockHttpServletResponse response = get("products/legacy.jpg", HttpHeaders.RANGE, "bytes=500-600");
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void malformedOrMultipleRangesGetTheWholeFile() throws Exception {
+        assertEquals(200, get("products/legacy.jpg", HttpHeaders.RANGE, "bytes=oops").getStatus());
+        MockHttpServletResponse multi = get("products/legacy.jpg", HttpHeaders.RANGE, "bytes=0-1,5-6");
+        assertEquals(200, multi.getStatus());
+        assertEquals(100, multi.getContentAsByteArray().length);
+    }
+
+    @Test
+    void ifRangeWithCurrentValidatorKeepsTheRange() throws Exception {
+        String etag = get("products/legacy.jpg").getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest byEtag = request("products/legacy.jpg");
+        byEtag.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        byEtag.addHeader(HttpHeaders.IF_RANGE, etag);
+        assertEquals(206, handle(byEtag).getStatus());
+
+        MockHttpServletRequest byDate = request("products/legacy.jpg");
+        byDate.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        byDate.addHeader(HttpHeaders.IF_RANGE, MODIFIED);
+        assertEquals(206, handle(byDate).getStatus());
+    }
+
+    @Test
+    void ifRangeWithStaleValidatorSendsTheWholeFile() throws Exception {
+        MockHttpServletRequest byEtag = request("products/legacy.jpg");
+        byEtag.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        byEtag.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+        MockHttpServletResponse response = handle(byEtag);
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+
+        MockHttpServletRequest byDate = request("products/legacy.jpg");
+        byDate.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        byDate.addHeader(HttpHeaders.IF_RANGE, MODIFIED - 60_000);
+        assertEquals(200, handle(byDate).getStatus());
+    }
+
+    @Test
+    void cachedFileIsReloadedWhenReplaced() throws Exception {
+        get("products/legacy.jpg");
+        byte[] replaced = new byte[]{1, 2, 3};
+        Files.write(root.resolve("products/legacy.jpg"), replaced);
+        Files.setLastModifiedTime(root.resolve("products/legacy.jpg"), FileTime.fromMillis(MODIFIED + 1000));
+
+        assertArrayEquals(replaced, get("products/legacy.jpg").getContentAsByteArray());
+    }
+
+    @Test
+    void largeFilesUseSendfileWhenTheConnectorOffersIt() throws Exception {
+        MockHttpServletRequest request = request("products/large.jpg");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse response = handle(request);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertEquals(root.resolve("products/large.jpg").toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(0L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(65536L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    void headSendsHeadersOnly() throws Exception {
+        MockHttpServletRequest request = request("products/legacy.jpg");
+        request.setMethod("HEAD");
+        MockHttpServletResponse response = handle(request);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(100, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void pathsOutsideTheRootAndMissingFilesAre404() throws Exception {
+        Files.write(root.getParent().resolve("secret.txt"), new byte[]{1});
+
+        assertEquals(404, get("../secret.txt").getStatus());
+        assertEquals(404, get("products/missing.jpg").getStatus());
+        assertEquals(404, get("products").getStatus());
+    }
+
+    @Test
+    void otherMethodsAre405() throws Exception {
+        MockHttpServletRequest request = request("products/legacy.jpg");
+        request.setMethod("POST");
+        MockHttpServletResponse response = handle(request);
+
+        assertEquals(405, response.getStatus());
+        assertEquals("GET, HEAD", response.getHeader(HttpHeaders.ALLOW));
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    private void write(String relative, byte[] bytes) throws IOException {
+        Path file = root.resolve(relative);
+        Files.write(file, bytes);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(MODIFIED));
+    }
+
+    private MockHttpServletResponse get(String relative) throws Exception {
+        return handle(request(relative));
+    }
+
+    private MockHttpServletResponse get(String relative, String header, String value) throws Exception {
+        MockHttpServletRequest request = request(relative);
+        request.addHeader(header, value);
+        return handle(request);
+    }
+
+    private static MockHttpServletRequest request(String relative) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/" + relative);
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, relative);
+        return request;
+    }
+
+    private MockHttpServletResponse handle(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        handler.handleRequest(request, response);
+        return response;
+    }
+}
@@ -0,0 +1,114 @@
+package com.fyd.backend.controller;
+
+import com.fyd.backend.repository.OrderRepository;
+import com.fyd.backend.service.IdempotencyService;
+import com.fyd.backend.service.MoMoService;
+import com.fyd.backend.service.VNPayService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * IPN answers while another delivery of the same notification holds the claim: success only
+ * once that delivery has completed, otherwise an answer that makes the gateway retry.
+ */
+class PaymentControllerTest {
+
+    private static final String VNPAY_KEY = "FYD-1:14000001:00";
+    private static final String MOMO_KEY = "FYD-1:2800001:0";
+    private static final IdempotencyService.StoredResponse CONFIRMED =
+        new IdempotencyService.StoredResponse(200, "{\"RspCode\":\"00\",\"Message\":\"Confirm Success\"}", null, null);
+
+    private final VNPayService vnpayService = mock(VNPayService.class);
+    private final MoMoService momoService = mock(MoMoService.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final IdempotencyService idempotencyService = mock(IdempotencyService.class);
+    private final PaymentController controller = new PaymentController();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(controller, "vnpayService", vnpayService);
+        ReflectionTestUtils.setField(controller, "momoService", momoService);
+        ReflectionTestUtils.setField(controller, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(controller, "idempotencyService", idempotencyService);
+        when(vnpayService.validateCallback(vnpayParams())).thenReturn(true);
+        when(momoService.validateIpn(momoBody())).thenReturn(true);
+    }
+
+    @Test
+    void vnpayDeliveryInProgressElsewhereIsRetried() {
+        when(idempotencyService.findCompleted(IdempotencyService.SCOPE_VNPAY_IPN, VNPAY_KEY)).thenReturn(Optional.empty());
+        when(idempotencyService.tryBegin(IdempotencyService.SCOPE_VNPAY_IPN, VNPAY_KEY)).thenReturn(false);
+
+        String answer = controller.vnpayIpn(vnpayParams());
+
+        assertTrue(answer.contains("\"RspCode\":\"99\""), answer);
+        verify(orderRepository, never()).findByOrderCode(anyString());
+    }
+
+    @Test
+    void vnpayDeliveryCompletedMeanwhileIsConfirmed() {
+        when(idempotencyService.findCompleted(IdempotencyService.SCOPE_VNPAY_IPN, VNPAY_KEY))
+            .thenReturn(Optional.empty(), Optional.of(CONFIRMED));
+        when(idempotencyService.tryBegin(IdempotencyService.SCOPE_VNPAY_IPN, VNPAY_KEY)).thenReturn(false);
+
+        assertEquals(CONFIRMED.getBody(), controller.vnpayIpn(vnpayParams()));
+    }
+
+    @Test
+    void vnpayFirstDeliveryIsProcessedAndConfirmed() {
+        when(idempotencyService.findCompleted(IdempotencyService.SCOPE_VNPAY_IPN, VNPAY_KEY)).thenReturn(Optional.empty());
+        when(idempotencyService.tryBegin(IdempotencyService.SCOPE_VNPAY_IPN, VNPAY_KEY)).thenReturn(true);
+        when(orderRepository.findByOrderCode("FYD-1")).thenReturn(Optional.empty());
+
+        assertTrue(controller.vnpayIpn(vnpayParams()).contains("\"RspCode\":\"00\""));
+        verify(idempotencyService).complete(IdempotencyService.SCOPE_VNPAY_IPN, VNPAY_KEY, 200,
+            CONFIRMED.getBody());
+    }
+
+    @Test
+    void momoDeliveryInProgressElsewhereGets503() {
+        when(idempotencyService.findCompleted(IdempotencyService.SCOPE_MOMO_IPN, MOMO_KEY)).thenReturn(Optional.empty());
+        when(idempotencyService.tryBegin(IdempotencyService.SCOPE_MOMO_IPN, MOMO_KEY)).thenReturn(false);
+
+        assertEquals(503, controller.momoIpn(momoBody()).getStatusCode().value());
+        verify(orderRepository, never()).findByOrderCode(anyString());
+    }
+
+    @Test
+    void momoReplayOfACompletedDeliveryGets204() {
+        when(idempotencyService.findCompleted(IdempotencyService.SCOPE_MOMO_IPN, MOMO_KEY))
+            .thenReturn(Optional.of(new IdempotencyService.StoredResponse(204, "", null, null)));
+
+        assertEquals(204, controller.momoIpn(momoBody()).getStatusCode().value());
+        verify(idempotencyService, never()).tryBegin(IdempotencyService.SCOPE_MOMO_IPN, MOMO_KEY);
+    }
+
+    @Test
+    void momoDeliveryCompletedMeanwhileGets204() {
+        when(idempotencyService.findCompleted(IdempotencyService.SCOPE_MOMO_IPN, MOMO_KEY))
+            .thenReturn(Optional.empty(), Optional.of(new IdempotencyService.StoredResponse(204, "", null, null)));
+        when(idempotencyService.tryBegin(IdempotencyService.SCOPE_MOMO_IPN, MOMO_KEY)).thenReturn(false);
+
+        assertEquals(204, controller.momoIpn(momoBody()).getStatusCode().value());
+    }
+
+    private static Map<String, String> vnpayParams() {
+        return Map.of("vnp_TxnRef", "FYD-1", "vnp_ResponseCode", "00", "vnp_TransactionNo", "14000001");
+    }
+
+    private static Map<String, Object> momoBody() {
+        return Map.of("orderId", "FYD-1", "transId", 2800001L, "resultCode", 0);
+    }
+}
@@ -0,0 +1,79 @@
+package com.fyd.backend.repository;
+
+import com.fyd.backend.entity.Order;
+import com.fyd.backend.entity.OrderItem;
+import com.fyd.backend.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class OrderItemRepositoryTest {
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void boughtTogetherSkipsInactiveProductsBeforeTheLimit() {
+        Product shirt = product("SHIRT", "ACTIVE");
+        Product hidden = product("HIDDEN", "INACTIVE");
+        Product pants = product("PANTS", "ACTIVE");
+        Product socks = product("SOCKS", "ACTIVE");
+        // The inactive product shares the most orders, so it used to take a slot of the limit
+        for (int i = 0; i < 3; i++) {
+            order("FYD-H" + i, shirt, hidden);
+        }
+        order("FYD-P1", shirt, pants);
+        order("FYD-P2", shirt, pants);
+        order("FYD-S1", shirt, socks);
+        entityManager.flush();
+
+        List<Long> ids = orderItemRepository.findBoughtTogether(shirt.getId(), PageRequest.of(0, 2))
+            .stream()
+            .map(row -> (Long) row[0])
+            .toList();
+
+        assertEquals(List.of(pants.getId(), socks.getId()), ids);
+    }
+
+    private Product product(String sku, String status) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(sku);
+        product.setSlug(sku.toLowerCase());
+        product.setBasePrice(new BigDecimal("100000"));
+        product.setStatus(status);
+        return entityManager.persist(product);
+    }
+
+    private void order(String code, Product... products) {
+        Order order = new Order();
+        order.setOrderCode(code);
+        order.setStatus("DELIVERED");
+        entityManager.persist(order);
+        for (Product product : products) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProduct(product);
+            item.setProductName(product.getName());
+            item.setQuantity(1);
+            item.setUnitPrice(product.getBasePrice());
+            item.setLineTotal(product.getBasePrice());
+            entityManager.persist(item);
+        }
+    }
+}
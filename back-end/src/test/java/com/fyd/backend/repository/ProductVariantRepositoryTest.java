@@ -0,0 +1,180 @@
+package com.fyd.backend.repository;
+
+import com.fyd.backend.entity.Category;
+import com.fyd.backend.entity.Product;
+import com.fyd.backend.entity.ProductVariant;
+import com.fyd.backend.entity.Size;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The inventory list query: each filter on its own, and no predicate or join for filters
+ * that were not given. streamInventoryRows builds the same query but asks for a MySQL
+ * streaming cursor, which H2 rejects, so it is not run here.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+    + "com.fyd.backend.repository.ProductVariantRepositoryTest$RecordingInspector")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class ProductVariantRepositoryTest {
+
+    private static final Sort BY_STOCK = Sort.by("stockQuantity").and(Sort.by("id"));
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Category shirts;
+    private Size medium;
+    private ProductVariant shirtM;
+    private ProductVariant shirtL;
+    private ProductVariant pantsM;
+
+    @BeforeEach
+    void setUp() {
+        shirts = category("Áo thun");
+        Category pantsCategory = category("Quần");
+        medium = size("M");
+        Size large = size("L");
+        Product shirt = product("SHIRT", "Áo basic", shirts, "200000", null);
+        Product pants = product("PANTS", "Quần jean", pantsCategory, "300000", "150000");
+        shirtM = variant(shirt, "SHIRT-M", medium, 0);
+        shirtL = variant(shirt, "SHIRT-L", large, 4);
+        pantsM = variant(pants, "PANTS-M", medium, 20);
+        entityManager.flush();
+        entityManager.clear();
+        RecordingInspector.SQL.clear();
+    }
+
+    @Test
+    void noFiltersMeansNoWhereClause() {
+        Page<Object[]> page = variantRepository.findInventoryRows(null, null, null, null, null,
+            PageRequest.of(0, 2, BY_STOCK));
+
+        assertEquals(List.of(shirtM.getId(), shirtL.getId()), ids(page.getContent()));
+        assertEquals(3, page.getTotalElements());
+        assertTrue(RecordingInspector.SQL.stream().noneMatch(sql -> sql.contains(" where ")),
+            RecordingInspector.SQL::toString);
+        String count = RecordingInspector.SQL.get(1);
+        assertFalse(count.contains(" join "), count);
+    }
+
+    @Test
+    void rowsCarryTheListColumns() {
+        Object[] row = variantRepository.findInventoryRows(null, null, null, null, null,
+            PageRequest.of(0, 10, BY_STOCK)).getContent().get(2);
+
+        assertEquals(pantsM.getId(), row[0]);
+        assertEquals("PANTS-M", row[1]);
+        assertEquals("Quần jean", row[2]);
+        assertEquals("M", row[3]);
+        assertEquals("Quần", row[5]);
+        assertEquals(0, new BigDecimal("150000").compareTo((BigDecimal) row[6]));
+        assertEquals(20, row[7]);
+    }
+
+    @Test
+    void searchMatchesSkuProductOrCategoryName() {
+        assertEquals(List.of(shirtL.getId()), ids(rows("%shirt-l%", null, null, null, null)));
+        assertEquals(List.of(pantsM.getId()), ids(rows("%jean%", null, null, null, null)));
+        assertEquals(List.of(shirtM.getId(), shirtL.getId()), ids(rows("%áo thun%", null, null, null, null)));
+    }
+
+    @Test
+    void categorySizeAndStockFiltersCombine() {
+        assertEquals(List.of(shirtM.getId(), shirtL.getId()), ids(rows(null, shirts.getId(), null, null, null)));
+        assertEquals(List.of(shirtM.getId(), pantsM.getId()), ids(rows(null, null, medium.getId(), null, null)));
+        assertEquals(List.of(shirtM.getId()), ids(rows(null, shirts.getId(), medium.getId(), null, 0)));
+        assertEquals(List.of(shirtL.getId()), ids(rows(null, null, null, 1, 6)));
+    }
+
+    @Test
+    void countJoinsOnlyWhatItsFiltersRead() {
+        variantRepository.findInventoryRows(null, shirts.getId(), medium.getId(), 0, 10, PageRequest.of(0, 1, BY_STOCK));
+
+        String count = RecordingInspector.SQL.get(1);
+        assertTrue(count.contains("category_id"), count);
+        assertFalse(count.contains("categories"), count);
+        assertFalse(count.contains("sizes"), count);
+        assertFalse(count.contains(" like "), count);
+    }
+
+    @Test
+    void sortsByPriceThenId() {
+        List<Object[]> rows = variantRepository.findInventoryRows(null, null, null, null, null,
+            PageRequest.of(0, 10, Sort.by(Sort.Direction.ASC, "price").and(Sort.by("id")))).getContent();
+
+        assertEquals(List.of(pantsM.getId(), shirtM.getId(), shirtL.getId()), ids(rows));
+    }
+
+    private List<Object[]> rows(String pattern, Long categoryId, Long sizeId, Integer minStock, Integer maxStock) {
+        return variantRepository.findInventoryRows(pattern, categoryId, sizeId, minStock, maxStock,
+            PageRequest.of(0, 10, BY_STOCK)).getContent();
+    }
+
+    private static List<Long> ids(List<Object[]> rows) {
+        return rows.stream().map(row -> (Long) row[0]).toList();
+    }
+
+    private Category category(String name) {
+        Category category = new Category();
+        category.setName(name);
+        category.setSlug(name.toLowerCase().replace(' ', '-'));
+        return entityManager.persist(category);
+    }
+
+    private Size size(String name) {
+        Size size = new Size();
+        size.setName(name);
+        return entityManager.persist(size);
+    }
+
+    private Product product(String sku, String name, Category category, String basePrice, String salePrice) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(name);
+        product.setSlug(sku.toLowerCase());
+        product.setCategory(category);
+        product.setBasePrice(new BigDecimal(basePrice));
+        product.setSalePrice(salePrice != null ? new BigDecimal(salePrice) : null);
+        return entityManager.persist(product);
+    }
+
+    private ProductVariant variant(Product product, String sku, Size size, int stock) {
+        ProductVariant variant = new ProductVariant();
+        variant.setProduct(product);
+        variant.setSkuVariant(sku);
+        variant.setSize(size);
+        variant.setStockQuantity(stock);
+        return entityManager.persist(variant);
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.fyd.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(IdempotencyService.class)
+// Each call commits on its own, as it does in the controller
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    private static final String SCOPE = IdempotencyService.SCOPE_ORDER_CREATE;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Test
+    void replayMatchesOnlyTheOriginalRequest() {
+        assertTrue(idempotencyService.tryBegin(SCOPE, "7:abc", "hash-a"));
+        assertFalse(idempotencyService.tryBegin(SCOPE, "7:abc", "hash-b"));
+        idempotencyService.complete(SCOPE, "7:abc", 200, "{\"id\":1}");
+
+        IdempotencyService.StoredResponse stored = idempotencyService.findCompleted(SCOPE, "7:abc").orElseThrow();
+        assertTrue(stored.matches("hash-a"));
+        assertFalse(stored.matches("hash-b"));
+    }
+
+    @Test
+    void keysWithoutHashMatchAnyRequest() {
+        assertTrue(idempotencyService.tryBegin(IdempotencyService.SCOPE_VNPAY_IPN, "txn-1"));
+        idempotencyService.complete(IdempotencyService.SCOPE_VNPAY_IPN, "txn-1", 200, "ok");
+
+        assertTrue(idempotencyService.findCompleted(IdempotencyService.SCOPE_VNPAY_IPN, "txn-1").orElseThrow()
+            .matches("anything"));
+    }
+}
@@ -0,0 +1,201 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.Product;
+import com.fyd.backend.entity.ProductVariant;
+import com.fyd.backend.repository.ProductRepository;
+import com.fyd.backend.repository.ProductVariantRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The ledger against the H2 schema: movements written when their transaction commits,
+ * nightly snapshots, and stock at a point in time from either side of a snapshot.
+ * Not transactional itself, so the before-commit insert really runs.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(InventoryLedgerService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryLedgerServiceTest {
+
+    @Autowired
+    private InventoryLedgerService ledger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void movementsAreInsertedWhenTheirTransactionCommits() {
+        Long variantId = createVariant(10);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            move(variantId, InventoryLedgerService.SALE, -3, "FYD-1");
+            move(variantId, InventoryLedgerService.IMPORT, 5, "IMP-1");
+            // Buffered until commit
+            assertEquals(0, movementCount(variantId));
+        });
+
+        assertEquals(2, movementCount(variantId));
+        assertEquals(12, jdbcTemplate.queryForObject(
+            "SELECT stock_after FROM inventory_movements WHERE variant_id = ? AND movement_type = 'IMPORT'",
+            Integer.class, variantId));
+    }
+
+    @Test
+    void rolledBackMovementsAreNotRecorded() {
+        Long variantId = createVariant(10);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            move(variantId, InventoryLedgerService.SALE, -3, "FYD-2");
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, movementCount(variantId));
+    }
+
+    @Test
+    void withoutATransactionMovementsAreInsertedAtOnce() {
+        Long variantId = createVariant(10);
+
+        ledger.record(variantId, InventoryLedgerService.ADJUST, 4, null, null);
+        ledger.record(variantId, InventoryLedgerService.ADJUST, 0, null, null);
+
+        assertEquals(1, movementCount(variantId));
+    }
+
+    @Test
+    void stockAtBeforeAtAndAfterASnapshot() throws InterruptedException {
+        Long variantId = createVariant(10);
+        LocalDateTime opening = tick();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            move(variantId, InventoryLedgerService.SALE, -3, "FYD-3");
+            move(variantId, InventoryLedgerService.IMPORT, 5, "IMP-2");
+        });
+        LocalDateTime beforeSnapshot = tick();
+
+        ledger.takeSnapshots();
+        LocalDateTime takenAt = jdbcTemplate.queryForObject(
+            "SELECT taken_at FROM inventory_snapshots WHERE variant_id = ?", LocalDateTime.class, variantId);
+        LocalDateTime afterSnapshot = tick();
+
+        transactionTemplate.executeWithoutResult(status -> move(variantId, InventoryLedgerService.ADJUST, -2, null));
+        LocalDateTime now = tick();
+
+        // After the snapshot: snapshot plus the movements since
+        Map<String, Object> latest = ledger.stockAt(variantId, now).orElseThrow();
+        assertEquals(10L, latest.get("stock"));
+        assertEquals(1L, latest.get("tailMovements"));
+        assertNotNull(latest.get("snapshotTakenAt"));
+
+        Map<String, Object> atSnapshot = ledger.stockAt(variantId, takenAt).orElseThrow();
+        assertEquals(12L, atSnapshot.get("stock"));
+        assertEquals(0L, atSnapshot.get("tailMovements"));
+
+        assertEquals(12L, ledger.stockAt(variantId, afterSnapshot).orElseThrow().get("stock"));
+
+        // Before the first snapshot: walked back from the current stock
+        Map<String, Object> before = ledger.stockAt(variantId, beforeSnapshot).orElseThrow();
+        assertEquals(12L, before.get("stock"));
+        assertNull(before.get("snapshotTakenAt"));
+        assertEquals(10L, ledger.stockAt(variantId, opening).orElseThrow().get("stock"));
+    }
+
+    @Test
+    void onlyVariantsThatMovedGetANewSnapshot() {
+        Long moved = createVariant(10);
+        Long idle = createVariant(4);
+        ledger.takeSnapshots();
+
+        transactionTemplate.executeWithoutResult(status -> move(moved, InventoryLedgerService.SALE, -1, "FYD-4"));
+        ledger.takeSnapshots();
+
+        assertEquals(2, snapshotCount(moved));
+        assertEquals(1, snapshotCount(idle));
+        assertEquals(4, jdbcTemplate.queryForObject(
+            "SELECT stock FROM inventory_snapshots WHERE variant_id = ?", Integer.class, idle));
+    }
+
+    @Test
+    void unknownVariantHasNoStock() {
+        assertTrue(ledger.stockAt(-1L, LocalDateTime.now()).isEmpty());
+    }
+
+    // Changes the stock the way the real writers do and records it in the same transaction
+    private void move(Long variantId, String type, int quantity, String reference) {
+        jdbcTemplate.update("UPDATE product_variants SET stock = stock + ? WHERE id = ?", quantity, variantId);
+        Integer stockAfter = jdbcTemplate.queryForObject(
+            "SELECT stock FROM product_variants WHERE id = ?", Integer.class, variantId);
+        ledger.record(variantId, type, quantity, stockAfter, reference);
+    }
+
+    // A point in time strictly between what happened before and after it
+    private static LocalDateTime tick() throws InterruptedException {
+        Thread.sleep(5);
+        LocalDateTime now = LocalDateTime.now();
+        Thread.sleep(5);
+        return now;
+    }
+
+    private int movementCount(Long variantId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM inventory_movements WHERE variant_id = ?", Integer.class, variantId);
+    }
+
+    private int snapshotCount(Long variantId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM inventory_snapshots WHERE variant_id = ?", Integer.class, variantId);
+    }
+
+    private Long createVariant(int stock) {
+        Product product = new Product();
+        String sku = "LEDGER-" + System.nanoTime();
+        product.setSku(sku);
+        product.setName("Ledger item");
+        product.setSlug(sku.toLowerCase());
+        product.setBasePrice(new BigDecimal("100000"));
+        product = productRepository.save(product);
+
+        ProductVariant variant = new ProductVariant();
+        variant.setProduct(product);
+        variant.setSkuVariant(sku + "-DEF");
+        variant.setStockQuantity(stock);
+        return variantRepository.save(variant).getId();
+    }
+}
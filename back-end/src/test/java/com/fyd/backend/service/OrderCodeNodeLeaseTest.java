@@ -0,0 +1,95 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.OrderCodeNode;
+import com.fyd.backend.repository.OrderCodeNodeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+// Every lease step commits on its own, as it does at startup
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderCodeNodeLeaseTest {
+
+    private static final long MAX_NODE_ID = 1023;
+
+    @Autowired
+    private OrderCodeNodeRepository nodeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        nodeRepository.deleteAll();
+    }
+
+    @Test
+    void instancesPreferringTheSameIdGetDifferentOnes() {
+        int first = newLease().acquire(-1, 42, MAX_NODE_ID);
+        int second = newLease().acquire(-1, 42, MAX_NODE_ID);
+
+        assertEquals(42, first);
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void configuredIdHeldByLiveInstanceStopsStartup() {
+        newLease().acquire(5, 0, MAX_NODE_ID);
+
+        assertThrows(IllegalStateException.class, () -> newLease().acquire(5, 0, MAX_NODE_ID));
+    }
+
+    @Test
+    void releasedOrExpiredIdCanBeTakenOver() {
+        OrderCodeNodeLease first = newLease();
+        first.acquire(9, 0, MAX_NODE_ID);
+        first.release();
+        assertEquals(9, newLease().acquire(9, 0, MAX_NODE_ID));
+
+        OrderCodeNode stale = new OrderCodeNode();
+        stale.setNodeId(10);
+        stale.setOwner("crashed-host:0000");
+        stale.setHeartbeatAt(LocalDateTime.now().minusMinutes(10));
+        nodeRepository.save(stale);
+        assertEquals(10, newLease().acquire(10, 0, MAX_NODE_ID));
+    }
+
+    @Test
+    void heartbeatNoticesATakeOver() {
+        OrderCodeNodeLease lease = newLease();
+        lease.acquire(3, 0, MAX_NODE_ID);
+        lease.heartbeat();
+        assertTrue(lease.isHeld());
+
+        OrderCodeNode row = nodeRepository.findById(3).orElseThrow();
+        row.setOwner("other-host:1111");
+        nodeRepository.save(row);
+        lease.heartbeat();
+        assertFalse(lease.isHeld());
+    }
+
+    private OrderCodeNodeLease newLease() {
+        OrderCodeNodeLease lease = new OrderCodeNodeLease(transactionManager);
+        ReflectionTestUtils.setField(lease, "nodeRepository", nodeRepository);
+        ReflectionTestUtils.setField(lease, "leaseSeconds", 120L);
+        return lease;
+    }
+}
@@ -0,0 +1,184 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.Order;
+import com.fyd.backend.util.VietnameseText;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * p50/p99 of admin order search at 1M orders: the old LIKE '%q%' scan against the FULLTEXT
+ * ngram search. Needs a MySQL 8 server started like docker/docker-compose.yml
+ * (ngram_token_size=2, stopwords off); it is skipped unless bench.mysql.url is set:
+ *
+ * <pre>
+ * mvn test -Dtest=OrderSearchBenchmarkTest \
+ *     -Dbench.mysql.url=jdbc:mysql://localhost:3306/fyd_db -Dbench.mysql.user=fyd -Dbench.mysql.password=fyd123
+ * </pre>
+ *
+ * Rows go to their own table, bench_order_search, with the columns and indexes the two
+ * queries use; it is seeded once up to bench.orders rows (default 1,000,000) and kept for
+ * later runs. search_text is built by {@link Order#refreshSearchText()} as in production.
+ */
+@EnabledIfSystemProperty(named = "bench.mysql.url", matches = ".+")
+class OrderSearchBenchmarkTest {
+
+    private static final String TABLE = "bench_order_search";
+    private static final int INSERT_BATCH = 5000;
+    private static final int WARMUP = 10;
+
+    private static final String LIKE_PAGE = "SELECT id FROM " + TABLE + " WHERE " +
+        "LOWER(order_code) LIKE LOWER(CONCAT('%', ?, '%')) OR LOWER(shipping_name) LIKE LOWER(CONCAT('%', ?, '%')) " +
+        "OR LOWER(shipping_phone) LIKE LOWER(CONCAT('%', ?, '%')) ORDER BY created_at DESC, id DESC LIMIT 20";
+    private static final String LIKE_COUNT = "SELECT COUNT(*) FROM " + TABLE + " WHERE " +
+        "LOWER(order_code) LIKE LOWER(CONCAT('%', ?, '%')) OR LOWER(shipping_name) LIKE LOWER(CONCAT('%', ?, '%')) " +
+        "OR LOWER(shipping_phone) LIKE LOWER(CONCAT('%', ?, '%'))";
+    private static final String MATCH_PAGE = "SELECT id FROM " + TABLE +
+        " WHERE MATCH(search_text) AGAINST (? IN BOOLEAN MODE) ORDER BY created_at DESC, id DESC LIMIT 20";
+    private static final String MATCH_COUNT = "SELECT COUNT(*) FROM " + TABLE +
+        " WHERE MATCH(search_text) AGAINST (? IN BOOLEAN MODE)";
+
+    private static final String[] FAMILY = {"Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ", "Võ", "Đặng",
+        "Bùi", "Đỗ", "Hồ", "Ngô", "Dương", "Lý"};
+    private static final String[] MIDDLE = {"Văn", "Thị", "Hữu", "Đức", "Minh", "Thanh", "Ngọc", "Quốc", "Gia", "Bảo"};
+    private static final String[] GIVEN = {"An", "Bình", "Châu", "Dũng", "Giang", "Hà", "Hải", "Hạnh", "Hiếu", "Hoa",
+        "Huy", "Khánh", "Lan", "Linh", "Long", "Mai", "Nam", "Nga", "Phúc", "Phương", "Quân", "Sơn", "Tâm", "Thảo",
+        "Trang", "Trung", "Tuấn", "Vân", "Việt", "Yến"};
+
+    private final Random random = new Random(42);
+
+    @Test
+    void likeScanVersusFulltextAtOneMillionOrders() throws Exception {
+        int orders = Integer.getInteger("bench.orders", 1_000_000);
+        int queries = Integer.getInteger("bench.queries", 200);
+        try (Connection connection = DriverManager.getConnection(System.getProperty("bench.mysql.url"),
+                System.getProperty("bench.mysql.user", "fyd"), System.getProperty("bench.mysql.password", ""))) {
+            createTable(connection);
+            seed(connection, orders);
+
+            List<String> terms = sampleTerms(connection, queries + WARMUP);
+            OrderSearchService searchService = new OrderSearchService();
+            long[] like = new long[queries];
+            long[] indexed = new long[queries];
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                long likeNanos = time(connection, LIKE_PAGE, LIKE_COUNT, term, term, term);
+                long indexedNanos = time(connection, MATCH_PAGE, MATCH_COUNT, searchService.toBooleanQuery(term));
+                if (i >= WARMUP) {
+                    like[i - WARMUP] = likeNanos;
+                    indexed[i - WARMUP] = indexedNanos;
+                }
+            }
+
+            System.out.printf("Order search over %,d orders, %d queries (page of 20 + count):%n", orders, queries);
+            System.out.printf("  LIKE '%%q%%'  p50 %8.2f ms  p99 %8.2f ms%n", percentileMs(like, 0.50), percentileMs(like, 0.99));
+            System.out.printf("  FULLTEXT    p50 %8.2f ms  p99 %8.2f ms%n", percentileMs(indexed, 0.50), percentileMs(indexed, 0.99));
+            assertTrue(percentileMs(indexed, 0.99) > 0);
+        }
+    }
+
+    private static void createTable(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                "id BIGINT AUTO_INCREMENT PRIMARY KEY, order_code VARCHAR(50) NOT NULL UNIQUE, " +
+                "shipping_name VARCHAR(100), shipping_phone VARCHAR(20), search_text VARCHAR(500), " +
+                "created_at DATETIME NOT NULL, INDEX idx_bench_created (created_at), " +
+                "FULLTEXT INDEX ft_bench_search (search_text) WITH PARSER ngram) ENGINE=InnoDB");
+        }
+    }
+
+    private void seed(Connection connection, int target) throws Exception {
+        int existing;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + TABLE)) {
+            rs.next();
+            existing = rs.getInt(1);
+        }
+        SnowflakeOrderCodeGenerator codes = new SnowflakeOrderCodeGenerator(1);
+        LocalDateTime start = LocalDateTime.now().minusYears(2);
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + TABLE +
+                " (order_code, shipping_name, shipping_phone, search_text, created_at) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = existing; i < target; i++) {
+                Order order = new Order();
+                order.setOrderCode(codes.nextCode());
+                order.setShippingName(FAMILY[random.nextInt(FAMILY.length)] + " " + MIDDLE[random.nextInt(MIDDLE.length)]
+                    + " " + GIVEN[random.nextInt(GIVEN.length)]);
+                order.setShippingPhone(String.format("09%08d", random.nextInt(100_000_000)));
+                order.refreshSearchText();
+                insert.setString(1, order.getOrderCode());
+                insert.setString(2, order.getShippingName());
+                insert.setString(3, order.getShippingPhone());
+                insert.setString(4, order.getSearchText());
+                insert.setTimestamp(5, Timestamp.valueOf(start.plusSeconds(i * 60L)));
+                insert.addBatch();
+                if ((i + 1) % INSERT_BATCH == 0 || i + 1 == target) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    // A mix of what staff type: code fragments, phone fragments, and names with and without accents
+    private List<String> sampleTerms(Connection connection, int count) throws Exception {
+        List<String[]> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT order_code, shipping_name, shipping_phone FROM " + TABLE
+                 + " ORDER BY RAND() LIMIT " + count)) {
+            while (rs.next()) {
+                rows.add(new String[]{rs.getString(1), rs.getString(2), rs.getString(3)});
+            }
+        }
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            String[] row = rows.get(i);
+            switch (i % 4) {
+                case 0 -> terms.add(row[0].substring(8, 14));
+                case 1 -> terms.add(row[2].substring(3, 8));
+                case 2 -> terms.add(row[1]);
+                default -> terms.add(VietnameseText.fold(row[1]));
+            }
+        }
+        return terms;
+    }
+
+    private static long time(Connection connection, String pageSql, String countSql, String... params) throws Exception {
+        long start = System.nanoTime();
+        for (String sql : new String[]{pageSql, countSql}) {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int i = 0; i < params.length; i++) {
+                    statement.setString(i + 1, params[i]);
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        rs.getLong(1);
+                    }
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static double percentileMs(long[] nanos, double percentile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,38 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.Order;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderSearchServiceTest {
+
+    private final OrderSearchService searchService = new OrderSearchService();
+
+    @Test
+    void termsBecomeRequiredAccentFoldedPhrases() {
+        assertEquals("+\"nguyen\" +\"0912\"", searchService.toBooleanQuery("Nguyễn 0912"));
+        assertEquals("+\"duc\"", searchService.toBooleanQuery("  Đức "));
+    }
+
+    @Test
+    void termsShorterThanTheNgramAreDropped() {
+        assertEquals("", searchService.toBooleanQuery("a"));
+        assertEquals("+\"an\"", searchService.toBooleanQuery("a an"));
+    }
+
+    @Test
+    void searchTextCoversCodeNameAndPhoneDigits() {
+        Order order = new Order();
+        order.setOrderCode("FYD-01JH3K7Q2M0A5");
+        order.setShippingName("Trần Thị Hạnh");
+        order.setShippingPhone("0912 345 678");
+        order.refreshSearchText();
+
+        String text = order.getSearchText();
+        assertTrue(text.contains("fyd01jh3k7q2m0a5"), text);
+        assertTrue(text.contains("tran thi hanh"), text);
+        assertTrue(text.contains("0912345678"), text);
+    }
+}
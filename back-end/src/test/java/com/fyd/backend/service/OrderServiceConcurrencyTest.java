@@ -0,0 +1,180 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.Order;
+import com.fyd.backend.entity.OrderItem;
+import com.fyd.backend.entity.Product;
+import com.fyd.backend.entity.ProductVariant;
+import com.fyd.backend.repository.OrderItemRepository;
+import com.fyd.backend.repository.OrderRepository;
+import com.fyd.backend.repository.ProductRepository;
+import com.fyd.backend.repository.ProductVariantRepository;
+import com.fyd.backend.service.catalog.CatalogVersionService;
+import com.fyd.backend.service.outbox.OutboxService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * The same status change sent several times at once, e.g. a double-clicked cancel or two
+ * admins: the order row lock lets only the first one restock or move the sales counters.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({OrderService.class, OrderStateMachine.class, StockReservationService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceConcurrencyTest {
+
+    private static final int REQUESTS = 8;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @MockitoBean
+    private PointsService pointsService;
+
+    @MockitoBean
+    private CustomerCouponService customerCouponService;
+
+    @MockitoBean
+    private OutboxService outboxService;
+
+    @MockitoBean
+    private OrderStatusCountService orderStatusCountService;
+
+    @MockitoBean
+    private ProductSalesService productSalesService;
+
+    @MockitoBean
+    private InventoryLedgerService inventoryLedgerService;
+
+    @MockitoBean
+    private ProductCacheService productCacheService;
+
+    @MockitoBean
+    private CatalogVersionService catalogVersionService;
+
+    @Test
+    void concurrentCancelsRestockOnce() throws Exception {
+        ProductVariant variant = createVariant(10);
+        Order order = createOrder("SHIPPING", variant, 2);
+
+        runConcurrently(() -> orderService.changeStatus(order.getId(), "CANCELLED"));
+
+        assertEquals(12, variantRepository.findStockByIds(List.of(variant.getId())).get(0)[1]);
+        assertEquals("CANCELLED", orderRepository.findById(order.getId()).orElseThrow().getStatus());
+        verify(inventoryLedgerService, times(1)).record(eq(variant.getId()), eq(InventoryLedgerService.CANCEL),
+            anyInt(), any(), eq(order.getOrderCode()));
+    }
+
+    @Test
+    void concurrentBulkCancelsRestockOnce() throws Exception {
+        ProductVariant variant = createVariant(10);
+        Order first = createOrder("PENDING", variant, 1);
+        Order second = createOrder("CONFIRMED", variant, 3);
+
+        runConcurrently(() -> orderService.changeStatusBulk(List.of(second.getId(), first.getId()), "CANCELLED"));
+
+        assertEquals(14, variantRepository.findStockByIds(List.of(variant.getId())).get(0)[1]);
+    }
+
+    @Test
+    void concurrentCancelsOfADeliveredOrderTakeSalesBackOnce() throws Exception {
+        ProductVariant variant = createVariant(10);
+        Order order = createOrder("DELIVERED", variant, 2);
+
+        runConcurrently(() -> orderService.changeStatus(order.getId(), "CANCELLED"));
+
+        // The other requests found the order already cancelled and changed nothing
+        verify(productSalesService, times(1)).adjust(anyList(), anyInt());
+        verify(productSalesService).adjust(List.of(order.getId()), -1);
+        assertEquals(10, variantRepository.findStockByIds(List.of(variant.getId())).get(0)[1]);
+    }
+
+    private void runConcurrently(Runnable request) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(REQUESTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                request.run();
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    }
+
+    private ProductVariant createVariant(int stock) {
+        Product product = new Product();
+        String sku = "CANCEL-" + System.nanoTime();
+        product.setSku(sku);
+        product.setName("Cancelled item");
+        product.setSlug(sku.toLowerCase());
+        product.setBasePrice(new BigDecimal("100000"));
+        product = productRepository.save(product);
+
+        ProductVariant variant = new ProductVariant();
+        variant.setProduct(product);
+        variant.setSkuVariant(sku + "-DEF");
+        variant.setStockQuantity(stock);
+        return variantRepository.save(variant);
+    }
+
+    private Order createOrder(String status, ProductVariant variant, int quantity) {
+        Order order = new Order();
+        order.setOrderCode("FYD-" + System.nanoTime());
+        order.setStatus(status);
+        order = orderRepository.save(order);
+
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(variant.getProduct());
+        item.setVariant(variant);
+        item.setProductName(variant.getProduct().getName());
+        item.setQuantity(quantity);
+        item.setUnitPrice(variant.getProduct().getBasePrice());
+        item.setLineTotal(variant.getProduct().getBasePrice().multiply(BigDecimal.valueOf(quantity)));
+        orderItemRepository.save(item);
+        return order;
+    }
+}
@@ -0,0 +1,119 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.Order;
+import com.fyd.backend.repository.OrderItemRepository;
+import com.fyd.backend.repository.OrderRepository;
+import com.fyd.backend.service.outbox.OutboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * What a status change does to stock: cancelling before delivery gives the reserved stock
+ * back, cancelling a delivered order does not.
+ */
+class OrderServiceStatusTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+    private final StockReservationService stockReservationService = mock(StockReservationService.class);
+    private final ProductSalesService productSalesService = mock(ProductSalesService.class);
+    private final OrderService orderService = new OrderService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orderService, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(orderService, "orderItemRepository", orderItemRepository);
+        ReflectionTestUtils.setField(orderService, "stockReservationService", stockReservationService);
+        ReflectionTestUtils.setField(orderService, "productSalesService", productSalesService);
+        ReflectionTestUtils.setField(orderService, "orderStateMachine", new OrderStateMachine());
+        ReflectionTestUtils.setField(orderService, "orderStatusCountService", mock(OrderStatusCountService.class));
+        ReflectionTestUtils.setField(orderService, "outboxService", mock(OutboxService.class));
+    }
+
+    @Test
+    void cancellingBeforeDeliveryGivesStockBack() {
+        order(1L, "FYD-1", "SHIPPING");
+        when(orderItemRepository.findStockLinesByOrderIds(List.of(1L))).thenReturn(rows(
+            new Object[]{"FYD-1", 10L, 2},
+            new Object[]{"FYD-1", 11L, 1}));
+
+        orderService.changeStatus(1L, "CANCELLED");
+
+        Map<String, List<StockReservationService.Line>> released = released();
+        assertEquals(List.of("FYD-1"), new ArrayList<>(released.keySet()));
+        List<StockReservationService.Line> lines = released.get("FYD-1");
+        assertEquals(List.of(10L, 11L), lines.stream().map(StockReservationService.Line::getVariantId).toList());
+        assertEquals(List.of(2, 1), lines.stream().map(StockReservationService.Line::getQuantity).toList());
+    }
+
+    @Test
+    void cancellingADeliveredOrderKeepsStockAsIs() {
+        order(2L, "FYD-2", "DELIVERED");
+
+        orderService.changeStatus(2L, "CANCELLED");
+
+        verify(orderItemRepository, never()).findStockLinesByOrderIds(anyCollection());
+        verify(stockReservationService, never()).release(any());
+        // The sales counters are taken back instead
+        verify(productSalesService).adjust(List.of(2L), -1);
+    }
+
+    @Test
+    void otherTransitionsDoNotTouchStock() {
+        order(3L, "FYD-3", "PENDING");
+
+        orderService.changeStatus(3L, "CONFIRMED");
+
+        verify(stockReservationService, never()).release(any());
+    }
+
+    @Test
+    void bulkCancelReleasesEveryUndeliveredOrderAtOnce() {
+        Order pending = order(4L, "FYD-4", "PENDING");
+        Order delivered = order(5L, "FYD-5", "DELIVERED");
+        Order confirmed = order(6L, "FYD-6", "CONFIRMED");
+        when(orderRepository.findAllByIdForUpdate(any())).thenReturn(List.of(pending, delivered, confirmed));
+        when(orderItemRepository.findStockLinesByOrderIds(List.of(4L, 6L))).thenReturn(rows(
+            new Object[]{"FYD-4", 10L, 1},
+            new Object[]{"FYD-6", 10L, 3}));
+
+        orderService.changeStatusBulk(List.of(4L, 5L, 6L), "CANCELLED");
+
+        assertEquals(List.of("FYD-4", "FYD-6"), new ArrayList<>(released().keySet()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, List<StockReservationService.Line>> released() {
+        ArgumentCaptor<Map<String, List<StockReservationService.Line>>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(stockReservationService).release(captor.capture());
+        return captor.getValue();
+    }
+
+    private Order order(Long id, String code, String status) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderCode(code);
+        order.setStatus(status);
+        when(orderRepository.findByIdForUpdate(id)).thenReturn(Optional.of(order));
+        return order;
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return List.of(rows);
+    }
+}
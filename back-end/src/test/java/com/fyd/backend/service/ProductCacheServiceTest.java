@@ -0,0 +1,119 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.dto.ProductDTO;
+import com.fyd.backend.dto.VariantDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductCacheServiceTest {
+
+    private final ProductListingService listingService = mock(ProductListingService.class);
+    private final ProductCacheService cache = new ProductCacheService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "productListingService", listingService);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+        cache.init();
+        when(listingService.findDto(1L)).thenReturn(Optional.of(product(1L, 11L, 12L)));
+        when(listingService.findDto(2L)).thenReturn(Optional.of(product(2L, 21L)));
+    }
+
+    @Test
+    void reservationDropsOnlyTheProductOwningTheVariant() {
+        cache.getById(1L);
+        cache.getById(2L);
+
+        cache.invalidateVariantsAfterCommit(List.of(12L));
+        cache.getById(1L);
+        cache.getById(2L);
+
+        verify(listingService, times(2)).findDto(1L);
+        verify(listingService, times(1)).findDto(2L);
+    }
+
+    @Test
+    void loadOverlappingAnotherProductsReservationIsStored() {
+        when(listingService.findDto(2L)).thenAnswer(call -> {
+            cache.invalidateVariantsAfterCommit(List.of(11L));
+            return Optional.of(product(2L, 21L));
+        });
+
+        cache.getById(2L);
+        cache.getById(2L);
+
+        verify(listingService, times(1)).findDto(2L);
+    }
+
+    @Test
+    void loadOverlappingItsOwnReservationIsNotStored() {
+        when(listingService.findDto(1L)).thenAnswer(call -> {
+            // Stock of a variant changes while the (now stale) DTO is being built
+            cache.invalidateVariantsAfterCommit(List.of(12L));
+            return Optional.of(product(1L, 11L, 12L));
+        });
+
+        cache.getById(1L);
+        cache.getById(1L);
+
+        verify(listingService, times(2)).findDto(1L);
+    }
+
+    @Test
+    void invalidateAllDropsLoadsInFlight() {
+        when(listingService.findDto(2L)).thenAnswer(call -> {
+            cache.invalidateAll();
+            return Optional.of(product(2L, 21L));
+        });
+
+        cache.getById(2L);
+        cache.getById(2L);
+
+        verify(listingService, times(2)).findDto(2L);
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "ttlMs", 1L);
+
+        cache.getById(1L);
+        Thread.sleep(5);
+        cache.getById(1L);
+
+        verify(listingService, times(2)).findDto(1L);
+        assertEquals(1L, cache.getStats().get("expirations"));
+    }
+
+    @Test
+    void entriesWithinTheTtlAreServedFromTheCache() {
+        ReflectionTestUtils.setField(cache, "ttlMs", 60000L);
+
+        cache.getById(1L);
+        cache.getById(1L);
+
+        verify(listingService, times(1)).findDto(1L);
+    }
+
+    private static ProductDTO product(Long id, Long... variantIds) {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(id);
+        dto.setSku("SKU-" + id);
+        dto.setVariants(Arrays.stream(variantIds).map(variantId -> {
+            VariantDTO variant = new VariantDTO();
+            variant.setId(variantId);
+            return variant;
+        }).toList());
+        return dto;
+    }
+}
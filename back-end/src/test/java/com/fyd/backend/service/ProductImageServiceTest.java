@@ -0,0 +1,203 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.Product;
+import com.fyd.backend.entity.ProductImage;
+import com.fyd.backend.repository.ProductImageRepository;
+import com.fyd.backend.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Uploads against the H2 schema and a temporary upload dir: the request returns a PENDING
+ * image, the worker turns it READY (or FAILED) with renditions no wider than the original,
+ * and identical content is transcoded once.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ProductImageService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductImageServiceTest {
+
+    private static Path uploadDir;
+
+    @DynamicPropertySource
+    static void uploadDir(DynamicPropertyRegistry registry) throws IOException {
+        uploadDir = Files.createTempDirectory("product-images");
+        registry.add("file.upload-dir", uploadDir::toString);
+    }
+
+    @Autowired
+    private ProductImageService imageService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository imageRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void uploadIsPendingUntilTheWorkerMadeItsRenditions() throws Exception {
+        Long productId = createProduct();
+
+        ProductImage uploaded = imageService.upload(productId, png(200, 100, Color.RED)).orElseThrow();
+
+        assertEquals(ProductImageService.PENDING, uploaded.getStatus());
+        assertTrue(uploaded.getImageUrl().startsWith("/uploads/products/originals/"));
+        assertTrue(Files.exists(file(uploaded.getImageUrl())));
+
+        ProductImage done = awaitDone(uploaded.getId());
+        assertEquals(ProductImageService.READY, done.getStatus());
+        String hash = done.getContentHash();
+        // 480 and 1080 would upscale the 200 px original, so they collapse into one 200 px rendition
+        assertEquals("/uploads/products/" + hash + "_160.webp 160w, /uploads/products/" + hash + "_200.webp 200w",
+            done.getSrcset());
+        assertEquals("/uploads/products/" + hash + "_200.webp", done.getImageUrl());
+        assertEquals(done.getImageUrl(), done.getThumbnailUrl());
+        assertFalse(Files.exists(uploadDir.resolve("products").resolve(hash + "_480.webp")));
+        assertEquals(200, ImageIO.read(file(done.getImageUrl()).toFile()).getWidth());
+        assertEquals(80, ImageIO.read(file("/uploads/products/" + hash + "_160.webp").toFile()).getHeight());
+    }
+
+    @Test
+    void identicalContentIsTranscodedOnce() throws Exception {
+        Long first = createProduct();
+        Long second = createProduct();
+        MockMultipartFile file = png(300, 300, Color.BLUE);
+        awaitIdle();
+        long completedBefore = completedTranscodes();
+
+        // Both commit together, so the second upload finds the first one's transcode in flight
+        List<ProductImage> uploaded = transactionTemplate.execute(status -> List.of(
+            upload(first, file), upload(second, file)));
+
+        assertEquals(uploaded.get(0).getImageUrl(), uploaded.get(1).getImageUrl());
+        ProductImage a = awaitDone(uploaded.get(0).getId());
+        ProductImage b = awaitDone(uploaded.get(1).getId());
+        assertEquals(ProductImageService.READY, a.getStatus());
+        assertEquals(a.getSrcset(), b.getSrcset());
+        awaitIdle();
+        assertEquals(completedBefore + 1, completedTranscodes());
+
+        // Content already transcoded is reused without queueing anything
+        ProductImage reused = imageService.upload(createProduct(), file).orElseThrow();
+        assertEquals(ProductImageService.READY, reused.getStatus());
+        assertEquals(a.getSrcset(), reused.getSrcset());
+        // And the same product uploading it again gets its existing image back
+        assertEquals(a.getId(), imageService.upload(first, file).orElseThrow().getId());
+        awaitIdle();
+        assertEquals(completedBefore + 1, completedTranscodes());
+    }
+
+    @Test
+    void undecodableImageIsMarkedFailedAndKeepsItsOriginal() throws Exception {
+        Long productId = createProduct();
+        byte[] valid = png(120, 120, Color.GREEN).getBytes();
+        // A PNG header passes the upload check; the truncated data fails to decode
+        MockMultipartFile truncated = new MockMultipartFile("file", "broken.png", "image/png",
+            Arrays.copyOf(valid, 60));
+
+        ProductImage uploaded = imageService.upload(productId, truncated).orElseThrow();
+
+        ProductImage done = awaitDone(uploaded.getId());
+        assertEquals(ProductImageService.FAILED, done.getStatus());
+        assertEquals(uploaded.getImageUrl(), done.getImageUrl());
+        assertTrue(Files.exists(file(done.getImageUrl())));
+    }
+
+    @Test
+    void notAnImageIsRejected() throws IOException {
+        Long productId = createProduct();
+        MockMultipartFile text = new MockMultipartFile("file", "notes.png", "image/png", "hello".getBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> imageService.upload(productId, text));
+        assertTrue(imageService.upload(-1L, text).isEmpty());
+    }
+
+    private ProductImage upload(Long productId, MockMultipartFile file) {
+        try {
+            return imageService.upload(productId, file).orElseThrow();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ProductImage awaitDone(Long imageId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20000;
+        while (true) {
+            ProductImage image = imageRepository.findById(imageId).orElseThrow();
+            if (!ProductImageService.PENDING.equals(image.getStatus()) || System.currentTimeMillis() > deadline) {
+                return image;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private void awaitIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20000;
+        while (System.currentTimeMillis() < deadline
+                && ((Integer) imageService.getStats().get("active") > 0 || (Integer) imageService.getStats().get("queued") > 0)) {
+            Thread.sleep(20);
+        }
+    }
+
+    private long completedTranscodes() {
+        return (Long) imageService.getStats().get("completed");
+    }
+
+    private static Path file(String url) {
+        return uploadDir.resolve(url.substring("/uploads/".length()));
+    }
+
+    private static MockMultipartFile png(int width, int height, Color color) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new MockMultipartFile("file", "image.png", "image/png", out.toByteArray());
+    }
+
+    private Long createProduct() {
+        Product product = new Product();
+        String sku = "IMG-" + System.nanoTime();
+        product.setSku(sku);
+        product.setName("Pictured item");
+        product.setSlug(sku.toLowerCase());
+        product.setBasePrice(new BigDecimal("100000"));
+        return productRepository.save(product).getId();
+    }
+}
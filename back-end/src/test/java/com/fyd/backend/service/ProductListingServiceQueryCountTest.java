@@ -0,0 +1,208 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.dto.ProductDTO;
+import com.fyd.backend.entity.Brand;
+import com.fyd.backend.entity.Category;
+import com.fyd.backend.entity.Color;
+import com.fyd.backend.entity.Product;
+import com.fyd.backend.entity.ProductImage;
+import com.fyd.backend.entity.ProductVariant;
+import com.fyd.backend.entity.Size;
+import com.fyd.backend.service.catalog.CatalogIndexService;
+import com.fyd.backend.service.catalog.CatalogQuery;
+import com.fyd.backend.service.catalog.CategoryTreeService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * The listing DTOs must be built with a fixed number of statements however many products
+ * a page holds. fetchVariantsByIdIn/fetchImagesByIdIn only fill the collections of the
+ * products already loaded because they share one persistence context; if that breaks,
+ * every product lazily loads its own variants and images and these counts grow with the page.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ProductListingService.class)
+class ProductListingServiceQueryCountTest {
+
+    private static final int PRODUCTS = 6;
+    private static final int VARIANTS_PER_PRODUCT = 3;
+    private static final int IMAGES_PER_PRODUCT = 2;
+
+    // Product query (category and brand joined) + variants + images
+    private static final long LIST_STATEMENTS = 3;
+    // Same plus the page count
+    private static final long PAGE_STATEMENTS = 4;
+
+    @Autowired
+    private ProductListingService listingService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private CatalogIndexService catalogIndexService;
+
+    @MockitoBean
+    private CategoryTreeService categoryTreeService;
+
+    private Statistics statistics;
+    private Category category;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        when(catalogIndexService.search(any())).thenReturn(Optional.empty());
+
+        category = new Category();
+        category.setName("Áo");
+        category.setSlug("ao");
+        entityManager.persist(category);
+        when(categoryTreeService.subtreeIds(anyLong())).thenReturn(List.of(category.getId()));
+
+        Brand brand = new Brand();
+        brand.setName("FYD");
+        brand.setSlug("fyd");
+        entityManager.persist(brand);
+
+        Color color = new Color();
+        color.setName("Đen");
+        entityManager.persist(color);
+
+        List<Size> sizes = new ArrayList<>();
+        for (String name : List.of("S", "M", "L")) {
+            Size size = new Size();
+            size.setName(name);
+            entityManager.persist(size);
+            sizes.add(size);
+        }
+
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setSku("SKU-" + i);
+            product.setName("Áo thun " + i);
+            product.setSlug("ao-thun-" + i);
+            product.setBasePrice(new BigDecimal("199000"));
+            product.setCategory(category);
+            product.setBrand(brand);
+            product.setIsFeatured(true);
+            product.setIsNew(true);
+            product.setIsFlashSale(true);
+            entityManager.persist(product);
+
+            for (int v = 0; v < VARIANTS_PER_PRODUCT; v++) {
+                ProductVariant variant = new ProductVariant();
+                variant.setProduct(product);
+                variant.setColor(color);
+                variant.setSize(sizes.get(v % sizes.size()));
+                variant.setSkuVariant("SKU-" + i + "-" + v);
+                variant.setStockQuantity(10);
+                entityManager.persist(variant);
+            }
+            for (int m = 0; m < IMAGES_PER_PRODUCT; m++) {
+                ProductImage image = new ProductImage();
+                image.setProduct(product);
+                image.setImageUrl("/uploads/products/" + i + "-" + m + ".jpg");
+                entityManager.persist(image);
+            }
+            products.add(product);
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void unfilteredPage() {
+        CatalogQuery query = new CatalogQuery();
+        query.setSize(PRODUCTS - 1);
+
+        Map<String, Object> page = countStatements(PAGE_STATEMENTS, () -> listingService.listProducts(query));
+        assertFullDtos(products(page), PRODUCTS - 1);
+    }
+
+    @Test
+    void filteredPageWithoutIndex() {
+        CatalogQuery query = new CatalogQuery();
+        query.setCategoryId(category.getId());
+        query.setSize(PRODUCTS - 1);
+
+        Map<String, Object> page = countStatements(PAGE_STATEMENTS, () -> listingService.listProducts(query));
+        assertFullDtos(products(page), PRODUCTS - 1);
+    }
+
+    @Test
+    void homepageSections() {
+        assertFullDtos(countStatements(LIST_STATEMENTS, listingService::findFeaturedDtos), PRODUCTS);
+        assertFullDtos(countStatements(LIST_STATEMENTS, listingService::findNewArrivalDtos), PRODUCTS);
+        assertFullDtos(countStatements(LIST_STATEMENTS, listingService::findFlashSaleDtos), PRODUCTS);
+        assertFullDtos(countStatements(LIST_STATEMENTS, () -> listingService.findTopSellingDtos(PRODUCTS)), PRODUCTS);
+    }
+
+    @Test
+    void indexedIds() {
+        List<Long> ids = products.stream().map(Product::getId).toList();
+
+        assertFullDtos(countStatements(LIST_STATEMENTS, () -> listingService.toDtosByIds(ids)), PRODUCTS);
+    }
+
+    @Test
+    void productDetail() {
+        Product product = products.get(0);
+
+        ProductDTO byId = countStatements(LIST_STATEMENTS, () -> listingService.findDto(product.getId())).orElseThrow();
+        ProductDTO bySku = countStatements(LIST_STATEMENTS, () -> listingService.findDtoBySku(product.getSku())).orElseThrow();
+        assertFullDtos(List.of(byId, bySku), 2);
+    }
+
+    // Runs the call against an empty persistence context, as a fresh request would
+    private <T> T countStatements(long expected, Supplier<T> call) {
+        entityManager.clear();
+        statistics.clear();
+        T result = call.get();
+        assertEquals(expected, statistics.getPrepareStatementCount(),
+            "statements: " + statistics.getPrepareStatementCount());
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ProductDTO> products(Map<String, Object> page) {
+        return (List<ProductDTO>) page.get("products");
+    }
+
+    private static void assertFullDtos(List<ProductDTO> dtos, int expectedSize) {
+        assertEquals(expectedSize, dtos.size());
+        for (ProductDTO dto : dtos) {
+            assertEquals(VARIANTS_PER_PRODUCT, dto.getVariants().size());
+            assertEquals(IMAGES_PER_PRODUCT, dto.getImages().size());
+        }
+    }
+}
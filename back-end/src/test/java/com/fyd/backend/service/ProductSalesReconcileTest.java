@@ -0,0 +1,94 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.service.catalog.CatalogChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The range splitting and bookkeeping of reconcile(); the statement itself is MySQL-only
+ * (multi-table UPDATE with a derived table), so the database is mocked here.
+ */
+class ProductSalesReconcileTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ProductCacheService productCacheService = mock(ProductCacheService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final ProductSalesService salesService = new ProductSalesService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(salesService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(salesService, "productCacheService", productCacheService);
+        ReflectionTestUtils.setField(salesService, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(salesService, "reconcileThreads", 2);
+        bounds("products", 1, 4500);
+        bounds("product_variants", 0, 0);
+    }
+
+    @Test
+    void everyIdRangeIsReconciledOnce() {
+        when(jdbcTemplate.update(contains("UPDATE products"), any(Object[].class))).thenReturn(1);
+
+        assertEquals(3, salesService.reconcile());
+
+        for (long[] range : List.of(new long[]{1, 2000}, new long[]{2001, 4000}, new long[]{4001, 4500})) {
+            verify(jdbcTemplate).update(contains("UPDATE products"), eq(range[0]), eq(range[1]), eq(range[0]), eq(range[1]));
+        }
+        // An empty table has no ranges
+        verify(jdbcTemplate, never()).update(contains("UPDATE product_variants"), any(Object[].class));
+    }
+
+    @Test
+    void correctionsRefreshCachesAndEtags() {
+        when(jdbcTemplate.update(contains("UPDATE products"), any(Object[].class))).thenReturn(2);
+
+        assertEquals(6, salesService.reconcile());
+
+        verify(productCacheService).invalidateAll();
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+            event instanceof CatalogChangedEvent changed && changed.getProductId() == null));
+    }
+
+    @Test
+    void nothingToCorrectChangesNothing() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(0);
+
+        assertEquals(0, salesService.reconcile());
+
+        verify(productCacheService, never()).invalidateAll();
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void aFailedRangeDoesNotStopTheOthers() {
+        when(jdbcTemplate.update(contains("UPDATE products"), any(Object[].class))).thenReturn(1);
+        when(jdbcTemplate.update(contains("UPDATE products"), eq(2001L), eq(4000L), eq(2001L), eq(4000L)))
+            .thenThrow(new QueryTimeoutException("lock wait timeout"));
+
+        assertEquals(2, salesService.reconcile());
+        verify(productCacheService).invalidateAll();
+    }
+
+    private void bounds(String table, long minId, long maxId) {
+        when(jdbcTemplate.queryForMap(contains("FROM " + table)))
+            .thenReturn(Map.of("min_id", minId, "max_id", maxId));
+    }
+}
@@ -0,0 +1,166 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.Order;
+import com.fyd.backend.entity.OrderItem;
+import com.fyd.backend.entity.Product;
+import com.fyd.backend.entity.ProductVariant;
+import com.fyd.backend.service.catalog.CatalogChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * adjust() against a real schema: counter SQL, clamping at zero and the change events.
+ * reconcile() uses MySQL's multi-table UPDATE and is covered in ProductSalesReconcileTest.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(ProductSalesService.class)
+@RecordApplicationEvents
+class ProductSalesServiceTest {
+
+    @Autowired
+    private ProductSalesService salesService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @MockitoBean
+    private ProductCacheService productCacheService;
+
+    private Product shirt;
+    private Product pants;
+    private ProductVariant shirtM;
+    private ProductVariant shirtL;
+    private Order first;
+    private Order second;
+
+    @BeforeEach
+    void setUp() {
+        shirt = product("SHIRT");
+        pants = product("PANTS");
+        shirtM = variant(shirt, "SHIRT-M");
+        shirtL = variant(shirt, "SHIRT-L");
+
+        first = order("FYD-1");
+        item(first, shirt, shirtM, 2);
+        item(first, shirt, shirtL, 1);
+        item(first, pants, null, 3);
+        second = order("FYD-2");
+        item(second, shirt, shirtM, 4);
+        entityManager.flush();
+        events.clear();
+    }
+
+    @Test
+    void deliveredOrdersAddToProductAndVariantCounters() {
+        salesService.adjust(List.of(first.getId(), second.getId()), 1);
+
+        assertEquals(7, soldCount("products", shirt.getId()));
+        assertEquals(3, soldCount("products", pants.getId()));
+        assertEquals(6, soldCount("product_variants", shirtM.getId()));
+        assertEquals(1, soldCount("product_variants", shirtL.getId()));
+    }
+
+    @Test
+    void cancellingADeliveredOrderTakesItsItemsBack() {
+        salesService.adjust(List.of(first.getId(), second.getId()), 1);
+        salesService.adjust(List.of(second.getId()), -1);
+
+        assertEquals(3, soldCount("products", shirt.getId()));
+        assertEquals(2, soldCount("product_variants", shirtM.getId()));
+        assertEquals(3, soldCount("products", pants.getId()));
+    }
+
+    @Test
+    void countersNeverGoBelowZero() {
+        salesService.adjust(List.of(first.getId()), 1);
+        salesService.adjust(List.of(first.getId(), second.getId()), -1);
+
+        assertEquals(0, soldCount("products", shirt.getId()));
+        assertEquals(0, soldCount("product_variants", shirtM.getId()));
+    }
+
+    @Test
+    void everyChangedProductIsAnnounced() {
+        salesService.adjust(List.of(first.getId()), 1);
+
+        List<Long> announced = events.stream(CatalogChangedEvent.class)
+            .map(CatalogChangedEvent::getProductId)
+            .sorted()
+            .toList();
+        assertEquals(List.of(shirt.getId(), pants.getId()).stream().sorted().toList(), announced);
+        // As sold-count changes, which the catalog index does not rebuild for
+        assertTrue(events.stream(CatalogChangedEvent.class)
+            .allMatch(event -> CatalogChangedEvent.SALES.equals(event.getEntityType())));
+    }
+
+    @Test
+    void noOrdersNoStatements() {
+        salesService.adjust(List.of(), 1);
+
+        assertEquals(0, events.stream(CatalogChangedEvent.class).count());
+        assertEquals(0, soldCount("products", shirt.getId()));
+    }
+
+    private int soldCount(String table, Long id) {
+        return jdbcTemplate.queryForObject("SELECT sold_count FROM " + table + " WHERE id = ?", Integer.class, id);
+    }
+
+    private Product product(String sku) {
+        Product product = new Product();
+        product.setSku(sku);
+        product.setName(sku);
+        product.setSlug(sku.toLowerCase());
+        product.setBasePrice(new BigDecimal("100000"));
+        return entityManager.persist(product);
+    }
+
+    private ProductVariant variant(Product product, String sku) {
+        ProductVariant variant = new ProductVariant();
+        variant.setProduct(product);
+        variant.setSkuVariant(sku);
+        return entityManager.persist(variant);
+    }
+
+    private Order order(String code) {
+        Order order = new Order();
+        order.setOrderCode(code);
+        order.setStatus("DELIVERED");
+        return entityManager.persist(order);
+    }
+
+    private void item(Order order, Product product, ProductVariant variant, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setOrder(order);
+        item.setProduct(product);
+        item.setVariant(variant);
+        item.setProductName(product.getName());
+        item.setQuantity(quantity);
+        item.setUnitPrice(product.getBasePrice());
+        item.setLineTotal(product.getBasePrice().multiply(BigDecimal.valueOf(quantity)));
+        entityManager.persist(item);
+    }
+}
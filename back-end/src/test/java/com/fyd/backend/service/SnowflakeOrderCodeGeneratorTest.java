@@ -0,0 +1,88 @@
+package com.fyd.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeOrderCodeGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int CODES_PER_THREAD = 50_000;
+
+    @Test
+    void concurrentCallersGetUniqueIncreasingCodes() throws Exception {
+        SnowflakeOrderCodeGenerator generator = new SnowflakeOrderCodeGenerator(7);
+
+        List<String[]> perThread = generateConcurrently(List.of(generator), THREADS);
+
+        Set<String> all = new HashSet<>();
+        for (String[] codes : perThread) {
+            for (int i = 0; i < codes.length; i++) {
+                assertTrue(all.add(codes[i]), "duplicate code " + codes[i]);
+                if (i > 0) {
+                    // Fixed-width base32, so string order is issue order
+                    assertTrue(codes[i].compareTo(codes[i - 1]) > 0, codes[i - 1] + " then " + codes[i]);
+                }
+            }
+        }
+        assertEquals(THREADS * CODES_PER_THREAD, all.size());
+    }
+
+    @Test
+    void nodesNeverCollide() throws Exception {
+        List<SnowflakeOrderCodeGenerator> nodes = List.of(
+            new SnowflakeOrderCodeGenerator(1), new SnowflakeOrderCodeGenerator(2),
+            new SnowflakeOrderCodeGenerator(3), new SnowflakeOrderCodeGenerator(4));
+
+        List<String[]> perThread = generateConcurrently(nodes, THREADS);
+
+        Set<String> all = new HashSet<>();
+        perThread.forEach(codes -> all.addAll(List.of(codes)));
+        assertEquals(THREADS * CODES_PER_THREAD, all.size());
+    }
+
+    @Test
+    void codesHaveFixedWidth() {
+        SnowflakeOrderCodeGenerator generator = new SnowflakeOrderCodeGenerator(1023);
+        String code = generator.nextCode();
+        assertTrue(code.matches("FYD-[0-9A-HJKMNP-TV-Z]{13}"), code);
+        assertEquals("0000000000000", SnowflakeOrderCodeGenerator.encode(0));
+    }
+
+    // Thread i draws from generator i % size, all starting together
+    private static List<String[]> generateConcurrently(List<SnowflakeOrderCodeGenerator> generators, int threads)
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            SnowflakeOrderCodeGenerator generator = generators.get(t % generators.size());
+            futures.add(pool.submit(() -> {
+                start.await();
+                String[] codes = new String[CODES_PER_THREAD];
+                for (int i = 0; i < CODES_PER_THREAD; i++) {
+                    codes[i] = generator.nextCode();
+                }
+                return codes;
+            }));
+        }
+        start.countDown();
+        List<String[]> results = new ArrayList<>();
+        for (Future<String[]> future : futures) {
+            results.add(future.get(60, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+        return results;
+    }
+}
@@ -0,0 +1,171 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.Product;
+import com.fyd.backend.entity.ProductVariant;
+import com.fyd.backend.repository.ProductRepository;
+import com.fyd.backend.repository.ProductVariantRepository;
+import com.fyd.backend.service.catalog.CatalogVersionService;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Many checkouts racing for one hot variant: every unit is sold exactly once and the
+ * rest are rejected. Logs the reservation throughput of the run.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(StockReservationService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StockReservationServiceConcurrencyTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationServiceConcurrencyTest.class);
+
+    private static final int STOCK = 500;
+    private static final int CHECKOUTS = 2000;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductVariantRepository variantRepository;
+
+    @MockitoBean
+    private ProductCacheService productCacheService;
+
+    @MockitoBean
+    private CatalogVersionService catalogVersionService;
+
+    @MockitoBean
+    private InventoryLedgerService inventoryLedgerService;
+
+    @Test
+    void concurrentCheckoutsOnOneVariantNeverOversell() throws Exception {
+        Long variantId = createVariant(STOCK);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < CHECKOUTS; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    stockReservationService.reserve(List.of(new StockReservationService.Line(variantId, 1, "hot")));
+                    reserved.incrementAndGet();
+                } catch (StockReservationService.InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        pool.shutdown();
+
+        assertEquals(STOCK, reserved.get());
+        assertEquals(CHECKOUTS - STOCK, rejected.get());
+        Object[] row = variantRepository.findStockByIds(List.of(variantId)).get(0);
+        assertEquals(0, row[1]);
+
+        Map<String, Object> stats = stockReservationService.getStats();
+        assertEquals((long) STOCK, stats.get("reservedOrders"));
+        logger.info("{} checkouts on one variant from {} threads in {} ms: {} checkouts/s, avg reserve {} ms",
+            CHECKOUTS, THREADS, elapsedMs, CHECKOUTS * 1000L / elapsedMs, stats.get("avgReserveMs"));
+    }
+
+    @Test
+    void manualChangesDuringCheckoutsAreNotLost() throws Exception {
+        Long variantId = createVariant(100);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reserved = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            boolean restock = i % 4 == 0;
+            futures.add(pool.submit(() -> {
+                start.await();
+                if (restock) {
+                    stockReservationService.adjustStock(variantId, 2, InventoryLedgerService.ADJUST, null);
+                    return null;
+                }
+                try {
+                    stockReservationService.reserve(List.of(new StockReservationService.Line(variantId, 1, "hot")));
+                    reserved.incrementAndGet();
+                } catch (StockReservationService.InsufficientStockException e) {
+                    // Sold out for now
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // 50 restocks of 2 units; a stale read-modify-write would drop some of them or resurrect sold units
+        Object[] row = variantRepository.findStockByIds(List.of(variantId)).get(0);
+        assertEquals(100 + 50 * 2 - reserved.get(), row[1]);
+    }
+
+    @Test
+    void nonPositiveQuantityIsRejected() {
+        Long variantId = createVariant(10);
+        assertThrows(IllegalArgumentException.class, () -> stockReservationService.reserve(
+            List.of(new StockReservationService.Line(variantId, -3, "negative"))));
+        assertThrows(IllegalArgumentException.class, () -> stockReservationService.reserve(
+            List.of(new StockReservationService.Line(variantId, 0, "zero"))));
+        assertEquals(10, variantRepository.findStockByIds(List.of(variantId)).get(0)[1]);
+    }
+
+    private Long createVariant(int stock) {
+        Product product = new Product();
+        String sku = "HOT-" + System.nanoTime();
+        product.setSku(sku);
+        product.setName("Hot item");
+        product.setSlug(sku.toLowerCase());
+        product.setBasePrice(new BigDecimal("100000"));
+        product = productRepository.save(product);
+
+        ProductVariant variant = new ProductVariant();
+        variant.setProduct(product);
+        variant.setSkuVariant(sku + "-DEF");
+        variant.setStockQuantity(stock);
+        return variantRepository.save(variant).getId();
+    }
+}
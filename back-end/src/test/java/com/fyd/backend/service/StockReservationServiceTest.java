@@ -0,0 +1,152 @@
+package com.fyd.backend.service;
+
+import com.fyd.backend.entity.Product;
+import com.fyd.backend.entity.ProductVariant;
+import com.fyd.backend.service.catalog.CatalogVersionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Manual stock changes and giving stock back for cancelled orders. Concurrent checkouts
+ * are in StockReservationServiceConcurrencyTest.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(StockReservationService.class)
+class StockReservationServiceTest {
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private ProductCacheService productCacheService;
+
+    @MockitoBean
+    private CatalogVersionService catalogVersionService;
+
+    @MockitoBean
+    private InventoryLedgerService inventoryLedgerService;
+
+    private Product product;
+    private ProductVariant small;
+    private ProductVariant medium;
+
+    @BeforeEach
+    void setUp() {
+        product = new Product();
+        product.setSku("TEE");
+        product.setName("Tee");
+        product.setSlug("tee");
+        product.setBasePrice(new BigDecimal("100000"));
+        entityManager.persist(product);
+        small = variant("TEE-S", 10);
+        medium = variant("TEE-M", 3);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void adjustAddsAndRecordsTheChange() {
+        ProductVariant updated = stockReservationService.adjustStock(small.getId(), 5, InventoryLedgerService.RETURN, "RMA-7")
+            .orElseThrow();
+        entityManager.flush();
+
+        assertEquals(15, updated.getStockQuantity());
+        assertEquals(15, stock(small.getId()));
+        verify(inventoryLedgerService).record(small.getId(), InventoryLedgerService.RETURN, 5, 15, "RMA-7");
+    }
+
+    @Test
+    void adjustBelowZeroRecordsOnlyWhatWasTaken() {
+        stockReservationService.adjustStock(medium.getId(), -8, InventoryLedgerService.ADJUST, null);
+        entityManager.flush();
+
+        assertEquals(0, stock(medium.getId()));
+        verify(inventoryLedgerService).record(medium.getId(), InventoryLedgerService.ADJUST, -3, 0, null);
+    }
+
+    @Test
+    void setStockRecordsTheDifference() {
+        stockReservationService.setStock(small.getId(), 4, "stock-count");
+        entityManager.flush();
+
+        assertEquals(4, stock(small.getId()));
+        verify(inventoryLedgerService).record(small.getId(), InventoryLedgerService.ADJUST, -6, 4, "stock-count");
+    }
+
+    @Test
+    void unknownVariantIsNotFound() {
+        assertTrue(stockReservationService.adjustStock(-1L, 5, InventoryLedgerService.ADJUST, null).isEmpty());
+        assertTrue(stockReservationService.setStock(-1L, 5, null).isEmpty());
+        verify(inventoryLedgerService, never()).record(any(), anyString(), anyInt(), any(), any());
+    }
+
+    @Test
+    void releaseGivesStockBackPerOrder() {
+        Map<String, List<StockReservationService.Line>> lines = new LinkedHashMap<>();
+        lines.put("FYD-1", List.of(
+            new StockReservationService.Line(small.getId(), 2, "FYD-1"),
+            new StockReservationService.Line(small.getId(), 1, "FYD-1"),
+            new StockReservationService.Line(medium.getId(), 1, "FYD-1")));
+        lines.put("FYD-2", List.of(new StockReservationService.Line(small.getId(), 4, "FYD-2")));
+
+        stockReservationService.release(lines);
+
+        assertEquals(17, stock(small.getId()));
+        assertEquals(4, stock(medium.getId()));
+        verify(inventoryLedgerService).record(small.getId(), InventoryLedgerService.CANCEL, 3, null, "FYD-1");
+        verify(inventoryLedgerService).record(medium.getId(), InventoryLedgerService.CANCEL, 1, null, "FYD-1");
+        verify(inventoryLedgerService).record(small.getId(), InventoryLedgerService.CANCEL, 4, null, "FYD-2");
+        verify(productCacheService).invalidateVariantsAfterCommit(Set.of(small.getId(), medium.getId()));
+        verify(catalogVersionService).productsChangedAfterCommit(Set.of(product.getId()));
+    }
+
+    @Test
+    void releasingNothingChangesNothing() {
+        stockReservationService.release(Map.of());
+
+        verify(productCacheService, never()).invalidateVariantsAfterCommit(any());
+        assertEquals(10, stock(small.getId()));
+    }
+
+    private int stock(Long variantId) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM product_variants WHERE id = ?", Integer.class, variantId);
+    }
+
+    private ProductVariant variant(String sku, int stock) {
+        ProductVariant variant = new ProductVariant();
+        variant.setProduct(product);
+        variant.setSkuVariant(sku);
+        variant.setStockQuantity(stock);
+        return entityManager.persist(variant);
+    }
+}
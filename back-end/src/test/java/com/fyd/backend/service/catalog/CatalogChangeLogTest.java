@@ -0,0 +1,121 @@
+package com.fyd.backend.service.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Two instances sharing one catalog_changes table: what one commits, the other replays.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class CatalogChangeLogTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ApplicationEventPublisher firstEvents = mock(ApplicationEventPublisher.class);
+    private final ApplicationEventPublisher secondEvents = mock(ApplicationEventPublisher.class);
+
+    @Test
+    void changesCommittedOnOneInstanceAreReplayedOnTheOther() {
+        CatalogChangeLog first = instance(firstEvents);
+        CatalogChangeLog second = instance(secondEvents);
+
+        first.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.VARIANT, 10L, 1L));
+        first.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.COLOR, 3L, null));
+        first.stockChanged(List.of(2L));
+        first.sync();
+        second.sync();
+
+        List<CatalogChangedEvent> replayed = published(secondEvents, 3);
+        assertEquals(List.of(CatalogChangedEvent.COLOR, CatalogChangedEvent.VARIANT, CatalogChangedEvent.STOCK),
+            replayed.stream().map(CatalogChangedEvent::getEntityType).sorted().toList());
+        assertTrue(replayed.stream().allMatch(CatalogChangedEvent::isReplayed));
+        CatalogChangedEvent variant = replayed.stream()
+            .filter(e -> CatalogChangedEvent.VARIANT.equals(e.getEntityType())).findFirst().orElseThrow();
+        assertEquals(1L, variant.getProductId());
+        assertNull(replayed.stream()
+            .filter(e -> CatalogChangedEvent.COLOR.equals(e.getEntityType())).findFirst().orElseThrow().getProductId());
+
+        // Its own changes were applied when they committed
+        verify(firstEvents, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void repeatedChangesAreSharedOnce() {
+        CatalogChangeLog first = instance(firstEvents);
+
+        for (int i = 0; i < 50; i++) {
+            first.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.PRODUCT, 1L, 1L));
+            first.stockChanged(List.of(1L));
+        }
+        first.sync();
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM catalog_changes", Integer.class));
+    }
+
+    @Test
+    void replayedEventsAreNotSharedAgain() {
+        CatalogChangeLog first = instance(firstEvents);
+
+        first.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.PRODUCT, null, 1L, true));
+        first.sync();
+
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM catalog_changes", Integer.class));
+    }
+
+    @Test
+    void anIdThatShowsUpLateIsStillReplayed() {
+        CatalogChangeLog second = instance(secondEvents);
+        long last = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM catalog_changes", Long.class);
+
+        // The append holding last + 1 commits after the one holding last + 2
+        insert(last + 2, 2L);
+        second.sync();
+        insert(last + 1, 1L);
+        second.sync();
+
+        List<CatalogChangedEvent> replayed = published(secondEvents, 2);
+        assertEquals(List.of(2L, 1L), replayed.stream().map(CatalogChangedEvent::getProductId).toList());
+    }
+
+    private CatalogChangeLog instance(ApplicationEventPublisher events) {
+        CatalogChangeLog log = new CatalogChangeLog();
+        ReflectionTestUtils.setField(log, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(log, "eventPublisher", events);
+        log.init();
+        return log;
+    }
+
+    private void insert(long id, Long productId) {
+        jdbcTemplate.update("INSERT INTO catalog_changes (id, origin, entity_type, product_id, changed_at) VALUES (?, ?, ?, ?, ?)",
+            id, "elsewhere", CatalogChangedEvent.PRODUCT, productId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private static List<CatalogChangedEvent> published(ApplicationEventPublisher events, int count) {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(events, times(count)).publishEvent(captor.capture());
+        return captor.getAllValues().stream().map(CatalogChangedEvent.class::cast).toList();
+    }
+}
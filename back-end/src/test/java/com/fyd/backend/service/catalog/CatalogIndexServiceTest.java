@@ -0,0 +1,60 @@
+package com.fyd.backend.service.catalog;
+
+import com.fyd.backend.repository.BrandRepository;
+import com.fyd.backend.repository.CategoryRepository;
+import com.fyd.backend.repository.ColorRepository;
+import com.fyd.backend.repository.ProductImageRepository;
+import com.fyd.backend.repository.ProductRepository;
+import com.fyd.backend.repository.ProductVariantRepository;
+import com.fyd.backend.repository.SizeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Which changes make the snapshot stale.
+ */
+class CatalogIndexServiceTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final CatalogIndexService index = new CatalogIndexService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "productRepository", productRepository);
+        ReflectionTestUtils.setField(index, "variantRepository", mock(ProductVariantRepository.class));
+        ReflectionTestUtils.setField(index, "imageRepository", mock(ProductImageRepository.class));
+        ReflectionTestUtils.setField(index, "categoryRepository", mock(CategoryRepository.class));
+        ReflectionTestUtils.setField(index, "brandRepository", mock(BrandRepository.class));
+        ReflectionTestUtils.setField(index, "colorRepository", mock(ColorRepository.class));
+        ReflectionTestUtils.setField(index, "sizeRepository", mock(SizeRepository.class));
+        index.refreshIfStale();
+    }
+
+    @Test
+    void soldCountStockAndZoneChangesDoNotRebuild() {
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.SALES, 1L, 1L));
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.STOCK, null, 1L, true));
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.FEATURED_ZONE, 3L, null));
+        index.refreshIfStale();
+
+        verify(productRepository, times(1)).findCatalogRows();
+        assertEquals(1, index.getSnapshotVersion());
+    }
+
+    @Test
+    void productChangesRebuildOncePerBurst() {
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.PRODUCT, 1L, 1L));
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.VARIANT, 10L, 1L));
+        index.refreshIfStale();
+        index.refreshIfStale();
+
+        verify(productRepository, times(2)).findCatalogRows();
+        assertEquals(2, index.getSnapshotVersion());
+    }
+}
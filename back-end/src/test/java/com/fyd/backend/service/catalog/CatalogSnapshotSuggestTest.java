@@ -0,0 +1,126 @@
+package com.fyd.backend.service.catalog;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Search-as-you-type over a 100k-product catalog: every keystroke is one suggest() call,
+ * so each prefix of the typed queries must answer within the 5 ms budget.
+ */
+class CatalogSnapshotSuggestTest {
+
+    private static final int PRODUCTS = 100_000;
+    private static final int LIMIT = 8;
+    private static final double BUDGET_MS = 5.0;
+
+    private static final String[] TYPES = {"Áo thun", "Áo polo", "Áo sơ mi", "Quần jean", "Quần kaki", "Váy",
+        "Đầm", "Áo khoác", "Chân váy", "Quần short"};
+    private static final String[] STYLES = {"basic", "oversize", "slim fit", "cổ tròn", "cổ bẻ", "tay dài",
+        "tay ngắn", "họa tiết", "kẻ sọc", "trơn", "unisex", "công sở"};
+    private static final String[] BRANDS = {"FYD", "Nike", "Adidas", "Uniqlo", "Zara", "Routine", "Owen", "Coolmate"};
+
+    private static CatalogSnapshot snapshot;
+
+    @BeforeAll
+    static void buildCatalog() {
+        Random random = new Random(42);
+        Map<Long, String> categories = new HashMap<>();
+        for (int c = 0; c < TYPES.length; c++) {
+            categories.put((long) c + 1, TYPES[c]);
+        }
+        Map<Long, String> brands = new HashMap<>();
+        for (int b = 0; b < BRANDS.length; b++) {
+            brands.put((long) b + 1, BRANDS[b]);
+        }
+
+        List<Object[]> products = new ArrayList<>(PRODUCTS);
+        List<Object[]> variants = new ArrayList<>(PRODUCTS * 3);
+        List<Object[]> images = new ArrayList<>(PRODUCTS);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            int type = random.nextInt(TYPES.length);
+            int brand = random.nextInt(BRANDS.length);
+            String name = TYPES[type] + " " + STYLES[random.nextInt(STYLES.length)] + " "
+                + BRANDS[brand] + " " + (1000 + random.nextInt(9000));
+            products.add(new Object[]{id, name, "FYD-" + id, (long) type + 1, (long) brand + 1,
+                BigDecimal.valueOf(99_000 + random.nextInt(900) * 1000L), LocalDateTime.now().minusDays(random.nextInt(365)),
+                random.nextInt(5000), random.nextInt(50_000), "p-" + id, null});
+            for (long size = 1; size <= 3; size++) {
+                variants.add(new Object[]{id, (long) random.nextInt(12) + 1, size});
+            }
+            images.add(new Object[]{id, "/uploads/products/" + id + ".jpg"});
+        }
+        snapshot = new CatalogSnapshot(products, variants, images, Map.of("category", categories, "brand", brands));
+    }
+
+    @Test
+    void suggestsAccentInsensitivePrefixMatches() {
+        List<Map<String, Object>> suggestions = snapshot.suggest("quan je", LIMIT);
+
+        assertEquals(LIMIT, suggestions.size());
+        for (Map<String, Object> item : suggestions) {
+            assertTrue(((String) item.get("name")).startsWith("Quần jean"), item.toString());
+            assertEquals("Quần jean", item.get("category"));
+            assertTrue(((String) item.get("thumbnail")).startsWith("/uploads/products/"));
+        }
+        assertTrue(snapshot.suggest("zzzz", LIMIT).isEmpty());
+        assertFalse(snapshot.suggest("FYD-4242", LIMIT).isEmpty());
+    }
+
+    @Test
+    void everyKeystrokeStaysWithinBudget() {
+        String[] typed = {"ao thun oversize", "quan jean nike", "dam cong so", "FYD-98765", "uniqlo ao khoac"};
+        List<String> keystrokes = new ArrayList<>();
+        for (String query : typed) {
+            for (int end = 1; end <= query.length(); end++) {
+                keystrokes.add(query.substring(0, end));
+            }
+        }
+
+        // Warm up the JIT before timing
+        for (int round = 0; round < 20; round++) {
+            keystrokes.forEach(q -> snapshot.suggest(q, LIMIT));
+        }
+
+        // Judged on each keystroke's median, so a GC pause or a busy build machine does not
+        // fail the test; the overall p99 is printed alongside
+        int rounds = 21;
+        long[] all = new long[keystrokes.size() * rounds];
+        double worstMedianMs = 0;
+        String worstKeystroke = null;
+        for (int k = 0; k < keystrokes.size(); k++) {
+            long[] nanos = new long[rounds];
+            for (int round = 0; round < rounds; round++) {
+                long started = System.nanoTime();
+                snapshot.suggest(keystrokes.get(k), LIMIT);
+                nanos[round] = System.nanoTime() - started;
+                all[k * rounds + round] = nanos[round];
+            }
+            Arrays.sort(nanos);
+            double medianMs = nanos[rounds / 2] / 1e6;
+            if (medianMs > worstMedianMs) {
+                worstMedianMs = medianMs;
+                worstKeystroke = keystrokes.get(k);
+            }
+        }
+        Arrays.sort(all);
+        System.out.printf("suggest() over %d products, %d calls: median %.3f ms, p99 %.3f ms, " +
+                "slowest keystroke \"%s\" %.3f ms%n",
+            PRODUCTS, all.length, all[all.length / 2] / 1e6, all[(int) (all.length * 0.99)] / 1e6,
+            worstKeystroke, worstMedianMs);
+
+        assertTrue(worstMedianMs < BUDGET_MS, "\"" + worstKeystroke + "\" took " + worstMedianMs + " ms");
+    }
+}
@@ -0,0 +1,70 @@
+package com.fyd.backend.service.catalog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class CatalogVersionServiceTest {
+
+    private final CatalogVersionService versions = new CatalogVersionService();
+    private final CatalogChangeLog changeLog = mock(CatalogChangeLog.class);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(versions, "changeLog", changeLog);
+    }
+
+    @Test
+    void checkoutChangesOnlyTheBoughtProductsAndListings() {
+        String bought = versions.productEtag(1L);
+        String other = versions.productEtag(2L);
+        String listing = versions.etag(CatalogVersionService.PRODUCTS);
+
+        versions.productsChangedAfterCommit(List.of(1L));
+
+        assertNotEquals(bought, versions.productEtag(1L));
+        assertEquals(other, versions.productEtag(2L));
+        assertNotEquals(listing, versions.etag(CatalogVersionService.PRODUCTS));
+        verify(changeLog).stockChanged(List.of(1L));
+    }
+
+    @Test
+    void replayedStockChangeActsLikeALocalOne() {
+        String bought = versions.productEtag(1L);
+        String other = versions.productEtag(2L);
+
+        versions.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.STOCK, null, 1L, true));
+
+        assertNotEquals(bought, versions.productEtag(1L));
+        assertEquals(other, versions.productEtag(2L));
+    }
+
+    @Test
+    void productEditChangesOnlyThatProduct() {
+        String edited = versions.productEtag(1L);
+        String other = versions.productEtag(2L);
+
+        versions.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.VARIANT, 10L, 1L));
+
+        assertNotEquals(edited, versions.productEtag(1L));
+        assertEquals(other, versions.productEtag(2L));
+    }
+
+    @Test
+    void referenceDataAndBulkChangesReachEveryProduct() {
+        String before = versions.productEtag(2L);
+        versions.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.COLOR, 3L, null));
+        String afterColor = versions.productEtag(2L);
+        versions.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.PRODUCT, null, null));
+
+        assertNotEquals(before, afterColor);
+        assertNotEquals(afterColor, versions.productEtag(2L));
+    }
+}
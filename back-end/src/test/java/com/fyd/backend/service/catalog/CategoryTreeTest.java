@@ -0,0 +1,112 @@
+package com.fyd.backend.service.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CategoryTreeTest {
+
+    // Áo (1) > Áo thun (2) > Áo thun nam (4), Áo (1) > Áo polo (3); Quần (5) has no children
+    private static final List<Object[]> ROWS = List.of(
+        row(1L, null, "Áo", 1),
+        row(5L, null, "Quần", 2),
+        row(2L, 1L, "Áo thun", 1),
+        row(3L, 1L, "Áo polo", 2),
+        row(4L, 2L, "Áo thun nam", 1)
+    );
+
+    private static final Map<Long, Long> COUNTS = Map.of(1L, 1L, 2L, 5L, 3L, 2L, 4L, 7L, 5L, 4L);
+
+    @Test
+    void subtreeCoversEveryDescendant() {
+        CategoryTree tree = new CategoryTree(1, ROWS, COUNTS);
+
+        assertEquals(List.of(1L, 2L, 4L, 3L), tree.subtreeIds(1L));
+        assertEquals(List.of(2L, 4L), tree.subtreeIds(2L));
+        assertEquals(List.of(4L), tree.subtreeIds(4L));
+        assertEquals(List.of(5L), tree.subtreeIds(5L));
+    }
+
+    @Test
+    void unknownCategoryIsItsOwnSubtree() {
+        CategoryTree tree = new CategoryTree(1, ROWS, COUNTS);
+
+        assertEquals(List.of(99L), tree.subtreeIds(99L));
+        assertEquals(List.of(), tree.path(99L));
+    }
+
+    @Test
+    void countsAddUpTheSubtree() {
+        CategoryTree tree = new CategoryTree(1, ROWS, COUNTS);
+        Map<String, Object> ao = tree.getRoots().get(0);
+        Map<String, Object> aoThun = children(ao).get(0);
+
+        assertEquals(1L, ao.get("directProductCount"));
+        assertEquals(1L + 5L + 7L + 2L, ao.get("productCount"));
+        assertEquals(5L, aoThun.get("directProductCount"));
+        assertEquals(5L + 7L, aoThun.get("productCount"));
+        assertEquals(4L, tree.getRoots().get(1).get("productCount"));
+    }
+
+    @Test
+    void categoriesWithoutProductsCountZero() {
+        CategoryTree tree = new CategoryTree(1, ROWS, Map.of());
+
+        assertEquals(0L, tree.getRoots().get(0).get("productCount"));
+        assertEquals(0L, children(tree.getRoots().get(0)).get(0).get("directProductCount"));
+    }
+
+    @Test
+    void nodesKnowTheirPathAndDepth() {
+        CategoryTree tree = new CategoryTree(1, ROWS, COUNTS);
+        Map<String, Object> aoThunNam = children(children(tree.getRoots().get(0)).get(0)).get(0);
+
+        assertEquals(List.of(1L, 2L, 4L), tree.path(4L));
+        assertEquals(List.of(1L, 2L, 4L), aoThunNam.get("path"));
+        assertEquals(2, aoThunNam.get("depth"));
+        assertEquals("Áo thun nam", aoThunNam.get("name"));
+        assertEquals(2L, aoThunNam.get("parentId"));
+    }
+
+    @Test
+    void rootsAndChildrenKeepTheRowOrder() {
+        CategoryTree tree = new CategoryTree(1, ROWS, COUNTS);
+
+        assertEquals(List.of(1L, 5L), tree.getRoots().stream().map(node -> node.get("id")).toList());
+        assertEquals(List.of(2L, 3L), children(tree.getRoots().get(0)).stream().map(node -> node.get("id")).toList());
+    }
+
+    @Test
+    void orphansAndCyclesAreHidden() {
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        // Parent 42 is inactive (not in the rows); 7 and 8 point at each other
+        rows.add(row(6L, 42L, "Mồ côi", 1));
+        rows.add(row(7L, 8L, "Vòng A", 1));
+        rows.add(row(8L, 7L, "Vòng B", 1));
+        Map<Long, Long> counts = new HashMap<>(COUNTS);
+        counts.put(6L, 3L);
+        counts.put(7L, 3L);
+        CategoryTree tree = new CategoryTree(1, rows, counts);
+
+        assertEquals(2, tree.getRoots().size());
+        assertEquals(1L + 5L + 7L + 2L, tree.getRoots().get(0).get("productCount"), "counts unchanged");
+        assertTrue(tree.path(6L).isEmpty());
+        assertTrue(tree.path(7L).isEmpty());
+        assertEquals(List.of(7L), tree.subtreeIds(7L));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> children(Map<String, Object> node) {
+        return (List<Map<String, Object>>) node.get("children");
+    }
+
+    private static Object[] row(Long id, Long parentId, String name, int sortOrder) {
+        return new Object[]{id, parentId, name, name.toLowerCase(), null, null, sortOrder};
+    }
+}
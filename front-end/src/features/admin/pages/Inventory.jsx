@@ -1,10 +1,12 @@
-import { useState, useEffect } from "react";
+import { useState, useEffect, useRef } from "react";
 import "../styles/dashboard.css";
 import "../styles/pages.css";
 import api, { formatVND, reportAPI } from "@shared/utils/api.js";
 import { useToast } from "@shared/context/ToastContext";
 import { useTranslation } from "react-i18next";
 
+const PAGE_SIZE = 50;
+
 function LevelTag({ stock }) {
   const { t } = useTranslation();
   if (stock <= 0) return <span className="badgeStock out">{t("products.stock_out").toUpperCase()} • {stock}</span>;
@@ -20,10 +22,14 @@ export default function Inventory() {
   const [categoryId, setCategoryId] = useState("");
   const [sizeId, setSizeId] = useState("");
   const [sort, setSort] = useState("stockAsc");
+  const [page, setPage] = useState(0);
+  const [totalPages, setTotalPages] = useState(0);
   const [categories, setCategories] = useState([]);
   const [sizes, setSizes] = useState([]);
   const [summary, setSummary] = useState({ low: 0, out: 0, total: 0 });
   const [loading, setLoading] = useState(true);
+  // Only the latest request may update the list; older responses can arrive after it
+  const latestRequest = useRef(0);
 
   // Editing state
   const [editingId, setEditingId] = useState(null);
@@ -48,6 +54,7 @@ export default function Inventory() {
   }, []);
 
   async function loadInventory() {
+    const requestId = ++latestRequest.current;
     setLoading(true);
     try {
       const res = await api.inventory.getAll({
@@ -55,9 +62,13 @@ export default function Inventory() {
         filter,
         categoryId: categoryId || undefined,
         sizeId: sizeId || undefined,
-        sort
+        sort,
+        page,
+        size: PAGE_SIZE
       });
+      if (requestId !== latestRequest.current) return;
       setItems(res.items || []);
+      setTotalPages(res.totalPages || 0);
       setSummary({
         low: res.lowCount || 0,
         out: res.outCount || 0,
@@ -66,13 +77,19 @@ export default function Inventory() {
     } catch (error) {
       console.error("Failed to load inventory:", error);
     } finally {
-      setLoading(false);
+      if (requestId === latestRequest.current) setLoading(false);
     }
   }
 
+  // Any filter change starts again from the first page, in the same render so only one request goes out
+  const changeFilter = (setter) => (e) => {
+    setter(e.target.value);
+    setPage(0);
+  };
+
   useEffect(() => {
     loadInventory();
-  }, [q, filter, categoryId, sizeId, sort]);
+  }, [q, filter, categoryId, sizeId, sort, page]);
 
   const handleStartEdit = (item) => {
     setEditingId(item.id);
@@ -163,30 +180,30 @@ export default function Inventory() {
             style={{ flex: 2, minWidth: '200px' }}
             placeholder={t("inventory.search_placeholder")}
             value={q}
-            onChange={(e) => setQ(e.target.value)}
+            onChange={changeFilter(setQ)}
           />
 
-          <select className="miniSelect" style={{ flex: 1 }} value={categoryId} onChange={(e) => setCategoryId(e.target.value)}>
+          <select className="miniSelect" style={{ flex: 1 }} value={categoryId} onChange={changeFilter(setCategoryId)}>
             <option value="">{t("inventory.all_cats")}</option>
             {categories.map(c => (
               <option key={c.id} value={c.id}>{c.name}</option>
             ))}
           </select>
 
-          <select className="miniSelect" style={{ flex: 1 }} value={sizeId} onChange={(e) => setSizeId(e.target.value)}>
+          <select className="miniSelect" style={{ flex: 1 }} value={sizeId} onChange={changeFilter(setSizeId)}>
             <option value="">{t("inventory.all_sizes")}</option>
             {sizes.map(s => (
               <option key={s.id} value={s.id}>{t("products.size")}: {s.name}</option>
             ))}
           </select>
 
-          <select className="miniSelect" style={{ flex: 1 }} value={filter} onChange={(e) => setFilter(e.target.value)}>
+          <select className="miniSelect" style={{ flex: 1 }} value={filter} onChange={changeFilter(setFilter)}>
             <option value="all">{t("inventory.all_status")}</option>
             <option value="low">{t("inventory.low_alert")}</option>
             <option value="out">{t("inventory.out_alert")}</option>
           </select>
 
-          <select className="miniSelect" style={{ flex: 1 }} value={sort} onChange={(e) => setSort(e.target.value)}>
+          <select className="miniSelect" style={{ flex: 1 }} value={sort} onChange={changeFilter(setSort)}>
             <option value="stockAsc">{t("inventory.sort_low")}</option>
             <option value="stockDesc">{t("inventory.sort_high")}</option>
             <option value="priceAsc">{t("inventory.sort_price_low")}</option>
@@ -282,6 +299,18 @@ export default function Inventory() {
               </div>
             );
           })}
+
+          {totalPages > 1 && (
+            <div style={{ display: "flex", gap: 10, justifyContent: "center", alignItems: "center", padding: "16px 0" }}>
+              <button className="btnMini btnGhost" disabled={page === 0} onClick={() => setPage((p) => p - 1)}>
+                ‹
+              </button>
+              <span className="mono">{page + 1} / {totalPages}</span>
+              <button className="btnMini btnGhost" disabled={page >= totalPages - 1} onClick={() => setPage((p) => p + 1)}>
+                ›
+              </button>
+            </div>
+          )}
         </div>
       )}
     </div>
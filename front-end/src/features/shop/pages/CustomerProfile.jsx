@@ -16,6 +16,9 @@ export default function CustomerProfile() {
     const [customer, setCustomer] = useState(null);
     const [loading, setLoading] = useState(true);
     const [orders, setOrders] = useState([]);
+    const [totalOrders, setTotalOrders] = useState(0);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [categories, setCategories] = useState([]);
     const [activeTab, setActiveTab] = useState("overview"); // overview, edit, orders
     const [saving, setSaving] = useState(false);
@@ -76,6 +79,8 @@ export default function CustomerProfile() {
                     pointsAPI.getTiers()
                 ]);
                 setOrders(ordersData.orders || []);
+                setTotalOrders(ordersData.totalItems || 0);
+                setNextCursor(ordersData.nextCursor || null);
                 setCategories(categoriesData || []);
                 setTiers(tiersData || []);
             } catch (error) {
@@ -141,6 +146,21 @@ export default function CustomerProfile() {
         }
     };
 
+    const handleLoadMoreOrders = async () => {
+        if (!nextCursor || loadingMore) return;
+        setLoadingMore(true);
+        try {
+            const data = await orderAPI.getByCustomer(customer.id, { cursor: nextCursor });
+            setOrders(prev => [...prev, ...(data.orders || [])]);
+            setNextCursor(data.nextCursor || null);
+        } catch (error) {
+            console.error("Failed to load more orders:", error);
+            setMessage({ text: "Không thể tải thêm đơn hàng. Vui lòng thử lại.", type: "error" });
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     // Orders that cannot be deleted
     const NON_DELETABLE_STATUS = ['PENDING', 'CONFIRMED', 'PROCESSING', 'SHIPPING'];
 
@@ -162,6 +182,7 @@ export default function CustomerProfile() {
         try {
             await orderAPI.delete(orderId);
             setOrders(prev => prev.filter(o => o.id !== orderId));
+            setTotalOrders(prev => Math.max(0, prev - 1));
             setMessage({ text: "Đã xóa đơn hàng thành công!", type: "success" });
         } catch (error) {
             console.error("Failed to delete order:", error);
@@ -291,7 +312,7 @@ export default function CustomerProfile() {
 
                                 <div className="profile-stats">
                                     <div className="stat-card">
-                                        <span className="stat-value">{orders.length}</span>
+                                        <span className="stat-value">{totalOrders}</span>
                                         <span className="stat-label">Đơn hàng</span>
                                     </div>
                                     <div className="stat-card">
@@ -507,7 +528,7 @@ export default function CustomerProfile() {
                             <div className="tab-pane">
                                 <div className="profile-section-header">
                                     <h1 className="profile-section-title">Lịch sử đơn hàng</h1>
-                                    <span className="order-count">{orders.length} đơn hàng</span>
+                                    <span className="order-count">{totalOrders} đơn hàng</span>
                                 </div>
 
                                 {message.text && (
@@ -584,6 +605,17 @@ export default function CustomerProfile() {
                                                 </div>
                                             </div>
                                         ))}
+                                        {nextCursor && (
+                                            <div className="orders-load-more">
+                                                <button
+                                                    className="btn-order-detail"
+                                                    onClick={handleLoadMoreOrders}
+                                                    disabled={loadingMore}
+                                                >
+                                                    {loadingMore ? "Đang tải..." : "Xem thêm đơn hàng"}
+                                                </button>
+                                            </div>
+                                        )}
                                     </div>
                                 ) : (
                                     <div className="empty-orders">
@@ -104,6 +104,8 @@ export default function ProductDetail() {
 
                 // Track view_item event for GA4
                 trackViewItem(productData);
+                // Feeds popularity ranking; never block the page on it
+                productAPI.recordView(productData.id).catch(() => {});
 
                 setError(null);
             } catch (err) {
@@ -125,7 +125,7 @@ export default function TrackOrder() {
                             <input
                                 type="text"
                                 id="orderCode"
-                                placeholder="VD: FYD-20260204-ABC123"
+                                placeholder="VD: FYD-01JH3K7Q2M0A5"
                                 value={orderCode}
                                 onChange={(e) => setOrderCode(e.target.value.toUpperCase())}
                                 disabled={loading}
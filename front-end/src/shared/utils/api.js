@@ -162,6 +162,29 @@ export const reportAPI = {
     downloadBlob(blob, filename);
   },
 
+  // Background export: submit, poll getJob until DONE, then downloadJob
+  submitJob: (params) =>
+    fetchAPI('/reports/jobs', {
+      method: 'POST',
+      body: JSON.stringify(params),
+    }),
+
+  getJob: (jobId) => fetchAPI(`/reports/jobs/${jobId}`),
+
+  downloadJob: async (job) => {
+    const url = `${API_BASE}/reports/jobs/${job.id}/download`;
+    const token = getSession();
+
+    const response = await fetch(url, {
+      headers: token ? { 'Authorization': `Bearer ${token}` } : {},
+    });
+
+    if (!response.ok) throw new Error('Download failed');
+
+    const blob = await response.blob();
+    downloadBlob(blob, job.fileName || 'report');
+  },
+
   printInvoice: (orderId) => {
     const url = `${API_BASE}/orders/${orderId}/invoice`;
     window.open(url, '_blank');
@@ -193,6 +216,11 @@ export const productAPI = {
 
   getById: (id) => fetchAPI(`/products/${id}`),
 
+  recordView: (id) => fetchAPI(`/products/${id}/view`, { method: 'POST' }),
+
+  suggest: (q, limit = 8) =>
+    fetchAPI(`/products/suggest?q=${encodeURIComponent(q)}&limit=${limit}`),
+
   getBrands: () => fetchAPI('/products/brands'),
 
   getBySku: (sku) => fetchAPI(`/products/sku/${sku}`),
@@ -248,6 +276,15 @@ export const productAPI = {
   getNew: () => fetchAPI('/products/list/new'),
   getFlashSale: () => fetchAPI('/products/list/flash-sale'),
   getTopSelling: (limit = 10) => fetchAPI(`/products/list/top-selling?limit=${limit}`),
+  // Product, reviews and recommendations in one call; late sections are listed in `degraded`
+  getPage: (id, customerId = null) =>
+    fetchAPI(`/products/${id}/page${customerId ? `?customerId=${customerId}` : ''}`),
+};
+
+// ============ STOREFRONT ============
+export const storefrontAPI = {
+  // Home page sections in one call; sections that timed out are listed in `missing`
+  getHome: () => fetchAPI('/storefront/home'),
 };
 
 // ============ ORDERS ============
@@ -272,6 +309,13 @@ export const orderAPI = {
       method: 'PATCH',
     }),
 
+  // Returns { updated, unchanged, skipped: [{ id, orderCode, reason }] }
+  updateStatusBulk: (ids, status) =>
+    fetchAPI('/orders/status', {
+      method: 'PATCH',
+      body: JSON.stringify({ ids, status }),
+    }),
+
   delete: (id) =>
     fetchAPI(`/orders/${id}`, { method: 'DELETE' }),
 
@@ -367,6 +411,13 @@ export const inventoryAPI = {
     fetchAPI(`/inventory/variant/${variantId}/stock?stock=${stock}`, {
       method: 'PUT',
     }),
+
+  getMovements: (variantId, page = 0, size = 50) =>
+    fetchAPI(`/inventory/variant/${variantId}/movements?page=${page}&size=${size}`),
+
+  // at: ISO local date-time, e.g. 2026-01-31T23:59:59
+  getStockAt: (variantId, at) =>
+    fetchAPI(`/inventory/variant/${variantId}/stock-at?at=${encodeURIComponent(at)}`),
 };
 
 // ============ CATEGORIES ============
@@ -188,6 +188,11 @@ CREATE TABLE product_images (
   is_hover BOOLEAN DEFAULT FALSE,
   sort_order INT DEFAULT 0,
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  status VARCHAR(20),
+  content_hash VARCHAR(64),
+  thumbnail_url VARCHAR(255),
+  srcset VARCHAR(1000),
+  INDEX idx_product_images_hash (content_hash),
   FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
 ) ENGINE=InnoDB;
 
@@ -200,12 +205,37 @@ CREATE TABLE product_variants (
   price_adjustment DECIMAL(12,2) DEFAULT 0,
   stock INT DEFAULT 0,
   status VARCHAR(20) DEFAULT 'ACTIVE',
+  sold_count INT DEFAULT 0,
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
   FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE,
   FOREIGN KEY (color_id) REFERENCES colors(id),
   FOREIGN KEY (size_id) REFERENCES sizes(id),
-  UNIQUE KEY unique_variant (product_id, color_id, size_id)
+  UNIQUE KEY unique_variant (product_id, color_id, size_id),
+  INDEX idx_product_variants_stock (stock, id)
+) ENGINE=InnoDB;
+
+-- Append-only stock journal; no foreign key so history outlives deleted variants
+CREATE TABLE inventory_movements (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  variant_id BIGINT NOT NULL,
+  movement_type VARCHAR(20) NOT NULL,
+  quantity INT NOT NULL,
+  stock_after INT,
+  reference VARCHAR(100),
+  actor VARCHAR(100),
+  occurred_at DATETIME NOT NULL,
+  INDEX idx_inventory_movements_variant (variant_id, id),
+  INDEX idx_inventory_movements_occurred (occurred_at)
+) ENGINE=InnoDB;
+
+CREATE TABLE inventory_snapshots (
+  id BIGINT AUTO_INCREMENT PRIMARY KEY,
+  variant_id BIGINT NOT NULL,
+  stock INT NOT NULL,
+  last_movement_id BIGINT NOT NULL,
+  taken_at DATETIME NOT NULL,
+  INDEX idx_inventory_snapshots_variant (variant_id, taken_at)
 ) ENGINE=InnoDB;
 
 -- ============================================================================
@@ -263,6 +293,7 @@ CREATE TABLE orders (
   shipping_label_url TEXT,
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  search_text VARCHAR(500),
   FOREIGN KEY (customer_id) REFERENCES customers(id),
   FOREIGN KEY (staff_id) REFERENCES users(id)
 ) ENGINE=InnoDB;
@@ -337,6 +368,69 @@ CREATE TABLE IF NOT EXISTS payment_transactions (
     FOREIGN KEY (order_id) REFERENCES orders(id)
 ) ENGINE=InnoDB;
 
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type VARCHAR(40) NOT NULL,
+    handler VARCHAR(30) NOT NULL,
+    aggregate_id BIGINT,
+    payload TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    next_attempt_at DATETIME NOT NULL,
+    created_at DATETIME NOT NULL,
+    processed_at DATETIME NULL,
+    INDEX idx_outbox_status_next (status, next_attempt_at)
+) ENGINE=InnoDB;
+
+-- Order code node id leases (see SnowflakeOrderCodeGenerator)
+CREATE TABLE IF NOT EXISTS order_code_nodes (
+    node_id INT PRIMARY KEY,
+    owner VARCHAR(100) NOT NULL,
+    heartbeat_at DATETIME NOT NULL
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS catalog_changes (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    origin VARCHAR(100) NOT NULL,
+    entity_type VARCHAR(30) NOT NULL,
+    product_id BIGINT,
+    changed_at DATETIME NOT NULL,
+    INDEX idx_catalog_changes_changed (changed_at)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    scope VARCHAR(20) NOT NULL,
+    idem_key VARCHAR(150) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'IN_PROGRESS',
+    request_hash VARCHAR(64),
+    response_status INT,
+    response_body TEXT,
+    created_at DATETIME NOT NULL,
+    completed_at DATETIME NULL,
+    UNIQUE KEY uk_idempotency_scope_key (scope, idem_key)
+) ENGINE=InnoDB;
+
+CREATE TABLE IF NOT EXISTS report_jobs (
+    id VARCHAR(36) PRIMARY KEY,
+    report_type VARCHAR(20) NOT NULL,
+    format VARCHAR(10) NOT NULL,
+    params TEXT,
+    dedupe_key VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'QUEUED',
+    rows_written BIGINT DEFAULT 0,
+    total_rows BIGINT,
+    file_name VARCHAR(100),
+    file_path VARCHAR(500),
+    file_size BIGINT,
+    error VARCHAR(500),
+    created_at DATETIME NOT NULL,
+    finished_at DATETIME,
+    expires_at DATETIME NOT NULL,
+    INDEX idx_report_jobs_expires (expires_at)
+) ENGINE=InnoDB;
+
 CREATE TABLE IF NOT EXISTS featured_zones (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     name VARCHAR(100) NOT NULL,
@@ -484,7 +578,11 @@ CREATE INDEX idx_products_category ON products(category_id);
 CREATE INDEX idx_products_status ON products(status);
 CREATE INDEX idx_orders_status ON orders(status);
 CREATE INDEX idx_orders_created ON orders(created_at);
+CREATE INDEX idx_orders_customer_created ON orders(customer_id, created_at, id);
 CREATE INDEX idx_tracking_number ON orders(tracking_number);
+CREATE INDEX idx_orders_phone ON orders(shipping_phone);
+-- Admin order search (requires ngram_token_size=2, see docker-compose.yml)
+CREATE FULLTEXT INDEX ft_orders_search ON orders(search_text) WITH PARSER ngram;
 
 -- ============================================================================
 -- 7. INITIAL SEEDING